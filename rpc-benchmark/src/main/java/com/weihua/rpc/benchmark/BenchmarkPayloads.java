@@ -0,0 +1,95 @@
+package com.weihua.rpc.benchmark;
+
+import com.weihua.rpc.example.common.model.Order;
+import com.weihua.rpc.example.common.model.User;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试载荷
+ * small为单个用户，large为10000个用户的列表，nested为包含多层对象和集合的订单详情
+ */
+public final class BenchmarkPayloads {
+
+    public static final String SMALL = "small";
+    public static final String LARGE = "large";
+    public static final String NESTED = "nested";
+
+    /**
+     * large载荷的元素数量
+     */
+    public static final int LARGE_SIZE = 10_000;
+
+    private static final long BASE_TIME = 1_700_000_000_000L;
+
+    private BenchmarkPayloads() {
+    }
+
+    public static Object create(String name) {
+        switch (name) {
+            case SMALL:
+                return user(1);
+            case LARGE:
+                List<User> users = new ArrayList<>(LARGE_SIZE);
+                for (int i = 0; i < LARGE_SIZE; i++) {
+                    users.add(user(i));
+                }
+                return users;
+            case NESTED:
+                return orderDetail();
+            default:
+                throw new IllegalArgumentException("未知的载荷: " + name);
+        }
+    }
+
+    static User user(long id) {
+        return User.builder()
+                .id(id)
+                .username("user" + id)
+                .realName("用户" + id)
+                .email("user" + id + "@example.com")
+                .phone("1380000" + String.format("%04d", id % 10000))
+                .status((int) (id % 3))
+                .createTime(new Date(BASE_TIME + id))
+                .updateTime(new Date(BASE_TIME + id * 2))
+                .build();
+    }
+
+    static Order order(long id, long userId) {
+        return Order.builder()
+                .id("ORD" + id)
+                .userId(userId)
+                .amount(new BigDecimal("99.90").add(BigDecimal.valueOf(id)))
+                .payStatus(1)
+                .orderStatus(2)
+                .paymentId("PAY" + id)
+                .createTime(new Date(BASE_TIME + id))
+                .payTime(new Date(BASE_TIME + id + 60_000))
+                .updateTime(new Date(BASE_TIME + id + 120_000))
+                .build();
+    }
+
+    static OrderDetail orderDetail() {
+        OrderDetail detail = new OrderDetail();
+        detail.setOrder(order(1, 1));
+        detail.setBuyer(user(1));
+
+        List<Order> history = new ArrayList<>();
+        for (int i = 2; i < 22; i++) {
+            history.add(order(i, 1));
+        }
+        detail.setHistory(history);
+
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("channel", "app");
+        tags.put("region", "cn-east");
+        tags.put("coupon", "SPRING2025");
+        detail.setTags(tags);
+        return detail;
+    }
+}
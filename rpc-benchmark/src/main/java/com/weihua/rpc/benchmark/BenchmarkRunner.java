@@ -0,0 +1,27 @@
+package com.weihua.rpc.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 默认附加GC分析器，结果中的gc.alloc.rate.norm为每次操作的分配字节数。其余参数与JMH命令行一致，例如：
+ *
+ * <pre>
+ * mvn -pl rpc-benchmark -am package -DskipTests
+ * java -jar rpc-benchmark/target/benchmarks.jar SerializerBenchmark -p serializer=kryo,binary -p payload=large
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.weihua.rpc.benchmark;
+
+import com.weihua.rpc.common.extension.ExtensionLoader;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.codec.RpcDecoder;
+import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import com.weihua.rpc.core.serialize.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协议编解码基准测试
+ * 通过EmbeddedChannel完整执行RpcEncoder编码和RpcDecoder解码，包括协议头、附加信息，以及大消息的分块和重组
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"json", "protobuf", "kryo", "hessian", "binary"})
+    private String serializer;
+
+    @Param({BenchmarkPayloads.SMALL, BenchmarkPayloads.LARGE, BenchmarkPayloads.NESTED})
+    private String payload;
+
+    // 客户端：编码请求、解码响应
+    private EmbeddedChannel client;
+
+    // 服务端：解码请求、编码响应
+    private EmbeddedChannel server;
+
+    private RpcRequest request;
+    private RpcResponse<Object> response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Serializer instance = ExtensionLoader.getExtensionLoader(Serializer.class).getExtension(serializer);
+        Object data = BenchmarkPayloads.create(payload);
+
+        client = new EmbeddedChannel();
+        client.pipeline().addLast("encoder", new RpcEncoder(instance, RpcProtocol.VERSION_2));
+        client.pipeline().addLast("decoder", new RpcDecoder(instance));
+
+        // 解码器根据serverHandler判断是否为服务端
+        server = new EmbeddedChannel();
+        server.pipeline().addLast("decoder", new RpcDecoder(instance));
+        server.pipeline().addLast("encoder", new RpcEncoder(instance, RpcProtocol.VERSION_2));
+        server.pipeline().addLast("serverHandler", new ChannelInboundHandlerAdapter());
+
+        request = RpcRequest.builder()
+                .requestId("1")
+                .interfaceName("com.weihua.rpc.example.common.api.UserService")
+                .methodName("echo")
+                .parameterTypes(new Class<?>[]{data.getClass()})
+                .parameters(new Object[]{data})
+                .version("1.0.0")
+                .group("default")
+                .build();
+        response = RpcResponse.success("1", data);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.finishAndReleaseAll();
+        server.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public Object requestRoundTrip() {
+        client.writeOutbound(request);
+        transfer(client, server);
+        return server.readInbound();
+    }
+
+    @Benchmark
+    public Object responseRoundTrip() {
+        server.writeOutbound(response);
+        transfer(server, client);
+        return client.readInbound();
+    }
+
+    /**
+     * 把一端编码出的所有帧交给另一端解码
+     */
+    private static void transfer(EmbeddedChannel from, EmbeddedChannel to) {
+        ByteBuf frame;
+        while ((frame = from.readOutbound()) != null) {
+            to.writeInbound(frame);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.weihua.rpc.benchmark;
+
+import com.weihua.rpc.core.serialize.codec.RpcCodec;
+import com.weihua.rpc.example.common.model.Order;
+import com.weihua.rpc.example.common.model.User;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 嵌套载荷：订单详情包含订单、下单用户、历史订单和扩展属性
+ */
+@Data
+@NoArgsConstructor
+@RpcCodec
+public class OrderDetail implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Order order;
+
+    private User buyer;
+
+    private List<Order> history;
+
+    private Map<String, String> tags;
+}
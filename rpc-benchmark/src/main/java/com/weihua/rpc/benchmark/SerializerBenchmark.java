@@ -0,0 +1,80 @@
+package com.weihua.rpc.benchmark;
+
+import com.weihua.rpc.common.extension.ExtensionLoader;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.serialize.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化器基准测试
+ * 对每个Serializer扩展分别测量序列化和反序列化一个RpcResponse的耗时，响应数据为不同大小的载荷。
+ * 序列化写入复用的ByteBuf，与编码器的用法一致
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"json", "protobuf", "kryo", "hessian", "binary"})
+    private String serializer;
+
+    @Param({BenchmarkPayloads.SMALL, BenchmarkPayloads.LARGE, BenchmarkPayloads.NESTED})
+    private String payload;
+
+    private Serializer instance;
+    private RpcResponse<Object> response;
+
+    // 序列化目标缓冲区
+    private ByteBuf out;
+
+    // 预先序列化好的消息体
+    private ByteBuf serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        instance = ExtensionLoader.getExtensionLoader(Serializer.class).getExtension(serializer);
+        response = RpcResponse.success("1", BenchmarkPayloads.create(payload));
+
+        out = PooledByteBufAllocator.DEFAULT.heapBuffer(4096);
+        serialized = PooledByteBufAllocator.DEFAULT.heapBuffer(4096);
+        instance.serialize(response, serialized);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        out.release();
+        serialized.release();
+    }
+
+    @Benchmark
+    public ByteBuf serialize() {
+        out.clear();
+        instance.serialize(response, out);
+        return out;
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        serialized.readerIndex(0);
+        return instance.deserialize(serialized, RpcResponse.class);
+    }
+}
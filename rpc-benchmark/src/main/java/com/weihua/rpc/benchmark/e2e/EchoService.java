@@ -0,0 +1,25 @@
+package com.weihua.rpc.benchmark.e2e;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 压测服务接口
+ */
+public interface EchoService {
+
+    /**
+     * 原样返回请求载荷
+     *
+     * @param payload 请求载荷
+     * @return 同一载荷
+     */
+    Object echo(Object payload);
+
+    /**
+     * 异步原样返回请求载荷，客户端不阻塞调用线程
+     *
+     * @param payload 请求载荷
+     * @return 以同一载荷完成的Future
+     */
+    CompletableFuture<Object> echoAsync(Object payload);
+}
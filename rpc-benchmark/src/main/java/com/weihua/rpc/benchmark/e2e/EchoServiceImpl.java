@@ -0,0 +1,22 @@
+package com.weihua.rpc.benchmark.e2e;
+
+import com.weihua.rpc.spring.annotation.RpcService;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 压测服务实现，不做任何业务处理，测得的延迟全部来自框架本身
+ */
+@RpcService
+public class EchoServiceImpl implements EchoService {
+
+    @Override
+    public Object echo(Object payload) {
+        return payload;
+    }
+
+    @Override
+    public CompletableFuture<Object> echoAsync(Object payload) {
+        return CompletableFuture.completedFuture(payload);
+    }
+}
@@ -0,0 +1,161 @@
+package com.weihua.rpc.benchmark.e2e;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环负载生成器
+ * 按固定到达率计划每个请求的发出时间，请求依次分配给各消费者的调用线程池，与已发出请求是否完成无关。
+ * 延迟从计划发出时间开始计算，调用线程全部阻塞时的排队时间也计入延迟，避免协调遗漏（coordinated omission）。
+ * 异步模式下调用线程只负责发出请求，不等待结果，并发请求数不受调用线程数限制
+ */
+@Slf4j
+public class LoadGenerator {
+
+    // 可记录的最大延迟：1分钟，单位微秒
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final List<EchoService> clients;
+    private final int threadsPerClient;
+    private final Object payload;
+    private final boolean async;
+
+    /**
+     * @param clients          消费者的服务代理
+     * @param threadsPerClient 每个消费者的调用线程数，同步模式下即单个消费者的最大并发请求数
+     * @param payload          请求载荷
+     * @param async            是否使用返回CompletableFuture的异步接口
+     */
+    public LoadGenerator(List<EchoService> clients, int threadsPerClient, Object payload, boolean async) {
+        this.clients = clients;
+        this.threadsPerClient = threadsPerClient;
+        this.payload = payload;
+        this.async = async;
+    }
+
+    /**
+     * 执行一次压测
+     *
+     * @param rate     所有消费者合计的每秒请求数
+     * @param warmup   预热时长，期间的请求不计入结果
+     * @param duration 测量时长
+     * @param drain    测量结束后等待未完成请求的最长时间
+     * @return 压测结果
+     */
+    public LoadTestResult run(int rate, Duration warmup, Duration duration, Duration drain)
+            throws InterruptedException {
+        List<ExecutorService> executors = new ArrayList<>(clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            executors.add(Executors.newFixedThreadPool(threadsPerClient, namedThreadFactory("load-client-" + i)));
+        }
+
+        Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        LongAdder completed = new LongAdder();
+        LongAdder completedInWindow = new LongAdder();
+        AtomicLong pending = new AtomicLong();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long measureEnd = measureStart + duration.toNanos();
+        long sent = 0;
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= measureEnd) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+
+            boolean measured = intended >= measureStart;
+            if (measured) {
+                sent++;
+            }
+            EchoService client = clients.get((int) (i % clients.size()));
+            Recording recording = result -> {
+                // 熔断器打开时代理返回null，按失败处理
+                if (result == null) {
+                    return;
+                }
+                long finished = System.nanoTime();
+                if (measured) {
+                    recorder.recordValue(Math.min((finished - intended) / 1000, HIGHEST_TRACKABLE_MICROS));
+                    completed.increment();
+                }
+                if (finished >= measureStart && finished < measureEnd) {
+                    completedInWindow.increment();
+                }
+            };
+            executors.get((int) (i % clients.size())).execute(() -> {
+                try {
+                    if (!async) {
+                        recording.record(client.echo(payload));
+                        return;
+                    }
+                    pending.incrementAndGet();
+                    client.echoAsync(payload).whenComplete((result, throwable) -> {
+                        pending.decrementAndGet();
+                        if (throwable != null) {
+                            log.debug("请求失败: {}", throwable.getMessage());
+                        } else {
+                            recording.record(result);
+                        }
+                    });
+                } catch (Exception e) {
+                    log.debug("请求失败: {}", e.getMessage());
+                }
+            });
+        }
+
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        long drainDeadline = System.nanoTime() + drain.toNanos();
+        for (ExecutorService executor : executors) {
+            if (!executor.awaitTermination(Math.max(0, drainDeadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+        while (pending.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // 失败和超过等待时间仍未完成的请求都计为错误
+        Histogram latency = recorder.getIntervalHistogram();
+        long succeeded = completed.sum();
+        double throughput = completedInWindow.sum() / (duration.toNanos() / 1e9);
+        return new LoadTestResult(sent, succeeded, sent - succeeded, throughput, latency);
+    }
+
+    /**
+     * 记录一次调用结果
+     */
+    private interface Recording {
+        void record(Object result);
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,201 @@
+package com.weihua.rpc.benchmark.e2e;
+
+import com.weihua.rpc.core.client.cache.ServiceAddressCache;
+import com.weihua.rpc.core.client.config.DiscoveryConfig;
+import com.weihua.rpc.core.client.invoker.InvokerManager;
+import com.weihua.rpc.core.client.proxy.ClientProxyFactory;
+import com.weihua.rpc.core.client.registry.ServiceDiscovery;
+import com.weihua.rpc.core.client.registry.impl.LocalServiceDiscovery;
+import com.weihua.rpc.core.protocol.EventLoopMetrics;
+import com.weihua.rpc.core.server.RpcServer;
+import com.weihua.rpc.core.server.netty.NettyRpcServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单JVM压测集群
+ * 每个提供者和消费者都是独立的Spring Boot上下文，通过回环地址通信，使用本地注册中心发现服务，
+ * 调用路径与实际部署完全一致：代理 → NettyRpcClient → ChannelInvoker → 编解码 → NettyRpcServer → 服务实现
+ */
+@Slf4j
+public class LoadTestCluster implements AutoCloseable {
+
+    private static final String HOST = "127.0.0.1";
+
+    private final List<ConfigurableApplicationContext> providers = new ArrayList<>();
+    private final List<ConfigurableApplicationContext> consumers = new ArrayList<>();
+    private final List<EchoService> clients = new ArrayList<>();
+
+    private LoadTestCluster() {
+    }
+
+    /**
+     * 启动集群，先启动全部提供者再启动消费者
+     *
+     * @param scenario       压测参数
+     * @param providerCount  提供者数量
+     * @param consumerCount  消费者数量
+     * @param requestTimeout 请求超时时间
+     * @return 已启动的集群
+     */
+    public static LoadTestCluster start(LoadTestScenario scenario, int providerCount, int consumerCount,
+            Duration requestTimeout) {
+        LoadTestCluster cluster = new LoadTestCluster();
+        try {
+            for (int i = 0; i < providerCount; i++) {
+                cluster.providers.add(startProvider(scenario, freePort()));
+            }
+            for (int i = 0; i < consumerCount; i++) {
+                ConfigurableApplicationContext consumer = startConsumer(scenario, requestTimeout);
+                cluster.consumers.add(consumer);
+                // 压测开始前完成服务发现，EAGER模式下同时建立连接
+                consumer.getBean(ServiceDiscovery.class).forceSync(EchoService.class.getName());
+                cluster.clients.add(consumer.getBean(ClientProxyFactory.class).getProxy(EchoService.class));
+            }
+            return cluster;
+        } catch (RuntimeException e) {
+            cluster.close();
+            throw e;
+        }
+    }
+
+    private static ConfigurableApplicationContext startProvider(LoadTestScenario scenario, int port) {
+        Map<String, Object> properties = commonProperties(scenario);
+        properties.put("rpc.mode", "server");
+        properties.put("rpc.server.host", HOST);
+        properties.put("rpc.server.port", port);
+        properties.put("rpc.ratelimit.enabled", false);
+        properties.put("rpc.server.event-loop-probe-enabled", true);
+        if (scenario.getDecodeOffloadThreshold() >= 0) {
+            properties.put("rpc.server.decode-offload-enabled", true);
+            properties.put("rpc.server.decode-offload-threshold", scenario.getDecodeOffloadThreshold());
+        }
+        return run(ProviderApplication.class, properties);
+    }
+
+    private static ConfigurableApplicationContext startConsumer(LoadTestScenario scenario, Duration requestTimeout) {
+        Map<String, Object> properties = commonProperties(scenario);
+        properties.put("rpc.mode", "client");
+        properties.put("rpc.client.load-balance", scenario.getLoadBalance());
+        properties.put("rpc.client.connection-mode", scenario.getConnectionMode());
+        properties.put("rpc.client.connections-per-address", scenario.getConnections());
+        properties.put("rpc.client.request-timeout", requestTimeout.toMillis() + "ms");
+        properties.put("rpc.client.retry-enable", false);
+        properties.put("rpc.client.circuit-breaker-enable", false);
+        return run(ConsumerApplication.class, properties);
+    }
+
+    private static Map<String, Object> commonProperties(LoadTestScenario scenario) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("rpc.discovery.type", "local");
+        properties.put("rpc.serialize.type", scenario.getSerializer());
+        properties.put("rpc.server.pre-encode-enabled", scenario.isPreEncode());
+        properties.put("rpc.client.pre-encode-enabled", scenario.isPreEncode());
+        return properties;
+    }
+
+    private static ConfigurableApplicationContext run(Class<?> source, Map<String, Object> properties) {
+        return new SpringApplicationBuilder(source)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .registerShutdownHook(false)
+                .properties(properties)
+                .run();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException("无法分配端口", e);
+        }
+    }
+
+    /**
+     * 每个提供者的IO线程统计
+     */
+    public List<EventLoopMetrics> getProviderMetrics() {
+        List<EventLoopMetrics> metrics = new ArrayList<>(providers.size());
+        for (ConfigurableApplicationContext provider : providers) {
+            metrics.add(((NettyRpcServer) provider.getBean(RpcServer.class)).getEventLoopMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * 每个消费者一个服务代理
+     */
+    public List<EchoService> getClients() {
+        return clients;
+    }
+
+    @Override
+    public void close() {
+        for (ConfigurableApplicationContext consumer : consumers) {
+            closeQuietly(consumer);
+        }
+        for (ConfigurableApplicationContext provider : providers) {
+            closeQuietly(provider);
+        }
+        consumers.clear();
+        providers.clear();
+        clients.clear();
+    }
+
+    private static void closeQuietly(ConfigurableApplicationContext context) {
+        try {
+            context.close();
+        } catch (Exception e) {
+            log.warn("关闭上下文失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 提供者应用
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    @Import(EchoServiceImpl.class)
+    static class ProviderApplication {
+    }
+
+    /**
+     * 消费者应用
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    static class ConsumerApplication {
+
+        /**
+         * 每个消费者使用独立的服务发现实例
+         * ServiceDiscoveryFactory在进程内只创建一个实例，多个消费者共用时会共享第一个消费者的连接
+         */
+        @Bean
+        public ServiceDiscovery serviceDiscovery(DiscoveryConfig discoveryConfig,
+                ServiceAddressCache addressCache, InvokerManager invokerManager) {
+            LocalServiceDiscovery discovery = new LocalServiceDiscovery();
+            discovery.setDiscoveryConfig(discoveryConfig);
+            discovery.setAddressCache(addressCache);
+            discovery.setInvokerManager(invokerManager);
+            discovery.init();
+            return discovery;
+        }
+    }
+}
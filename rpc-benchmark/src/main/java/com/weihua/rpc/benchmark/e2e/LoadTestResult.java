@@ -0,0 +1,47 @@
+package com.weihua.rpc.benchmark.e2e;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 单组参数的压测结果
+ * 延迟从请求的计划发出时间开始计算，单位为微秒
+ */
+@Getter
+@AllArgsConstructor
+public class LoadTestResult {
+
+    /**
+     * 测量阶段计划发出的请求数
+     */
+    private final long sent;
+
+    /**
+     * 成功完成的请求数
+     */
+    private final long completed;
+
+    /**
+     * 失败或在等待期内未完成的请求数
+     */
+    private final long errors;
+
+    /**
+     * 测量窗口内每秒完成的请求数
+     */
+    private final double throughput;
+
+    /**
+     * 成功请求的延迟分布
+     */
+    private final Histogram latency;
+
+    public double percentileMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double maxMillis() {
+        return latency.getMaxValue() / 1000.0;
+    }
+}
@@ -0,0 +1,168 @@
+package com.weihua.rpc.benchmark.e2e;
+
+import com.weihua.rpc.benchmark.BenchmarkPayloads;
+import com.weihua.rpc.common.extension.ExtensionLoader;
+import com.weihua.rpc.core.client.registry.balance.LoadBalance;
+import com.weihua.rpc.core.protocol.EventLoopMetrics;
+import com.weihua.rpc.core.serialize.Serializer;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.TreeSet;
+
+/**
+ * 端到端压测入口
+ * 在同一JVM内启动N个提供者和M个消费者，以固定到达率施加开环负载，输出吞吐量和p50/p99/p999延迟。
+ * 负载均衡、序列化方式、连接模式、解码卸载阈值、预编码开关和连接数按参数矩阵逐组运行，每组使用新启动的集群。
+ * 同时输出提供者IO线程的平均和最大任务延迟，用于对比解码卸载和预编码前后的效果。
+ *
+ * <pre>
+ * mvn -pl rpc-benchmark -am package -DskipTests
+ * java -cp rpc-benchmark/target/benchmarks.jar com.weihua.rpc.benchmark.e2e.LoadTestRunner \
+ *     --providers=3 --consumers=2 --rate=5000 --serializer=kryo,binary --load-balance=random,roundRobin
+ * </pre>
+ *
+ * 参数（多个取值用逗号分隔，未指定时负载均衡和序列化方式取全部扩展）：
+ * <ul>
+ * <li>providers：提供者数量，默认3</li>
+ * <li>consumers：消费者数量，默认2</li>
+ * <li>rate：所有消费者合计的每秒请求数，默认2000</li>
+ * <li>threads：每个消费者的调用线程数，默认32</li>
+ * <li>async：是否使用返回CompletableFuture的异步接口，默认false</li>
+ * <li>payload：small、large或nested，默认small</li>
+ * <li>warmup / duration：预热和测量时长，默认5s / 10s</li>
+ * <li>timeout：请求超时时间，默认5s</li>
+ * <li>load-balance / serializer / connection-mode：参数矩阵</li>
+ * <li>decode-offload：服务端解码卸载阈值(字节)矩阵，off表示不卸载，默认off</li>
+ * <li>pre-encode：是否在业务线程中预编码请求和响应，可取false,true，默认false</li>
+ * <li>connections：每个消费者到每个提供者的连接数矩阵，默认1</li>
+ * </ul>
+ */
+public class LoadTestRunner {
+
+    private static final String ROW_FORMAT = "%-56s %8s %8s %7s %10s %9s %9s %9s %9s %11s %11s%n";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+
+        int providers = Integer.parseInt(options.getOrDefault("providers", "3"));
+        int consumers = Integer.parseInt(options.getOrDefault("consumers", "2"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "2000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "32"));
+        boolean async = Boolean.parseBoolean(options.getOrDefault("async", "false"));
+        String payloadName = options.getOrDefault("payload", BenchmarkPayloads.SMALL);
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "5s"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "10s"));
+        Duration timeout = DurationStyle.detectAndParse(options.getOrDefault("timeout", "5s"));
+
+        List<String> loadBalances = values(options, "load-balance",
+                new TreeSet<>(ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtensions().keySet()));
+        List<String> serializers = values(options, "serializer",
+                new TreeSet<>(ExtensionLoader.getExtensionLoader(Serializer.class).getExtensions().keySet()));
+        List<String> connectionModes = values(options, "connection-mode", Arrays.asList("EAGER", "LAZY"));
+        List<Integer> decodeOffloads = values(options, "decode-offload", Arrays.asList("off")).stream()
+                .map(value -> "off".equals(value) ? -1 : Integer.parseInt(value))
+                .collect(Collectors.toList());
+        List<Boolean> preEncodes = values(options, "pre-encode", Arrays.asList("false")).stream()
+                .map(Boolean::parseBoolean)
+                .collect(Collectors.toList());
+        List<Integer> connectionCounts = values(options, "connections", Arrays.asList("1")).stream()
+                .map(Integer::parseInt)
+                .collect(Collectors.toList());
+
+        Object payload = BenchmarkPayloads.create(payloadName);
+        System.out.printf("providers=%d consumers=%d rate=%d/s threads=%d async=%s payload=%s warmup=%s duration=%s%n",
+                providers, consumers, rate, threads, async, payloadName, warmup, duration);
+        System.out.printf(ROW_FORMAT, "scenario", "sent", "ok", "errors", "ops/s",
+                "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "lagAvg(us)", "lagMax(us)");
+
+        for (String loadBalance : loadBalances) {
+            for (String serializer : serializers) {
+                for (String connectionMode : connectionModes) {
+                    for (int decodeOffload : decodeOffloads) {
+                        for (boolean preEncode : preEncodes) {
+                            for (int connections : connectionCounts) {
+                                LoadTestScenario scenario = new LoadTestScenario(loadBalance, serializer,
+                                        connectionMode, decodeOffload, preEncode, connections);
+                                run(scenario, providers, consumers, rate, threads, async, payload, warmup,
+                                        duration, timeout);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // 部分客户端组件的后台线程不是守护线程
+        System.exit(0);
+    }
+
+    private static void run(LoadTestScenario scenario, int providers, int consumers, int rate, int threads,
+            boolean async, Object payload, Duration warmup, Duration duration, Duration timeout) {
+        try (LoadTestCluster cluster = LoadTestCluster.start(scenario, providers, consumers, timeout)) {
+            List<EventLoopMetrics> metrics = cluster.getProviderMetrics();
+            metrics.forEach(EventLoopMetrics::reset);
+            LoadTestResult result = new LoadGenerator(cluster.getClients(), threads, payload, async)
+                    .run(rate, warmup, duration, timeout);
+            Map<String, Object> loopStats = mergeLoopStats(metrics);
+            System.out.printf(ROW_FORMAT, scenario, result.getSent(), result.getCompleted(), result.getErrors(),
+                    String.format("%.1f", result.getThroughput()),
+                    String.format("%.3f", result.percentileMillis(50)),
+                    String.format("%.3f", result.percentileMillis(99)),
+                    String.format("%.3f", result.percentileMillis(99.9)),
+                    String.format("%.3f", result.maxMillis()),
+                    loopStats.get("loopLagAvgMicros"), loopStats.get("loopLagMaxMicros"));
+        } catch (Exception e) {
+            System.out.printf("%-56s 失败: %s%n", scenario, e.getMessage());
+        }
+    }
+
+    /**
+     * 合并各提供者的任务延迟：平均值按探测次数加权，最大值取各提供者的最大值
+     */
+    private static Map<String, Object> mergeLoopStats(List<EventLoopMetrics> metrics) {
+        long count = 0;
+        long weightedAvg = 0;
+        long max = 0;
+        for (EventLoopMetrics metric : metrics) {
+            Map<String, Object> stats = metric.getStats();
+            long lagCount = (Long) stats.get("loopLagCount");
+            count += lagCount;
+            weightedAvg += lagCount * (Long) stats.get("loopLagAvgMicros");
+            max = Math.max(max, (Long) stats.get("loopLagMaxMicros"));
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("loopLagAvgMicros", count > 0 ? weightedAvg / count : 0);
+        result.put("loopLagMaxMicros", max);
+        return result;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("参数格式应为--name=value: " + arg);
+            }
+            int index = arg.indexOf('=');
+            options.put(arg.substring(2, index), arg.substring(index + 1));
+        }
+        return options;
+    }
+
+    private static List<String> values(Map<String, String> options, String name, Iterable<String> defaults) {
+        List<String> values = new ArrayList<>();
+        String value = options.get(name);
+        if (value == null) {
+            defaults.forEach(values::add);
+        } else {
+            values.addAll(Arrays.asList(value.split(",")));
+        }
+        return values;
+    }
+}
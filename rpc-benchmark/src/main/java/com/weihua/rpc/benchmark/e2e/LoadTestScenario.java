@@ -0,0 +1,54 @@
+package com.weihua.rpc.benchmark.e2e;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 压测矩阵中的一组参数
+ */
+@Getter
+@AllArgsConstructor
+public class LoadTestScenario {
+
+    /**
+     * 负载均衡策略，对应LoadBalance扩展名
+     */
+    private final String loadBalance;
+
+    /**
+     * 序列化方式，对应Serializer扩展名
+     */
+    private final String serializer;
+
+    /**
+     * 连接模式：EAGER或LAZY
+     */
+    private final String connectionMode;
+
+    /**
+     * 服务端解码卸载阈值(字节)，小于0表示在IO线程反序列化
+     */
+    private final int decodeOffloadThreshold;
+
+    /**
+     * 是否在业务线程中预编码请求和响应
+     */
+    private final boolean preEncode;
+
+    /**
+     * 每个消费者到每个提供者的连接数
+     */
+    private final int connections;
+
+    @Override
+    public String toString() {
+        String name = loadBalance + "/" + serializer + "/" + connectionMode;
+        if (decodeOffloadThreshold >= 0) {
+            name += "/offload>=" + decodeOffloadThreshold;
+        }
+        if (preEncode) {
+            name += "/pre-encode";
+        }
+        return connections > 1 ? name + "/conn=" + connections : name;
+    }
+}
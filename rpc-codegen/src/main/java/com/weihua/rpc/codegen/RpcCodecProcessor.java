@@ -0,0 +1,388 @@
+package com.weihua.rpc.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 二进制编解码器注解处理器
+ * 为标注了RpcCodec的类以及RpcCodecs中列出的类生成BinaryCodec实现，
+ * 字段按父类到子类、声明顺序排列，通过getter/setter读写，并把生成的类登记到META-INF/services。
+ *
+ * 处理器只按名称引用rpc-core中的注解和运行时类型，自身不依赖rpc-core
+ */
+@SupportedAnnotationTypes({RpcCodecProcessor.RPC_CODEC, RpcCodecProcessor.RPC_CODECS})
+public class RpcCodecProcessor extends AbstractProcessor {
+
+    static final String RPC_CODEC = "com.weihua.rpc.core.serialize.codec.RpcCodec";
+    static final String RPC_CODECS = "com.weihua.rpc.core.serialize.codec.RpcCodecs";
+
+    private static final String CODEC_PACKAGE = "com.weihua.rpc.core.serialize.codec";
+    private static final String SERVICE_FILE = "META-INF/services/" + CODEC_PACKAGE + ".BinaryCodec";
+    private static final String CODEC_SUFFIX = "_RpcCodec";
+
+    /**
+     * 基本类型和包装类型对应的读写方法后缀
+     */
+    private static final Map<String, String> BOXED_TYPES = new LinkedHashMap<>();
+
+    /**
+     * 有专用读写方法的引用类型
+     */
+    private static final Map<String, String> VALUE_TYPES = new LinkedHashMap<>();
+
+    static {
+        BOXED_TYPES.put("java.lang.Boolean", "Boolean");
+        BOXED_TYPES.put("java.lang.Byte", "Byte");
+        BOXED_TYPES.put("java.lang.Short", "Short");
+        BOXED_TYPES.put("java.lang.Character", "Char");
+        BOXED_TYPES.put("java.lang.Integer", "Int");
+        BOXED_TYPES.put("java.lang.Long", "Long");
+        BOXED_TYPES.put("java.lang.Float", "Float");
+        BOXED_TYPES.put("java.lang.Double", "Double");
+
+        VALUE_TYPES.put("java.lang.String", "String");
+        VALUE_TYPES.put("java.math.BigDecimal", "BigDecimal");
+        VALUE_TYPES.put("java.math.BigInteger", "BigInteger");
+        VALUE_TYPES.put("java.util.Date", "Date");
+    }
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    // 本次编译生成的编解码器全名
+    private final Set<String> generated = new LinkedHashSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+
+        TypeElement codecAnnotation = elements.getTypeElement(RPC_CODEC);
+        if (codecAnnotation != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(codecAnnotation)) {
+                TypeElement type = (TypeElement) element;
+                generate(type, packageOf(type), element);
+            }
+        }
+
+        TypeElement codecsAnnotation = elements.getTypeElement(RPC_CODECS);
+        if (codecsAnnotation != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(codecsAnnotation)) {
+                String packageName = packageOf((TypeElement) element);
+                for (TypeElement type : includedTypes(element)) {
+                    generate(type, packageName, element);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type, String packageName, Element origin) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "只能为具体类生成编解码器: " + type, origin);
+            return;
+        }
+
+        String codecName = codecSimpleName(type);
+        String qualifiedName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+        if (!generated.add(qualifiedName)) {
+            return;
+        }
+
+        String typeName = types.erasure(type.asType()).toString();
+        boolean generic = !type.getTypeParameters().isEmpty();
+
+        StringBuilder write = new StringBuilder();
+        StringBuilder read = new StringBuilder();
+        for (VariableElement field : fieldsOf(type)) {
+            appendField(field, write, read);
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import ").append(CODEC_PACKAGE).append(".BinaryCodec;\n")
+                .append("import ").append(CODEC_PACKAGE).append(".CodecInput;\n")
+                .append("import ").append(CODEC_PACKAGE).append(".CodecOutput;\n\n")
+                .append("/**\n * ").append(typeName).append("的二进制编解码器，由RpcCodecProcessor生成，请勿修改\n */\n")
+                .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        if (generic) {
+            source.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        } else {
+            source.append("@SuppressWarnings(\"unchecked\")\n");
+        }
+        source.append("public final class ").append(codecName).append(" implements BinaryCodec<").append(typeName)
+                .append("> {\n\n")
+                .append("    public static final ").append(codecName).append(" INSTANCE = new ").append(codecName)
+                .append("();\n\n")
+                .append("    @Override\n")
+                .append("    public Class<").append(typeName).append("> type() {\n")
+                .append("        return ").append(typeName).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void write(CodecOutput out, ").append(typeName).append(" value) {\n")
+                .append(write)
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public ").append(typeName).append(" read(CodecInput in) {\n")
+                .append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n")
+                .append(read)
+                .append("        return value;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        try (Writer writer = filer.createSourceFile(qualifiedName, origin).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "生成编解码器失败: " + e.getMessage(), origin);
+        }
+    }
+
+    /**
+     * 按字段类型生成读写语句：基本类型和常用值类型使用专用方法，标注了RpcCodec的类型直接调用其编解码器，
+     * 其余类型写入类型标签
+     */
+    private void appendField(VariableElement field, StringBuilder write, StringBuilder read) {
+        TypeMirror fieldType = field.asType();
+        String getter = "value." + getterName(field) + "()";
+        String setter = "value." + setterName(field);
+
+        if (fieldType.getKind().isPrimitive()) {
+            String suffix = capitalize(fieldType.toString());
+            write.append("        out.write").append(suffix).append('(').append(getter).append(");\n");
+            read.append("        ").append(setter).append("(in.read").append(suffix).append("());\n");
+            return;
+        }
+
+        String erasure = types.erasure(fieldType).toString();
+        if (BOXED_TYPES.containsKey(erasure)) {
+            String suffix = BOXED_TYPES.get(erasure);
+            write.append("        out.writeNullable").append(suffix).append('(').append(getter).append(");\n");
+            read.append("        ").append(setter).append("(in.readNullable").append(suffix).append("());\n");
+        } else if (VALUE_TYPES.containsKey(erasure)) {
+            String suffix = VALUE_TYPES.get(erasure);
+            write.append("        out.write").append(suffix).append('(').append(getter).append(");\n");
+            read.append("        ").append(setter).append("(in.read").append(suffix).append("());\n");
+        } else if ("byte[]".equals(erasure)) {
+            write.append("        out.writeBytes(").append(getter).append(");\n");
+            read.append("        ").append(setter).append("(in.readBytes());\n");
+        } else if (isEnum(fieldType)) {
+            write.append("        out.writeEnum(").append(getter).append(");\n");
+            read.append("        ").append(setter).append("(in.readEnum(").append(erasure).append(".class));\n");
+        } else if (hasCodecAnnotation(fieldType)) {
+            TypeElement fieldElement = (TypeElement) types.asElement(fieldType);
+            String codec = packageOf(fieldElement) + "." + codecSimpleName(fieldElement) + ".INSTANCE";
+            write.append("        out.writeMessage(").append(getter).append(", ").append(codec).append(");\n");
+            read.append("        ").append(setter).append("(in.readMessage(").append(codec).append("));\n");
+        } else {
+            write.append("        out.writeObject(").append(getter).append(");\n");
+            read.append("        ").append(setter).append("((").append(erasure).append(") in.readObject());\n");
+        }
+    }
+
+    /**
+     * 收集父类到子类的实例字段，跳过static和transient字段
+     */
+    private List<VariableElement> fieldsOf(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement current = type; current != null; current = superclassOf(current)) {
+            if ("java.lang.Object".equals(current.getQualifiedName().toString())) {
+                break;
+            }
+            hierarchy.add(current);
+        }
+        Collections.reverse(hierarchy);
+
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement current : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+    }
+
+    /**
+     * 读取RpcCodecs注解中列出的类
+     */
+    private List<TypeElement> includedTypes(Element element) {
+        List<TypeElement> included = new ArrayList<>();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!RPC_CODECS.equals(mirror.getAnnotationType().toString())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet()) {
+                if (!"value".contentEquals(entry.getKey().getSimpleName())) {
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                for (AnnotationValue value : values) {
+                    included.add((TypeElement) types.asElement((TypeMirror) value.getValue()));
+                }
+            }
+        }
+        return included;
+    }
+
+    /**
+     * 合并已有的登记文件后写出，避免增量编译丢失未重新处理的编解码器
+     */
+    private void writeServiceFile() {
+        if (generated.isEmpty()) {
+            return;
+        }
+
+        Set<String> entries = new LinkedHashSet<>();
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Reader reader = existing.openReader(true); BufferedReader lines = new BufferedReader(reader)) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        entries.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // 首次编译时文件不存在
+        }
+        entries.addAll(generated);
+
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "写入编解码器登记文件失败: " + e.getMessage());
+        }
+    }
+
+    private boolean isEnum(TypeMirror type) {
+        Element element = types.asElement(type);
+        return element != null && element.getKind() == ElementKind.ENUM;
+    }
+
+    private boolean hasCodecAnnotation(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        Element element = ((DeclaredType) type).asElement();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (RPC_CODEC.equals(mirror.getAnnotationType().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 嵌套类的编解码器名称包含外部类名，如Outer_Inner_RpcCodec
+     */
+    private String codecSimpleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement;
+                enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, enclosing.getSimpleName());
+        }
+        return name.append(CODEC_SUFFIX).toString();
+    }
+
+    private String packageOf(TypeElement type) {
+        PackageElement packageElement = elements.getPackageOf(type);
+        return packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    }
+
+    /**
+     * 与Lombok一致的getter命名：boolean字段以is开头时保留原名，其余加is或get前缀
+     */
+    private String getterName(VariableElement field) {
+        String name = field.getSimpleName().toString();
+        if (field.asType().getKind() == TypeKind.BOOLEAN) {
+            return hasIsPrefix(name) ? name : "is" + capitalize(name);
+        }
+        return "get" + capitalize(name);
+    }
+
+    private String setterName(VariableElement field) {
+        String name = field.getSimpleName().toString();
+        if (field.asType().getKind() == TypeKind.BOOLEAN && hasIsPrefix(name)) {
+            return "set" + name.substring(2);
+        }
+        return "set" + capitalize(name);
+    }
+
+    private static boolean hasIsPrefix(String name) {
+        return name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2));
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -23,6 +23,7 @@ public enum RpcStatusEnum {
     FORBIDDEN(403, "禁止访问"),
     SERVICE_NOT_FOUND(404, "服务未找到"),
     METHOD_NOT_FOUND(405, "方法不存在"),
+    PAYLOAD_TOO_LARGE(413, "请求数据过大"),
     RATE_LIMITED(429, "请求被限流"),
 
     // 服务端错误 5xx
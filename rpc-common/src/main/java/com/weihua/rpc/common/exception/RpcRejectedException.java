@@ -0,0 +1,16 @@
+package com.weihua.rpc.common.exception;
+
+import com.weihua.rpc.common.enums.RpcStatusEnum;
+
+/**
+ * 本地拒绝异常，客户端的进行中调用数达到上限或连接均已饱和时不发送请求，直接以该异常失败。
+ * 请求未到达服务端，不代表服务提供者故障，不计入熔断统计
+ */
+public class RpcRejectedException extends RpcException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RpcRejectedException(String message) {
+        super(message, RpcStatusEnum.SERVICE_UNAVAILABLE.getCode());
+    }
+}
@@ -13,6 +13,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * RPC 请求对象
@@ -81,6 +83,31 @@ public class RpcRequest implements Serializable {
     @Builder.Default
     private RequestType requestType = RequestType.NORMAL;
 
+    /**
+     * 附加信息，v2协议中随协议头传输，不参与消息体序列化
+     */
+    private transient Map<String, String> attachments;
+
+    /**
+     * 是否为单向调用，v2协议中以标志位传输，不参与消息体序列化
+     */
+    private transient boolean oneway;
+
+    /**
+     * 服务端本地截止时间(毫秒时间戳)，由调用超时换算得到，0表示不限
+     */
+    private transient long deadline;
+
+    /**
+     * 消息体序列化类型，随协议头传输，0表示使用连接默认的序列化器
+     */
+    private transient byte serializerType;
+
+    /**
+     * 是否为流控制帧，v2协议中以标志位传输，控制帧没有消息体，只通过附加信息携带额度
+     */
+    private transient boolean streaming;
+
     /**
      * 创建心跳请求
      */
@@ -96,6 +123,16 @@ public class RpcRequest implements Serializable {
                 .build();
     }
 
+    /**
+     * 添加附加信息
+     */
+    public void putAttachment(String key, String value) {
+        if (attachments == null) {
+            attachments = new HashMap<>();
+        }
+        attachments.put(key, value);
+    }
+
     /**
      * 判断请求是否为心跳请求
      */
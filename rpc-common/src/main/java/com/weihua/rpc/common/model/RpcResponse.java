@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * RPC 响应对象
@@ -60,6 +61,21 @@ public class RpcResponse<T> implements Serializable {
     @Builder.Default
     private ResponseType responseType = ResponseType.NORMAL;
 
+    /**
+     * 附加信息，v2协议中随协议头传输，不参与消息体序列化
+     */
+    private transient Map<String, String> attachments;
+
+    /**
+     * 消息体序列化类型，随协议头传输，0表示使用连接默认的序列化器
+     */
+    private transient byte serializerType;
+
+    /**
+     * 是否为流式元素帧，v2协议中以标志位传输，流以不带该标志的响应结束
+     */
+    private transient boolean streaming;
+
     /**
      * 创建成功响应
      */
@@ -0,0 +1,19 @@
+package com.weihua.rpc.core.client.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * RPC方法调用超时注解
+ * 标注在服务接口的方法上，指定客户端调用该方法的超时时间，
+ * 优先级低于配置文件中的方法级别超时，高于接口级别配置和@RpcReference的超时
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD })
+public @interface RpcTimeout {
+
+    /**
+     * 调用超时时间(毫秒)，不大于0时视为未设置
+     */
+    long value();
+}
@@ -14,6 +14,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.PostConstruct;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * 客户端配置
@@ -30,6 +32,9 @@ public class ClientConfig {
     private Duration connectTimeout = Duration.ofSeconds(5);
     private Duration requestTimeout = Duration.ofSeconds(30);
 
+    // 接口或方法级别的调用超时，键为接口全限定名，或"接口全限定名#方法名"，方法级别优先
+    private Map<String, Duration> methodTimeouts = new HashMap<>();
+
     // 重试配置
     private boolean retryEnable = true;
     private int maxRetryAttempts = 3;
@@ -45,6 +50,22 @@ public class ClientConfig {
     // 连接模式配置
     private ConnectionMode connectionMode = ConnectionMode.LAZY;
 
+    // 每个服务地址的连接数，大于1时在多个连接间按进行中调用数选择，分摊到多个IO线程
+    private int connectionsPerAddress = 1;
+
+    // 单个连接的进行中调用上限，0表示不限制。连接达到上限或写缓冲超过高水位时负载均衡跳过该连接，全部饱和时调用立即失败
+    private int maxInFlightPerConnection = 0;
+
+    // 单个服务的进行中调用上限，0表示不限制，达到上限时调用立即失败
+    private int maxInFlightPerService = 0;
+
+    // 服务级别的进行中调用上限，键为接口全限定名，优先于maxInFlightPerService
+    private Map<String, Integer> serviceMaxInFlight = new HashMap<>();
+
+    // 连接写缓冲水位(字节)，待发送数据超过高水位后连接不可写，降到低水位以下后恢复
+    private int writeBufferLowWaterMark = 32 * 1024;
+    private int writeBufferHighWaterMark = 64 * 1024;
+
     // 心跳配置
     private Duration heartbeatInterval = Duration.ofSeconds(10);
     private Duration heartbeatTimeout = Duration.ofSeconds(3);
@@ -66,6 +87,44 @@ public class ClientConfig {
     // 熔断器配置
     private boolean circuitBreakerEnable = true;
 
+    // 协议版本，服务端同时支持v1和v2，与旧版本服务端通信时可设置为1。
+    // 设置为2时通过握手确认服务端支持v2，确认前按v1处理，握手超时后保持v1
+    private int protocolVersion = 2;
+
+    // 握手超时时间，握手完成前的请求暂缓发送
+    private Duration handshakeTimeout = Duration.ofSeconds(1);
+
+    // 压缩配置，仅v2协议生效，压缩算法在连接握手时与服务端协商
+    private boolean compressionEnabled = false;
+    private String compressor = "snappy";
+    private int compressionThreshold = 2048;
+
+    // Kryo类注册，仅v2协议生效，开启后在握手时向服务端请求类注册清单，两端按同一顺序预注册类型
+    private boolean kryoRegistrationEnabled = false;
+
+    // 刷新合并配置，开启后同一连接上的多次flush按批量大小和延迟预算合并为一次
+    private boolean flushBatchEnabled = false;
+    private int flushBatchSize = 32;
+    private Duration flushBatchDelay = Duration.ZERO;
+
+    // 帧大小配置：单帧上限、分块重组后的消息上限，以及v2协议下大消息的分块大小
+    private int maxFrameLength = 10 * 1024 * 1024;
+    private int maxMessageLength = 64 * 1024 * 1024;
+    private int chunkSize = 1024 * 1024;
+
+    // 单个连接上同时重组的分块响应上限，以及两个分块之间的最长间隔
+    private int maxChunkedMessages = 8;
+    private Duration chunkedMessageTimeout = Duration.ofSeconds(30);
+
+    // 是否在调用线程中预编码请求，IO线程只负责写出编码好的缓冲区
+    private boolean preEncodeEnabled = false;
+
+    // 流式调用窗口：服务端在收到追加额度前最多推送的元素数，也是客户端最多缓冲的元素数
+    private int streamWindow = 32;
+
+    // 异步调用回调线程数，返回CompletableFuture的方法在该线程池中完成，用户回调不会在IO线程上执行
+    private int callbackThreads = Runtime.getRuntime().availableProcessors();
+
     @PostConstruct
     public void init() {
         // 更新日志输出，包含配置信息
@@ -1,13 +1,20 @@
 package com.weihua.rpc.core.client.invoker;
 
+import com.weihua.rpc.common.exception.RpcRejectedException;
 import com.weihua.rpc.common.model.RpcRequest;
 import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.client.stream.ClientStream;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import com.weihua.rpc.core.server.annotation.MethodSignature;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -23,6 +30,9 @@ public class ChannelInvoker implements Invoker {
     private final String id;
     private final InetSocketAddress address;
 
+    // 进行中调用上限，0表示不限制
+    private final int maxInFlight;
+
     // 性能指标
     private final AtomicInteger activeCount = new AtomicInteger(0);
     private final AtomicLong totalCalls = new AtomicLong(0);
@@ -30,7 +40,16 @@ public class ChannelInvoker implements Invoker {
     private final AtomicLong totalResponseTime = new AtomicLong(0);
 
     public ChannelInvoker(Channel channel) {
+        this(channel, 0);
+    }
+
+    /**
+     * @param channel     已建立的连接
+     * @param maxInFlight 进行中调用上限，0表示不限制
+     */
+    public ChannelInvoker(Channel channel, int maxInFlight) {
         this.channel = channel;
+        this.maxInFlight = maxInFlight;
         this.address = (InetSocketAddress) channel.remoteAddress();
         this.id = UUID.randomUUID().toString();
 
@@ -45,64 +64,188 @@ public class ChannelInvoker implements Invoker {
         return totalCalls.get();
     }
 
+    /**
+     * 发送请求，请求ID由连接的待响应表分配，调用方请求对象中的ID不上线路。
+     * 附加信息中携带调用超时时间时，到期未收到响应则Future以超时异常结束；
+     * 调用方提前取消时以异常结束返回的Future即可，对应的待响应记录随之移除。
+     * 进行中调用数已达上限时不发送，返回的Future立即以{@link RpcRejectedException}结束
+     */
     @Override
     public CompletableFuture<RpcResponse> invoke(RpcRequest request) {
         // 创建响应Future
         CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
 
-        try {
-            // 记录开始时间
-            long startTime = System.currentTimeMillis();
+        // 记录开始时间
+        long startTime = System.currentTimeMillis();
 
-            // 激活计数器+1
-            activeCount.incrementAndGet();
+        // 激活计数器+1，超过上限时撤销并立即失败
+        if (activeCount.incrementAndGet() > maxInFlight && maxInFlight > 0) {
+            activeCount.decrementAndGet();
+            responseFuture.completeExceptionally(
+                    new RpcRejectedException("连接进行中调用数已达上限(" + maxInFlight + "): " + address));
+            return responseFuture;
+        }
+
+        // 请求总数+1
+        totalCalls.incrementAndGet();
+
+        // 登记待响应调用并设置超时，连接已关闭时Future立即以异常结束
+        PendingCalls pending = PendingCalls.of(channel);
+        long requestId = pending.register(responseFuture, timeoutMillis(request));
 
-            // 请求总数+1
-            totalCalls.incrementAndGet();
+        // 添加回调，用于更新性能指标
+        responseFuture.whenComplete((response, throwable) -> {
+            // 激活计数器-1
+            activeCount.decrementAndGet();
 
-            // 注册Future
-            RpcFutureManager.putFuture(request.getRequestId(), responseFuture);
+            if (throwable != null) {
+                // 超时、发送失败或连接断开，移除待响应记录
+                pending.remove(requestId);
+                log.error("调用异常: {}", throwable.getMessage());
+                updateMetrics(false, System.currentTimeMillis() - startTime);
+            } else {
+                boolean success = response != null && response.getCode() == 200;
+                updateMetrics(success, System.currentTimeMillis() - startTime);
+            }
+        });
+        if (responseFuture.isDone()) {
+            return responseFuture;
+        }
 
+        try {
             // 发送请求并添加监听器
-            channel.writeAndFlush(request).addListener((ChannelFutureListener) future -> {
+            RpcRequest wireRequest = compact(request, requestId);
+            RpcEncoder.writeAndFlush(channel, wireRequest).addListener((ChannelFutureListener) future -> {
                 if (!future.isSuccess()) {
                     // 发送失败
                     Throwable cause = future.cause();
                     log.error("发送请求失败: {}", cause.getMessage());
-                    RpcFutureManager.removeFuture(request.getRequestId());
                     responseFuture.completeExceptionally(cause);
-
-                    // 更新性能指标
-                    updateMetrics(false, System.currentTimeMillis() - startTime);
                 }
                 // 发送成功的情况下，会在收到响应时完成future
             });
-
-            // 添加回调，用于更新性能指标
-            responseFuture.whenComplete((response, throwable) -> {
-                // 激活计数器-1
-                activeCount.decrementAndGet();
-
-                if (throwable != null) {
-                    log.error("调用异常: {}", throwable.getMessage());
-                    updateMetrics(false, System.currentTimeMillis() - startTime);
-                } else {
-                    boolean success = response != null && response.getCode() == 200;
-                    updateMetrics(success, System.currentTimeMillis() - startTime);
-                }
-            });
-
-            return responseFuture;
         } catch (Exception e) {
             log.error("创建调用异常: {}", e.getMessage(), e);
-            RpcFutureManager.removeFuture(request.getRequestId());
             responseFuture.completeExceptionally(e);
+        }
+        return responseFuture;
+    }
 
-            // 激活计数器-1
+    /**
+     * 发起流式调用，流从发起到结束、失败或取消期间计入进行中调用数，
+     * 进行中调用数已达上限时不发送，流立即以{@link RpcRejectedException}结束
+     */
+    @Override
+    public void invokeStream(RpcRequest request, ClientStream stream) {
+        if (activeCount.incrementAndGet() > maxInFlight && maxInFlight > 0) {
             activeCount.decrementAndGet();
+            stream.fail(new RpcRejectedException("连接进行中调用数已达上限(" + maxInFlight + "): " + address));
+            return;
+        }
+        stream.closeFuture().whenComplete((ignored, throwable) -> activeCount.decrementAndGet());
 
-            return responseFuture;
+        // 流与普通调用共用连接的请求ID序列，避免响应串到其他调用
+        long requestId = PendingCalls.of(channel).nextId();
+        if (!stream.open(channel, String.valueOf(requestId))) {
+            return;
+        }
+        totalCalls.incrementAndGet();
+
+        RpcEncoder.writeAndFlush(channel, compact(request, requestId)).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                log.error("发送流式请求失败: {}", future.cause().getMessage());
+                stream.fail(future.cause());
+            }
+        });
+    }
+
+    /**
+     * 生成发往该连接的请求对象，使用连接分配的请求ID，原请求保持不变以便重试到其他节点。
+     * 在附加信息中写入方法标识，供服务端在反序列化前完成准入检查：
+     * 握手完成后，将接口名、方法名和参数类型替换为服务端下发的方法ID；握手完成前携带方法签名。
+     * 请求已携带方法签名时直接使用，不再重新生成。
+     * 请求未指定序列化方式时，采用服务端在握手中声明的服务偏好
+     */
+    private RpcRequest compact(RpcRequest request, long requestId) {
+        if (request.isHeartBeat() || request.getInterfaceName() == null
+                || request.getParameterTypes() == null) {
+            return copy(request, requestId, request.getAttachments(), request.getSerializerType());
         }
+
+        String signature = request.getAttachments() != null
+                ? request.getAttachments().get(RpcProtocol.ATTACHMENT_METHOD_SIGNATURE)
+                : null;
+        if (signature == null) {
+            signature = MethodSignature.generate(
+                    request.getInterfaceName(), request.getMethodName(), request.getParameterTypes());
+        }
+        Map<String, Integer> methodIds = channel.attr(RpcProtocol.METHOD_IDS).get();
+        Integer methodId = methodIds != null
+                && Byte.valueOf(RpcProtocol.VERSION_2).equals(channel.attr(RpcProtocol.PEER_VERSION).get())
+                        ? methodIds.get(signature)
+                        : null;
+
+        byte serializerType = request.getSerializerType();
+        if (serializerType == 0) {
+            Map<String, Byte> serviceSerializers = channel.attr(RpcProtocol.SERVICE_SERIALIZERS).get();
+            Byte preferred = serviceSerializers != null ? serviceSerializers.get(request.getInterfaceName()) : null;
+            serializerType = preferred != null ? preferred : 0;
+        }
+
+        Map<String, String> attachments = request.getAttachments() == null
+                ? new HashMap<>(4)
+                : new HashMap<>(request.getAttachments());
+
+        if (methodId == null) {
+            attachments.put(RpcProtocol.ATTACHMENT_METHOD_SIGNATURE, signature);
+            return copy(request, requestId, attachments, serializerType);
+        }
+
+        attachments.remove(RpcProtocol.ATTACHMENT_METHOD_SIGNATURE);
+        attachments.put(RpcProtocol.ATTACHMENT_METHOD_ID, String.valueOf(methodId));
+        return RpcRequest.builder()
+                .requestId(String.valueOf(requestId))
+                .parameters(request.getParameters())
+                .attachments(attachments)
+                .oneway(request.isOneway())
+                .serializerType(serializerType)
+                .build();
+    }
+
+    /**
+     * 请求附加信息中的调用超时时间(毫秒)，未携带时返回0
+     */
+    private long timeoutMillis(RpcRequest request) {
+        Map<String, String> attachments = request.getAttachments();
+        String timeout = attachments != null ? attachments.get(RpcProtocol.ATTACHMENT_TIMEOUT) : null;
+        if (timeout == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(timeout);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 复制完整的请求，替换请求ID、附加信息和序列化方式
+     */
+    private RpcRequest copy(RpcRequest request, long requestId, Map<String, String> attachments,
+            byte serializerType) {
+        return RpcRequest.builder()
+                .requestId(String.valueOf(requestId))
+                .interfaceName(request.getInterfaceName())
+                .methodName(request.getMethodName())
+                .parameterTypes(request.getParameterTypes())
+                .parameters(request.getParameters())
+                .version(request.getVersion())
+                .group(request.getGroup())
+                .requestType(request.getRequestType())
+                .attachments(attachments)
+                .oneway(request.isOneway())
+                .serializerType(serializerType)
+                .build();
     }
 
     /**
@@ -115,6 +258,24 @@ public class ChannelInvoker implements Invoker {
         totalResponseTime.addAndGet(responseTimeMs);
     }
 
+    /**
+     * 成功的调用数
+     */
+    long getSuccessCount() {
+        return totalSuccesses.get();
+    }
+
+    /**
+     * 全部调用的累计响应时间(毫秒)
+     */
+    long getTotalResponseTime() {
+        return totalResponseTime.get();
+    }
+
+    Channel getChannel() {
+        return channel;
+    }
+
     @Override
     public InetSocketAddress getAddress() {
         return address;
@@ -127,7 +288,12 @@ public class ChannelInvoker implements Invoker {
 
     @Override
     public boolean isAvailable() {
-        return channel != null && channel.isActive() && channel.isWritable();
+        return channel != null && channel.isActive();
+    }
+
+    @Override
+    public boolean isSaturated() {
+        return !channel.isWritable() || (maxInFlight > 0 && activeCount.get() >= maxInFlight);
     }
 
     @Override
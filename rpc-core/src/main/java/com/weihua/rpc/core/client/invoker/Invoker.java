@@ -9,6 +9,7 @@ package com.weihua.rpc.core.client.invoker;
 
 import com.weihua.rpc.common.model.RpcRequest;
 import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.client.stream.ClientStream;
 
 import java.net.InetSocketAddress;
 import java.util.concurrent.CompletableFuture;
@@ -27,6 +28,14 @@ public interface Invoker {
      */
     CompletableFuture<RpcResponse> invoke(RpcRequest request);
 
+    /**
+     * 发起服务端流式调用，元素和结束信号都交给流对象处理
+     *
+     * @param request RPC请求对象
+     * @param stream  接收元素的客户端流
+     */
+    void invokeStream(RpcRequest request, ClientStream stream);
+
     /**
      * 获取调用者的地址
      *
@@ -48,6 +57,14 @@ public interface Invoker {
      */
     boolean isAvailable();
 
+    /**
+     * 检查调用者是否已饱和
+     * 连接写缓冲超过高水位或进行中调用数达到上限时饱和，负载均衡时跳过，连接本身仍然可用
+     *
+     * @return 是否饱和
+     */
+    boolean isSaturated();
+
     /**
      * 获取当前活跃请求数
      *
@@ -346,7 +346,7 @@ public class InvokerManager {
                     Channel channel = ((io.netty.channel.ChannelFuture) future).channel();
 
                     if (channel != null && channel.isActive()) {
-                        Invoker newInvoker = new ChannelInvoker(channel);
+                        Invoker newInvoker = newInvoker(bootstrap, address, channel);
 
                         // 更新包装器
                         finalWrapper.setInvoker(newInvoker);
@@ -375,6 +375,19 @@ public class InvokerManager {
         });
     }
 
+    /**
+     * 以已建立的连接创建调用者，每个地址配置多个连接时创建多连接调用者，其余连接异步建立
+     */
+    private Invoker newInvoker(Bootstrap bootstrap, InetSocketAddress address, Channel channel) {
+        int connections = clientConfig.getConnectionsPerAddress();
+        int maxInFlight = clientConfig.getMaxInFlightPerConnection();
+        if (connections > 1) {
+            return new PooledInvoker(bootstrap, address, channel, connections, maxInFlight,
+                    config.getBackoffStrategy());
+        }
+        return new ChannelInvoker(channel, maxInFlight);
+    }
+
     /**
      * 处理连接失败
      */
@@ -518,7 +531,7 @@ public class InvokerManager {
                 Channel channel = bootstrap.connect(socketAddress).sync().channel();
 
                 if (channel != null && channel.isActive()) {
-                    Invoker newInvoker = new ChannelInvoker(channel);
+                    Invoker newInvoker = newInvoker(bootstrap, socketAddress, channel);
 
                     // 更新包装器
                     newWrapper.setInvoker(newInvoker);
@@ -652,16 +665,29 @@ public class InvokerManager {
             Invoker invoker = wrapper.getInvoker();
 
             if (invoker != null) {
-                log.info("连接状态 - 地址: {}:{}, 可用: {}, 活跃请求: {}, 总请求: {}, " +
+                log.info("连接状态 - 地址: {}:{}, 可用: {}, 饱和: {}, 活跃请求: {}, 总请求: {}, " +
                         "平均响应时间: {}ms, 成功率: {}%, 重试次数: {}, 使用服务: {}, {}",
                         address.getHostString(), address.getPort(),
-                        wrapper.isAvailable(), invoker.getActiveCount(),
+                        wrapper.isAvailable(), invoker.isSaturated(), invoker.getActiveCount(),
                         invoker.getRequestCount(),
                         String.format("%.2f", invoker.getAvgResponseTime()),
                         String.format("%.2f", invoker.getSuccessRate() * 100),
                         wrapper.getRetryCount(),
                         String.join(",", wrapper.getUsingServices()),
                         wrapper.isConfirmedDown() ? "已确认下线" : "");
+
+                // 多连接调用者逐个打印子连接的统计信息
+                if (invoker instanceof PooledInvoker) {
+                    PooledInvoker pooled = (PooledInvoker) invoker;
+                    for (ChannelInvoker connection : pooled.getConnections()) {
+                        log.info("  子连接 - {}, 可用: {}, 饱和: {}, 活跃请求: {}, 总请求: {}, 平均响应时间: {}ms, 成功率: {}%",
+                                connection.getChannel().localAddress(), connection.isAvailable(),
+                                connection.isSaturated(),
+                                connection.getActiveCount(), connection.getRequestCount(),
+                                String.format("%.2f", connection.getAvgResponseTime()),
+                                String.format("%.2f", connection.getSuccessRate() * 100));
+                    }
+                }
             } else {
                 log.info("连接状态 - 地址: {}:{}, 无有效连接, 重试次数: {}, 使用服务: {}, {}",
                         address.getHostString(), address.getPort(),
@@ -0,0 +1,194 @@
+package com.weihua.rpc.core.client.invoker;
+
+import com.weihua.rpc.common.exception.RpcException;
+import com.weihua.rpc.common.model.RpcResponse;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接上进行中的调用
+ * 每个连接维护单调递增的数值请求ID和以其为键的待响应表，响应在所属连接的表中按请求ID查找。
+ * 连接关闭时表中全部调用立即以异常结束，不必等待超时。
+ * 调用的超时由全局时间轮按各自的超时时间触发，登记和取消都是O(1)，精度为一个刻度(10ms)；
+ * 响应到达时立即取消对应的超时任务，不需要扫描线程
+ */
+@Slf4j
+public final class PendingCalls {
+
+    private static final AttributeKey<PendingCalls> PENDING_CALLS = AttributeKey.valueOf("rpc.pendingCalls");
+
+    // 所有连接共用的超时时间轮，刻度10ms，一圈512个刻度
+    private static final Timer DEADLINE_TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("rpc-client-deadline", true), 10, TimeUnit.MILLISECONDS, 512);
+
+    private final Channel channel;
+
+    // 请求ID，从1开始，0在协议头中表示没有数值请求ID
+    private final AtomicLong idGenerator = new AtomicLong();
+
+    // 请求ID -> 进行中的调用，访问时以自身加锁
+    private final LongObjectMap<PendingCall> calls = new LongObjectHashMap<>();
+
+    private boolean closed;
+
+    private PendingCalls(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * 获取连接的待响应表，首次获取时创建并在连接关闭时清理
+     */
+    public static PendingCalls of(Channel channel) {
+        PendingCalls pending = channel.attr(PENDING_CALLS).get();
+        if (pending != null) {
+            return pending;
+        }
+
+        PendingCalls created = new PendingCalls(channel);
+        pending = channel.attr(PENDING_CALLS).setIfAbsent(created);
+        if (pending != null) {
+            return pending;
+        }
+        channel.closeFuture().addListener(future -> created.failAll());
+        return created;
+    }
+
+    /**
+     * 分配下一个请求ID
+     */
+    public long nextId() {
+        return idGenerator.incrementAndGet();
+    }
+
+    /**
+     * 分配请求ID并登记待响应的调用，连接已关闭时Future立即以异常结束
+     *
+     * @param future        响应Future
+     * @param timeoutMillis 超时时间(毫秒)，到期时Future以{@link TimeoutException}结束，不大于0表示不设超时
+     * @return 请求ID
+     */
+    public long register(CompletableFuture<RpcResponse> future, long timeoutMillis) {
+        long id = nextId();
+        PendingCall call = new PendingCall(future);
+        synchronized (calls) {
+            if (!closed) {
+                calls.put(id, call);
+                if (timeoutMillis > 0) {
+                    call.timeout = DEADLINE_TIMER.newTimeout(timeout -> expire(id, timeoutMillis),
+                            timeoutMillis, TimeUnit.MILLISECONDS);
+                }
+                return id;
+            }
+        }
+        future.completeExceptionally(new RpcException("连接已断开: " + channel.remoteAddress()));
+        return id;
+    }
+
+    /**
+     * 以响应完成调用
+     *
+     * @return 找到对应的调用时返回true
+     */
+    public boolean complete(long id, RpcResponse response) {
+        PendingCall call = take(id);
+        if (call == null) {
+            return false;
+        }
+        call.future.complete(response);
+        return true;
+    }
+
+    /**
+     * 移除调用，用于调用已被调用方结束或发送失败
+     */
+    public void remove(long id) {
+        take(id);
+    }
+
+    /**
+     * 当前待响应的调用数
+     */
+    public int size() {
+        synchronized (calls) {
+            return calls.size();
+        }
+    }
+
+    /**
+     * 超时到期，移除调用并以超时异常结束
+     */
+    private void expire(long id, long timeoutMillis) {
+        PendingCall call;
+        synchronized (calls) {
+            call = calls.remove(id);
+        }
+        if (call != null) {
+            call.future.completeExceptionally(new TimeoutException("请求超时，已等待" + timeoutMillis + "ms"));
+        }
+    }
+
+    /**
+     * 移除调用并取消其超时任务
+     */
+    private PendingCall take(long id) {
+        PendingCall call;
+        synchronized (calls) {
+            call = calls.remove(id);
+        }
+        if (call != null && call.timeout != null) {
+            call.timeout.cancel();
+        }
+        return call;
+    }
+
+    /**
+     * 连接关闭时以异常结束全部调用
+     */
+    private void failAll() {
+        List<PendingCall> failed;
+        synchronized (calls) {
+            closed = true;
+            failed = new ArrayList<>(calls.values());
+            calls.clear();
+        }
+        if (failed.isEmpty()) {
+            return;
+        }
+
+        log.warn("连接已断开: {}，{} 个进行中的调用立即失败", channel.remoteAddress(), failed.size());
+        RpcException cause = new RpcException("连接已断开: " + channel.remoteAddress());
+        for (PendingCall call : failed) {
+            if (call.timeout != null) {
+                call.timeout.cancel();
+            }
+            call.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 进行中的调用及其超时任务
+     */
+    private static final class PendingCall {
+        private final CompletableFuture<RpcResponse> future;
+        // 在登记时设置，读写都在持有表锁时或移出表之后
+        private Timeout timeout;
+
+        private PendingCall(CompletableFuture<RpcResponse> future) {
+            this.future = future;
+        }
+    }
+}
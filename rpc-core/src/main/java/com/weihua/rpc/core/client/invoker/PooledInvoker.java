@@ -0,0 +1,301 @@
+package com.weihua.rpc.core.client.invoker;
+
+import com.weihua.rpc.common.exception.RpcException;
+import com.weihua.rpc.common.exception.RpcRejectedException;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.common.util.ExponentialBackoff;
+import com.weihua.rpc.core.client.stream.ClientStream;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 同一服务地址上的多连接调用者
+ * 对负载均衡仍表现为一个调用者，内部维护固定数量的连接，连接由Bootstrap依次分配到不同的IO线程。
+ * 每次调用选择未饱和且进行中调用最少的连接，都已饱和时立即以{@link RpcRejectedException}失败，不在饱和的连接上排队。
+ * 某个连接断开或建立失败后按退避策略补建，全部连接断开后调用者不可用，由{@link InvokerManager}按重连策略整体重建。
+ * 统计信息累计已断开连接上的调用
+ */
+@Slf4j
+public class PooledInvoker implements Invoker {
+
+    private final Bootstrap bootstrap;
+    private final InetSocketAddress address;
+    private final String id;
+
+    // 单个连接的进行中调用上限，0表示不限制
+    private final int maxInFlight;
+
+    // 各连接的调用者，连接未建立或已断开时为null
+    private final AtomicReferenceArray<ChannelInvoker> connections;
+
+    // 选择连接时的起始位置，进行中调用数相同时轮流使用
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    // 子连接补建失败时的退避策略
+    private final ExponentialBackoff backoff;
+
+    // 已断开连接的累计统计，使调用者的统计不随连接断开而跳变
+    private final AtomicLong retiredCalls = new AtomicLong();
+    private final AtomicLong retiredSuccesses = new AtomicLong();
+    private final AtomicLong retiredResponseTime = new AtomicLong();
+
+    private volatile boolean destroyed;
+
+    /**
+     * 以已建立的第一个连接创建，其余连接异步建立
+     *
+     * @param bootstrap   客户端Bootstrap
+     * @param address     服务地址
+     * @param channel     已建立的连接
+     * @param size        连接数
+     * @param maxInFlight 单个连接的进行中调用上限，0表示不限制
+     * @param backoff     子连接补建失败时的退避策略
+     */
+    public PooledInvoker(Bootstrap bootstrap, InetSocketAddress address, Channel channel, int size,
+            int maxInFlight, ExponentialBackoff backoff) {
+        this.bootstrap = bootstrap;
+        this.address = address;
+        this.id = UUID.randomUUID().toString();
+        this.maxInFlight = maxInFlight;
+        this.backoff = backoff;
+        this.connections = new AtomicReferenceArray<>(size);
+
+        attach(0, channel);
+        for (int i = 1; i < size; i++) {
+            connect(i, 0);
+        }
+    }
+
+    /**
+     * 异步建立指定位置的连接，失败时按退避策略延迟重试，
+     * 直到建立成功、调用者被销毁或全部连接断开(此时由{@link InvokerManager}整体重建)
+     *
+     * @param index   连接位置
+     * @param attempt 已失败的次数
+     */
+    private void connect(int index, int attempt) {
+        bootstrap.connect(address).addListener(future -> {
+            Channel channel = ((ChannelFuture) future).channel();
+            if (future.isSuccess()) {
+                if (destroyed) {
+                    channel.close();
+                    return;
+                }
+                attach(index, channel);
+                return;
+            }
+
+            if (destroyed || !isAvailable() || bootstrap.config().group().isShuttingDown()) {
+                return;
+            }
+            int delay = backoff.calculateDelayMillis(attempt);
+            log.warn("建立子连接失败: {}#{}, {}ms后重试(第{}次), 错误: {}", address, index, delay, attempt + 1,
+                    future.cause() != null ? future.cause().getMessage() : "未知错误");
+            bootstrap.config().group().schedule(() -> connect(index, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * 将连接放入指定位置，连接断开时清空该位置并累计其统计，仍有其他可用连接时补建
+     */
+    private void attach(int index, Channel channel) {
+        ChannelInvoker invoker = new ChannelInvoker(channel, maxInFlight);
+        // 先创建待响应表，使其关闭回调先于下面的回调执行，断开时失败的调用已计入该连接的统计
+        PendingCalls.of(channel);
+        connections.set(index, invoker);
+        channel.closeFuture().addListener(future -> {
+            if (!connections.compareAndSet(index, invoker, null)) {
+                return;
+            }
+            retiredCalls.addAndGet(invoker.getRequestCount());
+            retiredSuccesses.addAndGet(invoker.getSuccessCount());
+            retiredResponseTime.addAndGet(invoker.getTotalResponseTime());
+            if (!destroyed && isAvailable()) {
+                log.info("子连接已断开，重新建立: {}#{}", address, index);
+                connect(index, 0);
+            }
+        });
+    }
+
+    /**
+     * 选择未饱和且进行中调用最少的活跃连接，都已饱和或没有活跃连接时返回null
+     */
+    private ChannelInvoker select() {
+        int size = connections.length();
+        int start = size > 1 ? Math.floorMod(nextIndex.getAndIncrement(), size) : 0;
+
+        ChannelInvoker ready = null;
+        int readyPending = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            ChannelInvoker candidate = connections.get((start + i) % size);
+            if (candidate == null || !candidate.getChannel().isActive() || candidate.isSaturated()) {
+                continue;
+            }
+            int pending = candidate.getActiveCount();
+            if (pending < readyPending) {
+                ready = candidate;
+                readyPending = pending;
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * 没有可选连接时的异常：仍有活跃连接说明都已饱和，属于本地拒绝
+     */
+    private RpcException unavailable() {
+        return isAvailable()
+                ? new RpcRejectedException("连接均已饱和: " + address)
+                : new RpcException("没有可用的连接: " + address);
+    }
+
+    @Override
+    public CompletableFuture<RpcResponse> invoke(RpcRequest request) {
+        ChannelInvoker invoker = select();
+        if (invoker == null) {
+            return CompletableFuture.failedFuture(unavailable());
+        }
+        return invoker.invoke(request);
+    }
+
+    @Override
+    public void invokeStream(RpcRequest request, ClientStream stream) {
+        ChannelInvoker invoker = select();
+        if (invoker == null) {
+            stream.fail(unavailable());
+            return;
+        }
+        invoker.invokeStream(request, stream);
+    }
+
+    /**
+     * 获取当前已建立的各连接调用者，用于查看每个连接的统计信息
+     *
+     * @return 连接调用者列表
+     */
+    public List<ChannelInvoker> getConnections() {
+        List<ChannelInvoker> result = new ArrayList<>(connections.length());
+        for (int i = 0; i < connections.length(); i++) {
+            ChannelInvoker invoker = connections.get(i);
+            if (invoker != null) {
+                result.add(invoker);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取配置的连接数
+     *
+     * @return 连接数
+     */
+    public int getSize() {
+        return connections.length();
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        for (int i = 0; i < connections.length(); i++) {
+            ChannelInvoker invoker = connections.get(i);
+            if (invoker != null && invoker.isAvailable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 所有活跃连接都已饱和时饱和
+     */
+    @Override
+    public boolean isSaturated() {
+        for (int i = 0; i < connections.length(); i++) {
+            ChannelInvoker invoker = connections.get(i);
+            if (invoker != null && invoker.isAvailable() && !invoker.isSaturated()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getActiveCount() {
+        int count = 0;
+        for (ChannelInvoker invoker : getConnections()) {
+            count += invoker.getActiveCount();
+        }
+        return count;
+    }
+
+    /**
+     * 平均响应时间，包含已断开连接上的调用
+     */
+    @Override
+    public double getAvgResponseTime() {
+        long count = retiredCalls.get();
+        long total = retiredResponseTime.get();
+        for (ChannelInvoker invoker : getConnections()) {
+            count += invoker.getRequestCount();
+            total += invoker.getTotalResponseTime();
+        }
+        return count > 0 ? (double) total / count : 0;
+    }
+
+    /**
+     * 成功率，包含已断开连接上的调用
+     */
+    @Override
+    public double getSuccessRate() {
+        long count = retiredCalls.get();
+        long successes = retiredSuccesses.get();
+        for (ChannelInvoker invoker : getConnections()) {
+            count += invoker.getRequestCount();
+            successes += invoker.getSuccessCount();
+        }
+        return count > 0 ? (double) successes / count : 1.0;
+    }
+
+    /**
+     * 请求总数，包含已断开连接上的调用
+     */
+    @Override
+    public long getRequestCount() {
+        long count = retiredCalls.get();
+        for (ChannelInvoker invoker : getConnections()) {
+            count += invoker.getRequestCount();
+        }
+        return count;
+    }
+
+    @Override
+    public void destroy() {
+        destroyed = true;
+        for (ChannelInvoker invoker : getConnections()) {
+            invoker.destroy();
+        }
+    }
+}
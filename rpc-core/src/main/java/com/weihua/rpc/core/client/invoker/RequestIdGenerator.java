@@ -0,0 +1,33 @@
+package com.weihua.rpc.core.client.invoker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求ID生成器
+ * 生成进程内单调递增的数值ID，可直接写入v2协议头的64位请求ID字段
+ */
+public final class RequestIdGenerator {
+
+    private static final AtomicLong ID_COUNTER = new AtomicLong(0);
+
+    private RequestIdGenerator() {
+    }
+
+    /**
+     * 生成下一个请求ID
+     *
+     * @return 数值请求ID
+     */
+    public static long nextId() {
+        return ID_COUNTER.incrementAndGet();
+    }
+
+    /**
+     * 生成下一个请求ID的字符串形式，用于填充RpcRequest
+     *
+     * @return 请求ID字符串
+     */
+    public static String nextRequestId() {
+        return String.valueOf(nextId());
+    }
+}
@@ -1,40 +1,66 @@
 package com.weihua.rpc.core.client.netty;
 
+import com.weihua.rpc.common.exception.RpcException;
+import com.weihua.rpc.common.exception.RpcRejectedException;
 import com.weihua.rpc.common.model.RpcRequest;
 import com.weihua.rpc.common.model.RpcResponse;
 import com.weihua.rpc.core.client.config.ClientConfig;
 import com.weihua.rpc.core.client.invoker.Invoker;
-import com.weihua.rpc.core.client.invoker.RpcFutureManager;
 import com.weihua.rpc.core.client.netty.handler.NettyClientInitializer;
 import com.weihua.rpc.core.client.registry.ServiceDiscovery;
+import com.weihua.rpc.core.client.stream.ClientStream;
 import com.weihua.rpc.core.client.registry.balance.LoadBalance;
+import com.weihua.rpc.core.protocol.RpcProtocol;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Netty RPC 客户端
- * 负责处理与服务端的通信
+ * 负责处理与服务端的通信，同时提供阻塞和异步两种发送方式，异步调用的结果在回调线程池中交付。
+ * 负载均衡只在未饱和的调用者中选择，所有调用者都已饱和或服务的进行中调用数达到上限时立即以{@link RpcRejectedException}失败，不排队等待
  */
 @Slf4j
 public class NettyRpcClient {
 
+    // 同步等待在调用超时之外多等的余量，正常情况下超时由连接的待响应表先触发
+    private static final long TIMEOUT_GRACE_MILLIS = 100;
+
     private final ClientConfig clientConfig;
     private final ServiceDiscovery serviceCenter;
     private final LoadBalance loadBalance;
 
+    // 各服务的进行中调用数，只统计配置了上限的服务
+    private final Map<String, AtomicInteger> serviceInFlight = new ConcurrentHashMap<>();
+
     // 网络组件
     @Getter
     private Bootstrap bootstrap;
     private EventLoopGroup eventLoopGroup;
 
+    // 异步调用的回调线程池，避免用户回调在IO线程上执行
+    @Getter
+    private ExecutorService callbackExecutor;
+
     /**
      * 构造函数，接收所需依赖
      *
@@ -62,7 +88,24 @@ public class NettyRpcClient {
                 .option(io.netty.channel.ChannelOption.CONNECT_TIMEOUT_MILLIS,
                         (int) clientConfig.getConnectTimeout().toMillis())
                 .option(io.netty.channel.ChannelOption.SO_KEEPALIVE, true)
-                .option(io.netty.channel.ChannelOption.TCP_NODELAY, true);
+                .option(io.netty.channel.ChannelOption.TCP_NODELAY, true)
+                .option(io.netty.channel.ChannelOption.WRITE_BUFFER_WATER_MARK,
+                        new WriteBufferWaterMark(clientConfig.getWriteBufferLowWaterMark(),
+                                clientConfig.getWriteBufferHighWaterMark()));
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        int callbackThreads = Math.max(1, clientConfig.getCallbackThreads());
+        this.callbackExecutor = new ThreadPoolExecutor(
+                callbackThreads,
+                callbackThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "rpc-client-callback-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
 
         log.info("NettyRpcClient初始化完成，连接超时: {}ms, 请求超时: {}s",
                 clientConfig.getConnectTimeout(), clientConfig.getRequestTimeout());
@@ -73,12 +116,18 @@ public class NettyRpcClient {
      *
      * @param request 请求对象
      * @return 响应对象
+     * @throws RpcRejectedException 进行中调用数达到上限或调用者均已饱和，请求未发送
      */
     public RpcResponse sendRequest(RpcRequest request) {
         long startTime = System.currentTimeMillis();
         boolean success = false;
         String serviceName = request.getInterfaceName();
 
+        // 服务的进行中调用数达到上限时立即失败
+        if (!tryAcquire(serviceName)) {
+            throw reject("服务进行中调用数已达上限: " + serviceName);
+        }
+
         try {
             // 基于Invoker的服务发现和负载均衡
             List<Invoker> invokers = serviceCenter.discoverInvokers(request);
@@ -88,8 +137,14 @@ public class NettyRpcClient {
                 return createFailResponse(request.getRequestId(), "未找到可用的服务提供者: " + serviceName);
             }
 
+            // 跳过已饱和的调用者，全部饱和时立即失败
+            List<Invoker> candidates = unsaturated(invokers);
+            if (candidates.isEmpty()) {
+                throw reject("服务提供者均已饱和: " + serviceName);
+            }
+
             // 使用负载均衡策略选择Invoker
-            Invoker selectedInvoker = loadBalance.select(invokers, request);
+            Invoker selectedInvoker = loadBalance.select(candidates, request);
             if (selectedInvoker == null) {
                 log.error("负载均衡选择失败，服务: {}", serviceName);
                 return createFailResponse(request.getRequestId(), "负载均衡选择失败: " + serviceName);
@@ -102,29 +157,244 @@ public class NettyRpcClient {
                     selectedInvoker.getAddress(),
                     selectedInvoker.getActiveCount());
 
-            // 发送请求并等待结果
+            // 携带调用超时时间，连接据此设置超时，服务端据此丢弃已超时的请求
+            long timeoutMillis = applyTimeout(request);
+
+            // 发送请求并等待结果，超时由连接的待响应表按调用超时触发，
+            // 这里只多等一个时间轮刻度的余量作为兜底，不会以全局超时截断更长的方法超时
+            CompletableFuture<RpcResponse> future = selectedInvoker.invoke(request);
             try {
-                RpcResponse response = selectedInvoker.invoke(request)
-                        .get(clientConfig.getRequestTimeout().toSeconds(), TimeUnit.SECONDS);
+                RpcResponse response = future.get(timeoutMillis + TIMEOUT_GRACE_MILLIS, TimeUnit.MILLISECONDS);
 
                 // 请求成功
                 success = (response != null && response.getCode() == 200);
                 return response;
-            } catch (Exception e) {
-                log.error("请求执行异常: {}", e.getMessage(), e);
-                RpcFutureManager.completeExceptionally(request.getRequestId(), e);
-                return createFailResponse(request.getRequestId(), "请求执行异常: " + e.getMessage());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RpcRejectedException) {
+                    throw (RpcRejectedException) e.getCause();
+                }
+                String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                log.error("请求执行异常: {}", message);
+                return createFailResponse(request.getRequestId(), "请求执行异常: " + message);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // 结束调用，连接上的待响应记录随之移除
+                future.completeExceptionally(e);
+                return createFailResponse(request.getRequestId(), "请求被中断");
+            } catch (TimeoutException e) {
+                future.completeExceptionally(e);
+                log.error("请求超时: {}, 超时时间: {}ms", serviceName, timeoutMillis);
+                return createFailResponse(request.getRequestId(), "请求超时: " + timeoutMillis + "ms");
             }
+        } catch (RpcRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送请求异常: {}, 服务: {}", e.getMessage(), serviceName, e);
             return createFailResponse(request.getRequestId(), "发送请求异常: " + e.getMessage());
         } finally {
+            release(serviceName);
+
             // 记录请求结束
             long responseTime = System.currentTimeMillis() - startTime;
             log.debug("请求完成: {}, 耗时: {}ms, 成功: {}", serviceName, responseTime, success);
         }
     }
 
+    /**
+     * 异步发送RPC请求，不阻塞调用线程
+     * 服务发现和负载均衡在调用线程中完成，响应在回调线程池中交付。
+     * 调用失败或超时时与{@link #sendRequest(RpcRequest)}一样以失败响应完成，
+     * 只有本地拒绝时返回的Future以{@link RpcRejectedException}异常完成
+     *
+     * @param request 请求对象
+     * @return 响应Future
+     */
+    public CompletableFuture<RpcResponse> sendRequestAsync(RpcRequest request) {
+        String serviceName = request.getInterfaceName();
+
+        // 服务的进行中调用数达到上限时立即失败
+        if (!tryAcquire(serviceName)) {
+            return CompletableFuture.failedFuture(reject("服务进行中调用数已达上限: " + serviceName));
+        }
+
+        try {
+            // 基于Invoker的服务发现和负载均衡
+            List<Invoker> invokers = serviceCenter.discoverInvokers(request);
+            if (invokers == null || invokers.isEmpty()) {
+                log.error("未找到服务提供者: {}", serviceName);
+                release(serviceName);
+                return CompletableFuture.completedFuture(
+                        createFailResponse(request.getRequestId(), "未找到可用的服务提供者: " + serviceName));
+            }
+
+            // 跳过已饱和的调用者，全部饱和时立即失败
+            List<Invoker> candidates = unsaturated(invokers);
+            if (candidates.isEmpty()) {
+                release(serviceName);
+                return CompletableFuture.failedFuture(reject("服务提供者均已饱和: " + serviceName));
+            }
+
+            Invoker selectedInvoker = loadBalance.select(candidates, request);
+            if (selectedInvoker == null) {
+                log.error("负载均衡选择失败，服务: {}", serviceName);
+                release(serviceName);
+                return CompletableFuture.completedFuture(
+                        createFailResponse(request.getRequestId(), "负载均衡选择失败: " + serviceName));
+            }
+
+            // 携带调用超时时间，连接据此设置超时，服务端据此丢弃已超时的请求
+            applyTimeout(request);
+
+            // 调用结束时立即归还服务的调用名额，不等回调线程池
+            CompletableFuture<RpcResponse> future = selectedInvoker.invoke(request);
+            future.whenComplete((response, throwable) -> release(serviceName));
+
+            // 响应在IO线程或超时时间轮线程上完成，切换到回调线程池后再交给调用方
+            return future
+                    .handleAsync((response, throwable) -> {
+                        if (throwable == null) {
+                            return response;
+                        }
+                        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                                ? throwable.getCause()
+                                : throwable;
+                        if (cause instanceof RpcRejectedException) {
+                            throw (RpcRejectedException) cause;
+                        }
+                        String message = cause.getMessage();
+                        log.error("请求执行异常: {}", message);
+                        return createFailResponse(request.getRequestId(), "请求执行异常: " + message);
+                    }, callbackExecutor);
+        } catch (Exception e) {
+            log.error("发送请求异常: {}, 服务: {}", e.getMessage(), serviceName, e);
+            release(serviceName);
+            return CompletableFuture.completedFuture(
+                    createFailResponse(request.getRequestId(), "发送请求异常: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 发起服务端流式调用，不等待结果，元素和结束信号交给流对象处理
+     *
+     * @param request 请求对象
+     * @param stream  客户端流
+     */
+    public void openStream(RpcRequest request, ClientStream stream) {
+        String serviceName = request.getInterfaceName();
+
+        // 流与普通调用共用服务的进行中调用名额，流结束、失败或取消时归还
+        if (!tryAcquire(serviceName)) {
+            stream.fail(reject("服务进行中调用数已达上限: " + serviceName));
+            return;
+        }
+        stream.closeFuture().whenComplete((ignored, throwable) -> release(serviceName));
+
+        try {
+            List<Invoker> invokers = serviceCenter.discoverInvokers(request);
+            if (invokers == null || invokers.isEmpty()) {
+                log.error("未找到服务提供者: {}", serviceName);
+                stream.fail(new RpcException("未找到可用的服务提供者: " + serviceName));
+                return;
+            }
+
+            List<Invoker> candidates = unsaturated(invokers);
+            if (candidates.isEmpty()) {
+                stream.fail(reject("服务提供者均已饱和: " + serviceName));
+                return;
+            }
+
+            Invoker selectedInvoker = loadBalance.select(candidates, request);
+            if (selectedInvoker == null) {
+                log.error("负载均衡选择失败，服务: {}", serviceName);
+                stream.fail(new RpcException("负载均衡选择失败: " + serviceName));
+                return;
+            }
+
+            // 超时时间只约束服务端开始执行前的排队，不限制流的持续时间
+            applyTimeout(request);
+            selectedInvoker.invokeStream(request, stream);
+        } catch (Exception e) {
+            log.error("发起流式调用异常: {}, 服务: {}", e.getMessage(), serviceName, e);
+            stream.fail(e);
+        }
+    }
+
+    /**
+     * 请求未携带调用超时时间时，使用全局请求超时
+     *
+     * @return 请求实际使用的调用超时时间(毫秒)
+     */
+    private long applyTimeout(RpcRequest request) {
+        long defaultTimeout = clientConfig.getRequestTimeout().toMillis();
+        Map<String, String> attachments = request.getAttachments();
+        String timeout = attachments != null ? attachments.get(RpcProtocol.ATTACHMENT_TIMEOUT) : null;
+        if (timeout == null) {
+            request.putAttachment(RpcProtocol.ATTACHMENT_TIMEOUT, String.valueOf(defaultTimeout));
+            return defaultTimeout;
+        }
+        try {
+            long timeoutMillis = Long.parseLong(timeout);
+            return timeoutMillis > 0 ? timeoutMillis : defaultTimeout;
+        } catch (NumberFormatException e) {
+            return defaultTimeout;
+        }
+    }
+
+    /**
+     * 过滤掉已饱和的调用者，没有饱和的调用者时直接返回原列表
+     */
+    private List<Invoker> unsaturated(List<Invoker> invokers) {
+        for (int i = 0; i < invokers.size(); i++) {
+            if (invokers.get(i).isSaturated()) {
+                List<Invoker> candidates = new ArrayList<>(invokers.size());
+                for (Invoker invoker : invokers) {
+                    if (!invoker.isSaturated()) {
+                        candidates.add(invoker);
+                    }
+                }
+                return candidates;
+            }
+        }
+        return invokers;
+    }
+
+    /**
+     * 占用服务的进行中调用名额，服务未配置上限时直接返回true
+     *
+     * @return 是否占用成功，达到上限时返回false
+     */
+    private boolean tryAcquire(String serviceName) {
+        Integer limit = clientConfig.getServiceMaxInFlight().get(serviceName);
+        int maxInFlight = limit != null ? limit : clientConfig.getMaxInFlightPerService();
+        if (maxInFlight <= 0 || serviceName == null) {
+            return true;
+        }
+        AtomicInteger inFlight = serviceInFlight.computeIfAbsent(serviceName, key -> new AtomicInteger());
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 归还服务的进行中调用名额，只在占用成功后调用
+     */
+    private void release(String serviceName) {
+        AtomicInteger inFlight = serviceName != null ? serviceInFlight.get(serviceName) : null;
+        if (inFlight != null) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * 创建本地拒绝异常，请求未发送到服务端
+     */
+    private RpcRejectedException reject(String message) {
+        log.warn(message);
+        return new RpcRejectedException(message);
+    }
+
     /**
      * 创建失败响应
      */
@@ -140,8 +410,10 @@ public class NettyRpcClient {
      * 释放资源
      */
     public void close() {
-        // 关闭RPC Future管理器
-        RpcFutureManager.shutdown();
+        // 关闭回调线程池
+        if (callbackExecutor != null) {
+            callbackExecutor.shutdown();
+        }
 
         // 关闭Netty资源
         if (eventLoopGroup != null) {
@@ -0,0 +1,231 @@
+package com.weihua.rpc.core.client.netty.handler;
+
+import com.weihua.rpc.core.compress.Compressor;
+import com.weihua.rpc.core.compress.CompressorFactory;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.handshake.Handshake;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import com.weihua.rpc.core.serialize.impl.KryoSerializer;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.PendingWriteQueue;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端握手处理器
+ * 连接建立后发送握手请求，收到服务端下发的方法ID表后保存到通道属性中。
+ * 握手完成前发出的请求仍携带完整的接口名、方法名和参数类型。
+ * 配置了压缩算法时一并发起压缩协商，服务端确认后该连接上的大消息体才会压缩。
+ * 服务端声明的序列化偏好只保留本地支持的部分。
+ * 开启Kryo类注册时请求服务端的注册清单，按清单注册的Kryo实例只用于当前连接。
+ *
+ * 协议版本以服务端的握手响应为准：握手完成前的写出暂存在本处理器中，收到v2握手响应后按v2发出；
+ * 超时未收到响应时认为对端只支持v1，将连接标记为v1后再发出，避免把v2帧发给旧版本服务端
+ */
+@Slf4j
+public class HandshakeHandler extends ChannelDuplexHandler {
+
+    /**
+     * 默认握手超时时间(毫秒)
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 1000L;
+
+    // 是否发起握手，仅v2协议支持
+    private final boolean enabled;
+
+    // 期望使用的压缩算法，为空表示不压缩
+    private final String compressor;
+
+    // 是否请求Kryo类注册清单
+    private final boolean kryoRegistration;
+
+    // 握手超时时间(毫秒)，超时后按v1协议通信
+    private final long timeoutMillis;
+
+    // 握手完成前暂存的写出，握手完成或超时后置空
+    private PendingWriteQueue pendingWrites;
+
+    private ScheduledFuture<?> timeoutFuture;
+
+    public HandshakeHandler(boolean enabled) {
+        this(enabled, null);
+    }
+
+    public HandshakeHandler(boolean enabled, String compressor) {
+        this(enabled, compressor, false);
+    }
+
+    public HandshakeHandler(boolean enabled, String compressor, boolean kryoRegistration) {
+        this(enabled, compressor, kryoRegistration, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public HandshakeHandler(boolean enabled, String compressor, boolean kryoRegistration, long timeoutMillis) {
+        this.enabled = enabled;
+        this.compressor = compressor;
+        this.kryoRegistration = kryoRegistration;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (enabled) {
+            pendingWrites = new PendingWriteQueue(ctx);
+            timeoutFuture = ctx.executor().schedule(() -> fallback(ctx), timeoutMillis, TimeUnit.MILLISECONDS);
+
+            Handshake request = Handshake.request();
+            if (compressor != null && !compressor.isEmpty()) {
+                request.getProperties().put(RpcProtocol.HANDSHAKE_COMPRESSORS, compressor);
+            }
+            if (kryoRegistration) {
+                request.getProperties().put(RpcProtocol.HANDSHAKE_KRYO_REGISTRATION, "true");
+            }
+
+            ctx.writeAndFlush(request).addListener((ChannelFutureListener) future -> {
+                if (!future.isSuccess()) {
+                    log.warn("发送握手请求失败: {}", future.cause().getMessage());
+                }
+            });
+        }
+        super.channelActive(ctx);
+    }
+
+    /**
+     * 握手完成前暂存写出
+     */
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (pendingWrites != null) {
+            pendingWrites.add(msg, promise);
+            return;
+        }
+        ctx.write(msg, promise);
+    }
+
+    /**
+     * 握手完成前的flush推迟到握手结束时统一执行
+     */
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (pendingWrites != null) {
+            return;
+        }
+        ctx.flush();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        failPendingWrites();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        failPendingWrites();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof Handshake)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        Handshake handshake = (Handshake) msg;
+        if (!handshake.isResponse()) {
+            log.warn("客户端收到握手请求，忽略: {}", ctx.channel().remoteAddress());
+            return;
+        }
+
+        ctx.channel().attr(RpcProtocol.METHOD_IDS).set(handshake.getMethodIds());
+        ctx.channel().attr(RpcProtocol.SERVICE_SERIALIZERS).set(readServiceSerializers(handshake));
+
+        // 服务端选定的压缩算法
+        String selected = handshake.getProperties().get(RpcProtocol.HANDSHAKE_COMPRESSOR);
+        Compressor negotiated = CompressorFactory.getCompressor(selected);
+        if (negotiated != null) {
+            ctx.channel().attr(RpcProtocol.COMPRESSOR).set(negotiated);
+        }
+
+        // 服务端下发了Kryo类注册清单，之后该连接上的Kryo消息按清单注册的类ID编解码
+        String manifest = handshake.getProperties().get(RpcProtocol.HANDSHAKE_KRYO_MANIFEST);
+        if (manifest != null) {
+            ctx.channel().attr(RpcProtocol.CONNECTION_SERIALIZERS).set(KryoSerializer.connectionSerializers(manifest));
+        }
+
+        log.debug("握手完成，服务端方法数: {}, 压缩算法: {}, 地址: {}",
+                handshake.getMethodIds().size(),
+                negotiated != null ? negotiated.getName() : "无",
+                ctx.channel().remoteAddress());
+
+        // 解码器收到v2帧时已将连接标记为v2，暂存的写出按v2发出
+        releasePendingWrites(ctx);
+    }
+
+    /**
+     * 握手超时，对端按v1处理
+     */
+    private void fallback(ChannelHandlerContext ctx) {
+        if (pendingWrites == null) {
+            return;
+        }
+        log.warn("握手超时({}ms)，按v1协议通信: {}", timeoutMillis, ctx.channel().remoteAddress());
+        ctx.channel().attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_1);
+        releasePendingWrites(ctx);
+    }
+
+    /**
+     * 发出握手期间暂存的写出，之后的写出直接放行
+     */
+    private void releasePendingWrites(ChannelHandlerContext ctx) {
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+            timeoutFuture = null;
+        }
+        PendingWriteQueue queue = pendingWrites;
+        if (queue == null) {
+            return;
+        }
+        pendingWrites = null;
+        queue.removeAndWriteAll();
+        ctx.flush();
+    }
+
+    /**
+     * 连接关闭时以失败结束暂存的写出
+     */
+    private void failPendingWrites() {
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+            timeoutFuture = null;
+        }
+        PendingWriteQueue queue = pendingWrites;
+        if (queue != null) {
+            pendingWrites = null;
+            queue.removeAndFailAll(new ClosedChannelException());
+        }
+    }
+
+    /**
+     * 读取服务端声明的服务序列化偏好(接口名 -> 序列化类型)
+     */
+    private Map<String, Byte> readServiceSerializers(Handshake handshake) {
+        Map<String, Serializer> supported = SerializerFactory.getAllSerializers();
+        Map<String, Byte> serviceSerializers = new HashMap<>();
+        handshake.getProperties().forEach((key, value) -> {
+            if (key.startsWith(RpcProtocol.HANDSHAKE_SERIALIZER_PREFIX) && supported.containsKey(value)) {
+                serviceSerializers.put(key.substring(RpcProtocol.HANDSHAKE_SERIALIZER_PREFIX.length()),
+                        supported.get(value).getType());
+            }
+        });
+        return serviceSerializers;
+    }
+}
@@ -2,6 +2,7 @@ package com.weihua.rpc.core.client.netty.handler;
 
 import com.weihua.rpc.common.model.RpcRequest;
 import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.client.invoker.RequestIdGenerator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.timeout.IdleState;
@@ -77,8 +78,9 @@ public class HeartBeatHandler extends ChannelInboundHandlerAdapter {
         // 创建心跳请求并添加元数据
         long timestamp = System.currentTimeMillis();
 
+        // 心跳与业务请求共用数值ID，v2协议下可直接写入协议头
         RpcRequest heartbeat = RpcRequest.builder()
-                .requestId("heartbeat-" + timestamp)
+                .requestId(RequestIdGenerator.nextRequestId())
                 .requestType(RpcRequest.RequestType.HEARTBEAT)
                 .build();
 
@@ -8,7 +8,8 @@
 package com.weihua.rpc.core.client.netty.handler;
 
 import com.weihua.rpc.common.model.RpcResponse;
-import com.weihua.rpc.core.client.invoker.RpcFutureManager;
+import com.weihua.rpc.core.client.invoker.PendingCalls;
+import com.weihua.rpc.core.client.stream.ClientStream;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -34,6 +35,11 @@ public class NettyClientHandler extends SimpleChannelInboundHandler<RpcResponse>
             return;
         }
 
+        // 流式调用的元素和结束响应交给对应的流
+        if (ClientStream.dispatch(ctx.channel(), response)) {
+            return;
+        }
+
         // 记录性能指标
         if (response.getCode() == 200) {
             log.debug("请求成功完成: {}, 响应码: {}", response.getRequestId(), response.getCode());
@@ -42,8 +48,18 @@ public class NettyClientHandler extends SimpleChannelInboundHandler<RpcResponse>
                     response.getRequestId(), response.getCode(), response.getMessage());
         }
 
-        // 完成Future
-        RpcFutureManager.completeFuture(response.getRequestId(), response);
+        // 在连接的待响应表中完成对应的调用
+        if (!completePendingCall(ctx, response)) {
+            log.warn("未找到请求ID对应的调用: {}, 可能已超时或被取消", response.getRequestId());
+        }
+    }
+
+    private boolean completePendingCall(ChannelHandlerContext ctx, RpcResponse response) {
+        try {
+            return PendingCalls.of(ctx.channel()).complete(Long.parseLong(response.getRequestId()), response);
+        } catch (NumberFormatException e) {
+            return false;
+        }
     }
 
     @Override
@@ -68,7 +84,6 @@ public class NettyClientHandler extends SimpleChannelInboundHandler<RpcResponse>
      * 判断是否是心跳响应
      */
     private boolean isHeartBeatResponse(RpcResponse response) {
-        return "pong".equals(response.getMessage()) ||
-                (response.getRequestId() != null && response.getRequestId().startsWith("heartbeat-"));
+        return response.isHeartBeat() || "pong".equals(response.getMessage());
     }
 }
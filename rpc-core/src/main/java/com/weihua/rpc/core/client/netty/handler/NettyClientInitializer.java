@@ -10,8 +10,10 @@ package com.weihua.rpc.core.client.netty.handler;
 import com.weihua.rpc.common.model.RpcRequest;
 import com.weihua.rpc.core.client.config.ClientConfig;
 import com.weihua.rpc.core.client.invoker.InvokerManager;
+import com.weihua.rpc.core.protocol.RpcProtocol;
 import com.weihua.rpc.core.protocol.codec.RpcDecoder;
 import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import com.weihua.rpc.core.protocol.handler.FlushBatchHandler;
 import com.weihua.rpc.core.serialize.Serializer;
 import com.weihua.rpc.core.serialize.SerializerFactory;
 
@@ -59,6 +61,12 @@ public class NettyClientInitializer extends ChannelInitializer<SocketChannel> {
             // 1. 添加通道状态监控
             pipeline.addLast("channelStatus", new ChannelStatusHandler());
 
+            // 合并请求的flush，减少系统调用次数
+            if (clientConfig.isFlushBatchEnabled()) {
+                pipeline.addLast("flushBatch", new FlushBatchHandler(clientConfig.getFlushBatchSize(),
+                        clientConfig.getFlushBatchDelay().toNanos(), TimeUnit.NANOSECONDS));
+            }
+
             // 2. 添加空闲检测
             pipeline.addLast("idleState", new IdleStateHandler(
                     clientConfig.getReaderIdleTime().toSeconds(),
@@ -66,10 +74,19 @@ public class NettyClientInitializer extends ChannelInitializer<SocketChannel> {
                     clientConfig.getAllIdleTime().toSeconds(),
                     TimeUnit.SECONDS));
 
-            // 3. 添加编解码器
+            // 3. 添加编解码器，对端确认支持v2之前按v1编码
             Serializer serializer = SerializerFactory.getDefaultSerializer();
-            pipeline.addLast("encoder", new RpcEncoder(serializer));
-            pipeline.addLast("decoder", new RpcDecoder(serializer));
+            byte protocolVersion = getProtocolVersion();
+            pipeline.addLast("encoder", new RpcEncoder(serializer, RpcProtocol.VERSION_1, getCompressionThreshold(),
+                    clientConfig.getChunkSize(), clientConfig.isPreEncodeEnabled()));
+            pipeline.addLast("decoder", new RpcDecoder(serializer, null,
+                    clientConfig.getMaxFrameLength(), clientConfig.getMaxMessageLength(), -1, false,
+                    clientConfig.getMaxChunkedMessages(), clientConfig.getChunkedMessageTimeout().toMillis()));
+
+            // 添加握手处理器，v2协议下确认协议版本、获取服务端方法ID表并协商压缩算法
+            pipeline.addLast("handshake", new HandshakeHandler(protocolVersion == RpcProtocol.VERSION_2,
+                    getCompressor(), clientConfig.isKryoRegistrationEnabled(),
+                    clientConfig.getHandshakeTimeout().toMillis()));
 
             // 4. 添加业务处理器
             pipeline.addLast("clientHandler", new NettyClientHandler());
@@ -87,6 +104,35 @@ public class NettyClientInitializer extends ChannelInitializer<SocketChannel> {
         }
     }
 
+    /**
+     * 获取客户端默认使用的协议版本
+     */
+    private byte getProtocolVersion() {
+        if (clientConfig != null && clientConfig.getProtocolVersion() == RpcProtocol.VERSION_1) {
+            return RpcProtocol.VERSION_1;
+        }
+        return RpcProtocol.VERSION_2;
+    }
+
+    /**
+     * 获取客户端期望使用的压缩算法，未启用压缩时返回null
+     */
+    private String getCompressor() {
+        if (clientConfig == null || !clientConfig.isCompressionEnabled()) {
+            return null;
+        }
+        return clientConfig.getCompressor();
+    }
+
+    /**
+     * 获取压缩阈值
+     */
+    private int getCompressionThreshold() {
+        return clientConfig != null
+                ? clientConfig.getCompressionThreshold()
+                : RpcProtocol.DEFAULT_COMPRESSION_THRESHOLD;
+    }
+
     /**
      * 连接生命周期监听器
      */
@@ -1,14 +1,21 @@
 package com.weihua.rpc.core.client.proxy;
 
+import com.weihua.rpc.common.exception.RpcException;
+import com.weihua.rpc.common.exception.RpcRejectedException;
 import com.weihua.rpc.common.model.RpcRequest;
 import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.client.annotation.RpcTimeout;
 import com.weihua.rpc.core.client.circuit.CircuitBreaker;
 import com.weihua.rpc.core.client.circuit.CircuitBreakerProvider;
 import com.weihua.rpc.core.client.config.ClientConfig;
 import com.weihua.rpc.core.client.netty.NettyRpcClient;
 import com.weihua.rpc.core.client.registry.ServiceDiscovery;
+import com.weihua.rpc.core.client.stream.FailedPublisher;
+import com.weihua.rpc.core.client.stream.StreamIterator;
+import com.weihua.rpc.core.client.stream.StreamPublisher;
 import com.weihua.rpc.core.condition.ConditionalOnClientMode;
-import com.weihua.rpc.core.server.annotation.MethodSignature;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.serialize.SerializerFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -16,13 +23,24 @@ import org.springframework.stereotype.Component;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.StreamSupport;
 
 /**
  * 客户端代理工厂
- * 为RPC接口创建动态代理
+ * 为RPC接口创建动态代理，返回CompletableFuture或CompletionStage的方法按异步调用处理，不阻塞调用线程
  */
 @Slf4j
 @Component
@@ -67,12 +85,45 @@ public class ClientProxyFactory {
      * @param <T>            接口类型
      * @return 代理对象
      */
-    @SuppressWarnings("unchecked")
     public <T> T getProxy(Class<T> interfaceClass, String version, String group) {
+        return getProxy(interfaceClass, version, group, null);
+    }
+
+    /**
+     * 创建指定序列化方式的代理对象
+     *
+     * @param interfaceClass 接口类
+     * @param version        服务版本
+     * @param group          服务分组
+     * @param serializer     序列化器名称，为空时采用服务端偏好或全局配置
+     * @param <T>            接口类型
+     * @return 代理对象
+     */
+    public <T> T getProxy(Class<T> interfaceClass, String version, String group, String serializer) {
+        return getProxy(interfaceClass, version, group, serializer, 0L);
+    }
+
+    /**
+     * 创建指定序列化方式和调用超时的代理对象
+     *
+     * @param interfaceClass 接口类
+     * @param version        服务版本
+     * @param group          服务分组
+     * @param serializer     序列化器名称，为空时采用服务端偏好或全局配置
+     * @param timeoutMillis  调用超时时间(毫秒)，不大于0时使用全局请求超时
+     * @param <T>            接口类型
+     * @return 代理对象
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getProxy(Class<T> interfaceClass, String version, String group, String serializer,
+            long timeoutMillis) {
+        byte serializerType = serializer == null || serializer.isEmpty()
+                ? 0
+                : SerializerFactory.getSerializer(serializer).getType();
         return (T) Proxy.newProxyInstance(
                 interfaceClass.getClassLoader(),
                 new Class<?>[] { interfaceClass },
-                new RpcInvocationHandler(interfaceClass, version, group));
+                new RpcInvocationHandler(interfaceClass, version, group, serializerType, timeoutMillis));
     }
 
     /**
@@ -82,15 +133,30 @@ public class ClientProxyFactory {
         private final Class<?> interfaceClass;
         private final String version;
         private final String group;
+        // 请求序列化类型，0表示未指定
+        private final byte serializerType;
+        // 引用级别的调用超时(毫秒)，0表示未指定
+        private final long timeoutMillis;
+        // 接口的熔断器
+        private final CircuitBreaker circuitBreaker;
+        // 方法 -> 调用描述，创建代理时为接口的全部方法生成
+        private final ConcurrentMap<Method, MethodStub> stubs = new ConcurrentHashMap<>();
 
         public RpcInvocationHandler(Class<?> interfaceClass) {
-            this(interfaceClass, clientConfig.getServiceVersion(), clientConfig.getServiceGroup());
+            this(interfaceClass, clientConfig.getServiceVersion(), clientConfig.getServiceGroup(), (byte) 0, 0L);
         }
 
-        public RpcInvocationHandler(Class<?> interfaceClass, String version, String group) {
+        public RpcInvocationHandler(Class<?> interfaceClass, String version, String group, byte serializerType,
+                long timeoutMillis) {
             this.interfaceClass = interfaceClass;
             this.version = version;
             this.group = group;
+            this.serializerType = serializerType;
+            this.timeoutMillis = timeoutMillis;
+            this.circuitBreaker = circuitBreakerProvider.getCircuitBreaker(interfaceClass.getName());
+            for (Method method : interfaceClass.getMethods()) {
+                stubs.put(method, createStub(method));
+            }
         }
 
         @Override
@@ -100,36 +166,39 @@ public class ClientProxyFactory {
                 return method.invoke(this, args);
             }
 
-            String interfaceName = interfaceClass.getName();
-            String methodName = method.getName();
-            Class<?>[] parameterTypes = method.getParameterTypes();
-
-            // 构建请求对象
-            RpcRequest rpcRequest = buildRequest(method, args);
-
-            // 获取熔断器
-            CircuitBreaker circuitBreaker = circuitBreakerProvider.getCircuitBreaker(interfaceName);
+            MethodStub stub = stubs.get(method);
+            if (stub == null) {
+                stub = stubs.computeIfAbsent(method, this::createStub);
+            }
+            String interfaceName = stub.getInterfaceName();
 
             // 熔断器检查
             if (!circuitBreaker.allowRequest()) {
                 log.warn("熔断器开启，请求被拒绝: {}", interfaceName);
-                return handleCircuitBreakerOpenResult(method);
+                return handleCircuitBreakerOpenResult(stub);
+            }
+
+            // 服务端流式方法：元素随到随交付，不经过重试
+            if (stub.getKind() == MethodStub.Kind.STREAM) {
+                return invokeStream(stub, args);
+            }
+
+            // 构建请求对象
+            RpcRequest rpcRequest = buildRequest(stub, args);
+
+            // 异步方法：立即返回Future，结果在回调线程池中交付
+            if (stub.getKind() == MethodStub.Kind.ASYNC) {
+                return invokeAsync(stub, rpcRequest);
             }
 
             boolean success = false;
             String errorMessage = null;
 
             try {
-                // 生成方法签名
-                String methodSignature = MethodSignature.generate(
-                        interfaceName, methodName, parameterTypes);
-
-                log.debug("调用方法: {}", methodSignature);
+                log.debug("调用方法: {}", stub.getSignature());
 
                 // 判断方法是否可重试
-                boolean canRetry = clientConfig.isRetryEnable()
-                        && serviceCenter.isMethodRetryable(methodSignature);
-                log.info("canRetry: {}", canRetry);
+                boolean canRetry = isRetryable(stub);
                 // 发送请求
                 RpcResponse response;
                 if (canRetry) {
@@ -160,7 +229,10 @@ public class ClientProxyFactory {
                 throw new RuntimeException("RPC调用失败: " + errorMessage);
 
             } catch (Exception e) {
-                circuitBreaker.recordFailure();
+                // 根据响应判定的失败已在上面处理；本地拒绝时请求未发送，不代表服务端故障，不计入熔断统计
+                if (errorMessage == null && !(e instanceof RpcRejectedException)) {
+                    circuitBreaker.recordFailure();
+                }
                 log.error("调用发生异常: {}", e.getMessage(), e);
                 throw e;
             } finally {
@@ -169,82 +241,192 @@ public class ClientProxyFactory {
         }
 
         /**
-         * 构建RPC请求对象
+         * 为方法生成调用描述
          */
-        private RpcRequest buildRequest(Method method, Object[] args) {
-            return RpcRequest.builder()
-                    .requestId(UUID.randomUUID().toString())
-                    .interfaceName(interfaceClass.getName())
-                    .methodName(method.getName())
-                    .parameters(args)
-                    .parameterTypes(method.getParameterTypes())
-                    .version(version)
-                    .group(group)
-                    .build();
+        private MethodStub createStub(Method method) {
+            return new MethodStub(interfaceClass, method, circuitBreaker, resolveTimeout(method));
         }
 
         /**
-         * 使用重试机制执行请求
+         * 方法是否可重试，需同时开启客户端重试
          */
-        private RpcResponse executeWithRetry(RpcRequest request) throws Exception {
-            CompletableFuture<RpcResponse> future = new CompletableFuture<>();
-
-            // 重试处理
-            int maxRetries = clientConfig.getMaxRetryAttempts();
-            executeWithRetry(request, 0, maxRetries, future);
-
-            // 等待结果
-            return future.get(clientConfig.getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        private boolean isRetryable(MethodStub stub) {
+            return clientConfig.isRetryEnable() && stub.isRetryable(serviceCenter::isMethodRetryable);
         }
 
         /**
-         * 递归重试
+         * 发起异步调用，服务发现、负载均衡、熔断和重试都不阻塞调用线程
+         * 调用失败时Future以异常完成，异常类型与同步调用抛出的一致
          */
-        private void executeWithRetry(RpcRequest request, int currentRetry, int maxRetries,
-                CompletableFuture<RpcResponse> future) {
-            try {
-                RpcResponse response = rpcClient.sendRequest(request);
+        private CompletableFuture<Object> invokeAsync(MethodStub stub, RpcRequest request) {
+            CircuitBreaker circuitBreaker = stub.getCircuitBreaker();
+            boolean canRetry = isRetryable(stub);
 
-                // 请求成功，完成future
+            CompletableFuture<RpcResponse> responseFuture = canRetry
+                    ? executeWithRetryAsync(request, 0, clientConfig.getMaxRetryAttempts())
+                    : rpcClient.sendRequestAsync(request);
+
+            return responseFuture.thenApply(response -> {
                 if (response != null && response.getCode() == 200) {
-                    future.complete(response);
-                    return;
+                    circuitBreaker.recordSuccess();
+                    return response.getData();
                 }
 
-                // 请求失败，判断是否需要重试
-                if (currentRetry < maxRetries) {
-                    log.warn("请求失败，准备第{}次重试", currentRetry + 1);
+                circuitBreaker.recordFailure();
+                String errorMessage = response != null
+                        ? "错误码: " + response.getCode() + ", 消息: " + response.getMessage()
+                        : "调用返回空响应";
+                log.warn("调用失败: {}", errorMessage);
+                throw new RuntimeException("RPC调用失败: " + errorMessage);
+            });
+        }
 
-                    // 延迟后重试
-                    long retryDelay = (int) clientConfig.getRetryInterval().toMillis();
-                    CompletableFuture.delayedExecutor(retryDelay, TimeUnit.MILLISECONDS)
-                            .execute(() -> executeWithRetry(request, currentRetry + 1, maxRetries, future));
-                } else {
-                    // 重试次数用尽，返回最后一次的响应
+        /**
+         * 异步重试，重试间隔通过延迟执行器等待，不占用线程
+         * 本地拒绝与同步调用一样参与重试，重试次数用尽后Future以拒绝异常完成
+         */
+        private CompletableFuture<RpcResponse> executeWithRetryAsync(RpcRequest request, int currentRetry,
+                int maxRetries) {
+            CompletableFuture<RpcResponse> attempt = rpcClient.sendRequestAsync(request);
+            return attempt.handle((response, throwable) -> {
+                if (throwable == null && response != null && response.getCode() == 200) {
+                    return attempt;
+                }
+                if (currentRetry >= maxRetries) {
+                    // 重试次数用尽，返回最后一次的结果
                     log.error("重试次数用尽，请求失败");
-                    future.complete(response);
+                    return attempt;
                 }
-            } catch (Exception e) {
-                if (currentRetry < maxRetries) {
-                    log.warn("请求异常，准备第{}次重试", currentRetry + 1);
 
-                    // 延迟后重试
-                    long retryDelay = (int) clientConfig.getRetryInterval().toMillis();
-                    CompletableFuture.delayedExecutor(retryDelay, TimeUnit.MILLISECONDS)
-                            .execute(() -> executeWithRetry(request, currentRetry + 1, maxRetries, future));
-                } else {
-                    // 重试次数用尽，返回异常
-                    log.error("重试次数用尽，请求异常");
-                    future.completeExceptionally(e);
+                log.warn("请求失败，准备第{}次重试", currentRetry + 1);
+                Executor delayed = CompletableFuture.delayedExecutor(clientConfig.getRetryInterval().toMillis(),
+                        TimeUnit.MILLISECONDS, rpcClient.getCallbackExecutor());
+                return CompletableFuture.runAsync(() -> {
+                }, delayed).thenCompose(ignored -> executeWithRetryAsync(request, currentRetry + 1, maxRetries));
+            }).thenCompose(Function.identity());
+        }
+
+        /**
+         * 发起服务端流式调用
+         * 发布者在订阅时才发起调用；迭代器和Stream立即发起调用，并按窗口预取元素
+         */
+        private Object invokeStream(MethodStub stub, Object[] args) {
+            StreamPublisher<Object> publisher = new StreamPublisher<>(rpcClient,
+                    () -> buildRequest(stub, args), clientConfig.getStreamWindow());
+            return adaptStream(stub, publisher);
+        }
+
+        /**
+         * 按方法的返回类型包装流：Publisher原样返回，Iterator和Stream以阻塞迭代器消费
+         */
+        private Object adaptStream(MethodStub stub, Flow.Publisher<Object> publisher) {
+            Method method = stub.getMethod();
+            if (method.getReturnType() == Flow.Publisher.class) {
+                return publisher;
+            }
+
+            StreamIterator<Object> iterator = new StreamIterator<>(publisher, clientConfig.getStreamWindow(),
+                    clientConfig.getRequestTimeout());
+            if (method.getReturnType() == Iterator.class) {
+                return iterator;
+            }
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                    .onClose(iterator::close);
+        }
+
+        /**
+         * 构建RPC请求对象，方法签名和超时时间取自调用描述，连接据此直接查找方法ID
+         */
+        private RpcRequest buildRequest(MethodStub stub, Object[] args) {
+            Map<String, String> attachments = new HashMap<>(4);
+            attachments.put(RpcProtocol.ATTACHMENT_TIMEOUT, stub.getTimeout());
+            attachments.put(RpcProtocol.ATTACHMENT_METHOD_SIGNATURE, stub.getSignature());
+
+            // 请求ID在发送时由连接的待响应表分配
+            RpcRequest request = new RpcRequest();
+            request.setInterfaceName(stub.getInterfaceName());
+            request.setMethodName(stub.getMethodName());
+            request.setParameters(args);
+            request.setParameterTypes(stub.getParameterTypes());
+            request.setVersion(version);
+            request.setGroup(group);
+            request.setSerializerType(serializerType);
+            request.setAttachments(attachments);
+            return request;
+        }
+
+        /**
+         * 确定方法的调用超时，优先级依次为：方法级别配置、方法上的{@link RpcTimeout}注解、
+         * 接口级别配置、引用级别超时、全局请求超时。不大于0的值视为未设置，继续取下一级
+         */
+        private long resolveTimeout(Method method) {
+            String interfaceName = interfaceClass.getName();
+            Duration configured = clientConfig.getMethodTimeouts().get(interfaceName + "#" + method.getName());
+            if (configured != null && configured.toMillis() > 0) {
+                return configured.toMillis();
+            }
+
+            RpcTimeout annotation = method.getAnnotation(RpcTimeout.class);
+            if (annotation != null && annotation.value() > 0) {
+                return annotation.value();
+            }
+
+            configured = clientConfig.getMethodTimeouts().get(interfaceName);
+            if (configured != null && configured.toMillis() > 0) {
+                return configured.toMillis();
+            }
+            return timeoutMillis > 0 ? timeoutMillis : clientConfig.getRequestTimeout().toMillis();
+        }
+
+        /**
+         * 使用重试机制执行请求
+         * 每次发送都由连接的超时时间轮按请求携带的方法超时结束，这里不再叠加全局请求超时，
+         * 否则长于全局超时的方法会被提前截断
+         */
+        private RpcResponse executeWithRetry(RpcRequest request) throws Exception {
+            int maxRetries = clientConfig.getMaxRetryAttempts();
+            for (int currentRetry = 0;; currentRetry++) {
+                try {
+                    RpcResponse response = rpcClient.sendRequest(request);
+
+                    // 请求成功，或重试次数用尽时返回最后一次的响应
+                    if (response != null && response.getCode() == 200) {
+                        return response;
+                    }
+                    if (currentRetry >= maxRetries) {
+                        log.error("重试次数用尽，请求失败");
+                        return response;
+                    }
+                    log.warn("请求失败，准备第{}次重试", currentRetry + 1);
+                } catch (Exception e) {
+                    if (currentRetry >= maxRetries) {
+                        log.error("重试次数用尽，请求异常");
+                        throw e;
+                    }
+                    log.warn("请求异常，准备第{}次重试", currentRetry + 1);
                 }
+
+                // 延迟后重试
+                Thread.sleep(clientConfig.getRetryInterval().toMillis());
             }
         }
 
         /**
          * 处理熔断器打开时的返回值
          */
-        private Object handleCircuitBreakerOpenResult(Method method) {
-            Class<?> returnType = method.getReturnType();
+        private Object handleCircuitBreakerOpenResult(MethodStub stub) {
+            Class<?> returnType = stub.getMethod().getReturnType();
+
+            // 异步方法返回以null完成的Future
+            if (stub.getKind() == MethodStub.Kind.ASYNC) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // 流式方法返回已失败的流，调用方消费时得到熔断异常
+            if (stub.getKind() == MethodStub.Kind.STREAM) {
+                return adaptStream(stub, new FailedPublisher<>(
+                        new RpcException("熔断器开启，请求被拒绝: " + stub.getInterfaceName())));
+            }
 
             // 对于基本类型，返回默认值
             if (returnType == int.class || returnType == short.class || returnType == byte.class) {
@@ -0,0 +1,117 @@
+package com.weihua.rpc.core.client.proxy;
+
+import com.weihua.rpc.core.client.circuit.CircuitBreaker;
+import com.weihua.rpc.core.server.annotation.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 代理方法的调用描述
+ * 在创建代理时为接口的每个方法生成一次，保存方法签名、参数类型、调用方式、熔断器和超时等调用期不变的信息，
+ * 调用时不再重复生成签名、复制参数类型数组或查找熔断器
+ */
+final class MethodStub {
+
+    /**
+     * 调用方式，由方法返回类型决定
+     */
+    enum Kind {
+        /**
+         * 同步调用
+         */
+        SYNC,
+
+        /**
+         * 返回CompletableFuture或CompletionStage的异步调用
+         */
+        ASYNC,
+
+        /**
+         * 返回发布者、迭代器或Stream的服务端流式调用
+         */
+        STREAM
+    }
+
+    private final Method method;
+    private final String interfaceName;
+    private final String methodName;
+    private final Class<?>[] parameterTypes;
+    private final String signature;
+    private final Kind kind;
+    private final CircuitBreaker circuitBreaker;
+    // 调用超时(毫秒)，以附加信息的形式携带，预先转换为字符串
+    private final String timeout;
+    // 是否可重试，服务元数据可能在首次调用时才可用，首次调用时确定
+    private volatile Boolean retryable;
+
+    MethodStub(Class<?> interfaceClass, Method method, CircuitBreaker circuitBreaker, long timeoutMillis) {
+        this.method = method;
+        this.interfaceName = interfaceClass.getName();
+        this.methodName = method.getName();
+        this.parameterTypes = method.getParameterTypes();
+        this.signature = MethodSignature.generate(interfaceName, methodName, parameterTypes);
+        this.kind = kindOf(method.getReturnType());
+        this.circuitBreaker = circuitBreaker;
+        this.timeout = String.valueOf(timeoutMillis);
+    }
+
+    private static Kind kindOf(Class<?> returnType) {
+        if (returnType == Flow.Publisher.class || returnType == Iterator.class || returnType == Stream.class) {
+            return Kind.STREAM;
+        }
+        if (returnType == CompletableFuture.class || returnType == CompletionStage.class) {
+            return Kind.ASYNC;
+        }
+        return Kind.SYNC;
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    String getInterfaceName() {
+        return interfaceName;
+    }
+
+    String getMethodName() {
+        return methodName;
+    }
+
+    Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    String getSignature() {
+        return signature;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    String getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 方法是否可重试，首次调用时通过服务发现查询并缓存结果
+     */
+    boolean isRetryable(Predicate<String> retryableLookup) {
+        Boolean result = retryable;
+        if (result == null) {
+            result = retryableLookup.test(signature);
+            retryable = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package com.weihua.rpc.core.client.registry.impl;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.core.client.invoker.Invoker;
+import com.weihua.rpc.core.client.registry.AbstractServiceDiscovery;
+import com.weihua.rpc.core.server.registry.impl.LocalServiceRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 本地服务发现实现
+ * 从同一JVM内的{@link LocalServiceRegistry}读取服务地址，不依赖外部注册中心，
+ * 用于单进程内的集成测试和压测
+ */
+@Slf4j
+public class LocalServiceDiscovery extends AbstractServiceDiscovery {
+
+    // 服务名称 -> 最近一次同步时的注册表版本
+    private final Map<String, Long> syncedVersions = new ConcurrentHashMap<>();
+
+    @Override
+    public void init() {
+        log.info("初始化本地服务发现中心");
+    }
+
+    @Override
+    public List<Invoker> discoverInvokers(RpcRequest request) {
+        String serviceName = request.getInterfaceName();
+        syncIfChanged(serviceName);
+        return invokerManager.getInvokers(serviceName);
+    }
+
+    /**
+     * 注册表版本变化后同步服务地址，未变化时直接返回
+     */
+    private void syncIfChanged(String serviceName) {
+        if (isSynced(serviceName)) {
+            return;
+        }
+
+        // 同一时间只同步一次，EAGER模式下同步过程中会建立连接
+        synchronized (this) {
+            if (isSynced(serviceName)) {
+                return;
+            }
+            sync(serviceName);
+        }
+    }
+
+    private boolean isSynced(String serviceName) {
+        Long synced = syncedVersions.get(serviceName);
+        return synced != null && synced == LocalServiceRegistry.getVersion();
+    }
+
+    private void sync(String serviceName) {
+        long version = LocalServiceRegistry.getVersion();
+        List<String> addresses = LocalServiceRegistry.getAddresses(serviceName);
+        addressCache.updateAddresses(serviceName, addresses);
+        invokerManager.updateServiceAddresses(serviceName, addresses);
+        syncedVersions.put(serviceName, version);
+        log.debug("已同步本地服务 {} 实例列表，共 {} 个实例", serviceName, addresses.size());
+    }
+
+    @Override
+    public boolean isMethodRetryable(String methodSignature) {
+        return LocalServiceRegistry.isMethodRetryable(methodSignature);
+    }
+
+    @Override
+    public Map<String, String> getServiceMetadata(String serviceName) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public void subscribeAddressChange(String serviceName, Consumer<List<String>> listener) {
+        if (serviceName != null && listener != null) {
+            addressCache.subscribeAddressChange(serviceName, listener);
+            syncIfChanged(serviceName);
+        }
+    }
+
+    @Override
+    public void unsubscribeAddressChange(String serviceName, Consumer<List<String>> listener) {
+        if (serviceName != null && listener != null) {
+            addressCache.unsubscribeAddressChange(serviceName, listener);
+        }
+    }
+
+    @Override
+    public boolean forceSync(String serviceName) {
+        if (serviceName == null || serviceName.isEmpty()) {
+            return false;
+        }
+        syncedVersions.remove(serviceName);
+        syncIfChanged(serviceName);
+        return true;
+    }
+
+    @Override
+    public boolean isServiceHealthy(String serviceName) {
+        return !LocalServiceRegistry.getAddresses(serviceName).isEmpty();
+    }
+
+    @Override
+    public void close() {
+        syncedVersions.clear();
+        log.info("本地服务发现中心已关闭");
+    }
+}
@@ -0,0 +1,322 @@
+package com.weihua.rpc.core.client.stream;
+
+import com.weihua.rpc.common.exception.RpcException;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端流式调用
+ * 接收服务端推送的流式元素并按订阅者的请求数量交付。订阅者每消费半个窗口的元素，就通过流控制帧向服务端追加同样数量的额度，
+ * 因此未消费的元素最多为一个窗口。元素在公共线程池中交付，订阅者的处理逻辑不会阻塞IO线程。
+ *
+ * 服务端不支持流式传输时（v1协议）会把全部元素汇总为列表一次返回，此时直接逐个交付列表元素。
+ *
+ * 流从发起到结束、失败或取消期间计为进行中的调用，调用方通过{@link #closeFuture()}在流结束时归还名额
+ */
+@Slf4j
+public class ClientStream implements Flow.Subscription {
+
+    /**
+     * 连接上进行中的流(请求ID -> 流)，请求ID由连接分配，只在同一连接内唯一
+     */
+    private static final AttributeKey<Map<String, ClientStream>> STREAMS = AttributeKey.valueOf("rpc.clientStreams");
+
+    // 请求ID，绑定连接时分配
+    private volatile String requestId;
+    private final Flow.Subscriber<Object> subscriber;
+    private final int window;
+    private final Executor executor;
+
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+
+    // 交付任务的重入计数，保证同一时刻只有一个线程调用订阅者
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile Channel channel;
+
+    // 是否收到过流式元素帧，只有流式传输时才需要追加额度
+    private volatile boolean streamed;
+
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    // 流结束、失败或取消时完成
+    private final CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+
+    // 以下字段只在交付线程中访问
+    private int consumed;
+    private boolean terminated;
+
+    @SuppressWarnings("unchecked")
+    public ClientStream(Flow.Subscriber<?> subscriber, int window) {
+        this.subscriber = (Flow.Subscriber<Object>) subscriber;
+        this.window = Math.max(1, window);
+        this.executor = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * 将服务端的响应交给对应的流处理
+     *
+     * @return 响应属于某个流时返回true
+     */
+    public static boolean dispatch(Channel channel, RpcResponse<?> response) {
+        Map<String, ClientStream> streams = channel.attr(STREAMS).get();
+        ClientStream stream = streams != null ? streams.get(response.getRequestId()) : null;
+        if (stream == null) {
+            return false;
+        }
+        stream.onResponse(response);
+        return true;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * 流结束、失败或取消时完成的Future，用于归还进行中调用的名额，流已结束时立即完成
+     */
+    public CompletableFuture<Void> closeFuture() {
+        return closeFuture;
+    }
+
+    /**
+     * 在发送调用请求前绑定连接，连接断开时流以异常结束
+     *
+     * @param channel   连接
+     * @param requestId 连接分配的请求ID
+     * @return 流已被取消时返回false，调用方不应再发送请求
+     */
+    public boolean open(Channel channel, String requestId) {
+        if (cancelled) {
+            return false;
+        }
+        this.requestId = requestId;
+        this.channel = channel;
+        streams(channel).put(requestId, this);
+        channel.closeFuture().addListener(future -> {
+            if (!done) {
+                fail(new RpcException("连接已断开: " + channel.remoteAddress()));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 调用未能发出或连接异常时结束流
+     */
+    public void fail(Throwable cause) {
+        if (done) {
+            return;
+        }
+        unregister();
+        error = cause;
+        done = true;
+        closeFuture.complete(null);
+        drain();
+    }
+
+    private void onResponse(RpcResponse<?> response) {
+        if (done) {
+            return;
+        }
+
+        if (response.isStreaming()) {
+            streamed = true;
+            if (response.getData() != null) {
+                queue.offer(response.getData());
+            }
+            drain();
+            return;
+        }
+
+        // 不带流式标志的响应表示流结束
+        unregister();
+        if (response.getCode() == 200) {
+            Object data = response.getData();
+            if (data instanceof Collection) {
+                for (Object item : (Collection<?>) data) {
+                    if (item != null) {
+                        queue.offer(item);
+                    }
+                }
+            } else if (data != null) {
+                queue.offer(data);
+            }
+        } else {
+            error = new RpcException("RPC调用失败: 错误码: " + response.getCode()
+                    + ", 消息: " + response.getMessage(), response.getCode());
+        }
+        done = true;
+        closeFuture.complete(null);
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            // 按Flow规范以异常结束，同时通知服务端停止推送
+            if (unregister() && !done) {
+                sendCredits(-1);
+            }
+            fail(new IllegalArgumentException("请求数量必须大于0: " + n));
+            return;
+        }
+        demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (unregister() && !done) {
+            sendCredits(-1);
+        }
+        closeFuture.complete(null);
+        drain();
+    }
+
+    private static Map<String, ClientStream> streams(Channel channel) {
+        Map<String, ClientStream> streams = channel.attr(STREAMS).get();
+        if (streams == null) {
+            Map<String, ClientStream> created = new ConcurrentHashMap<>();
+            streams = channel.attr(STREAMS).setIfAbsent(created);
+            if (streams == null) {
+                streams = created;
+            }
+        }
+        return streams;
+    }
+
+    /**
+     * 从连接的流表中移除，尚未绑定连接或已移除时返回false
+     */
+    private boolean unregister() {
+        Channel bound = channel;
+        return bound != null && streams(bound).remove(requestId, this);
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() == 0) {
+            executor.execute(this::drainLoop);
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        do {
+            long requested = demand.get();
+            long emitted = 0;
+
+            while (emitted != requested) {
+                if (cancelled) {
+                    queue.clear();
+                    return;
+                }
+                boolean finished = done;
+                Object item = queue.poll();
+                if (item == null) {
+                    if (finished) {
+                        terminate();
+                        return;
+                    }
+                    break;
+                }
+
+                try {
+                    subscriber.onNext(item);
+                } catch (Throwable e) {
+                    log.error("流式元素处理异常，取消流: {}", requestId, e);
+                    cancel();
+                    return;
+                }
+                emitted++;
+                replenish();
+            }
+
+            if (cancelled) {
+                queue.clear();
+                return;
+            }
+            if (done && queue.isEmpty()) {
+                terminate();
+                return;
+            }
+
+            if (emitted != 0 && requested != Long.MAX_VALUE) {
+                demand.addAndGet(-emitted);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * 每消费半个窗口的元素追加一次额度
+     */
+    private void replenish() {
+        if (!streamed || done) {
+            return;
+        }
+        if (++consumed >= Math.max(1, window / 2)) {
+            sendCredits(consumed);
+            consumed = 0;
+        }
+    }
+
+    private void terminate() {
+        if (terminated) {
+            return;
+        }
+        terminated = true;
+        if (error != null) {
+            subscriber.onError(error);
+        } else {
+            subscriber.onComplete();
+        }
+    }
+
+    /**
+     * 发送流控制帧，正数追加额度，负数取消流
+     */
+    private void sendCredits(long credits) {
+        Channel current = channel;
+        if (current == null || !current.isActive()
+                || !Byte.valueOf(RpcProtocol.VERSION_2).equals(current.attr(RpcProtocol.PEER_VERSION).get())) {
+            return;
+        }
+
+        Map<String, String> attachments = new HashMap<>(2);
+        attachments.put(RpcProtocol.ATTACHMENT_STREAM_CREDITS, String.valueOf(credits));
+        current.writeAndFlush(RpcRequest.builder()
+                .requestId(requestId)
+                .attachments(attachments)
+                .streaming(true)
+                .build());
+    }
+}
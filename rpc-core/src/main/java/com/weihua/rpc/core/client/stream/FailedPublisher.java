@@ -0,0 +1,36 @@
+package com.weihua.rpc.core.client.stream;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * 已失败的流，订阅后立即以指定异常结束，不发起远程调用
+ * 熔断器开启时作为流式方法的返回值，调用方在消费时得到与普通调用一致的异常
+ *
+ * @param <T> 元素类型
+ */
+public class FailedPublisher<T> implements Flow.Publisher<T> {
+
+    private static final Flow.Subscription EMPTY_SUBSCRIPTION = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final Throwable error;
+
+    public FailedPublisher(Throwable error) {
+        this.error = Objects.requireNonNull(error, "error");
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(EMPTY_SUBSCRIPTION);
+        subscriber.onError(error);
+    }
+}
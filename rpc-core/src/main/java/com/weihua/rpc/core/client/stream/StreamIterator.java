@@ -0,0 +1,129 @@
+package com.weihua.rpc.core.client.stream;
+
+import com.weihua.rpc.common.exception.RpcException;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以阻塞迭代器的形式消费流式调用
+ * 预取一个窗口的元素，每取走一个元素再向流请求一个，缓冲的元素不超过窗口大小。
+ * 提前放弃迭代时应调用{@link #close()}取消流，让服务端停止推送
+ *
+ * @param <T> 元素类型
+ */
+public class StreamIterator<T> implements Iterator<T>, AutoCloseable, Flow.Subscriber<T> {
+
+    // 流结束标记
+    private static final Object END = new Object();
+
+    private final int prefetch;
+
+    // 等待单个元素的最长时间
+    private final long timeoutMillis;
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    private volatile Flow.Subscription subscription;
+
+    private volatile Throwable error;
+
+    // 已取出但尚未返回的元素
+    private Object next;
+
+    private boolean finished;
+
+    public StreamIterator(Flow.Publisher<T> publisher, int prefetch, Duration timeout) {
+        this.prefetch = Math.max(1, prefetch);
+        this.timeoutMillis = timeout.toMillis();
+        publisher.subscribe(this);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+
+        Object item;
+        try {
+            item = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RpcException("等待流式元素时被中断", e);
+        }
+        if (item == null) {
+            close();
+            throw new RpcException("等待流式元素超时，已等待" + timeoutMillis + "ms");
+        }
+        if (item == END) {
+            finished = true;
+            if (error != null) {
+                throw error instanceof RpcException
+                        ? (RpcException) error
+                        : new RpcException("流式调用失败: " + error.getMessage(), error);
+            }
+            return false;
+        }
+
+        next = item;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object item = next;
+        next = null;
+        subscription.request(1);
+        return (T) item;
+    }
+
+    /**
+     * 取消流并丢弃已缓冲的元素
+     */
+    @Override
+    public void close() {
+        finished = true;
+        next = null;
+        queue.clear();
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(T item) {
+        queue.offer(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        queue.offer(END);
+    }
+
+    @Override
+    public void onComplete() {
+        queue.offer(END);
+    }
+}
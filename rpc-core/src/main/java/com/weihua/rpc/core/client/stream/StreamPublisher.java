@@ -0,0 +1,42 @@
+package com.weihua.rpc.core.client.stream;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.core.client.netty.NettyRpcClient;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+/**
+ * 服务端流式方法在客户端的返回值
+ * 每次订阅都会发起一次新的远程调用，调用请求携带初始窗口，元素随到随交付
+ *
+ * @param <T> 元素类型
+ */
+public class StreamPublisher<T> implements Flow.Publisher<T> {
+
+    private final NettyRpcClient rpcClient;
+
+    // 每次订阅生成新的请求，保证请求ID不重复
+    private final Supplier<RpcRequest> requestSupplier;
+
+    private final int window;
+
+    public StreamPublisher(NettyRpcClient rpcClient, Supplier<RpcRequest> requestSupplier, int window) {
+        this.rpcClient = rpcClient;
+        this.requestSupplier = requestSupplier;
+        this.window = window;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        RpcRequest request = requestSupplier.get();
+        request.putAttachment(RpcProtocol.ATTACHMENT_STREAM_CREDITS, String.valueOf(window));
+
+        ClientStream stream = new ClientStream(subscriber, window);
+        subscriber.onSubscribe(stream);
+        rpcClient.openStream(request, stream);
+    }
+}
@@ -0,0 +1,84 @@
+package com.weihua.rpc.core.compress;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压缩统计，按压缩算法记录压缩率和CPU耗时
+ */
+public class CompressionMetrics {
+
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    /**
+     * 单个压缩算法的统计数据
+     */
+    private static class Stats {
+        final LongAdder compressCount = new LongAdder();
+        final LongAdder compressNanos = new LongAdder();
+        final LongAdder rawBytes = new LongAdder();
+        final LongAdder compressedBytes = new LongAdder();
+        final LongAdder decompressCount = new LongAdder();
+        final LongAdder decompressNanos = new LongAdder();
+    }
+
+    private static Stats stats(String name) {
+        return STATS.computeIfAbsent(name, k -> new Stats());
+    }
+
+    /**
+     * 记录一次压缩
+     */
+    public static void recordCompress(String name, int rawBytes, int compressedBytes, long nanos) {
+        Stats stats = stats(name);
+        stats.compressCount.increment();
+        stats.compressNanos.add(nanos);
+        stats.rawBytes.add(rawBytes);
+        stats.compressedBytes.add(compressedBytes);
+    }
+
+    /**
+     * 记录一次解压
+     */
+    public static void recordDecompress(String name, long nanos) {
+        Stats stats = stats(name);
+        stats.decompressCount.increment();
+        stats.decompressNanos.add(nanos);
+    }
+
+    /**
+     * 获取压缩统计信息
+     *
+     * @return 压缩算法名称 -> 统计项
+     */
+    public static Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        STATS.forEach((name, stats) -> {
+            long compressCount = stats.compressCount.sum();
+            long decompressCount = stats.decompressCount.sum();
+            long rawBytes = stats.rawBytes.sum();
+            long compressedBytes = stats.compressedBytes.sum();
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("compressCount", compressCount);
+            item.put("rawBytes", rawBytes);
+            item.put("compressedBytes", compressedBytes);
+            item.put("ratio", rawBytes > 0 ? (double) compressedBytes / rawBytes : 1.0);
+            item.put("avgCompressMicros", compressCount > 0 ? stats.compressNanos.sum() / compressCount / 1000 : 0);
+            item.put("decompressCount", decompressCount);
+            item.put("avgDecompressMicros",
+                    decompressCount > 0 ? stats.decompressNanos.sum() / decompressCount / 1000 : 0);
+            result.put(name, item);
+        });
+        return result;
+    }
+
+    /**
+     * 重置统计数据
+     */
+    public static void reset() {
+        STATS.clear();
+    }
+}
@@ -0,0 +1,45 @@
+package com.weihua.rpc.core.compress;
+
+import com.weihua.rpc.common.exception.SerializeException;
+import com.weihua.rpc.common.extension.SPI;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 压缩接口，对序列化后的消息体进行压缩和解压
+ */
+@SPI("deflate")
+public interface Compressor {
+
+    /**
+     * 压缩数据，读取in中全部可读字节，结果追加写入out
+     *
+     * @param in  待压缩数据
+     * @param out 目标缓冲区
+     * @throws SerializeException 压缩异常
+     */
+    void compress(ByteBuf in, ByteBuf out) throws SerializeException;
+
+    /**
+     * 解压数据，读取in中全部可读字节，结果追加写入out
+     *
+     * @param in        待解压数据
+     * @param out       目标缓冲区
+     * @param maxLength 解压后允许的最大长度，防止异常数据耗尽内存
+     * @throws SerializeException 解压异常
+     */
+    void decompress(ByteBuf in, ByteBuf out, int maxLength) throws SerializeException;
+
+    /**
+     * 获取压缩算法类型
+     *
+     * @return 压缩算法类型编号
+     */
+    byte getType();
+
+    /**
+     * 获取压缩算法名称
+     *
+     * @return 压缩算法名称
+     */
+    String getName();
+}
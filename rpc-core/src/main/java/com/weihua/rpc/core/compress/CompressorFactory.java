@@ -0,0 +1,81 @@
+package com.weihua.rpc.core.compress;
+
+import com.weihua.rpc.common.extension.ExtensionLoader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 压缩器工厂，基于SPI机制加载压缩算法
+ */
+@Slf4j
+public class CompressorFactory {
+
+    // 按类型缓存压缩器
+    private static final Map<Byte, Compressor> COMPRESSORS_BY_TYPE = new ConcurrentHashMap<>();
+
+    // 扩展加载器
+    private static final ExtensionLoader<Compressor> LOADER = ExtensionLoader.getExtensionLoader(Compressor.class);
+
+    /**
+     * 根据名称获取压缩器
+     *
+     * @param name 压缩算法名称
+     * @return 压缩器，不存在时返回null
+     */
+    public static Compressor getCompressor(String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+
+        String compressorName = name.trim().toLowerCase();
+        if (!LOADER.hasExtension(compressorName)) {
+            return null;
+        }
+        return LOADER.getExtension(compressorName);
+    }
+
+    /**
+     * 根据类型获取压缩器
+     *
+     * @param type 压缩算法类型
+     * @return 压缩器，不存在时返回null
+     */
+    public static Compressor getCompressor(byte type) {
+        Compressor compressor = COMPRESSORS_BY_TYPE.get(type);
+        if (compressor != null) {
+            return compressor;
+        }
+
+        for (Compressor c : LOADER.getExtensions().values()) {
+            if (c.getType() == type) {
+                COMPRESSORS_BY_TYPE.put(type, c);
+                return c;
+            }
+        }
+
+        log.warn("未找到类型为 {} 的压缩器", type);
+        return null;
+    }
+
+    /**
+     * 从逗号分隔的候选列表中选出第一个本地支持的压缩器，用于连接握手时协商
+     *
+     * @param candidates 对端按优先级给出的候选压缩算法，如 "snappy,deflate"
+     * @return 协商结果，无可用算法时返回null
+     */
+    public static Compressor negotiate(String candidates) {
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+
+        for (String name : candidates.split(",")) {
+            Compressor compressor = getCompressor(name);
+            if (compressor != null) {
+                return compressor;
+            }
+        }
+        return null;
+    }
+}
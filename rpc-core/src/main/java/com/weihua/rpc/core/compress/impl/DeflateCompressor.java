@@ -0,0 +1,89 @@
+package com.weihua.rpc.core.compress.impl;
+
+import com.weihua.rpc.common.exception.SerializeException;
+import com.weihua.rpc.core.compress.Compressor;
+import io.netty.buffer.ByteBuf;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 基于JDK Deflater的压缩实现
+ * 压缩率较高，CPU开销高于LZ系列算法
+ */
+public class DeflateCompressor implements Compressor {
+
+    /**
+     * 压缩算法类型编号
+     */
+    private static final byte TYPE = 1;
+
+    /**
+     * 每次扩容的输出缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Deflater/Inflater持有本地内存，按线程复用
+     */
+    private static final ThreadLocal<Deflater> DEFLATER_THREAD_LOCAL = ThreadLocal
+            .withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    private static final ThreadLocal<Inflater> INFLATER_THREAD_LOCAL = ThreadLocal
+            .withInitial(() -> new Inflater(true));
+
+    @Override
+    public void compress(ByteBuf in, ByteBuf out) throws SerializeException {
+        Deflater deflater = DEFLATER_THREAD_LOCAL.get();
+        deflater.reset();
+
+        try {
+            deflater.setInput(in.nioBuffer());
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.ensureWritable(BUFFER_SIZE);
+                int written = deflater.deflate(out.nioBuffer(out.writerIndex(), out.writableBytes()));
+                out.writerIndex(out.writerIndex() + written);
+            }
+            in.skipBytes(in.readableBytes());
+        } catch (Exception e) {
+            throw new SerializeException("Deflate压缩失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void decompress(ByteBuf in, ByteBuf out, int maxLength) throws SerializeException {
+        Inflater inflater = INFLATER_THREAD_LOCAL.get();
+        inflater.reset();
+
+        int start = out.writerIndex();
+        try {
+            inflater.setInput(in.nioBuffer());
+            while (!inflater.finished()) {
+                out.ensureWritable(BUFFER_SIZE);
+                int written = inflater.inflate(out.nioBuffer(out.writerIndex(), out.writableBytes()));
+                if (written == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializeException("Deflate数据不完整");
+                }
+                out.writerIndex(out.writerIndex() + written);
+                if (out.writerIndex() - start > maxLength) {
+                    throw new SerializeException("解压后数据超过最大长度: " + maxLength);
+                }
+            }
+            in.skipBytes(in.readableBytes());
+        } catch (DataFormatException e) {
+            throw new SerializeException("Deflate解压失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+}
@@ -0,0 +1,98 @@
+package com.weihua.rpc.core.compress.impl;
+
+import com.weihua.rpc.common.exception.SerializeException;
+import com.weihua.rpc.core.compress.Compressor;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.compression.Snappy;
+
+/**
+ * 基于Netty内置Snappy实现的压缩器
+ * LZ系列算法，压缩率低于Deflate，但压缩和解压速度快得多，适合对延迟敏感的场景
+ *
+ * Netty的Snappy编码器只支持32KB以内的输入，因此按块压缩，格式为：[块长度(4) + Snappy块]*
+ */
+public class SnappyCompressor implements Compressor {
+
+    /**
+     * 压缩算法类型编号
+     */
+    private static final byte TYPE = 2;
+
+    /**
+     * 单块原始数据最大长度
+     */
+    private static final int BLOCK_SIZE = 32 * 1024;
+
+    @Override
+    public void compress(ByteBuf in, ByteBuf out) throws SerializeException {
+        Snappy snappy = new Snappy();
+        try {
+            while (in.isReadable()) {
+                int blockLength = Math.min(in.readableBytes(), BLOCK_SIZE);
+                int lengthIndex = out.writerIndex();
+                out.writeInt(0);
+
+                snappy.reset();
+                snappy.encode(in.readSlice(blockLength), out, blockLength);
+                out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+            }
+        } catch (Exception e) {
+            throw new SerializeException("Snappy压缩失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void decompress(ByteBuf in, ByteBuf out, int maxLength) throws SerializeException {
+        Snappy snappy = new Snappy();
+        int total = 0;
+        while (in.isReadable()) {
+            if (in.readableBytes() < 4) {
+                throw new SerializeException("Snappy数据不完整");
+            }
+            int blockLength = in.readInt();
+            if (blockLength < 0 || blockLength > in.readableBytes()) {
+                throw new SerializeException("Snappy数据不完整");
+            }
+            ByteBuf block = in.readSlice(blockLength);
+
+            // 先检查块头中记录的原始长度，避免按异常长度分配内存
+            int length = readPreamble(block);
+            if (length < 0 || length > BLOCK_SIZE || (total += length) > maxLength) {
+                throw new SerializeException("解压后数据超过最大长度: " + maxLength);
+            }
+
+            try {
+                snappy.reset();
+                snappy.decode(block, out);
+            } catch (Exception e) {
+                throw new SerializeException("Snappy解压失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 读取Snappy数据头中的原始长度(varint编码)，不移动读索引
+     */
+    private int readPreamble(ByteBuf in) {
+        int length = 0;
+        int index = in.readerIndex();
+        for (int shift = 0; shift < 32 && index < in.writerIndex(); shift += 7) {
+            int b = in.getUnsignedByte(index++);
+            length |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return length;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return "snappy";
+    }
+}
@@ -0,0 +1,139 @@
+package com.weihua.rpc.core.protocol;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * IO线程统计，每个服务器持有独立的实例
+ * 通过定时探针测量事件循环的任务延迟（计划执行时间与实际执行时间之差），
+ * 同时分别记录在IO线程和业务线程中完成的请求反序列化次数和耗时，用于对比解码卸载前后的效果，
+ * 以及参数延迟反序列化的请求中未经反序列化即结束的次数。
+ * 探针需显式启动，随服务器关闭而停止
+ */
+public class EventLoopMetrics {
+
+    /**
+     * 探针间隔
+     */
+    private static final long PROBE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LongAdder lagCount = new LongAdder();
+    private final LongAdder lagNanos = new LongAdder();
+    private final LongAccumulator lagMaxNanos = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder inlineDecodeCount = new LongAdder();
+    private final LongAdder inlineDecodeNanos = new LongAdder();
+    private final LongAdder offloadedDecodeCount = new LongAdder();
+    private final LongAdder offloadedDecodeNanos = new LongAdder();
+    private final LongAdder skippedDecodeCount = new LongAdder();
+
+    // 各线程上尚未执行的探针任务
+    private final Map<EventExecutor, ScheduledFuture<?>> probes = new ConcurrentHashMap<>();
+
+    private volatile boolean probing;
+
+    /**
+     * 在事件循环组的每个线程上启动任务延迟探针
+     */
+    public void startProbe(EventLoopGroup group) {
+        probing = true;
+        for (EventExecutor executor : group) {
+            probe(executor);
+        }
+    }
+
+    /**
+     * 停止探针并取消尚未执行的探针任务
+     */
+    public void stopProbe() {
+        probing = false;
+        probes.values().forEach(future -> future.cancel(false));
+        probes.clear();
+    }
+
+    private void probe(EventExecutor executor) {
+        if (!probing || executor.isShuttingDown()) {
+            probes.remove(executor);
+            return;
+        }
+        long expected = System.nanoTime() + PROBE_INTERVAL_NANOS;
+        try {
+            probes.put(executor, executor.schedule(() -> {
+                long lag = Math.max(0, System.nanoTime() - expected);
+                lagCount.increment();
+                lagNanos.add(lag);
+                lagMaxNanos.accumulate(lag);
+                probe(executor);
+            }, PROBE_INTERVAL_NANOS, TimeUnit.NANOSECONDS));
+        } catch (Exception e) {
+            // 线程组正在关闭，停止探测
+            probes.remove(executor);
+        }
+    }
+
+    /**
+     * 记录一次请求反序列化
+     *
+     * @param offloaded 是否在业务线程中执行
+     * @param nanos     耗时(纳秒)，含解压
+     */
+    public void recordDecode(boolean offloaded, long nanos) {
+        if (offloaded) {
+            offloadedDecodeCount.increment();
+            offloadedDecodeNanos.add(nanos);
+        } else {
+            inlineDecodeCount.increment();
+            inlineDecodeNanos.add(nanos);
+        }
+    }
+
+    /**
+     * 记录一次省去的请求反序列化：参数延迟反序列化的请求在调用服务方法之前已结束
+     */
+    public void recordDecodeSkipped() {
+        skippedDecodeCount.increment();
+    }
+
+    /**
+     * 获取IO线程统计信息
+     */
+    public Map<String, Object> getStats() {
+        long lags = lagCount.sum();
+        long inlineCount = inlineDecodeCount.sum();
+        long offloadedCount = offloadedDecodeCount.sum();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("loopLagCount", lags);
+        result.put("loopLagAvgMicros", lags > 0 ? lagNanos.sum() / lags / 1000 : 0);
+        result.put("loopLagMaxMicros", lagMaxNanos.get() / 1000);
+        result.put("inlineDecodeCount", inlineCount);
+        result.put("avgInlineDecodeMicros", inlineCount > 0 ? inlineDecodeNanos.sum() / inlineCount / 1000 : 0);
+        result.put("offloadedDecodeCount", offloadedCount);
+        result.put("avgOffloadedDecodeMicros",
+                offloadedCount > 0 ? offloadedDecodeNanos.sum() / offloadedCount / 1000 : 0);
+        result.put("skippedDecodeCount", skippedDecodeCount.sum());
+        return result;
+    }
+
+    /**
+     * 重置统计数据
+     */
+    public void reset() {
+        lagCount.reset();
+        lagNanos.reset();
+        lagMaxNanos.reset();
+        inlineDecodeCount.reset();
+        inlineDecodeNanos.reset();
+        offloadedDecodeCount.reset();
+        offloadedDecodeNanos.reset();
+        skippedDecodeCount.reset();
+    }
+}
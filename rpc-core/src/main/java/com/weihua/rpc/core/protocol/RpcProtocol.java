@@ -0,0 +1,225 @@
+package com.weihua.rpc.core.protocol;
+
+import com.weihua.rpc.core.compress.Compressor;
+import com.weihua.rpc.core.serialize.Serializer;
+import io.netty.util.AttributeKey;
+
+import java.util.Map;
+
+/**
+ * RPC协议常量定义
+ *
+ * v1协议头(8字节)：魔数(2) + 版本(1) + 序列化类型(1) + 数据长度(4)
+ * v2协议头(20字节)：魔数(2) + 版本(1) + 序列化类型(1) + 消息类型(1) + 标志位(1)
+ * + 请求ID(8) + 附加信息长度(2) + 数据长度(4)，随后依次为附加信息区和消息体
+ *
+ * 服务端同时接受v1和v2帧，并按对端最近一次使用的版本回写，其他版本号的帧直接关闭连接。
+ * 客户端配置为v2时先发送握手，收到v2握手响应后才按v2发送，握手超时则按v1通信，
+ * 便于滚动升级期间新老节点混布
+ */
+public final class RpcProtocol {
+
+    private RpcProtocol() {
+    }
+
+    /**
+     * 协议魔数
+     */
+    public static final byte[] MAGIC_NUMBER = { (byte) 0xAB, (byte) 0xBA };
+
+    /**
+     * 协议版本
+     */
+    public static final byte VERSION_1 = 0x01;
+    public static final byte VERSION_2 = 0x02;
+
+    /**
+     * 协议头长度
+     */
+    public static final int V1_HEADER_LENGTH = 8;
+    public static final int V2_HEADER_LENGTH = 20;
+
+    /**
+     * 单帧消息体最大长度(10MB)
+     */
+    public static final int MAX_FRAME_LENGTH = 10 * 1024 * 1024;
+
+    /**
+     * 分块重组或解压后的消息最大长度(64MB)
+     */
+    public static final int MAX_MESSAGE_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * 默认分块大小(1MB)，消息体超过该大小时拆分为多个分块帧发送
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * 单个连接上同时重组的分块消息默认上限，连接上的重组缓冲总量不超过该值乘以消息最大长度
+     */
+    public static final int DEFAULT_MAX_CHUNKED_MESSAGES = 8;
+
+    /**
+     * 分块消息默认重组超时(30秒)，超过该时间未收到下一个分块的消息被丢弃
+     */
+    public static final long DEFAULT_CHUNKED_MESSAGE_TIMEOUT_MILLIS = 30_000L;
+
+    /**
+     * 附加信息区最大长度，受2字节长度字段限制
+     */
+    public static final int MAX_ATTACHMENT_LENGTH = 0xFFFF;
+
+    /**
+     * 默认压缩阈值(2KB)，消息体超过该大小才尝试压缩
+     */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 2048;
+
+    /**
+     * 消息类型
+     */
+    public static final byte MSG_TYPE_REQUEST = 1;
+    public static final byte MSG_TYPE_RESPONSE = 2;
+    public static final byte MSG_TYPE_HANDSHAKE_REQUEST = 3;
+    public static final byte MSG_TYPE_HANDSHAKE_RESPONSE = 4;
+
+    /**
+     * 标志位：单向调用，服务端不回写响应
+     */
+    public static final byte FLAG_ONEWAY = 0x01;
+
+    /**
+     * 标志位：消息体已压缩
+     */
+    public static final byte FLAG_COMPRESSED = 0x02;
+
+    /**
+     * 标志位：心跳帧，只有协议头没有消息体
+     */
+    public static final byte FLAG_HEARTBEAT = 0x04;
+
+    /**
+     * 标志位：流式消息。响应帧带该标志表示流中的一个元素，流以不带该标志的普通响应结束；
+     * 请求帧带该标志表示流控制帧，没有消息体，通过附加信息授予额度或取消流
+     */
+    public static final byte FLAG_STREAMING = 0x08;
+
+    /**
+     * 标志位：分块帧，后面还有同一请求ID的分块；最后一个分块不带该标志。
+     * 附加信息只在首个分块中传输，各分块的消息体按顺序拼接后再解压和反序列化
+     */
+    public static final byte FLAG_CHUNKED = 0x10;
+
+    /**
+     * 对端协议版本，由解码器根据收到的帧写入，编码器据此选择回写版本
+     */
+    public static final AttributeKey<Byte> PEER_VERSION = AttributeKey.valueOf("rpc.peerVersion");
+
+    /**
+     * 对端最近一次使用的序列化类型，由解码器写入，编码器在消息未指定序列化类型时据此回写
+     */
+    public static final AttributeKey<Byte> PEER_SERIALIZER = AttributeKey.valueOf("rpc.peerSerializer");
+
+    /**
+     * 服务端下发的服务序列化偏好(接口名 -> 序列化类型)，握手完成后写入客户端通道
+     */
+    public static final AttributeKey<Map<String, Byte>> SERVICE_SERIALIZERS = AttributeKey
+            .valueOf("rpc.serviceSerializers");
+
+    /**
+     * 服务端下发的方法ID表(方法签名 -> 方法ID)，握手完成后写入客户端通道
+     */
+    public static final AttributeKey<Map<String, Integer>> METHOD_IDS = AttributeKey.valueOf("rpc.methodIds");
+
+    /**
+     * 握手协商出的压缩算法，未协商或对端不支持时为空，此时消息体不压缩
+     */
+    public static final AttributeKey<Compressor> COMPRESSOR = AttributeKey.valueOf("rpc.compressor");
+
+    /**
+     * 连接级序列化器(序列化类型 -> 实例)，握手协商后写入，优先于同类型的全局实例。
+     * 编码时按消息的序列化类型查找，解码时只使用类型编号与协议头一致的实例
+     */
+    public static final AttributeKey<Map<Byte, Serializer>> CONNECTION_SERIALIZERS = AttributeKey
+            .valueOf("rpc.connectionSerializers");
+
+    /**
+     * 握手属性：客户端支持的压缩算法，按优先级逗号分隔
+     */
+    public static final String HANDSHAKE_COMPRESSORS = "compressors";
+
+    /**
+     * 握手属性：服务端选定的压缩算法
+     */
+    public static final String HANDSHAKE_COMPRESSOR = "compressor";
+
+    /**
+     * 握手属性前缀：服务偏好的序列化方式，键为前缀 + 接口名，值为序列化器名称
+     */
+    public static final String HANDSHAKE_SERIALIZER_PREFIX = "serializer:";
+
+    /**
+     * 握手属性：客户端请求使用Kryo类注册表
+     */
+    public static final String HANDSHAKE_KRYO_REGISTRATION = "kryo.registration";
+
+    /**
+     * 握手属性：服务端下发的Kryo类注册清单，两端按清单顺序注册类型
+     */
+    public static final String HANDSHAKE_KRYO_MANIFEST = "kryo.manifest";
+
+    /**
+     * 保留附加信息键：方法ID，携带该键的请求不再传输接口名、方法名和参数类型
+     */
+    public static final String ATTACHMENT_METHOD_ID = "_m";
+
+    /**
+     * 保留附加信息键：方法签名，握手完成前携带，便于服务端在反序列化前识别方法
+     */
+    public static final String ATTACHMENT_METHOD_SIGNATURE = "_s";
+
+    /**
+     * 保留附加信息键：调用超时时间(毫秒)，服务端据此计算本地截止时间
+     */
+    public static final String ATTACHMENT_TIMEOUT = "_t";
+
+    /**
+     * 保留附加信息键：流式调用的额度。调用请求中表示初始窗口，流控制帧中表示追加的额度，负数表示取消流
+     */
+    public static final String ATTACHMENT_STREAM_CREDITS = "_n";
+
+    /**
+     * 流式调用默认窗口大小，即服务端在未收到追加额度前最多发送的元素数
+     */
+    public static final int DEFAULT_STREAM_WINDOW = 32;
+
+    /**
+     * 判断是否为支持的协议版本
+     */
+    public static boolean isSupportedVersion(byte version) {
+        return version == VERSION_1 || version == VERSION_2;
+    }
+
+    /**
+     * 判断附加信息中是否携带方法标识（方法ID或方法签名）
+     * 携带方法标识的请求在解码阶段完成准入检查
+     */
+    public static boolean hasMethodIdentity(Map<String, String> attachments) {
+        return attachments != null
+                && (attachments.containsKey(ATTACHMENT_METHOD_ID)
+                        || attachments.containsKey(ATTACHMENT_METHOD_SIGNATURE));
+    }
+
+    /**
+     * 将字符串请求ID转换为协议头中的数值ID，非数值ID返回0
+     */
+    public static long toHeaderId(String requestId) {
+        if (requestId == null || requestId.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(requestId);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
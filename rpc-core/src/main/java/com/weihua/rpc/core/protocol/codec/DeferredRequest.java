@@ -0,0 +1,91 @@
+package com.weihua.rpc.core.protocol.codec;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ReferenceCounted;
+
+import java.util.Map;
+
+/**
+ * 已完成拆帧、尚未反序列化的请求
+ * 开启解码卸载时由{@link RpcDecoder}在IO线程上产生，业务线程调用{@link #decode()}完成解压和反序列化。
+ * 持有消息体缓冲区的引用，decode或release只能调用其中之一且只能调用一次
+ */
+public final class DeferredRequest implements ReferenceCounted {
+
+    private final RpcDecoder decoder;
+    private final ChannelHandlerContext ctx;
+    private final RpcDecoder.FrameHeader frame;
+    private final Map<String, String> attachments;
+    private final ByteBuf payload;
+    private final long deadline;
+
+    DeferredRequest(RpcDecoder decoder, ChannelHandlerContext ctx, RpcDecoder.FrameHeader frame,
+            Map<String, String> attachments, ByteBuf payload, long deadline) {
+        this.decoder = decoder;
+        this.ctx = ctx;
+        this.frame = frame;
+        this.attachments = attachments;
+        this.payload = payload;
+        this.deadline = deadline;
+    }
+
+    /**
+     * 解压并反序列化请求，完成后释放消息体
+     *
+     * @return 反序列化失败时返回null
+     */
+    public RpcRequest decode() {
+        long start = System.nanoTime();
+        RpcRequest request = decoder.decodeRequest(ctx, frame, attachments, payload, deadline);
+        decoder.recordDecode(true, System.nanoTime() - start);
+        return request;
+    }
+
+    /**
+     * 消息体字节数
+     */
+    public int size() {
+        return payload.readableBytes();
+    }
+
+    @Override
+    public int refCnt() {
+        return payload.refCnt();
+    }
+
+    @Override
+    public DeferredRequest retain() {
+        payload.retain();
+        return this;
+    }
+
+    @Override
+    public DeferredRequest retain(int increment) {
+        payload.retain(increment);
+        return this;
+    }
+
+    @Override
+    public DeferredRequest touch() {
+        payload.touch();
+        return this;
+    }
+
+    @Override
+    public DeferredRequest touch(Object hint) {
+        payload.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return payload.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return payload.release(decrement);
+    }
+}
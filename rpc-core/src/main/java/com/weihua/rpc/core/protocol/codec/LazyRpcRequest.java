@@ -0,0 +1,125 @@
+package com.weihua.rpc.core.protocol.codec;
+
+import com.weihua.rpc.common.exception.SerializeException;
+import com.weihua.rpc.common.model.RpcRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 参数延迟反序列化的请求
+ * 请求ID、方法ID、截止时间和附加信息都来自协议头和附加信息区，解码时直接填充；
+ * 消息体保留为缓冲区，首次调用{@link #getParameters()}时才反序列化参数。
+ * 在调用服务方法之前被拒绝、超时或取消的请求不会产生参数反序列化的开销。
+ *
+ * 持有消息体缓冲区的引用，处理结束后必须调用{@link #release()}。
+ * toString、equals和hashCode不读取参数，打印日志或放入集合不会触发反序列化，也不会访问已释放的消息体
+ */
+public class LazyRpcRequest extends RpcRequest {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient RpcDecoder decoder;
+    private final transient ChannelHandlerContext ctx;
+    private final transient RpcDecoder.FrameHeader frame;
+
+    // 消息体，反序列化或释放后置为null
+    private transient ByteBuf payload;
+
+    // 消息体是否未经反序列化即被释放
+    private transient boolean released;
+
+    LazyRpcRequest(RpcDecoder decoder, ChannelHandlerContext ctx, RpcDecoder.FrameHeader frame,
+            ByteBuf payload) {
+        this.decoder = decoder;
+        this.ctx = ctx;
+        this.frame = frame;
+        this.payload = payload;
+    }
+
+    /**
+     * 获取参数，首次调用时反序列化消息体
+     *
+     * @throws SerializeException    消息体反序列化失败
+     * @throws IllegalStateException 消息体已释放
+     */
+    @Override
+    public synchronized Object[] getParameters() {
+        if (released) {
+            throw new IllegalStateException("请求消息体已释放，无法读取参数: " + getRequestId());
+        }
+        if (payload != null) {
+            materialize();
+        }
+        return super.getParameters();
+    }
+
+    /**
+     * 参数是否已反序列化
+     */
+    public synchronized boolean isMaterialized() {
+        return payload == null;
+    }
+
+    /**
+     * 释放尚未反序列化的消息体，参数已反序列化时不做任何事
+     */
+    public synchronized void release() {
+        if (payload != null) {
+            payload.release();
+            payload = null;
+            released = true;
+            decoder.recordDecodeSkipped();
+        }
+    }
+
+    private void materialize() {
+        ByteBuf body = payload;
+        payload = null;
+
+        long start = System.nanoTime();
+        RpcRequest decoded = decoder.decodeRequest(ctx, frame, getAttachments(), body, getDeadline());
+        decoder.recordDecode(true, System.nanoTime() - start);
+        if (decoded == null) {
+            throw new SerializeException("请求参数反序列化失败: " + getRequestId());
+        }
+        setParameters(decoded.getParameters());
+        setVersion(decoded.getVersion());
+        setGroup(decoded.getGroup());
+    }
+
+    /**
+     * 按对象标识比较，不读取参数
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    /**
+     * 只输出协议头和附加信息中的字段，参数未反序列化时输出消息体大小
+     */
+    @Override
+    public synchronized String toString() {
+        String parameters;
+        if (payload != null) {
+            parameters = "<未反序列化, " + payload.readableBytes() + "字节>";
+        } else if (released) {
+            parameters = "<已释放>";
+        } else {
+            parameters = Arrays.deepToString(super.getParameters());
+        }
+        return "LazyRpcRequest(requestId=" + getRequestId()
+                + ", interfaceName=" + getInterfaceName()
+                + ", methodName=" + getMethodName()
+                + ", parameters=" + parameters
+                + ", attachments=" + getAttachments() + ")";
+    }
+}
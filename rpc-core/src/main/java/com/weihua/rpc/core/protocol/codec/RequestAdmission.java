@@ -0,0 +1,21 @@
+package com.weihua.rpc.core.protocol.codec;
+
+import com.weihua.rpc.common.model.RpcResponse;
+
+import java.util.Map;
+
+/**
+ * 请求准入检查
+ * 由解码器在反序列化消息体之前调用，只依据协议头和附加信息进行判断，
+ * 被拒绝的请求不会产生消息体的反序列化开销
+ */
+public interface RequestAdmission {
+
+    /**
+     * 检查请求是否允许进入
+     *
+     * @param attachments 请求附加信息
+     * @return 允许进入返回null，否则返回拒绝响应（无需设置请求ID）
+     */
+    RpcResponse<?> check(Map<String, String> attachments);
+}
@@ -1,132 +1,767 @@
 package com.weihua.rpc.core.protocol.codec;
 
-import com.weihua.rpc.common.exception.SerializeException;
+import com.weihua.rpc.common.enums.RpcStatusEnum;
 import com.weihua.rpc.common.model.RpcRequest;
 import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.compress.CompressionMetrics;
+import com.weihua.rpc.core.compress.Compressor;
+import com.weihua.rpc.core.compress.CompressorFactory;
+import com.weihua.rpc.core.protocol.EventLoopMetrics;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.handshake.Handshake;
 import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RPC解码器
- * 将网络中的二进制数据解码为Java对象
+ * 将网络中的二进制数据解码为Java对象，同时支持v1和v2协议帧。
+ * 消息体按协议头中的序列化类型逐帧选择反序列化器，同一连接上可以混用多种序列化方式。
+ *
+ * 解码过程分为协议头和消息体两个阶段，协议头解析后保留到消息体到齐，不会在每次读事件时重复解析。
+ * v2协议中带分块标志的帧按请求ID重组，分块只在组合缓冲区中引用，不做整体拷贝；
+ * 同时重组的消息数有上限，超过上限的新分块消息被拒绝，长时间没有后续分块的消息被丢弃；
+ * 超过单帧上限的帧按长度跳过而不是清空缓冲区，连接上的后续帧不受影响。
+ *
+ * 服务端可开启解码卸载：消息体达到阈值的请求在IO线程上只完成拆帧、准入检查和附加信息解析，
+ * 以{@link DeferredRequest}的形式交给业务线程池，解压和反序列化在业务线程中执行。
+ * 开启参数延迟反序列化时，携带方法ID和数值请求ID的请求只由协议头和附加信息构造{@link LazyRpcRequest}，
+ * 参数在调用服务方法时才反序列化
  */
 @Slf4j
 public class RpcDecoder extends ByteToMessageDecoder {
 
+    // 已拒绝分块消息记录的上限，超过时认为对端异常并关闭连接
+    private static final int MAX_DISCARDED_MESSAGES = 1024;
+
+    // 默认序列化器，协议头中的序列化类型与之相同时直接使用
     private final Serializer serializer;
 
-    // 协议魔数，用于快速识别协议包
-    private static final byte[] MAGIC_NUMBER = { (byte) 0xAB, (byte) 0xBA };
+    // 请求准入检查，仅服务端配置
+    private final RequestAdmission admission;
+
+    // 单帧消息体最大长度
+    private final int maxFrameLength;
+
+    // 分块重组或解压后的消息最大长度
+    private final int maxMessageLength;
+
+    // 请求反序列化移出IO线程的消息体大小阈值，小于0表示不卸载
+    private final int decodeOffloadThreshold;
+
+    // 是否延迟反序列化请求参数
+    private final boolean lazyParameters;
+
+    // 所属服务器的IO线程统计，为null时不记录
+    private final EventLoopMetrics metrics;
+
+    // 同时重组的分块消息上限
+    private final int maxChunkedMessages;
 
-    // 消息类型常量定义
-    private static final byte MSG_TYPE_REQUEST = 1;
-    private static final byte MSG_TYPE_RESPONSE = 2;
-    private static final byte MSG_TYPE_HEARTBEAT = 3;
+    // 分块消息两个分块之间的最长间隔(纳秒)
+    private final long chunkedMessageTimeoutNanos;
 
-    // 协议头长度 = 魔数(2) + 版本(1) + 序列化类型(1) + 数据长度(4) = 8字节
-    private static final int HEADER_LENGTH = 8;
+    // 当前帧的协议头，消息体到齐前保留
+    private FrameHeader header;
+
+    // 超长帧尚未跳过的字节数
+    private long bytesToDiscard;
+
+    // 正在重组的分块消息(请求ID -> 已收到的分块)
+    private final Map<Long, ChunkedMessage> chunkedMessages = new HashMap<>();
+
+    // 已被拒绝的分块消息(请求ID -> 最近一次收到分块的时间)，其后续分块直接丢弃
+    private final Map<Long, Long> discardedMessages = new HashMap<>();
+
+    // 最近一次清理超时分块消息的时间(纳秒)
+    private long lastExpireTime = System.nanoTime();
 
     public RpcDecoder(Serializer serializer) {
+        this(serializer, null);
+    }
+
+    public RpcDecoder(Serializer serializer, RequestAdmission admission) {
+        this(serializer, admission, RpcProtocol.MAX_FRAME_LENGTH, RpcProtocol.MAX_MESSAGE_LENGTH);
+    }
+
+    public RpcDecoder(Serializer serializer, RequestAdmission admission, int maxFrameLength,
+            int maxMessageLength) {
+        this(serializer, admission, maxFrameLength, maxMessageLength, -1, false);
+    }
+
+    public RpcDecoder(Serializer serializer, RequestAdmission admission, int maxFrameLength,
+            int maxMessageLength, int decodeOffloadThreshold, boolean lazyParameters) {
+        this(serializer, admission, maxFrameLength, maxMessageLength, decodeOffloadThreshold, lazyParameters,
+                RpcProtocol.DEFAULT_MAX_CHUNKED_MESSAGES, RpcProtocol.DEFAULT_CHUNKED_MESSAGE_TIMEOUT_MILLIS);
+    }
+
+    public RpcDecoder(Serializer serializer, RequestAdmission admission, int maxFrameLength,
+            int maxMessageLength, int decodeOffloadThreshold, boolean lazyParameters,
+            int maxChunkedMessages, long chunkedMessageTimeoutMillis) {
+        this(serializer, admission, maxFrameLength, maxMessageLength, decodeOffloadThreshold, lazyParameters,
+                maxChunkedMessages, chunkedMessageTimeoutMillis, null);
+    }
+
+    public RpcDecoder(Serializer serializer, RequestAdmission admission, int maxFrameLength,
+            int maxMessageLength, int decodeOffloadThreshold, boolean lazyParameters,
+            int maxChunkedMessages, long chunkedMessageTimeoutMillis, EventLoopMetrics metrics) {
         this.serializer = serializer;
+        this.maxChunkedMessages = maxChunkedMessages;
+        this.chunkedMessageTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(chunkedMessageTimeoutMillis);
+        this.admission = admission;
+        this.maxFrameLength = maxFrameLength;
+        this.maxMessageLength = Math.max(maxFrameLength, maxMessageLength);
+        this.decodeOffloadThreshold = decodeOffloadThreshold;
+        this.lazyParameters = lazyParameters;
+        this.metrics = metrics;
     }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        // 1. 检查可读字节是否足够包含协议头
-        if (in.readableBytes() < HEADER_LENGTH) {
+        // 1. 跳过超长帧的剩余字节
+        if (bytesToDiscard > 0) {
+            int skip = (int) Math.min(bytesToDiscard, in.readableBytes());
+            in.skipBytes(skip);
+            bytesToDiscard -= skip;
+            if (bytesToDiscard > 0) {
+                return;
+            }
+        }
+
+        // 2. 解析协议头
+        if (header == null) {
+            header = readHeader(ctx, in);
+            if (header == null) {
+                return;
+            }
+        }
+
+        // 3. 等待附加信息和消息体到齐
+        if (in.readableBytes() < header.attachmentLength + header.dataLength) {
             return;
         }
 
-        // 记录当前读索引，用于复位
-        in.markReaderIndex();
+        FrameHeader frame = header;
+        header = null;
+        if (frame.version == RpcProtocol.VERSION_2) {
+            decodeV2(ctx, in, frame, out);
+        } else {
+            decodeV1(ctx, in, frame, out);
+        }
+    }
+
+    /**
+     * 解析协议头，数据不足时返回null且不移动读索引
+     */
+    private FrameHeader readHeader(ChannelHandlerContext ctx, ByteBuf in) {
+        // 检查可读字节是否足够包含协议头
+        if (in.readableBytes() < RpcProtocol.V1_HEADER_LENGTH) {
+            return null;
+        }
 
-        // 2. 验证魔数
-        byte[] magic = new byte[2];
-        in.readBytes(magic);
-        if (!Arrays.equals(magic, MAGIC_NUMBER)) {
+        // 验证魔数
+        int start = in.readerIndex();
+        byte[] magic = { in.getByte(start), in.getByte(start + 1) };
+        if (!Arrays.equals(magic, RpcProtocol.MAGIC_NUMBER)) {
             // 检查是否是健康检查连接
             if (isEmptyConnection(magic)) {
                 log.debug("检测到可能是健康检查连接 [{}], 来自: {}",
                         Arrays.toString(magic), ctx.channel().remoteAddress());
+            } else {
+                // 非法连接或数据，记录日志
+                log.warn("接收到无效魔数: {}, 可能是非法连接, 来自: {}",
+                        Arrays.toString(magic), ctx.channel().remoteAddress());
+            }
+
+            // 跳过剩余数据，保持连接开放
+            in.skipBytes(in.readableBytes());
+            return null;
+        }
+
+        // 读取版本号，无法识别的版本无法确定帧边界，关闭连接
+        FrameHeader frame = new FrameHeader();
+        frame.version = in.getByte(start + 2);
+        if (!RpcProtocol.isSupportedVersion(frame.version)) {
+            log.warn("不支持的协议版本: {}, 关闭连接: {}", frame.version, ctx.channel().remoteAddress());
+            in.skipBytes(in.readableBytes());
+            ctx.close();
+            return null;
+        }
+        if (frame.version == RpcProtocol.VERSION_2) {
+            if (in.readableBytes() < RpcProtocol.V2_HEADER_LENGTH) {
+                return null;
+            }
+            in.skipBytes(3);
+            frame.serializerType = in.readByte();
+            frame.messageType = in.readByte();
+            frame.flags = in.readByte();
+            frame.requestId = in.readLong();
+            frame.attachmentLength = in.readUnsignedShort();
+            frame.dataLength = in.readInt();
+        } else {
+            // v1协议通过处理器类型判断是请求还是响应
+            in.skipBytes(3);
+            frame.serializerType = in.readByte();
+            frame.dataLength = in.readInt();
+        }
+
+        if (frame.dataLength < 0) {
+            log.warn("数据长度不合理: {}, 来自: {}", frame.dataLength, ctx.channel().remoteAddress());
+            in.skipBytes(in.readableBytes());
+            return null;
+        }
+        if (frame.dataLength > maxFrameLength) {
+            discardFrame(ctx, frame);
+            return null;
+        }
+        return frame;
+    }
+
+    /**
+     * 跳过超过单帧上限的帧，服务端对可识别的请求回写413响应
+     */
+    private void discardFrame(ChannelHandlerContext ctx, FrameHeader frame) {
+        log.warn("帧长度 {} 超过上限 {}，丢弃该帧, 请求ID: {}, 来自: {}",
+                frame.dataLength, maxFrameLength, frame.requestId, ctx.channel().remoteAddress());
+        bytesToDiscard = (long) frame.attachmentLength + frame.dataLength;
+
+        // 分块消息中任一分块超长，整条消息作废
+        ChunkedMessage chunked = chunkedMessages.remove(frame.requestId);
+        if (chunked != null) {
+            chunked.body.release();
+        }
+        if ((frame.flags & RpcProtocol.FLAG_CHUNKED) != 0) {
+            discardedMessages.put(frame.requestId, System.nanoTime());
+        }
+        if (frame.messageType == RpcProtocol.MSG_TYPE_REQUEST) {
+            RpcResponse<?> response = RpcResponse.fail(null, RpcStatusEnum.PAYLOAD_TOO_LARGE);
+            response.setSerializerType(frame.serializerType);
+            sendRejection(ctx, frame, response);
+        }
+    }
+
+    /**
+     * 解析v1协议帧，通过处理器类型判断是请求还是响应
+     */
+    private void decodeV1(ChannelHandlerContext ctx, ByteBuf in, FrameHeader frame, List<Object> out) {
+        ctx.channel().attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_1);
+        ctx.channel().attr(RpcProtocol.PEER_SERIALIZER).set(frame.serializerType);
 
-                // 跳过剩余数据
-                in.skipBytes(in.readableBytes());
-                return; // 保持连接开放
+        // 根据上下文识别消息类型（请求/响应）并反序列化
+        Serializer bodySerializer = resolveSerializer(ctx, frame.serializerType);
+        if (isServer(ctx)) {
+            RpcRequest request = readBody(bodySerializer, in.readRetainedSlice(frame.dataLength), RpcRequest.class);
+            if (request != null) {
+                request.setSerializerType(bodySerializer.getType());
+                out.add(request);
             }
+        } else {
+            RpcResponse<?> response = readBody(bodySerializer, in.readRetainedSlice(frame.dataLength),
+                    RpcResponse.class);
+            if (response != null) {
+                response.setSerializerType(bodySerializer.getType());
+                out.add(response);
+            }
+        }
+    }
+
+    /**
+     * 解析v2协议帧，消息类型和请求ID直接从协议头读取
+     */
+    private void decodeV2(ChannelHandlerContext ctx, ByteBuf in, FrameHeader frame, List<Object> out) {
+        ctx.channel().attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_2);
+
+        Map<String, String> attachments = readAttachments(in, frame.attachmentLength);
+
+        // 握手消息不经过序列化器
+        if (frame.messageType == RpcProtocol.MSG_TYPE_HANDSHAKE_REQUEST
+                || frame.messageType == RpcProtocol.MSG_TYPE_HANDSHAKE_RESPONSE) {
+            out.add(readHandshake(in, frame.messageType, attachments, frame.dataLength));
+            return;
+        }
 
-            // 非法连接或数据，记录日志
-            log.warn("接收到无效魔数: {}, 可能是非法连接, 来自: {}",
-                    Arrays.toString(magic), ctx.channel().remoteAddress());
+        // 心跳帧只有协议头
+        if ((frame.flags & RpcProtocol.FLAG_HEARTBEAT) != 0) {
+            in.skipBytes(frame.dataLength);
+            out.add(createHeartbeat(frame.messageType, frame.requestId));
+            return;
+        }
+
+        // 流控制帧只有协议头和附加信息，不经过准入检查
+        if ((frame.flags & RpcProtocol.FLAG_STREAMING) != 0 && frame.messageType == RpcProtocol.MSG_TYPE_REQUEST) {
+            in.skipBytes(frame.dataLength);
+            out.add(RpcRequest.builder()
+                    .requestId(String.valueOf(frame.requestId))
+                    .attachments(attachments)
+                    .streaming(true)
+                    .build());
+            return;
+        }
+
+        ctx.channel().attr(RpcProtocol.PEER_SERIALIZER).set(frame.serializerType);
+
+        boolean moreChunks = (frame.flags & RpcProtocol.FLAG_CHUNKED) != 0;
+        long now = System.nanoTime();
+        if ((!chunkedMessages.isEmpty() || !discardedMessages.isEmpty())
+                && now - lastExpireTime >= chunkedMessageTimeoutNanos / 4) {
+            lastExpireTime = now;
+            expireChunkedMessages(ctx, now);
+        }
+        ChunkedMessage chunked = chunkedMessages.get(frame.requestId);
 
-            // 跳过剩余数据
+        // 已被拒绝的分块消息，丢弃后续分块
+        if (chunked == null && discardedMessages.containsKey(frame.requestId)) {
+            in.skipBytes(frame.dataLength);
+            if (moreChunks) {
+                discardedMessages.put(frame.requestId, now);
+            } else {
+                discardedMessages.remove(frame.requestId);
+            }
+            return;
+        }
+
+        // 已拒绝的分块消息过多，对端没有按协议发送后续分块
+        if (discardedMessages.size() > MAX_DISCARDED_MESSAGES) {
+            log.warn("未完成的已拒绝分块消息超过 {} 条，关闭连接: {}", MAX_DISCARDED_MESSAGES,
+                    ctx.channel().remoteAddress());
             in.skipBytes(in.readableBytes());
+            ctx.close();
             return;
         }
 
-        // 3. 读取版本号
-        byte version = in.readByte();
+        // 同时重组的消息数已达上限，拒绝新的分块消息
+        if (chunked == null && moreChunks && chunkedMessages.size() >= maxChunkedMessages) {
+            log.warn("同时重组的分块消息数已达上限 {}，拒绝请求ID: {}, 来自: {}",
+                    maxChunkedMessages, frame.requestId, ctx.channel().remoteAddress());
+            in.skipBytes(frame.dataLength);
+            discardedMessages.put(frame.requestId, now);
+            if (frame.messageType == RpcProtocol.MSG_TYPE_REQUEST) {
+                RpcResponse<?> response = RpcResponse.fail(null, RpcStatusEnum.SERVICE_UNAVAILABLE);
+                response.setSerializerType(frame.serializerType);
+                sendRejection(ctx, frame, response);
+            }
+            return;
+        }
 
-        // 4. 读取序列化类型
-        byte serializerType = in.readByte();
+        // 首帧（或完整消息）上的请求在反序列化之前完成准入检查
+        if (chunked == null && frame.messageType == RpcProtocol.MSG_TYPE_REQUEST
+                && !admit(ctx, in, frame, attachments, moreChunks)) {
+            return;
+        }
 
-        // 检查是否是心跳消息
-        if (serializerType == MSG_TYPE_HEARTBEAT) {
-            log.debug("收到心跳消息, channel: {}", ctx.channel());
-            // 心跳消息不需要额外处理
+        // 非分块消息
+        if (chunked == null && !moreChunks) {
+            dispatch(ctx, frame, attachments, in.readRetainedSlice(frame.dataLength), out);
             return;
         }
 
-        // 5. 读取数据长度
-        int dataLength = in.readInt();
+        // 分块消息，首个分块携带附加信息和完整的标志位
+        if (chunked == null) {
+            chunked = new ChunkedMessage(frame, attachments, ctx.alloc().compositeBuffer(Integer.MAX_VALUE));
+            chunkedMessages.put(frame.requestId, chunked);
+        }
 
-        // 6. 检查数据长度是否合理
-        if (dataLength < 0 || dataLength > 10 * 1024 * 1024) { // 限制10MB
-            log.warn("数据长度不合理: {}, 来自: {}", dataLength, ctx.channel().remoteAddress());
-            in.skipBytes(in.readableBytes());
+        if (chunked.body.readableBytes() + (long) frame.dataLength > maxMessageLength) {
+            log.warn("分块消息超过最大长度 {}，丢弃, 请求ID: {}, 来自: {}",
+                    maxMessageLength, frame.requestId, ctx.channel().remoteAddress());
+            chunkedMessages.remove(frame.requestId);
+            chunked.body.release();
+            in.skipBytes(frame.dataLength);
+            if (moreChunks) {
+                discardedMessages.put(frame.requestId, now);
+            }
+            if (chunked.header.messageType == RpcProtocol.MSG_TYPE_REQUEST) {
+                RpcResponse<?> response = RpcResponse.fail(null, RpcStatusEnum.PAYLOAD_TOO_LARGE);
+                response.setSerializerType(chunked.header.serializerType);
+                sendRejection(ctx, chunked.header, response);
+            }
             return;
         }
 
-        // 7. 检查可读的数据是否完整
-        if (in.readableBytes() < dataLength) {
-            // 数据不完整，等待更多数据
-            in.resetReaderIndex();
+        chunked.body.addComponent(true, in.readRetainedSlice(frame.dataLength));
+        chunked.lastChunkTime = now;
+        if (!moreChunks) {
+            chunkedMessages.remove(frame.requestId);
+            dispatch(ctx, chunked.header, chunked.attachments, chunked.body, out);
+        }
+    }
+
+    /**
+     * 丢弃超过重组超时仍未收到下一个分块的消息，其后续分块按已拒绝处理；同时清理过期的拒绝记录
+     */
+    private void expireChunkedMessages(ChannelHandlerContext ctx, long now) {
+        Iterator<Map.Entry<Long, ChunkedMessage>> it = chunkedMessages.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, ChunkedMessage> entry = it.next();
+            if (now - entry.getValue().lastChunkTime < chunkedMessageTimeoutNanos) {
+                continue;
+            }
+            log.warn("分块消息重组超时，丢弃, 请求ID: {}, 已接收: {}字节, 来自: {}", entry.getKey(),
+                    entry.getValue().body.readableBytes(), ctx.channel().remoteAddress());
+            entry.getValue().body.release();
+            it.remove();
+            discardedMessages.put(entry.getKey(), now);
+        }
+        discardedMessages.values().removeIf(time -> now - time >= chunkedMessageTimeoutNanos);
+    }
+
+    /**
+     * 携带方法标识的请求在反序列化之前完成准入检查，被拒绝时跳过消息体并回写拒绝响应
+     *
+     * @return 允许进入返回true
+     */
+    private boolean admit(ChannelHandlerContext ctx, ByteBuf in, FrameHeader frame,
+            Map<String, String> attachments, boolean moreChunks) {
+        if (admission == null || !RpcProtocol.hasMethodIdentity(attachments)) {
+            return true;
+        }
+        RpcResponse<?> rejection = admission.check(attachments);
+        if (rejection == null) {
+            return true;
+        }
+
+        rejection.setSerializerType(resolveSerializer(ctx, frame.serializerType).getType());
+        if (moreChunks) {
+            discardedMessages.put(frame.requestId, System.nanoTime());
+        }
+        reject(ctx, in, frame, moreChunks, rejection);
+        return false;
+    }
+
+    /**
+     * 将完整的消息体反序列化为请求或响应
+     *
+     * @param payload 消息体，调用后由本方法负责释放
+     */
+    private void dispatch(ChannelHandlerContext ctx, FrameHeader frame, Map<String, String> attachments,
+            ByteBuf payload, List<Object> out) {
+        if (frame.messageType == RpcProtocol.MSG_TYPE_REQUEST) {
+            // 截止时间在收到请求时计算，不计入排队等待反序列化的时间
+            long deadline = toDeadline(attachments);
+            if (lazyParameters && isLazyEligible(frame, attachments)) {
+                out.add(createLazyRequest(ctx, frame, attachments, payload, deadline));
+                return;
+            }
+            if (decodeOffloadThreshold >= 0 && payload.readableBytes() >= decodeOffloadThreshold) {
+                out.add(new DeferredRequest(this, ctx, frame, attachments, payload, deadline));
+                return;
+            }
+
+            long start = System.nanoTime();
+            RpcRequest request = decodeRequest(ctx, frame, attachments, payload, deadline);
+            recordDecode(false, System.nanoTime() - start);
+            if (request != null) {
+                out.add(request);
+            }
+        } else if (frame.messageType == RpcProtocol.MSG_TYPE_RESPONSE) {
+            Serializer bodySerializer = resolveSerializer(ctx, frame.serializerType);
+            RpcResponse<?> response = readBody(bodySerializer, decompress(ctx, payload, frame.flags),
+                    RpcResponse.class);
+            if (response != null) {
+                if (response.getRequestId() == null) {
+                    response.setRequestId(String.valueOf(frame.requestId));
+                }
+                response.setAttachments(attachments);
+                response.setSerializerType(bodySerializer.getType());
+                response.setStreaming((frame.flags & RpcProtocol.FLAG_STREAMING) != 0);
+                out.add(response);
+            }
+        } else {
+            log.warn("未知消息类型: {}, 来自: {}", frame.messageType, ctx.channel().remoteAddress());
+            payload.release();
+        }
+    }
+
+    /**
+     * 请求的路由信息是否都能从协议头和附加信息中得到：
+     * 携带方法ID时消息体中不含接口名、方法名和参数类型，数值请求ID与消息体中的请求ID一致
+     */
+    private boolean isLazyEligible(FrameHeader frame, Map<String, String> attachments) {
+        return frame.requestId != 0 && attachments != null
+                && attachments.containsKey(RpcProtocol.ATTACHMENT_METHOD_ID);
+    }
+
+    /**
+     * 只由协议头和附加信息构造请求，接口名、方法名和参数类型由服务端按方法ID补全
+     */
+    private RpcRequest createLazyRequest(ChannelHandlerContext ctx, FrameHeader frame,
+            Map<String, String> attachments, ByteBuf payload, long deadline) {
+        LazyRpcRequest request = new LazyRpcRequest(this, ctx, frame, payload);
+        request.setRequestId(String.valueOf(frame.requestId));
+        request.setRequestType(RpcRequest.RequestType.NORMAL);
+        request.setAttachments(attachments);
+        request.setOneway((frame.flags & RpcProtocol.FLAG_ONEWAY) != 0);
+        request.setDeadline(deadline);
+        request.setSerializerType(resolveSerializer(ctx, frame.serializerType).getType());
+        return request;
+    }
+
+    /**
+     * 记录一次请求反序列化
+     */
+    void recordDecode(boolean offloaded, long nanos) {
+        if (metrics != null) {
+            metrics.recordDecode(offloaded, nanos);
+        }
+    }
+
+    /**
+     * 记录一次省去的请求反序列化
+     */
+    void recordDecodeSkipped() {
+        if (metrics != null) {
+            metrics.recordDecodeSkipped();
+        }
+    }
+
+    /**
+     * 解压并反序列化请求消息体，填充协议头和附加信息中携带的字段
+     * 解码卸载时由业务线程调用，只访问通道属性和分配器，不修改解码器状态
+     *
+     * @param payload 消息体，调用后由本方法负责释放
+     * @return 反序列化失败时返回null
+     */
+    RpcRequest decodeRequest(ChannelHandlerContext ctx, FrameHeader frame, Map<String, String> attachments,
+            ByteBuf payload, long deadline) {
+        Serializer bodySerializer = resolveSerializer(ctx, frame.serializerType);
+        RpcRequest request = readBody(bodySerializer, decompress(ctx, payload, frame.flags), RpcRequest.class);
+        if (request != null) {
+            if (request.getRequestId() == null) {
+                request.setRequestId(String.valueOf(frame.requestId));
+            }
+            request.setAttachments(attachments);
+            request.setOneway((frame.flags & RpcProtocol.FLAG_ONEWAY) != 0);
+            request.setDeadline(deadline);
+            request.setSerializerType(bodySerializer.getType());
+        }
+        return request;
+    }
+
+    /**
+     * 拒绝请求：跳过消息体并直接回写拒绝响应
+     * 协议头中没有数值请求ID时才反序列化消息体以获取请求ID，分块消息总是带有数值请求ID
+     */
+    private void reject(ChannelHandlerContext ctx, ByteBuf in, FrameHeader frame, boolean chunk,
+            RpcResponse<?> rejection) {
+        if (frame.requestId != 0 || chunk) {
+            in.skipBytes(frame.dataLength);
+            sendRejection(ctx, frame, rejection);
             return;
         }
 
-        // 8. 读取数据
-        byte[] data = new byte[dataLength];
-        in.readBytes(data);
+        RpcRequest request = readBody(resolveSerializer(ctx, frame.serializerType),
+                decompress(ctx, in.readRetainedSlice(frame.dataLength), frame.flags), RpcRequest.class);
+        if (request != null && request.getRequestId() != null) {
+            rejection.setRequestId(request.getRequestId());
+            sendRejection(ctx, frame, rejection);
+        }
+    }
+
+    /**
+     * 回写拒绝响应，单向调用不回写
+     */
+    private void sendRejection(ChannelHandlerContext ctx, FrameHeader frame, RpcResponse<?> rejection) {
+        if (rejection.getRequestId() == null) {
+            if (frame.requestId == 0) {
+                return;
+            }
+            rejection.setRequestId(String.valueOf(frame.requestId));
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("请求在解码阶段被拒绝: {}, 响应码: {}", rejection.getRequestId(), rejection.getCode());
+        }
+        if ((frame.flags & RpcProtocol.FLAG_ONEWAY) == 0) {
+            // 编码器位于解码器之后，需从通道尾部写出才能经过编码器
+            ctx.channel().writeAndFlush(rejection);
+        }
+    }
+
+    /**
+     * 消息体已压缩时按首字节的压缩类型解压到新缓冲区，否则原样返回
+     * 解压失败时返回null，传入的缓冲区总是由本方法或调用方释放
+     */
+    private ByteBuf decompress(ChannelHandlerContext ctx, ByteBuf payload, byte flags) {
+        if ((flags & RpcProtocol.FLAG_COMPRESSED) == 0) {
+            return payload;
+        }
 
-        // 9. 根据上下文识别消息类型（请求/响应）
         try {
-            Object obj;
-            // 根据处理器类型识别数据类型
-            if (isServer(ctx)) {
-                obj = serializer.deserialize(data, RpcRequest.class);
-            } else {
-                obj = serializer.deserialize(data, RpcResponse.class);
+            if (!payload.isReadable()) {
+                log.warn("压缩消息体为空, 来自: {}", ctx.channel().remoteAddress());
+                return null;
             }
-            out.add(obj);
+
+            byte compressorType = payload.readByte();
+            Compressor compressor = CompressorFactory.getCompressor(compressorType);
+            if (compressor == null) {
+                log.warn("不支持的压缩类型: {}, 来自: {}", compressorType, ctx.channel().remoteAddress());
+                return null;
+            }
+
+            ByteBuf body = ctx.alloc().buffer(Math.min(payload.readableBytes() * 2, maxMessageLength));
+            long start = System.nanoTime();
+            try {
+                compressor.decompress(payload, body, maxMessageLength);
+                CompressionMetrics.recordDecompress(compressor.getName(), System.nanoTime() - start);
+                return body;
+            } catch (Exception e) {
+                log.error("解压消息体时发生异常: {}", e.getMessage());
+                body.release();
+                return null;
+            }
+        } finally {
+            payload.release();
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        // 释放未重组完成的分块
+        for (ChunkedMessage chunked : chunkedMessages.values()) {
+            chunked.body.release();
+        }
+        chunkedMessages.clear();
+        discardedMessages.clear();
+    }
+
+    /**
+     * 根据附加信息中的调用超时时间计算本地截止时间
+     */
+    private long toDeadline(Map<String, String> attachments) {
+        String timeout = attachments != null ? attachments.get(RpcProtocol.ATTACHMENT_TIMEOUT) : null;
+        if (timeout == null) {
+            return 0L;
+        }
+        try {
+            return System.currentTimeMillis() + Long.parseLong(timeout);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 直接在缓冲区上反序列化消息体，避免拷贝为字节数组，完成后释放缓冲区
+     * 反序列化失败时返回null，不关闭连接
+     */
+    private <T> T readBody(Serializer bodySerializer, ByteBuf body, Class<T> clazz) {
+        if (body == null) {
+            return null;
+        }
+
+        try {
+            int dataLength = body.readableBytes();
+            T obj = bodySerializer.deserialize(body, clazz);
 
             if (log.isDebugEnabled()) {
-                log.debug("解码消息: 类型={}, 大小={}字节",
-                        obj.getClass().getSimpleName(), dataLength);
+                log.debug("解码消息: 类型={}, 大小={}字节", clazz.getSimpleName(), dataLength);
             }
+            return obj;
         } catch (Exception e) {
             log.error("反序列化数据时发生异常: {}", e.getMessage());
             // 不再抛出异常，避免连接关闭
+            return null;
+        } finally {
+            body.release();
+        }
+    }
+
+    /**
+     * 根据协议头中的序列化类型选择反序列化器，连接上有同一类型编号的协商实例时优先使用，未知类型回退到默认序列化器
+     */
+    private Serializer resolveSerializer(ChannelHandlerContext ctx, byte serializerType) {
+        Map<Byte, Serializer> connectionSerializers = ctx.channel().attr(RpcProtocol.CONNECTION_SERIALIZERS).get();
+        if (connectionSerializers != null) {
+            Serializer negotiated = connectionSerializers.get(serializerType);
+            if (negotiated != null && negotiated.getType() == serializerType) {
+                return negotiated;
+            }
+        }
+        if (serializerType == serializer.getType()) {
+            return serializer;
         }
+        return SerializerFactory.getSerializer(serializerType);
+    }
+
+    /**
+     * 读取附加信息区，格式与{@link RpcEncoder}写入一致
+     */
+    private Map<String, String> readAttachments(ByteBuf in, int attachmentLength) {
+        if (attachmentLength == 0) {
+            return null;
+        }
+
+        Map<String, String> attachments = new HashMap<>();
+        int end = in.readerIndex() + attachmentLength;
+        while (in.readerIndex() < end) {
+            String key = readString(in);
+            String value = readString(in);
+            attachments.put(key, value);
+        }
+        return attachments;
+    }
+
+    private String readString(ByteBuf in) {
+        int length = in.readUnsignedShort();
+        String value = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+
+    /**
+     * 读取握手消息，格式与{@link RpcEncoder}写入一致
+     */
+    private Handshake readHandshake(ByteBuf in, byte messageType, Map<String, String> attachments,
+            int dataLength) {
+        int end = in.readerIndex() + dataLength;
+        Map<String, Integer> methodIds = new HashMap<>();
+        if (dataLength > 0) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int methodId = in.readInt();
+                methodIds.put(readString(in), methodId);
+            }
+        }
+        // 跳过无法识别的扩展内容
+        in.readerIndex(end);
+
+        Handshake handshake = messageType == RpcProtocol.MSG_TYPE_HANDSHAKE_RESPONSE
+                ? Handshake.response(methodIds)
+                : Handshake.request();
+        if (attachments != null) {
+            handshake.getProperties().putAll(attachments);
+        }
+        return handshake;
+    }
+
+    /**
+     * 根据消息类型构造心跳对象，交由心跳处理器处理
+     */
+    private Object createHeartbeat(byte messageType, long requestId) {
+        if (messageType == RpcProtocol.MSG_TYPE_REQUEST) {
+            return RpcRequest.builder()
+                    .requestId(String.valueOf(requestId))
+                    .requestType(RpcRequest.RequestType.HEARTBEAT)
+                    .build();
+        }
+        return RpcResponse.heartBeat(String.valueOf(requestId));
     }
 
     /**
      * 判断当前处理器是在服务端还是客户端
-     * 
+     *
      * @param ctx 通道上下文
      * @return 如果是服务端返回true，客户端返回false
      */
@@ -137,7 +772,7 @@ public class RpcDecoder extends ByteToMessageDecoder {
 
     /**
      * 判断是否是一个空连接（如健康检查连接）
-     * 
+     *
      * @param magic 魔数字节数组
      * @return 如果是空连接返回true
      */
@@ -145,4 +780,35 @@ public class RpcDecoder extends ByteToMessageDecoder {
         // [0,0] 很可能是健康检查连接
         return magic[0] == 0 && magic[1] == 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * 协议头
+     */
+    static class FrameHeader {
+        byte version;
+        byte serializerType;
+        byte messageType;
+        byte flags;
+        long requestId;
+        int attachmentLength;
+        int dataLength;
+    }
+
+    /**
+     * 重组中的分块消息
+     */
+    private static class ChunkedMessage {
+        final FrameHeader header;
+        final Map<String, String> attachments;
+        final CompositeByteBuf body;
+        // 最近一次收到分块的时间(纳秒)
+        long lastChunkTime;
+
+        ChunkedMessage(FrameHeader header, Map<String, String> attachments, CompositeByteBuf body) {
+            this.header = header;
+            this.attachments = attachments;
+            this.body = body;
+            this.lastChunkTime = System.nanoTime();
+        }
+    }
+}
@@ -3,63 +3,472 @@
  * @Date: 2025-04-10 02:07:46
  * @LastEditTime: 2025-04-10 02:07:48
  * @LastEditors: weihua hu
- * @Description: 
+ * @Description:
  */
 package com.weihua.rpc.core.protocol.codec;
 
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.compress.CompressionMetrics;
+import com.weihua.rpc.core.compress.Compressor;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.handshake.Handshake;
 import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.MessageToMessageEncoder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * RPC编码器
  * 将Java对象编码为二进制格式发送到网络
+ *
+ * 协议版本优先取对端版本（由解码器记录在通道属性中），尚未收到对端消息时使用默认版本。
+ * v2协议下，连接握手协商出压缩算法后，超过阈值的消息体会被压缩，压缩后不变小则保持原样。
+ * 序列化方式优先取消息自身指定的类型，其次取对端最近一次使用的类型，最后使用默认序列化器。
+ * v2协议下超过分块大小的消息体拆分为多个分块帧，接收端按请求ID重组，
+ * 各分块引用序列化结果的切片，只额外分配分块协议头，不复制消息体。
+ *
+ * 开启预编码后，业务线程通过{@link #writeAndFlush(Channel, Object)}在当前线程完成序列化、压缩和分块，
+ * 只把编码好的缓冲区交给IO线程，编码器对已编码的{@link ByteBuf}直接放行
  */
 @Slf4j
-public class RpcEncoder extends MessageToByteEncoder<Object> {
+public class RpcEncoder extends MessageToMessageEncoder<Object> {
 
+    // 默认序列化器
     private final Serializer serializer;
 
-    // 协议魔数，用于快速识别协议包
-    private static final byte[] MAGIC_NUMBER = { (byte) 0xAB, (byte) 0xBA };
+    // 默认协议版本
+    private final byte defaultVersion;
+
+    // 压缩阈值(字节)，消息体超过该大小才尝试压缩
+    private final int compressionThreshold;
 
-    // 协议版本
-    private static final byte VERSION = 0x01;
+    // 分块大小(字节)，消息体超过该大小时拆分为多个分块帧
+    private final int chunkSize;
+
+    // 是否在业务线程中预编码请求和响应
+    private final boolean preEncode;
 
     public RpcEncoder(Serializer serializer) {
+        this(serializer, RpcProtocol.VERSION_1);
+    }
+
+    public RpcEncoder(Serializer serializer, byte defaultVersion) {
+        this(serializer, defaultVersion, RpcProtocol.DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    public RpcEncoder(Serializer serializer, byte defaultVersion, int compressionThreshold) {
+        this(serializer, defaultVersion, compressionThreshold, RpcProtocol.DEFAULT_CHUNK_SIZE);
+    }
+
+    public RpcEncoder(Serializer serializer, byte defaultVersion, int compressionThreshold, int chunkSize) {
+        this(serializer, defaultVersion, compressionThreshold, chunkSize, false);
+    }
+
+    public RpcEncoder(Serializer serializer, byte defaultVersion, int compressionThreshold, int chunkSize,
+            boolean preEncode) {
         this.serializer = serializer;
+        this.defaultVersion = defaultVersion;
+        this.compressionThreshold = compressionThreshold;
+        this.chunkSize = chunkSize;
+        this.preEncode = preEncode;
     }
 
-    @Override
-    protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
+    /**
+     * 发送请求或响应，通道的编码器开启预编码且当前不在IO线程时，先在当前线程编码为池化缓冲区再写出，
+     * 否则按原消息写出，由IO线程上的编码器编码。
+     * 对端协议版本尚未确定时不预编码，由IO线程在握手结束后按确定的版本编码
+     *
+     * @return 写出结果，预编码失败时返回失败的Future
+     */
+    public static ChannelFuture writeAndFlush(Channel channel, Object msg) {
+        RpcEncoder encoder = channel.pipeline().get(RpcEncoder.class);
+        if (encoder == null || !encoder.preEncode || channel.eventLoop().inEventLoop()
+                || channel.attr(RpcProtocol.PEER_VERSION).get() == null
+                || !(msg instanceof RpcRequest || msg instanceof RpcResponse)) {
+            return channel.writeAndFlush(msg);
+        }
+
+        ByteBuf frame;
         try {
-            // 1. 写入魔数 (2字节)
-            out.writeBytes(MAGIC_NUMBER);
+            frame = encoder.encode(channel, msg);
+        } catch (Exception e) {
+            return channel.newFailedFuture(e);
+        }
+        return channel.writeAndFlush(frame);
+    }
 
-            // 2. 写入版本号 (1字节)
-            out.writeByte(VERSION);
+    /**
+     * 已编码的缓冲区直接交给下一个处理器
+     */
+    @Override
+    public boolean acceptOutboundMessage(Object msg) throws Exception {
+        return !(msg instanceof ByteBuf) && super.acceptOutboundMessage(msg);
+    }
 
-            // 3. 写入序列化类型 (1字节)
-            out.writeByte(serializer.getType());
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        out.add(encode(ctx.channel(), msg));
+    }
 
-            // 4. 序列化对象为字节数组
-            byte[] data = serializer.serialize(msg);
+    /**
+     * 编码消息，只读取通道属性，可在IO线程之外调用
+     *
+     * @return 编码结果，需要分块时为由各分块组成的组合缓冲区；没有可写出的内容时为空缓冲区
+     */
+    private ByteBuf encode(Channel channel, Object msg) throws Exception {
+        ByteBuf buf = channel.alloc().ioBuffer();
+        try {
+            ByteBuf frame = encode(channel, msg, buf);
+            if (frame != buf) {
+                // 分块结果持有切片的引用
+                buf.release();
+            } else if (!buf.isReadable()) {
+                buf.release();
+                return Unpooled.EMPTY_BUFFER;
+            }
+            return frame;
+        } catch (Exception e) {
+            buf.release();
+            throw e;
+        }
+    }
 
-            // 5. 写入数据长度 (4字节)
-            out.writeInt(data.length);
+    /**
+     * 将消息编码到缓冲区
+     *
+     * @return 编码结果，不分块时即传入的缓冲区
+     */
+    private ByteBuf encode(Channel channel, Object msg, ByteBuf out) throws Exception {
+        try {
+            Byte peerVersion = channel.attr(RpcProtocol.PEER_VERSION).get();
+            byte version = peerVersion != null ? peerVersion : defaultVersion;
 
-            // 6. 写入序列化后的数据
-            out.writeBytes(data);
+            if (msg instanceof Handshake) {
+                encodeHandshake((Handshake) msg, out);
+                return out;
+            }
 
-            if (log.isDebugEnabled()) {
-                log.debug("编码消息: 类型={}, 大小={}字节",
-                        msg.getClass().getSimpleName(), data.length);
+            Serializer bodySerializer = resolveSerializer(msg, channel.attr(RpcProtocol.PEER_SERIALIZER).get(),
+                    channel.attr(RpcProtocol.CONNECTION_SERIALIZERS).get());
+            if (version == RpcProtocol.VERSION_2) {
+                return encodeV2(msg, out, bodySerializer, channel.attr(RpcProtocol.COMPRESSOR).get());
+            } else if (msg instanceof RpcRequest && ((RpcRequest) msg).isStreaming()) {
+                // v1协议没有标志位，无法表达流控制帧
+                log.warn("v1协议不支持流控制帧，忽略: {}", ((RpcRequest) msg).getRequestId());
+            } else {
+                encodeV1(msg, out, bodySerializer);
             }
+            return out;
         } catch (Exception e) {
             log.error("编码消息时发生异常", e);
             throw e;
         }
     }
+
+    /**
+     * 按v1协议编码：魔数 + 版本 + 序列化类型 + 数据长度 + 数据
+     */
+    private void encodeV1(Object msg, ByteBuf out, Serializer bodySerializer) {
+        // 1. 写入魔数 (2字节)
+        out.writeBytes(RpcProtocol.MAGIC_NUMBER);
+
+        // 2. 写入版本号 (1字节)
+        out.writeByte(RpcProtocol.VERSION_1);
+
+        // 3. 写入序列化类型 (1字节)
+        out.writeByte(bodySerializer.getType());
+
+        // 4. 写入数据长度占位 (4字节)，序列化完成后回填
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+
+        // 5. 将对象直接序列化写入缓冲区
+        int dataLength = writeBody(bodySerializer, msg, out);
+
+        // 6. 回填数据长度
+        out.setInt(lengthIndex, dataLength);
+
+        if (log.isDebugEnabled()) {
+            log.debug("编码消息: 类型={}, 大小={}字节",
+                    msg.getClass().getSimpleName(), dataLength);
+        }
+    }
+
+    /**
+     * 按v2协议编码，心跳消息和流控制帧只写协议头和附加信息
+     *
+     * @return 编码结果，需要分块时为组合缓冲区，否则为传入的缓冲区
+     */
+    private ByteBuf encodeV2(Object msg, ByteBuf out, Serializer bodySerializer, Compressor compressor) {
+        byte messageType;
+        byte flags = 0;
+        String requestId;
+        Map<String, String> attachments;
+        boolean heartbeat;
+        boolean bodyless;
+
+        if (msg instanceof RpcRequest) {
+            RpcRequest request = (RpcRequest) msg;
+            messageType = RpcProtocol.MSG_TYPE_REQUEST;
+            requestId = request.getRequestId();
+            attachments = request.getAttachments();
+            heartbeat = request.isHeartBeat();
+            bodyless = heartbeat || request.isStreaming();
+            if (request.isOneway()) {
+                flags |= RpcProtocol.FLAG_ONEWAY;
+            }
+            if (request.isStreaming()) {
+                flags |= RpcProtocol.FLAG_STREAMING;
+            }
+        } else if (msg instanceof RpcResponse) {
+            RpcResponse<?> response = (RpcResponse<?>) msg;
+            messageType = RpcProtocol.MSG_TYPE_RESPONSE;
+            requestId = response.getRequestId();
+            attachments = response.getAttachments();
+            heartbeat = response.isHeartBeat();
+            bodyless = heartbeat;
+            if (response.isStreaming()) {
+                flags |= RpcProtocol.FLAG_STREAMING;
+            }
+        } else {
+            throw new EncoderException("不支持的消息类型: " + msg.getClass().getName());
+        }
+
+        if (heartbeat) {
+            flags |= RpcProtocol.FLAG_HEARTBEAT;
+        }
+
+        // 1. 协议头
+        int frameStart = out.writerIndex();
+        out.writeBytes(RpcProtocol.MAGIC_NUMBER);
+        out.writeByte(RpcProtocol.VERSION_2);
+        out.writeByte(bodySerializer.getType());
+        out.writeByte(messageType);
+        int flagsIndex = out.writerIndex();
+        out.writeByte(flags);
+        out.writeLong(RpcProtocol.toHeaderId(requestId));
+        int attachmentLengthIndex = out.writerIndex();
+        out.writeShort(0);
+        int dataLengthIndex = out.writerIndex();
+        out.writeInt(0);
+
+        // 2. 附加信息区
+        int attachmentLength = writeAttachments(attachments, out);
+        if (attachmentLength > RpcProtocol.MAX_ATTACHMENT_LENGTH) {
+            throw new EncoderException("附加信息过大: " + attachmentLength + "字节");
+        }
+        out.setShort(attachmentLengthIndex, attachmentLength);
+
+        // 3. 消息体，心跳帧和流控制帧没有消息体
+        if (bodyless) {
+            return out;
+        }
+        int bodyStart = out.writerIndex();
+        int dataLength = writeBody(bodySerializer, msg, out);
+
+        // 4. 超过阈值时压缩消息体
+        if (compressor != null && dataLength > compressionThreshold
+                && compressBody(compressor, out, bodyStart, dataLength)) {
+            dataLength = out.writerIndex() - bodyStart;
+            out.setByte(flagsIndex, flags | RpcProtocol.FLAG_COMPRESSED);
+        }
+        out.setInt(dataLengthIndex, dataLength);
+
+        if (log.isDebugEnabled()) {
+            log.debug("编码消息(v2): 类型={}, 请求ID={}, 附加信息={}字节, 大小={}字节",
+                    msg.getClass().getSimpleName(), requestId, attachmentLength, dataLength);
+        }
+
+        // 5. 超过分块大小时拆分为多个分块帧，分块依赖数值请求ID重组
+        if (dataLength > chunkSize) {
+            if (RpcProtocol.toHeaderId(requestId) != 0) {
+                return sliceChunks(out, frameStart, bodyStart, dataLength);
+            }
+            log.warn("请求ID {} 不是数值，无法分块发送，消息体大小: {}字节", requestId, dataLength);
+        }
+        return out;
+    }
+
+    /**
+     * 将已写入的单帧消息拆分为多个分块帧，各分块引用原缓冲区的切片，不复制消息体。
+     * 首个分块沿用原协议头和附加信息，后续分块复制协议头、附加信息长度为0，除最后一个分块外都带分块标志
+     *
+     * @return 由各分块协议头和消息体切片组成的组合缓冲区，原缓冲区仍由调用方释放
+     */
+    private ByteBuf sliceChunks(ByteBuf out, int frameStart, int bodyStart, int dataLength) {
+        int chunks = (dataLength + chunkSize - 1) / chunkSize;
+        byte flags = out.getByte(frameStart + 5);
+        out.setByte(frameStart + 5, flags | RpcProtocol.FLAG_CHUNKED);
+        out.setInt(frameStart + RpcProtocol.V2_HEADER_LENGTH - 4, chunkSize);
+
+        // 后续分块的协议头集中写在一个缓冲区中，按帧切片引用
+        ByteBuf headers = out.alloc().buffer((chunks - 1) * RpcProtocol.V2_HEADER_LENGTH);
+        CompositeByteBuf frames = out.alloc().compositeBuffer(chunks * 2);
+        try {
+            frames.addComponent(true, out.retainedSlice(frameStart, bodyStart + chunkSize - frameStart));
+
+            int bodyEnd = bodyStart + dataLength;
+            for (int offset = bodyStart + chunkSize; offset < bodyEnd; offset += chunkSize) {
+                int length = Math.min(chunkSize, bodyEnd - offset);
+                boolean last = offset + length == bodyEnd;
+
+                // 魔数、版本、序列化类型、消息类型(5) + 标志位(1) + 请求ID(8) + 附加信息长度(2) + 数据长度(4)
+                int headerStart = headers.writerIndex();
+                headers.writeBytes(out, frameStart, 5);
+                headers.writeByte(last ? flags : flags | RpcProtocol.FLAG_CHUNKED);
+                headers.writeBytes(out, frameStart + 6, 8);
+                headers.writeShort(0);
+                headers.writeInt(length);
+
+                frames.addComponent(true, headers.retainedSlice(headerStart, RpcProtocol.V2_HEADER_LENGTH));
+                frames.addComponent(true, out.retainedSlice(offset, length));
+            }
+            return frames;
+        } catch (RuntimeException e) {
+            frames.release();
+            throw e;
+        } finally {
+            headers.release();
+        }
+    }
+
+    /**
+     * 编码握手消息，握手只存在于v2协议
+     * 属性写入附加信息区，方法表写入消息体：数量(4) + [方法ID(4) + 签名长度(2) + 签名]*
+     */
+    private void encodeHandshake(Handshake handshake, ByteBuf out) {
+        out.writeBytes(RpcProtocol.MAGIC_NUMBER);
+        out.writeByte(RpcProtocol.VERSION_2);
+        out.writeByte(serializer.getType());
+        out.writeByte(handshake.isResponse()
+                ? RpcProtocol.MSG_TYPE_HANDSHAKE_RESPONSE
+                : RpcProtocol.MSG_TYPE_HANDSHAKE_REQUEST);
+        out.writeByte(0);
+        out.writeLong(0L);
+        int attachmentLengthIndex = out.writerIndex();
+        out.writeShort(0);
+        int dataLengthIndex = out.writerIndex();
+        out.writeInt(0);
+
+        int attachmentLength = writeAttachments(handshake.getProperties(), out);
+        if (attachmentLength > RpcProtocol.MAX_ATTACHMENT_LENGTH) {
+            throw new EncoderException("握手属性过大: " + attachmentLength + "字节");
+        }
+        out.setShort(attachmentLengthIndex, attachmentLength);
+
+        int bodyStart = out.writerIndex();
+        Map<String, Integer> methodIds = handshake.getMethodIds();
+        out.writeInt(methodIds.size());
+        for (Map.Entry<String, Integer> entry : methodIds.entrySet()) {
+            out.writeInt(entry.getValue());
+            writeString(entry.getKey(), out);
+        }
+        out.setInt(dataLengthIndex, out.writerIndex() - bodyStart);
+
+        if (log.isDebugEnabled()) {
+            log.debug("编码握手消息: 响应={}, 方法数={}", handshake.isResponse(), methodIds.size());
+        }
+    }
+
+    /**
+     * 压缩已写入的消息体，格式为：压缩类型(1) + 压缩数据
+     * 压缩失败或压缩后没有变小时保留原始消息体并返回false
+     */
+    private boolean compressBody(Compressor compressor, ByteBuf out, int bodyStart, int dataLength) {
+        ByteBuf compressed = out.alloc().buffer(dataLength);
+        long start = System.nanoTime();
+        try {
+            compressor.compress(out.slice(bodyStart, dataLength), compressed);
+            int compressedLength = compressed.readableBytes() + 1;
+            CompressionMetrics.recordCompress(compressor.getName(), dataLength, compressedLength,
+                    System.nanoTime() - start);
+            if (compressedLength >= dataLength) {
+                return false;
+            }
+
+            out.writerIndex(bodyStart);
+            out.writeByte(compressor.getType());
+            out.writeBytes(compressed);
+            return true;
+        } catch (Exception e) {
+            log.warn("压缩消息体失败，按未压缩发送: {}", e.getMessage());
+            return false;
+        } finally {
+            compressed.release();
+        }
+    }
+
+    /**
+     * 选择消息体的序列化器：消息指定的类型 > 对端最近使用的类型 > 默认序列化器，
+     * 连接上有同类型的协商实例时优先使用
+     */
+    private Serializer resolveSerializer(Object msg, Byte peerSerializer, Map<Byte, Serializer> connectionSerializers) {
+        byte type = 0;
+        if (msg instanceof RpcRequest) {
+            type = ((RpcRequest) msg).getSerializerType();
+        } else if (msg instanceof RpcResponse) {
+            type = ((RpcResponse<?>) msg).getSerializerType();
+        }
+        if (type == 0 && peerSerializer != null) {
+            type = peerSerializer;
+        }
+        if (connectionSerializers != null) {
+            Serializer negotiated = connectionSerializers.get(type == 0 ? serializer.getType() : type);
+            if (negotiated != null) {
+                return negotiated;
+            }
+        }
+
+        if (type == 0 || type == serializer.getType()) {
+            return serializer;
+        }
+        return SerializerFactory.getSerializer(type);
+    }
+
+    /**
+     * 序列化消息体，返回写入的字节数
+     */
+    private int writeBody(Serializer bodySerializer, Object msg, ByteBuf out) {
+        int bodyStart = out.writerIndex();
+        bodySerializer.serialize(msg, out);
+        return out.writerIndex() - bodyStart;
+    }
+
+    /**
+     * 写入附加信息，每项格式为：键长度(2) + 键 + 值长度(2) + 值，均为UTF-8编码
+     */
+    private int writeAttachments(Map<String, String> attachments, ByteBuf out) {
+        if (attachments == null || attachments.isEmpty()) {
+            return 0;
+        }
+
+        int start = out.writerIndex();
+        for (Map.Entry<String, String> entry : attachments.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+            writeString(entry.getKey(), out);
+            writeString(entry.getValue(), out);
+        }
+        return out.writerIndex() - start;
+    }
+
+    private void writeString(String value, ByteBuf out) {
+        int lengthIndex = out.writerIndex();
+        out.writeShort(0);
+        int length = ByteBufUtil.writeUtf8(out, value);
+        out.setShort(lengthIndex, length);
+    }
 }
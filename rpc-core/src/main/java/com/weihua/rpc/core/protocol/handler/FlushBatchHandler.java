@@ -0,0 +1,133 @@
+package com.weihua.rpc.core.protocol.handler;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 刷新合并处理器
+ * 业务线程每次writeAndFlush都会触发一次系统调用，高并发下开销明显。该处理器将多次flush合并为一次：
+ * <ul>
+ * <li>累计的flush次数达到批量大小时立即刷新</li>
+ * <li>读事件处理期间产生的flush推迟到本轮读完成时统一刷新</li>
+ * <li>其余情况在延迟预算内合并，延迟为0时在事件循环处理完当前任务后刷新</li>
+ * </ul>
+ * 通道变为不可写、关闭或发生异常时立即刷新已积累的数据
+ */
+public class FlushBatchHandler extends ChannelDuplexHandler {
+
+    // 触发立即刷新的flush次数
+    private final int maxBatchSize;
+
+    // 合并等待的最长时间(纳秒)
+    private final long delayNanos;
+
+    // 尚未真正执行的flush次数
+    private int pendingFlushes;
+
+    // 是否已安排刷新任务
+    private boolean flushScheduled;
+
+    // 是否处于读事件处理中
+    private boolean readInProgress;
+
+    private Runnable flushTask;
+
+    public FlushBatchHandler(int maxBatchSize, long delay, TimeUnit unit) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize必须大于0: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.delayNanos = Math.max(0L, unit.toNanos(delay));
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        flushTask = () -> {
+            flushScheduled = false;
+            if (pendingFlushes > 0 && !readInProgress) {
+                flushNow(ctx);
+            }
+        };
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (++pendingFlushes >= maxBatchSize) {
+            flushNow(ctx);
+        } else if (!readInProgress) {
+            scheduleFlush(ctx);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        readInProgress = false;
+        if (pendingFlushes > 0) {
+            flushNow(ctx);
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable() && pendingFlushes > 0) {
+            flushNow(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        flushIfNeeded(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfNeeded(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfNeeded(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        flushIfNeeded(ctx);
+    }
+
+    private void scheduleFlush(ChannelHandlerContext ctx) {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        if (delayNanos > 0) {
+            ctx.executor().schedule(flushTask, delayNanos, TimeUnit.NANOSECONDS);
+        } else {
+            ctx.executor().execute(flushTask);
+        }
+    }
+
+    private void flushIfNeeded(ChannelHandlerContext ctx) {
+        if (pendingFlushes > 0) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        pendingFlushes = 0;
+        ctx.flush();
+    }
+}
@@ -0,0 +1,41 @@
+package com.weihua.rpc.core.protocol.handshake;
+
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 连接握手消息，仅在v2协议中使用
+ *
+ * 客户端建立连接后发送握手请求，服务端在响应中下发已注册服务方法的ID表，
+ * 之后的请求只需携带方法ID和参数。握手消息不经过序列化器：
+ * 属性放在协议头的附加信息区，方法表以二进制形式写入消息体
+ */
+@Data
+public class Handshake {
+
+    /**
+     * 是否为握手响应
+     */
+    private final boolean response;
+
+    /**
+     * 握手属性，用于协商连接级别的特性
+     */
+    private final Map<String, String> properties = new HashMap<>();
+
+    /**
+     * 方法ID表：方法签名 -> 方法ID，仅握手响应携带
+     */
+    private final Map<String, Integer> methodIds;
+
+    public static Handshake request() {
+        return new Handshake(false, Collections.emptyMap());
+    }
+
+    public static Handshake response(Map<String, Integer> methodIds) {
+        return new Handshake(true, methodIds);
+    }
+}
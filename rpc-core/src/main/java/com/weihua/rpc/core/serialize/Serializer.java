@@ -9,6 +9,8 @@ package com.weihua.rpc.core.serialize;
 
 import com.weihua.rpc.common.exception.SerializeException;
 import com.weihua.rpc.common.extension.SPI;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 
 /**
  * 序列化接口，定义序列化和反序列化方法
@@ -25,6 +27,19 @@ public interface Serializer {
      */
     byte[] serialize(Object obj) throws SerializeException;
 
+    /**
+     * 将对象直接序列化写入ByteBuf，从writerIndex开始追加
+     * 内置序列化器以流式方式写入缓冲区，不产生中间字节数组；
+     * 默认实现先调用{@link #serialize(Object)}再整体写入，供第三方序列化器兼容使用
+     *
+     * @param obj 待序列化的对象
+     * @param out 目标缓冲区
+     * @throws SerializeException 序列化异常
+     */
+    default void serialize(Object obj, ByteBuf out) throws SerializeException {
+        out.writeBytes(serialize(obj));
+    }
+
     /**
      * 反序列化字节数组为对象
      * 
@@ -35,6 +50,20 @@ public interface Serializer {
      */
     <T> T deserialize(byte[] bytes, Class<T> clazz) throws SerializeException;
 
+    /**
+     * 直接从ByteBuf反序列化对象，读取范围为readerIndex到writerIndex
+     * 内置序列化器会原地读取缓冲区，避免额外的字节数组拷贝；
+     * 默认实现先拷贝为字节数组再调用{@link #deserialize(byte[], Class)}，供第三方序列化器兼容使用
+     *
+     * @param buf   数据缓冲区，调用方负责释放
+     * @param clazz 目标类型
+     * @return 反序列化后的对象
+     * @throws SerializeException 反序列化异常
+     */
+    default <T> T deserialize(ByteBuf buf, Class<T> clazz) throws SerializeException {
+        return deserialize(ByteBufUtil.getBytes(buf), clazz);
+    }
+
     /**
      * 获取序列化器类型
      * 
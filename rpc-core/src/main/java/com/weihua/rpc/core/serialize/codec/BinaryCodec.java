@@ -0,0 +1,31 @@
+package com.weihua.rpc.core.serialize.codec;
+
+/**
+ * 单个类型的二进制编解码器
+ * 实现类通常由注解处理器生成，并登记在META-INF/services中，由{@link CodecRegistry}加载
+ *
+ * @param <T> 编解码的类型
+ */
+public interface BinaryCodec<T> {
+
+    /**
+     * 获取编解码的类型
+     */
+    Class<T> type();
+
+    /**
+     * 写入对象的各个字段
+     *
+     * @param out   输出
+     * @param value 对象，不为null
+     */
+    void write(CodecOutput out, T value);
+
+    /**
+     * 按写入顺序读取字段并创建对象
+     *
+     * @param in 输入
+     * @return 对象
+     */
+    T read(CodecInput in);
+}
@@ -0,0 +1,289 @@
+package com.weihua.rpc.core.serialize.codec;
+
+import io.netty.buffer.ByteBuf;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编解码器的输入，直接从ByteBuf读取，格式与{@link CodecOutput}一致
+ */
+public final class CodecInput {
+
+    private final ByteBuf buf;
+
+    // 已读取的类名，按序号排列
+    private List<String> classNames;
+
+    public CodecInput(ByteBuf buf) {
+        this.buf = buf;
+    }
+
+    public boolean readBoolean() {
+        return buf.readBoolean();
+    }
+
+    public byte readByte() {
+        return buf.readByte();
+    }
+
+    public short readShort() {
+        return buf.readShort();
+    }
+
+    public char readChar() {
+        return buf.readChar();
+    }
+
+    public int readInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public float readFloat() {
+        return buf.readFloat();
+    }
+
+    public double readDouble() {
+        return buf.readDouble();
+    }
+
+    /**
+     * 读取无符号变长整数
+     */
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buf.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+
+    /**
+     * 读取无符号变长长整数
+     */
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+
+    public Boolean readNullableBoolean() {
+        byte value = buf.readByte();
+        return value == 0 ? null : value == 2;
+    }
+
+    public Byte readNullableByte() {
+        return buf.readBoolean() ? buf.readByte() : null;
+    }
+
+    public Short readNullableShort() {
+        return buf.readBoolean() ? buf.readShort() : null;
+    }
+
+    public Character readNullableChar() {
+        return buf.readBoolean() ? buf.readChar() : null;
+    }
+
+    public Integer readNullableInt() {
+        return buf.readBoolean() ? readInt() : null;
+    }
+
+    public Long readNullableLong() {
+        return buf.readBoolean() ? readLong() : null;
+    }
+
+    public Float readNullableFloat() {
+        return buf.readBoolean() ? buf.readFloat() : null;
+    }
+
+    public Double readNullableDouble() {
+        return buf.readBoolean() ? buf.readDouble() : null;
+    }
+
+    public String readString() {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return value;
+    }
+
+    public byte[] readBytes() {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buf.readBytes(value);
+        return value;
+    }
+
+    public BigInteger readBigInteger() {
+        byte[] bytes = readBytes();
+        return bytes == null ? null : new BigInteger(bytes);
+    }
+
+    public BigDecimal readBigDecimal() {
+        if (!buf.readBoolean()) {
+            return null;
+        }
+        BigInteger unscaled = new BigInteger(readBytes());
+        return new BigDecimal(unscaled, readInt());
+    }
+
+    public Date readDate() {
+        return buf.readBoolean() ? new Date(readLong()) : null;
+    }
+
+    public <E extends Enum<E>> E readEnum(Class<E> type) {
+        String name = readString();
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+
+    /**
+     * 读取声明类型已生成编解码器的对象
+     */
+    public <T> T readMessage(BinaryCodec<T> codec) {
+        return buf.readBoolean() ? codec.read(this) : null;
+    }
+
+    public String readClassName() {
+        if (classNames == null) {
+            classNames = new ArrayList<>();
+        }
+        int index = readVarInt();
+        if (index > 0) {
+            return classNames.get(index - 1);
+        }
+        String className = readString();
+        classNames.add(className);
+        return className;
+    }
+
+    /**
+     * 读取{@link CodecOutput#writeObject(Object)}写入的值
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object readObject() {
+        byte tag = buf.readByte();
+        switch (tag) {
+            case CodecOutput.TAG_NULL:
+                return null;
+            case CodecOutput.TAG_BOOLEAN:
+                return buf.readBoolean();
+            case CodecOutput.TAG_BYTE:
+                return buf.readByte();
+            case CodecOutput.TAG_SHORT:
+                return buf.readShort();
+            case CodecOutput.TAG_CHAR:
+                return buf.readChar();
+            case CodecOutput.TAG_INT:
+                return readInt();
+            case CodecOutput.TAG_LONG:
+                return readLong();
+            case CodecOutput.TAG_FLOAT:
+                return buf.readFloat();
+            case CodecOutput.TAG_DOUBLE:
+                return buf.readDouble();
+            case CodecOutput.TAG_STRING:
+                return readString();
+            case CodecOutput.TAG_BIG_DECIMAL:
+                return readBigDecimal();
+            case CodecOutput.TAG_BIG_INTEGER:
+                return readBigInteger();
+            case CodecOutput.TAG_DATE:
+                return readDate();
+            case CodecOutput.TAG_BYTES:
+                return readBytes();
+            case CodecOutput.TAG_ENUM:
+                return Enum.valueOf((Class) CodecRegistry.loadClass(readClassName()), readString());
+            case CodecOutput.TAG_CLASS:
+                return CodecRegistry.loadClass(readClassName());
+            case CodecOutput.TAG_MESSAGE:
+                return readMessageOf(readClassName());
+            case CodecOutput.TAG_ARRAY:
+                return readArray();
+            case CodecOutput.TAG_LIST:
+                return readElements(new ArrayList<>());
+            case CodecOutput.TAG_LINKED_LIST:
+                return readElements(new LinkedList<>());
+            case CodecOutput.TAG_SET:
+                return readElements(new HashSet<>());
+            case CodecOutput.TAG_LINKED_SET:
+                return readElements(new LinkedHashSet<>());
+            case CodecOutput.TAG_MAP:
+                return readEntries(new HashMap<>());
+            case CodecOutput.TAG_LINKED_MAP:
+                return readEntries(new LinkedHashMap<>());
+            case CodecOutput.TAG_FALLBACK:
+                Class<?> type = CodecRegistry.loadClass(readClassName());
+                return CodecRegistry.fallback().deserialize(readBytes(), type);
+            default:
+                throw new IllegalStateException("未知的类型标签: " + tag);
+        }
+    }
+
+    private Object readMessageOf(String className) {
+        BinaryCodec<?> codec = CodecRegistry.get(CodecRegistry.loadClass(className));
+        if (codec == null) {
+            throw new IllegalStateException("类型没有编解码器: " + className);
+        }
+        return codec.read(this);
+    }
+
+    private Object readArray() {
+        Class<?> componentType = CodecRegistry.loadClass(readClassName());
+        int length = readVarInt();
+        Object[] array = (Object[]) Array.newInstance(componentType, length);
+        for (int i = 0; i < length; i++) {
+            array[i] = readObject();
+        }
+        return array;
+    }
+
+    private Collection<Object> readElements(Collection<Object> collection) {
+        int size = readVarInt();
+        for (int i = 0; i < size; i++) {
+            collection.add(readObject());
+        }
+        return collection;
+    }
+
+    private Map<Object, Object> readEntries(Map<Object, Object> map) {
+        int size = readVarInt();
+        for (int i = 0; i < size; i++) {
+            map.put(readObject(), readObject());
+        }
+        return map;
+    }
+}
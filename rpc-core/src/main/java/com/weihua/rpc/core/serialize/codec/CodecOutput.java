@@ -0,0 +1,339 @@
+package com.weihua.rpc.core.serialize.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * 编解码器的输出，直接写入ByteBuf
+ * 整数使用ZigZag变长编码；引用类型先写入是否为null的标记；字符串写入UTF-8长度加1，0表示null。
+ * 声明类型不确定的值（Object、集合、泛型字段）通过{@link #writeObject(Object)}写入类型标签，
+ * 同一消息中重复出现的类名只在第一次写入全名，之后写入序号
+ */
+public final class CodecOutput {
+
+    // 动态类型标签，与CodecInput一致，只能在末尾追加
+    static final byte TAG_NULL = 0;
+    static final byte TAG_BOOLEAN = 1;
+    static final byte TAG_BYTE = 2;
+    static final byte TAG_SHORT = 3;
+    static final byte TAG_CHAR = 4;
+    static final byte TAG_INT = 5;
+    static final byte TAG_LONG = 6;
+    static final byte TAG_FLOAT = 7;
+    static final byte TAG_DOUBLE = 8;
+    static final byte TAG_STRING = 9;
+    static final byte TAG_BIG_DECIMAL = 10;
+    static final byte TAG_BIG_INTEGER = 11;
+    static final byte TAG_DATE = 12;
+    static final byte TAG_BYTES = 13;
+    static final byte TAG_ENUM = 14;
+    static final byte TAG_CLASS = 15;
+    static final byte TAG_MESSAGE = 16;
+    static final byte TAG_ARRAY = 17;
+    static final byte TAG_LIST = 18;
+    static final byte TAG_LINKED_LIST = 19;
+    static final byte TAG_SET = 20;
+    static final byte TAG_LINKED_SET = 21;
+    static final byte TAG_MAP = 22;
+    static final byte TAG_LINKED_MAP = 23;
+    static final byte TAG_FALLBACK = 24;
+
+    private final ByteBuf buf;
+
+    // 已写入的类名 -> 序号
+    private Map<String, Integer> classNames;
+
+    public CodecOutput(ByteBuf buf) {
+        this.buf = buf;
+    }
+
+    public void writeBoolean(boolean value) {
+        buf.writeBoolean(value);
+    }
+
+    public void writeByte(byte value) {
+        buf.writeByte(value);
+    }
+
+    public void writeShort(short value) {
+        buf.writeShort(value);
+    }
+
+    public void writeChar(char value) {
+        buf.writeChar(value);
+    }
+
+    public void writeInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeFloat(float value) {
+        buf.writeFloat(value);
+    }
+
+    public void writeDouble(double value) {
+        buf.writeDouble(value);
+    }
+
+    /**
+     * 写入无符号变长整数
+     */
+    public void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    /**
+     * 写入无符号变长长整数
+     */
+    public void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    public void writeNullableBoolean(Boolean value) {
+        buf.writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    public void writeNullableByte(Byte value) {
+        if (writeNotNull(value)) {
+            buf.writeByte(value);
+        }
+    }
+
+    public void writeNullableShort(Short value) {
+        if (writeNotNull(value)) {
+            buf.writeShort(value);
+        }
+    }
+
+    public void writeNullableChar(Character value) {
+        if (writeNotNull(value)) {
+            buf.writeChar(value);
+        }
+    }
+
+    public void writeNullableInt(Integer value) {
+        if (writeNotNull(value)) {
+            writeInt(value);
+        }
+    }
+
+    public void writeNullableLong(Long value) {
+        if (writeNotNull(value)) {
+            writeLong(value);
+        }
+    }
+
+    public void writeNullableFloat(Float value) {
+        if (writeNotNull(value)) {
+            buf.writeFloat(value);
+        }
+    }
+
+    public void writeNullableDouble(Double value) {
+        if (writeNotNull(value)) {
+            buf.writeDouble(value);
+        }
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(ByteBufUtil.utf8Bytes(value) + 1);
+        buf.writeCharSequence(value, StandardCharsets.UTF_8);
+    }
+
+    public void writeBytes(byte[] value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(value.length + 1);
+        buf.writeBytes(value);
+    }
+
+    public void writeBigInteger(BigInteger value) {
+        writeBytes(value == null ? null : value.toByteArray());
+    }
+
+    public void writeBigDecimal(BigDecimal value) {
+        if (writeNotNull(value)) {
+            writeBytes(value.unscaledValue().toByteArray());
+            writeInt(value.scale());
+        }
+    }
+
+    public void writeDate(Date value) {
+        if (writeNotNull(value)) {
+            writeLong(value.getTime());
+        }
+    }
+
+    public void writeEnum(Enum<?> value) {
+        writeString(value == null ? null : value.name());
+    }
+
+    /**
+     * 写入声明类型已生成编解码器的对象
+     */
+    public <T> void writeMessage(T value, BinaryCodec<T> codec) {
+        if (writeNotNull(value)) {
+            codec.write(this, value);
+        }
+    }
+
+    /**
+     * 写入类名，同一消息中重复的类名只写序号
+     */
+    public void writeClassName(String className) {
+        if (classNames == null) {
+            classNames = new HashMap<>();
+        }
+        Integer index = classNames.get(className);
+        if (index != null) {
+            writeVarInt(index + 1);
+            return;
+        }
+        classNames.put(className, classNames.size());
+        writeVarInt(0);
+        writeString(className);
+    }
+
+    /**
+     * 写入类型标签和值，用于声明类型不确定的字段
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void writeObject(Object value) {
+        if (value == null) {
+            buf.writeByte(TAG_NULL);
+            return;
+        }
+
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            buf.writeByte(TAG_STRING);
+            writeString((String) value);
+        } else if (type == Integer.class) {
+            buf.writeByte(TAG_INT);
+            writeInt((Integer) value);
+        } else if (type == Long.class) {
+            buf.writeByte(TAG_LONG);
+            writeLong((Long) value);
+        } else if (type == Boolean.class) {
+            buf.writeByte(TAG_BOOLEAN);
+            buf.writeBoolean((Boolean) value);
+        } else if (type == Double.class) {
+            buf.writeByte(TAG_DOUBLE);
+            buf.writeDouble((Double) value);
+        } else if (type == Float.class) {
+            buf.writeByte(TAG_FLOAT);
+            buf.writeFloat((Float) value);
+        } else if (type == Short.class) {
+            buf.writeByte(TAG_SHORT);
+            buf.writeShort((Short) value);
+        } else if (type == Byte.class) {
+            buf.writeByte(TAG_BYTE);
+            buf.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            buf.writeByte(TAG_CHAR);
+            buf.writeChar((Character) value);
+        } else if (type == BigDecimal.class) {
+            buf.writeByte(TAG_BIG_DECIMAL);
+            writeBigDecimal((BigDecimal) value);
+        } else if (type == BigInteger.class) {
+            buf.writeByte(TAG_BIG_INTEGER);
+            writeBigInteger((BigInteger) value);
+        } else if (type == Date.class) {
+            buf.writeByte(TAG_DATE);
+            writeDate((Date) value);
+        } else if (type == byte[].class) {
+            buf.writeByte(TAG_BYTES);
+            writeBytes((byte[]) value);
+        } else if (value instanceof Enum) {
+            buf.writeByte(TAG_ENUM);
+            writeClassName(((Enum<?>) value).getDeclaringClass().getName());
+            writeString(((Enum<?>) value).name());
+        } else if (type == Class.class) {
+            buf.writeByte(TAG_CLASS);
+            writeClassName(((Class<?>) value).getName());
+        } else {
+            writeComposite(type, value);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void writeComposite(Class<?> type, Object value) {
+        BinaryCodec codec = CodecRegistry.get(type);
+        if (codec != null) {
+            buf.writeByte(TAG_MESSAGE);
+            writeClassName(type.getName());
+            codec.write(this, value);
+        } else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+            Object[] array = (Object[]) value;
+            buf.writeByte(TAG_ARRAY);
+            writeClassName(type.getComponentType().getName());
+            writeVarInt(array.length);
+            for (Object element : array) {
+                writeObject(element);
+            }
+        } else if (value instanceof List) {
+            buf.writeByte(value instanceof LinkedList ? TAG_LINKED_LIST : TAG_LIST);
+            writeElements((Collection<?>) value);
+        } else if (value instanceof Set && !(value instanceof SortedSet)) {
+            buf.writeByte(type == HashSet.class ? TAG_SET : TAG_LINKED_SET);
+            writeElements((Collection<?>) value);
+        } else if (value instanceof Map && !(value instanceof SortedMap)) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            buf.writeByte(type == HashMap.class ? TAG_MAP : TAG_LINKED_MAP);
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeObject(entry.getKey());
+                writeObject(entry.getValue());
+            }
+        } else {
+            // 没有编解码器的类型交给Kryo编码
+            buf.writeByte(TAG_FALLBACK);
+            writeClassName(type.getName());
+            writeBytes(CodecRegistry.fallback().serialize(value));
+        }
+    }
+
+    private void writeElements(Collection<?> collection) {
+        writeVarInt(collection.size());
+        for (Object element : collection) {
+            writeObject(element);
+        }
+    }
+
+    private boolean writeNotNull(Object value) {
+        buf.writeBoolean(value != null);
+        return value != null;
+    }
+}
@@ -0,0 +1,101 @@
+package com.weihua.rpc.core.serialize.codec;
+
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.impl.KryoSerializer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编解码器注册表
+ * 首次使用时通过ServiceLoader加载各模块生成的编解码器，也可以手动注册。
+ * 没有编解码器的类型由Kryo编码后嵌入，保证任意参数类型都能传输
+ */
+@Slf4j
+public final class CodecRegistry {
+
+    private static final Map<Class<?>, BinaryCodec<?>> CODECS = new ConcurrentHashMap<>();
+
+    // 类名 -> 类，避免重复加载
+    private static final Map<String, Class<?>> CLASSES = new ConcurrentHashMap<>();
+
+    /**
+     * 没有编解码器的类型使用的序列化器
+     */
+    private static final Serializer FALLBACK = new KryoSerializer();
+
+    static {
+        for (Class<?> primitive : new Class<?>[]{boolean.class, byte.class, short.class, char.class, int.class,
+                long.class, float.class, double.class, void.class}) {
+            CLASSES.put(primitive.getName(), primitive);
+        }
+
+        load(CodecRegistry.class.getClassLoader());
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if (contextClassLoader != null && contextClassLoader != CodecRegistry.class.getClassLoader()) {
+            load(contextClassLoader);
+        }
+        log.debug("已加载编解码器: {}个", CODECS.size());
+    }
+
+    private CodecRegistry() {
+    }
+
+    /**
+     * 手动注册编解码器，同一类型后注册的覆盖先注册的
+     */
+    public static void register(BinaryCodec<?> codec) {
+        CODECS.put(codec.type(), codec);
+    }
+
+    /**
+     * 获取类型的编解码器
+     *
+     * @return 没有生成编解码器时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BinaryCodec<T> get(Class<T> type) {
+        return (BinaryCodec<T>) CODECS.get(type);
+    }
+
+    static Serializer fallback() {
+        return FALLBACK;
+    }
+
+    static Class<?> loadClass(String className) {
+        Class<?> type = CLASSES.get(className);
+        if (type != null) {
+            return type;
+        }
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            type = Class.forName(className, false,
+                    classLoader != null ? classLoader : CodecRegistry.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("找不到类: " + className, e);
+        }
+        CLASSES.put(className, type);
+        return type;
+    }
+
+    private static void load(ClassLoader classLoader) {
+        @SuppressWarnings("rawtypes")
+        Iterator<BinaryCodec> iterator = ServiceLoader.load(BinaryCodec.class, classLoader).iterator();
+        while (true) {
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                BinaryCodec<?> codec = iterator.next();
+                CODECS.putIfAbsent(codec.type(), codec);
+            } catch (ServiceConfigurationError e) {
+                // 增量编译可能留下已删除的编解码器，跳过即可
+                log.warn("加载编解码器失败: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.weihua.rpc.core.serialize.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记需要在编译期生成二进制编解码器的类
+ * 编译时由rpc-codegen注解处理器在同一个包中生成{@code 类名_RpcCodec}，按字段声明顺序调用getter/setter读写，
+ * 运行时不使用反射。被标记的类需要有无参构造器，以及按JavaBean约定命名的getter/setter（可由Lombok生成）
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface RpcCodec {
+}
@@ -0,0 +1,22 @@
+package com.weihua.rpc.core.serialize.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 为无法直接标注{@link RpcCodec}的类（如其他模块中的类）生成编解码器
+ * 生成的编解码器位于被标注类所在的包中
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface RpcCodecs {
+
+    /**
+     * 需要生成编解码器的类
+     */
+    Class<?>[] value();
+}
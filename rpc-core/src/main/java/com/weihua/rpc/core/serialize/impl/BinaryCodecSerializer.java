@@ -0,0 +1,95 @@
+package com.weihua.rpc.core.serialize.impl;
+
+import com.weihua.rpc.common.exception.SerializeException;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.codec.BinaryCodec;
+import com.weihua.rpc.core.serialize.codec.CodecInput;
+import com.weihua.rpc.core.serialize.codec.CodecOutput;
+import com.weihua.rpc.core.serialize.codec.CodecRegistry;
+import com.weihua.rpc.core.serialize.codec.RpcCodecs;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+/**
+ * 编译期生成编解码器的二进制序列化器
+ * RpcRequest/RpcResponse以及标注了{@link com.weihua.rpc.core.serialize.codec.RpcCodec}的类型
+ * 由注解处理器生成的编解码器直接读写字段，运行时不使用反射，也没有首次使用时构建Schema的开销。
+ * 其他类型的参数和返回值退回Kryo编码
+ */
+@RpcCodecs({RpcRequest.class, RpcResponse.class})
+public class BinaryCodecSerializer implements Serializer {
+
+    /**
+     * 序列化类型编号
+     */
+    private static final byte TYPE = 5;
+
+    @Override
+    public byte[] serialize(Object obj) throws SerializeException {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            serialize(obj, buf);
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void serialize(Object obj, ByteBuf out) throws SerializeException {
+        if (obj == null) {
+            throw new SerializeException("序列化对象不能为空");
+        }
+
+        BinaryCodec codec = getCodec(obj.getClass());
+        try {
+            codec.write(new CodecOutput(out), obj);
+        } catch (Exception e) {
+            throw new SerializeException("Binary序列化失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> clazz) throws SerializeException {
+        if (bytes == null || bytes.length == 0) {
+            throw new SerializeException("反序列化的字节数组不能为空");
+        }
+        return deserialize(Unpooled.wrappedBuffer(bytes), clazz);
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf buf, Class<T> clazz) throws SerializeException {
+        if (buf == null || !buf.isReadable()) {
+            throw new SerializeException("反序列化的数据不能为空");
+        }
+
+        BinaryCodec<T> codec = getCodec(clazz);
+        try {
+            return codec.read(new CodecInput(buf));
+        } catch (Exception e) {
+            throw new SerializeException("Binary反序列化失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public byte getType() {
+        return TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    private <T> BinaryCodec<T> getCodec(Class<T> type) {
+        BinaryCodec<T> codec = CodecRegistry.get(type);
+        if (codec == null) {
+            throw new SerializeException("类型没有生成编解码器: " + type.getName());
+        }
+        return codec;
+    }
+}
@@ -11,10 +11,15 @@ import com.caucho.hessian.io.Hessian2Input;
 import com.caucho.hessian.io.Hessian2Output;
 import com.weihua.rpc.common.exception.SerializeException;
 import com.weihua.rpc.core.serialize.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Hessian序列化器实现
@@ -34,12 +39,25 @@ public class HessianSerializer implements Serializer {
         }
 
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        Hessian2Output hessian2Output = new Hessian2Output(byteArrayOutputStream);
+        writeObject(byteArrayOutputStream, obj);
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    @Override
+    public void serialize(Object obj, ByteBuf out) throws SerializeException {
+        if (obj == null) {
+            throw new SerializeException("序列化对象不能为空");
+        }
+
+        writeObject(new ByteBufOutputStream(out), obj);
+    }
+
+    private void writeObject(OutputStream outputStream, Object obj) throws SerializeException {
+        Hessian2Output hessian2Output = new Hessian2Output(outputStream);
 
         try {
             hessian2Output.writeObject(obj);
             hessian2Output.flush();
-            return byteArrayOutputStream.toByteArray();
         } catch (IOException e) {
             throw new SerializeException("Hessian序列化失败: " + e.getMessage(), e);
         } finally {
@@ -58,8 +76,21 @@ public class HessianSerializer implements Serializer {
             throw new SerializeException("反序列化的字节数组不能为空");
         }
 
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-        Hessian2Input hessian2Input = new Hessian2Input(byteArrayInputStream);
+        return readObject(new ByteArrayInputStream(bytes), clazz);
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf buf, Class<T> clazz) throws SerializeException {
+        if (buf == null || !buf.isReadable()) {
+            throw new SerializeException("反序列化的数据不能为空");
+        }
+
+        return readObject(new ByteBufInputStream(buf), clazz);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T readObject(InputStream inputStream, Class<T> clazz) throws SerializeException {
+        Hessian2Input hessian2Input = new Hessian2Input(inputStream);
 
         try {
             return (T) hessian2Input.readObject(clazz);
@@ -12,6 +12,11 @@ import com.alibaba.fastjson.parser.Feature;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.weihua.rpc.common.exception.SerializeException;
 import com.weihua.rpc.core.serialize.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.nio.charset.StandardCharsets;
 
 /**
  * JSON序列化器实现
@@ -35,6 +40,18 @@ public class JsonSerializer implements Serializer {
         }
     }
 
+    @Override
+    public void serialize(Object obj, ByteBuf out) throws SerializeException {
+        try {
+            // FastJSON先写入线程级字符缓冲，再按UTF-8编码输出到ByteBuf
+            JSON.writeJSONString(new ByteBufOutputStream(out), StandardCharsets.UTF_8, obj,
+                    SerializerFeature.WriteClassName,
+                    SerializerFeature.DisableCircularReferenceDetect);
+        } catch (Exception e) {
+            throw new SerializeException("JSON序列化失败: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> clazz) throws SerializeException {
         try {
@@ -44,6 +61,21 @@ public class JsonSerializer implements Serializer {
         }
     }
 
+    @Override
+    public <T> T deserialize(ByteBuf buf, Class<T> clazz) throws SerializeException {
+        try {
+            if (buf.hasArray()) {
+                return JSON.parseObject(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes(),
+                        StandardCharsets.UTF_8, clazz, Feature.SupportAutoType);
+            }
+            // 直接内存通过流读取，FastJSON内部复用线程级字节缓冲
+            return JSON.parseObject(new ByteBufInputStream(buf), StandardCharsets.UTF_8, clazz,
+                    Feature.SupportAutoType);
+        } catch (Exception e) {
+            throw new SerializeException("JSON反序列化失败: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public byte getType() {
         return TYPE;
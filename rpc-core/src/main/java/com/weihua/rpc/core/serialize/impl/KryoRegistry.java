@@ -0,0 +1,292 @@
+package com.weihua.rpc.core.serialize.impl;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.util.MapReferenceResolver;
+import com.esotericsoftware.kryo.util.Util;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.server.annotation.MethodSignature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Kryo类注册表
+ * 预先注册的类在消息中只写入变长整数ID，不再写入完整类名。注册表由服务端根据已注册服务接口的参数类型、
+ * 返回类型及其字段类型推导，按固定顺序排列后在握手中下发，客户端按同一清单注册，两端的类ID因此一致。
+ *
+ * 清单格式为逗号分隔的类名，类名后带'!'表示该类型不做引用追踪（来自关闭了引用追踪的服务）。
+ * 清单中本地无法加载的类跳过注册，但仍占用其ID，不影响其他类的ID
+ */
+@Slf4j
+public class KryoRegistry {
+
+    /**
+     * 清单中类型的起始ID，之前的ID留给Kryo内置类型和固定的基础类型
+     */
+    private static final int MANIFEST_ID_BASE = 1000;
+
+    /**
+     * 基础类型的起始ID
+     */
+    private static final int BASE_ID = 100;
+
+    /**
+     * 不做引用追踪的类型标记
+     */
+    private static final char UNTRACKED_MARK = '!';
+
+    /**
+     * 两端固定注册的基础类型，只能在末尾追加
+     */
+    private static final List<Class<?>> BASE_TYPES = Collections.unmodifiableList(Arrays.asList(
+            RpcRequest.class,
+            RpcRequest.RequestType.class,
+            RpcResponse.class,
+            RpcResponse.ResponseType.class,
+            Class.class,
+            Class[].class,
+            Object[].class,
+            String[].class,
+            ArrayList.class,
+            LinkedList.class,
+            HashMap.class,
+            LinkedHashMap.class,
+            TreeMap.class,
+            HashSet.class,
+            LinkedHashSet.class,
+            TreeSet.class,
+            Date.class,
+            BigDecimal.class,
+            BigInteger.class));
+
+    // 按ID顺序排列的清单类名
+    private final List<String> classNames;
+
+    // 不做引用追踪的类名
+    private final Set<String> untracked;
+
+    private final String manifest;
+
+    private KryoRegistry(List<String> classNames, Set<String> untracked) {
+        this.classNames = classNames;
+        this.untracked = untracked;
+
+        StringBuilder builder = new StringBuilder();
+        for (String className : classNames) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(className);
+            if (untracked.contains(className)) {
+                builder.append(UNTRACKED_MARK);
+            }
+        }
+        this.manifest = builder.toString();
+    }
+
+    /**
+     * 根据服务接口推导注册表
+     * 接口按名称排序，方法按签名排序，类型按出现顺序深度优先展开，同一组接口总是得到同一份清单
+     *
+     * @param interfaces          服务接口
+     * @param untrackedInterfaces 关闭引用追踪的服务接口名，其推导出的类型不做引用追踪
+     */
+    public static KryoRegistry fromInterfaces(Collection<Class<?>> interfaces, Set<String> untrackedInterfaces) {
+        List<Class<?>> sorted = new ArrayList<>(interfaces);
+        sorted.sort(Comparator.comparing(Class::getName));
+
+        Set<Class<?>> discovered = new LinkedHashSet<>();
+        Set<String> tracked = new HashSet<>();
+        Set<String> untracked = new HashSet<>();
+        for (Class<?> serviceInterface : sorted) {
+            Set<Class<?>> types = new LinkedHashSet<>();
+            Method[] methods = serviceInterface.getMethods();
+            Arrays.sort(methods, Comparator.comparing(m -> MethodSignature.generate(serviceInterface, m)));
+            for (Method method : methods) {
+                for (Type parameterType : method.getGenericParameterTypes()) {
+                    collect(parameterType, types);
+                }
+                collect(method.getGenericReturnType(), types);
+            }
+
+            boolean references = untrackedInterfaces == null
+                    || !untrackedInterfaces.contains(serviceInterface.getName());
+            for (Class<?> type : types) {
+                (references ? tracked : untracked).add(type.getName());
+            }
+            discovered.addAll(types);
+        }
+
+        // 多个服务共用的类型，只要有一个服务需要引用追踪就保留
+        untracked.removeAll(tracked);
+
+        List<String> classNames = new ArrayList<>();
+        for (Class<?> type : discovered) {
+            if (!BASE_TYPES.contains(type)) {
+                classNames.add(type.getName());
+            }
+        }
+        return new KryoRegistry(classNames, untracked);
+    }
+
+    /**
+     * 解析握手中下发的清单
+     */
+    public static KryoRegistry parse(String manifest) {
+        List<String> classNames = new ArrayList<>();
+        Set<String> untracked = new HashSet<>();
+        if (manifest != null && !manifest.isEmpty()) {
+            for (String entry : manifest.split(",")) {
+                String className = entry.trim();
+                if (className.endsWith(String.valueOf(UNTRACKED_MARK))) {
+                    className = className.substring(0, className.length() - 1);
+                    untracked.add(className);
+                }
+                classNames.add(className);
+            }
+        }
+        return new KryoRegistry(classNames, untracked);
+    }
+
+    /**
+     * 在Kryo实例上按清单顺序注册类型，并按类型设置引用追踪
+     */
+    public void apply(Kryo kryo) {
+        for (int i = 0; i < BASE_TYPES.size(); i++) {
+            kryo.register(BASE_TYPES.get(i), BASE_ID + i);
+        }
+
+        Set<Class<?>> untrackedTypes = new HashSet<>();
+        ClassLoader classLoader = kryo.getClassLoader();
+        for (int i = 0; i < classNames.size(); i++) {
+            String className = classNames.get(i);
+            Class<?> type;
+            try {
+                type = Class.forName(className, false, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                log.debug("Kryo注册表中的类在本地不存在，跳过: {}", className);
+                continue;
+            }
+            kryo.register(type, MANIFEST_ID_BASE + i);
+            if (untracked.contains(className)) {
+                untrackedTypes.add(type);
+            }
+        }
+
+        if (!untrackedTypes.isEmpty()) {
+            kryo.setReferenceResolver(new MapReferenceResolver() {
+                @Override
+                public boolean useReferences(Class type) {
+                    return !untrackedTypes.contains(type) && super.useReferences(type);
+                }
+            });
+        }
+    }
+
+    /**
+     * 获取清单字符串，用于握手下发
+     */
+    public String getManifest() {
+        return manifest;
+    }
+
+    /**
+     * 获取清单中的类型数量
+     */
+    public int size() {
+        return classNames.size();
+    }
+
+    /**
+     * 展开声明类型中出现的具体类：数组展开元素类型，泛型展开类型参数，业务类展开字段类型
+     */
+    private static void collect(Type type, Set<Class<?>> types) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            if (clazz.isArray()) {
+                collect(clazz.getComponentType(), types);
+                if (!clazz.getComponentType().isPrimitive() && isRegistrable(clazz.getComponentType())) {
+                    types.add(clazz);
+                }
+                return;
+            }
+            if (!isRegistrable(clazz) || !types.add(clazz)) {
+                return;
+            }
+            if (!isJdkType(clazz)) {
+                for (Class<?> current = clazz; current != null && current != Object.class;
+                        current = current.getSuperclass()) {
+                    Field[] fields = current.getDeclaredFields();
+                    Arrays.sort(fields, Comparator.comparing(Field::getName));
+                    for (Field field : fields) {
+                        int modifiers = field.getModifiers();
+                        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                            collect(field.getGenericType(), types);
+                        }
+                    }
+                }
+            }
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            collect(parameterized.getRawType(), types);
+            for (Type argument : parameterized.getActualTypeArguments()) {
+                collect(argument, types);
+            }
+        } else if (type instanceof GenericArrayType) {
+            collect(((GenericArrayType) type).getGenericComponentType(), types);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                collect(bound, types);
+            }
+        } else if (type instanceof TypeVariable) {
+            for (Type bound : ((TypeVariable<?>) type).getBounds()) {
+                collect(bound, types);
+            }
+        }
+    }
+
+    /**
+     * 只注册会作为运行时类型出现的具体类，基本类型及其包装类和String由Kryo内置注册
+     */
+    private static boolean isRegistrable(Class<?> clazz) {
+        if (clazz.isPrimitive() || Util.isWrapperClass(clazz) || clazz == String.class || clazz == Object.class) {
+            return false;
+        }
+        if (clazz.isEnum()) {
+            return true;
+        }
+        return !clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers())
+                && !clazz.isAnonymousClass() && !clazz.isSynthetic();
+    }
+
+    private static boolean isJdkType(Class<?> clazz) {
+        String name = clazz.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                || name.startsWith("sun.");
+    }
+}
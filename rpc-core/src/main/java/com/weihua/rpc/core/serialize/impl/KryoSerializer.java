@@ -8,17 +8,29 @@
 package com.weihua.rpc.core.serialize.impl;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.Pool;
 import com.weihua.rpc.common.exception.SerializeException;
 import com.weihua.rpc.core.serialize.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Kryo序列化器实现
  * 使用Kryo进行高效的Java对象序列化和反序列化
+ *
+ * Kryo实例和Output/Input缓冲区都从池中借用，用完归还，不随调用创建，也不依赖固定的线程。
+ * 默认实例不要求预先注册类，消息中写入完整类名；带{@link KryoRegistry}的实例按注册表写入类ID，
+ * 由握手协商后绑定到单个连接上，两端按同一份清单注册。注册模式的消息在协议头中使用独立的类型编号，
+ * 握手完成前仍按类名编码的消息由默认实例读取，两种编码不会混用
  */
 public class KryoSerializer implements Serializer {
 
@@ -28,14 +40,116 @@ public class KryoSerializer implements Serializer {
     private static final byte TYPE = 3;
 
     /**
-     * 使用ThreadLocal确保线程安全
+     * 注册模式实例的类型编号，只出现在协商过注册清单的连接上
      */
-    private static final ThreadLocal<Kryo> KRYO_THREAD_LOCAL = ThreadLocal.withInitial(() -> {
-        Kryo kryo = new Kryo();
-        kryo.setRegistrationRequired(false); // 不要求预先注册类
-        kryo.setReferences(true); // 支持循环引用
-        return kryo;
-    });
+    private static final byte REGISTERED_TYPE = TYPE | 0x10;
+
+    /**
+     * 池中最多保留的实例数
+     */
+    private static final int POOL_CAPACITY = 256;
+
+    /**
+     * 复用的Output缓冲区初始大小
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 4096;
+
+    /**
+     * 归还时超过该大小的Output缓冲区被丢弃，避免个别大消息长期占用内存
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Input归还前替换为空缓冲区，解除对调用方数据的引用
+     */
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+    /**
+     * 最多缓存的注册清单数，长期运行的客户端随服务端发布会遇到新的清单，超过后淘汰最久未使用的清单
+     */
+    private static final int MAX_REGISTERED = 16;
+
+    /**
+     * 按清单缓存的注册模式实例，相同清单的连接共用同一个实例及其池。
+     * 被淘汰的实例仍由已建立的连接持有，随连接关闭释放，之后协商到同一清单的连接重新创建
+     */
+    private static final Map<String, KryoSerializer> REGISTERED = Collections.synchronizedMap(
+            new LinkedHashMap<String, KryoSerializer>(MAX_REGISTERED, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, KryoSerializer> eldest) {
+                    return size() > MAX_REGISTERED;
+                }
+            });
+
+    private static final Pool<Output> OUTPUT_POOL = new Pool<Output>(true, false, POOL_CAPACITY) {
+        @Override
+        protected Output create() {
+            return new Output(OUTPUT_BUFFER_SIZE, -1);
+        }
+    };
+
+    private static final Pool<Input> INPUT_POOL = new Pool<Input>(true, false, POOL_CAPACITY) {
+        @Override
+        protected Input create() {
+            return new Input();
+        }
+    };
+
+    private static final Pool<ByteBufferInput> BYTE_BUFFER_INPUT_POOL = new Pool<ByteBufferInput>(true, false,
+            POOL_CAPACITY) {
+        @Override
+        protected ByteBufferInput create() {
+            return new ByteBufferInput();
+        }
+    };
+
+    private final Pool<Kryo> kryoPool;
+
+    private final byte type;
+
+    public KryoSerializer() {
+        this(null);
+    }
+
+    public KryoSerializer(KryoRegistry registry) {
+        this.type = registry != null ? REGISTERED_TYPE : TYPE;
+        this.kryoPool = new Pool<Kryo>(true, false, POOL_CAPACITY) {
+            @Override
+            protected Kryo create() {
+                Kryo kryo = new Kryo();
+                kryo.setRegistrationRequired(false); // 注册表之外的类仍按类名写入
+                kryo.setReferences(true); // 支持循环引用
+                if (registry != null) {
+                    registry.apply(kryo);
+                }
+                return kryo;
+            }
+        };
+    }
+
+    /**
+     * 获取按清单注册类型的实例，缓存中的相同清单返回同一实例
+     *
+     * @param manifest 握手中下发的注册清单
+     */
+    public static KryoSerializer registered(String manifest) {
+        return REGISTERED.computeIfAbsent(manifest, key -> new KryoSerializer(KryoRegistry.parse(key)));
+    }
+
+    /**
+     * 构造协商注册清单后的连接级序列化器：编码Kryo消息时改用注册模式实例，解码时按协议头的类型编号区分两种编码
+     *
+     * @param manifest 握手中下发的注册清单
+     */
+    public static Map<Byte, Serializer> connectionSerializers(String manifest) {
+        KryoSerializer registered = registered(manifest);
+        Map<Byte, Serializer> serializers = new HashMap<>(4);
+        serializers.put(TYPE, registered);
+        serializers.put(REGISTERED_TYPE, registered);
+        return serializers;
+    }
 
     @Override
     public byte[] serialize(Object obj) throws SerializeException {
@@ -43,47 +157,120 @@ public class KryoSerializer implements Serializer {
             throw new SerializeException("序列化对象不能为空");
         }
 
-        Kryo kryo = KRYO_THREAD_LOCAL.get();
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        Output output = new Output(byteArrayOutputStream);
+        Kryo kryo = kryoPool.obtain();
+        Output output = OUTPUT_POOL.obtain();
+        try {
+            kryo.writeObject(output, obj);
+            return output.toBytes();
+        } catch (Exception e) {
+            throw new SerializeException("Kryo序列化失败: " + e.getMessage(), e);
+        } finally {
+            kryoPool.free(kryo);
+            freeOutput(output);
+        }
+    }
+
+    @Override
+    public void serialize(Object obj, ByteBuf out) throws SerializeException {
+        if (obj == null) {
+            throw new SerializeException("序列化对象不能为空");
+        }
+
+        Kryo kryo = kryoPool.obtain();
+        Output output = OUTPUT_POOL.obtain();
 
         try {
+            // 先写入复用的缓冲区，再一次性拷贝到ByteBuf
             kryo.writeObject(output, obj);
-            output.flush();
-            return byteArrayOutputStream.toByteArray();
+            out.writeBytes(output.getBuffer(), 0, output.position());
         } catch (Exception e) {
             throw new SerializeException("Kryo序列化失败: " + e.getMessage(), e);
         } finally {
-            output.close();
+            kryoPool.free(kryo);
+            freeOutput(output);
         }
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> T deserialize(byte[] bytes, Class<T> clazz) throws SerializeException {
         if (bytes == null || bytes.length == 0) {
             throw new SerializeException("反序列化的字节数组不能为空");
         }
 
-        Kryo kryo = KRYO_THREAD_LOCAL.get();
-        Input input = new Input(new ByteArrayInputStream(bytes));
+        Kryo kryo = kryoPool.obtain();
+        Input input = INPUT_POOL.obtain();
+        input.setBuffer(bytes);
+
+        try {
+            return kryo.readObject(input, clazz);
+        } catch (Exception e) {
+            throw new SerializeException("Kryo反序列化失败: " + e.getMessage(), e);
+        } finally {
+            kryoPool.free(kryo);
+            freeInput(input);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf buf, Class<T> clazz) throws SerializeException {
+        if (buf == null || !buf.isReadable()) {
+            throw new SerializeException("反序列化的数据不能为空");
+        }
+
+        Kryo kryo = kryoPool.obtain();
+        Input input = obtainInput(buf);
 
         try {
             return kryo.readObject(input, clazz);
         } catch (Exception e) {
             throw new SerializeException("Kryo反序列化失败: " + e.getMessage(), e);
         } finally {
-            input.close();
+            kryoPool.free(kryo);
+            freeInput(input);
+        }
+    }
+
+    /**
+     * 根据缓冲区类型借用Input，堆内存直接包装底层数组，直接内存包装为ByteBuffer视图，组合缓冲区按流读取
+     */
+    private Input obtainInput(ByteBuf buf) {
+        if (buf.hasArray()) {
+            Input input = INPUT_POOL.obtain();
+            input.setBuffer(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes());
+            return input;
+        }
+        if (buf.nioBufferCount() == 1) {
+            ByteBufferInput input = BYTE_BUFFER_INPUT_POOL.obtain();
+            input.setBuffer(buf.nioBuffer());
+            return input;
+        }
+        return new Input(new ByteBufInputStream(buf));
+    }
+
+    private void freeInput(Input input) {
+        if (input instanceof ByteBufferInput) {
+            ((ByteBufferInput) input).setBuffer(EMPTY_BUFFER);
+            BYTE_BUFFER_INPUT_POOL.free((ByteBufferInput) input);
+        } else if (input.getInputStream() == null) {
+            input.setBuffer(EMPTY_BYTES);
+            INPUT_POOL.free(input);
+        }
+    }
+
+    private void freeOutput(Output output) {
+        if (output.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+            output.reset();
+            OUTPUT_POOL.free(output);
         }
     }
 
     @Override
     public byte getType() {
-        return TYPE;
+        return type;
     }
 
     @Override
     public String getName() {
         return "kryo";
     }
-}
\ No newline at end of file
+}
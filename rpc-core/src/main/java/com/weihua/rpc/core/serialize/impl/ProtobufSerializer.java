@@ -10,17 +10,25 @@ package com.weihua.rpc.core.serialize.impl;
 import com.weihua.rpc.common.exception.SerializeException;
 import com.weihua.rpc.core.serialize.Serializer;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.protostuff.ByteBufferInput;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.ProtostuffIOUtil;
 import io.protostuff.Schema;
 import io.protostuff.runtime.RuntimeSchema;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Protobuf序列化器实现
  * 使用Protostuff进行序列化和反序列化
+ *
+ * 每个线程复用一个LinkedBuffer作为写缓冲，写入ByteBuf时按块直接拷贝到目标缓冲区，不经过中间字节数组。
+ * 反序列化通过Schema预先生成的实例化器创建对象，不再每次反射调用构造器，也不要求类有无参构造器
  */
 public class ProtobufSerializer implements Serializer {
 
@@ -34,17 +42,26 @@ public class ProtobufSerializer implements Serializer {
      */
     private static final Map<Class<?>, Schema<?>> SCHEMA_CACHE = new ConcurrentHashMap<>();
 
+    /**
+     * 线程复用的写缓冲，用完后clear()，后续节点在clear时释放
+     */
+    private static final ThreadLocal<LinkedBuffer> BUFFER_THREAD_LOCAL = ThreadLocal
+            .withInitial(() -> LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE));
+
+    /**
+     * 线程复用的ByteBuf写入适配，避免每次创建ByteBufOutputStream
+     */
+    private static final ThreadLocal<ByteBufSink> SINK_THREAD_LOCAL = ThreadLocal.withInitial(ByteBufSink::new);
+
     @Override
     public byte[] serialize(Object obj) throws SerializeException {
         if (obj == null) {
             throw new SerializeException("序列化对象不能为空");
         }
 
-        Class<?> clazz = obj.getClass();
-        LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
-
+        LinkedBuffer buffer = BUFFER_THREAD_LOCAL.get();
         try {
-            Schema<Object> schema = getSchema(clazz);
+            Schema<Object> schema = getSchema(obj.getClass());
             return ProtostuffIOUtil.toByteArray(obj, schema, buffer);
         } catch (Exception e) {
             throw new SerializeException("Protobuf序列化失败: " + e.getMessage(), e);
@@ -54,15 +71,35 @@ public class ProtobufSerializer implements Serializer {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
+    public void serialize(Object obj, ByteBuf out) throws SerializeException {
+        if (obj == null) {
+            throw new SerializeException("序列化对象不能为空");
+        }
+
+        LinkedBuffer buffer = BUFFER_THREAD_LOCAL.get();
+        ByteBufSink sink = SINK_THREAD_LOCAL.get();
+        sink.target = out;
+        try {
+            Schema<Object> schema = getSchema(obj.getClass());
+            ProtostuffIOUtil.writeTo(sink, obj, schema, buffer);
+        } catch (Exception e) {
+            throw new SerializeException("Protobuf序列化失败: " + e.getMessage(), e);
+        } finally {
+            // 解除对ByteBuf的引用
+            sink.target = null;
+            buffer.clear();
+        }
+    }
+
+    @Override
     public <T> T deserialize(byte[] bytes, Class<T> clazz) throws SerializeException {
         if (bytes == null || bytes.length == 0) {
             throw new SerializeException("反序列化的字节数组不能为空");
         }
 
         try {
-            T instance = clazz.getDeclaredConstructor().newInstance();
             Schema<T> schema = getSchema(clazz);
+            T instance = schema.newMessage();
             ProtostuffIOUtil.mergeFrom(bytes, instance, schema);
             return instance;
         } catch (Exception e) {
@@ -70,6 +107,37 @@ public class ProtobufSerializer implements Serializer {
         }
     }
 
+    @Override
+    public <T> T deserialize(ByteBuf buf, Class<T> clazz) throws SerializeException {
+        if (buf == null || !buf.isReadable()) {
+            throw new SerializeException("反序列化的数据不能为空");
+        }
+
+        try {
+            Schema<T> schema = getSchema(clazz);
+            T instance = schema.newMessage();
+            if (buf.hasArray()) {
+                ProtostuffIOUtil.mergeFrom(buf.array(), buf.arrayOffset() + buf.readerIndex(),
+                        buf.readableBytes(), instance, schema);
+            } else if (buf.nioBufferCount() == 1) {
+                // 直接内存按ByteBuffer视图读取，不拷贝
+                ByteBufferInput input = new ByteBufferInput(buf.nioBuffer().slice(), true);
+                schema.mergeFrom(input, instance);
+                input.checkLastTagWas(0);
+            } else {
+                LinkedBuffer buffer = BUFFER_THREAD_LOCAL.get();
+                try {
+                    ProtostuffIOUtil.mergeFrom(new ByteBufInputStream(buf), instance, schema, buffer);
+                } finally {
+                    buffer.clear();
+                }
+            }
+            return instance;
+        } catch (Exception e) {
+            throw new SerializeException("Protobuf反序列化失败: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public byte getType() {
         return TYPE;
@@ -85,11 +153,24 @@ public class ProtobufSerializer implements Serializer {
      */
     @SuppressWarnings("unchecked")
     private <T> Schema<T> getSchema(Class<?> clazz) {
-        Schema<?> schema = SCHEMA_CACHE.get(clazz);
-        if (schema == null) {
-            schema = RuntimeSchema.createFrom(clazz);
-            SCHEMA_CACHE.put(clazz, schema);
+        return (Schema<T>) SCHEMA_CACHE.computeIfAbsent(clazz, RuntimeSchema::getSchema);
+    }
+
+    /**
+     * 把LinkedBuffer刷出的数据块直接写入目标ByteBuf
+     */
+    private static final class ByteBufSink extends OutputStream {
+
+        private ByteBuf target;
+
+        @Override
+        public void write(int b) throws IOException {
+            target.writeByte(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.writeBytes(b, off, len);
         }
-        return (Schema<T>) schema;
     }
 }
@@ -67,6 +67,87 @@ public class ServerConfig {
      */
     private Duration requestTimeout = Duration.ofSeconds(5);
 
+    /**
+     * 是否接受客户端发起的压缩协商
+     */
+    private boolean compressionEnabled = true;
+
+    /**
+     * 压缩阈值(字节)，响应消息体超过该大小才压缩
+     */
+    private int compressionThreshold = 2048;
+
+    /**
+     * 是否响应客户端的Kryo类注册请求，在握手中下发按服务接口推导的注册清单
+     */
+    private boolean kryoRegistrationEnabled = true;
+
+    /**
+     * 是否合并响应的flush操作
+     */
+    private boolean flushBatchEnabled = false;
+
+    /**
+     * 累计多少次flush后立即刷新
+     */
+    private int flushBatchSize = 32;
+
+    /**
+     * flush合并的延迟预算，为0时在事件循环处理完当前任务后刷新
+     */
+    private Duration flushBatchDelay = Duration.ZERO;
+
+    /**
+     * 单帧消息体最大长度(字节)，超过的帧被跳过，请求帧回写413响应
+     */
+    private int maxFrameLength = 10 * 1024 * 1024;
+
+    /**
+     * 分块重组或解压后的消息最大长度(字节)
+     */
+    private int maxMessageLength = 64 * 1024 * 1024;
+
+    /**
+     * 分块大小(字节)，v2协议下超过该大小的响应拆分为多个分块帧
+     */
+    private int chunkSize = 1024 * 1024;
+
+    /**
+     * 单个连接上同时重组的分块请求上限，超过时新的分块请求以503拒绝
+     */
+    private int maxChunkedMessages = 8;
+
+    /**
+     * 分块请求的重组超时，超过该时间未收到下一个分块的请求被丢弃
+     */
+    private Duration chunkedMessageTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 是否将请求的反序列化移出IO线程，IO线程只负责拆帧，反序列化在业务线程池中执行
+     */
+    private boolean decodeOffloadEnabled = false;
+
+    /**
+     * 移出IO线程的消息体大小阈值(字节)，小于该大小的请求仍在IO线程反序列化，为0时全部移出
+     */
+    private int decodeOffloadThreshold = 0;
+
+    /**
+     * 是否在业务线程中预编码响应，IO线程只负责写出编码好的缓冲区
+     */
+    private boolean preEncodeEnabled = false;
+
+    /**
+     * 是否延迟反序列化请求参数，携带方法ID的请求在调用服务方法时才反序列化参数，
+     * 调用前被拒绝或超时的请求不反序列化参数
+     */
+    private boolean lazyParametersEnabled = false;
+
+    /**
+     * 是否在IO线程上运行任务延迟探针，每个线程每100ms执行一次，服务器关闭时停止
+     */
+    private boolean eventLoopProbeEnabled = false;
+
     /**
      * 初始化方法
      */
@@ -1,5 +1,6 @@
 package com.weihua.rpc.core.server.netty;
 
+import com.weihua.rpc.core.protocol.EventLoopMetrics;
 import com.weihua.rpc.core.server.RpcServer;
 import com.weihua.rpc.core.server.config.ServerConfig;
 import com.weihua.rpc.core.server.netty.handler.NettyServerInitializer;
@@ -38,6 +39,9 @@ public class NettyRpcServer implements RpcServer {
     // 服务器状态
     private final AtomicBoolean running = new AtomicBoolean(false);
 
+    // IO线程统计，只统计本服务器的线程和请求
+    private final EventLoopMetrics eventLoopMetrics = new EventLoopMetrics();
+
     /**
      * 构造函数，使用构造器注入依赖
      * 
@@ -64,6 +68,9 @@ public class NettyRpcServer implements RpcServer {
         // 创建事件循环线程组
         bossGroup = new NioEventLoopGroup(1);
         workerGroup = new NioEventLoopGroup(serverConfig.getIoThreads());
+        if (serverConfig.isEventLoopProbeEnabled()) {
+            eventLoopMetrics.startProbe(workerGroup);
+        }
 
         try {
             // 创建服务器启动器
@@ -71,7 +78,7 @@ public class NettyRpcServer implements RpcServer {
             bootstrap.group(bossGroup, workerGroup)
                     .channel(NioServerSocketChannel.class)
                     .handler(new LoggingHandler(LogLevel.INFO))
-                    .childHandler(new NettyServerInitializer(serviceProvider))
+                    .childHandler(new NettyServerInitializer(serviceProvider, serverConfig, eventLoopMetrics))
                     .option(ChannelOption.SO_BACKLOG, 128)
                     .childOption(ChannelOption.SO_KEEPALIVE, true)
                     .childOption(ChannelOption.TCP_NODELAY, true);
@@ -105,6 +112,7 @@ public class NettyRpcServer implements RpcServer {
         }
 
         log.info("正在关闭RPC服务器...");
+        eventLoopMetrics.stopProbe();
 
         try {
             // 关闭服务器通道
@@ -130,4 +138,11 @@ public class NettyRpcServer implements RpcServer {
     public boolean isRunning() {
         return running.get();
     }
+
+    /**
+     * 获取本服务器的IO线程统计
+     */
+    public EventLoopMetrics getEventLoopMetrics() {
+        return eventLoopMetrics;
+    }
 }
\ No newline at end of file
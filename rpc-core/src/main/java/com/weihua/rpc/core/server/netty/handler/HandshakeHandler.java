@@ -0,0 +1,107 @@
+package com.weihua.rpc.core.server.netty.handler;
+
+import com.weihua.rpc.core.compress.Compressor;
+import com.weihua.rpc.core.compress.CompressorFactory;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.handshake.Handshake;
+import com.weihua.rpc.core.serialize.impl.KryoRegistry;
+import com.weihua.rpc.core.serialize.impl.KryoSerializer;
+import com.weihua.rpc.core.server.provider.ServiceProvider;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 服务端握手处理器
+ * 收到客户端握手请求后，下发当前已注册服务方法的ID表和服务偏好的序列化方式，
+ * 并从客户端给出的候选压缩算法中选出本地支持的第一个。
+ * 客户端请求Kryo类注册时下发按服务接口推导的注册清单，该连接上的Kryo消息改用按清单注册的实例
+ */
+@Slf4j
+public class HandshakeHandler extends ChannelInboundHandlerAdapter {
+
+    private final ServiceProvider serviceProvider;
+
+    // 是否接受压缩协商
+    private final boolean compressionEnabled;
+
+    // 是否响应Kryo类注册请求
+    private final boolean kryoRegistrationEnabled;
+
+    public HandshakeHandler(ServiceProvider serviceProvider) {
+        this(serviceProvider, true);
+    }
+
+    public HandshakeHandler(ServiceProvider serviceProvider, boolean compressionEnabled) {
+        this(serviceProvider, compressionEnabled, true);
+    }
+
+    public HandshakeHandler(ServiceProvider serviceProvider, boolean compressionEnabled,
+            boolean kryoRegistrationEnabled) {
+        this.serviceProvider = serviceProvider;
+        this.compressionEnabled = compressionEnabled;
+        this.kryoRegistrationEnabled = kryoRegistrationEnabled;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof Handshake)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        Handshake handshake = (Handshake) msg;
+        if (handshake.isResponse()) {
+            log.warn("服务端收到握手响应，忽略: {}", ctx.channel().remoteAddress());
+            return;
+        }
+
+        Map<String, Integer> methodIds = new HashMap<>(serviceProvider.getMethodIds());
+        Handshake response = Handshake.response(methodIds);
+        serviceProvider.getServiceSerializers().forEach((interfaceName, serializer) -> response.getProperties()
+                .put(RpcProtocol.HANDSHAKE_SERIALIZER_PREFIX + interfaceName, serializer));
+
+        // 协商压缩算法，握手消息本身不压缩，之后的响应按协商结果压缩
+        Compressor compressor = compressionEnabled
+                ? CompressorFactory.negotiate(handshake.getProperties().get(RpcProtocol.HANDSHAKE_COMPRESSORS))
+                : null;
+        if (compressor != null) {
+            response.getProperties().put(RpcProtocol.HANDSHAKE_COMPRESSOR, compressor.getName());
+            ctx.channel().attr(RpcProtocol.COMPRESSOR).set(compressor);
+        }
+
+        // 下发Kryo类注册清单，握手响应之后的Kryo消息按清单注册的类ID编码
+        if (kryoRegistrationEnabled
+                && Boolean.parseBoolean(handshake.getProperties().get(RpcProtocol.HANDSHAKE_KRYO_REGISTRATION))) {
+            bindKryoRegistry(ctx, response);
+        }
+
+        ctx.writeAndFlush(response).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                log.debug("握手完成，下发方法数: {}, 压缩算法: {}, 客户端: {}", methodIds.size(),
+                        compressor != null ? compressor.getName() : "无", ctx.channel().remoteAddress());
+            } else {
+                log.warn("发送握手响应失败: {}", future.cause().getMessage());
+            }
+        });
+    }
+
+    private void bindKryoRegistry(ChannelHandlerContext ctx, Handshake response) {
+        KryoRegistry registry = serviceProvider.getKryoRegistry();
+        String manifest = registry.getManifest();
+        // 清单和其他握手属性共用附加信息区，过大时不下发，该连接继续按类名编码
+        if (manifest.getBytes(StandardCharsets.UTF_8).length > RpcProtocol.MAX_ATTACHMENT_LENGTH / 2) {
+            log.warn("Kryo类注册清单过大，不下发: {}个类型", registry.size());
+            return;
+        }
+
+        response.getProperties().put(RpcProtocol.HANDSHAKE_KRYO_MANIFEST, manifest);
+        ctx.channel().attr(RpcProtocol.CONNECTION_SERIALIZERS).set(KryoSerializer.connectionSerializers(manifest));
+        log.debug("下发Kryo类注册清单，类型数: {}, 客户端: {}", registry.size(), ctx.channel().remoteAddress());
+    }
+}
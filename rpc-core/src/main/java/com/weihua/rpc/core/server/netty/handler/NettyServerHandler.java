@@ -1,19 +1,37 @@
 package com.weihua.rpc.core.server.netty.handler;
 
+import com.weihua.rpc.common.enums.RpcStatusEnum;
 import com.weihua.rpc.common.model.RpcRequest;
 import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.codec.DeferredRequest;
+import com.weihua.rpc.core.protocol.codec.LazyRpcRequest;
+import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import com.weihua.rpc.core.server.annotation.MethodSignature;
+import com.weihua.rpc.core.server.provider.ServiceMethod;
 import com.weihua.rpc.core.server.provider.ServiceProvider;
+import com.weihua.rpc.core.server.stream.IteratorPublisher;
+import com.weihua.rpc.core.server.stream.ServerStream;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import lombok.extern.slf4j.Slf4j;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * Netty服务端业务处理器
@@ -47,8 +65,20 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest>
                 coreSize, maxSize, queueSize);
     }
 
+    /**
+     * 客户端不支持流式传输时，汇总发布者元素的最长等待时间
+     */
+    private static final Duration STREAM_COLLECT_TIMEOUT = Duration.ofSeconds(30);
+
     private final ServiceProvider serviceProvider;
 
+    /**
+     * 业务线程池排队是否已满，用于解码阶段的负载保护
+     */
+    public static boolean isOverloaded() {
+        return ((ThreadPoolExecutor) SERVICE_EXECUTOR).getQueue().remainingCapacity() == 0;
+    }
+
     public NettyServerHandler(ServiceProvider serviceProvider) {
         this.serviceProvider = serviceProvider;
     }
@@ -62,9 +92,31 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest>
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         log.debug("客户端已断开: {}", ctx.channel().remoteAddress());
+        ServerStream.cancelAll(ctx.channel());
         super.channelInactive(ctx);
     }
 
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof DeferredRequest) {
+            // 解码卸载：在业务线程中完成反序列化后直接处理，IO线程只负责拆帧
+            // 使用execute而不是submit，任务中的异常记录日志而不是丢失在Future中
+            DeferredRequest deferred = (DeferredRequest) msg;
+            SERVICE_EXECUTOR.execute(() -> {
+                try {
+                    RpcRequest request = deferred.decode();
+                    if (request != null) {
+                        handleBusinessRequest(ctx, request);
+                    }
+                } catch (Throwable e) {
+                    log.error("处理解码卸载的请求时发生异常", e);
+                }
+            });
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, RpcRequest request) throws Exception {
         // 检查请求是否有效
@@ -78,9 +130,25 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest>
             handleHeartbeat(ctx, request);
             return;
         }
+
+        // 流控制帧只调整额度，直接在IO线程处理
+        if (request.isStreaming()) {
+            ServerStream.control(ctx.channel(), request.getRequestId(), streamCredits(request));
+            return;
+        }
         // handleBusinessRequest(ctx, request);
-        // 异步处理业务请求
-        SERVICE_EXECUTOR.submit(() -> handleBusinessRequest(ctx, request));
+        // 异步处理业务请求，参数延迟反序列化的请求处理结束后释放未使用的消息体
+        SERVICE_EXECUTOR.execute(() -> {
+            try {
+                handleBusinessRequest(ctx, request);
+            } catch (Throwable e) {
+                log.error("处理请求时发生异常: {}#{}", request.getInterfaceName(), request.getMethodName(), e);
+            } finally {
+                if (request instanceof LazyRpcRequest) {
+                    ((LazyRpcRequest) request).release();
+                }
+            }
+        });
     }
 
     /**
@@ -106,6 +174,55 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest>
     private void handleBusinessRequest(ChannelHandlerContext ctx, RpcRequest request) {
         RpcResponse response = null;
         boolean success = false;
+
+        // 在分发表中查找服务方法，按方法ID补全接口名、方法名和参数类型
+        ServiceMethod serviceMethod = resolveServiceMethod(request);
+        if (serviceMethod == null && hasMethodId(request)) {
+            response = RpcResponse.builder()
+                    .requestId(request.getRequestId())
+                    .code(404)
+                    .message("找不到方法ID: " + request.getAttachments().get(RpcProtocol.ATTACHMENT_METHOD_ID))
+                    .serializerType(request.getSerializerType())
+                    .build();
+            if (!request.isOneway()) {
+                RpcEncoder.writeAndFlush(ctx.channel(), response);
+            }
+            return;
+        }
+
+        // 准入检查按附加信息中的方法标识限流，标识与消息体中的方法不一致时拒绝执行
+        if (serviceMethod != null && !matchesBody(serviceMethod, request)) {
+            log.warn("方法标识 {} 与请求方法不一致: {}#{}", serviceMethod.getSignature(),
+                    request.getInterfaceName(), request.getMethodName());
+            response = RpcResponse.builder()
+                    .requestId(request.getRequestId())
+                    .code(RpcStatusEnum.CLIENT_ERROR.getCode())
+                    .message("方法标识与请求方法不一致")
+                    .serializerType(request.getSerializerType())
+                    .build();
+            if (!request.isOneway()) {
+                RpcEncoder.writeAndFlush(ctx.channel(), response);
+            }
+            return;
+        }
+
+        // 在线程池中排队期间已超过截止时间，客户端已放弃等待，不再执行
+        if (request.getDeadline() > 0 && System.currentTimeMillis() > request.getDeadline()) {
+            log.warn("请求已超过截止时间，丢弃: {}#{}", request.getInterfaceName(), request.getMethodName());
+            if (!request.isOneway()) {
+                RpcResponse<?> timeout = RpcResponse.fail(request.getRequestId(), RpcStatusEnum.TIMEOUT);
+                timeout.setSerializerType(request.getSerializerType());
+                RpcEncoder.writeAndFlush(ctx.channel(), timeout);
+            }
+            return;
+        }
+
+        // 连接已关闭，响应无法送达，非单向调用不再执行
+        if (!request.isOneway() && !ctx.channel().isActive()) {
+            log.warn("客户端连接已关闭，丢弃请求: {}#{}", request.getInterfaceName(), request.getMethodName());
+            return;
+        }
+
         String serviceName = request.getInterfaceName();
         String methodName = request.getMethodName();
 
@@ -116,7 +233,7 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest>
             long startTime = System.currentTimeMillis();
 
             // 调用服务处理请求
-            response = invokeService(request);
+            response = invokeService(request, serviceMethod);
 
             // 记录处理耗时
             long costTime = System.currentTimeMillis() - startTime;
@@ -130,6 +247,24 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest>
                         serviceName, methodName, response.getMessage(), costTime);
             }
 
+            // 异步结果：服务方法返回的Future完成后再回写响应，业务线程不等待
+            if (success && response.getData() instanceof CompletionStage) {
+                writeWhenComplete(ctx, request, (CompletionStage<?>) response.getData());
+                response = null;
+            }
+
+            // 流式结果：客户端声明了窗口时逐个元素推送，否则汇总为列表一次返回
+            if (response != null && success && isStreamResult(response.getData())) {
+                long window = streamCredits(request);
+                if (window > 0 && !request.isOneway()) {
+                    ServerStream.start(ctx.channel(), request.getRequestId(), request.getSerializerType(),
+                            window, toPublisher(response.getData()));
+                    response = null;
+                } else {
+                    response.setData(collect(response.getData(), request.getDeadline()));
+                }
+            }
+
         } catch (Exception e) {
             log.error("处理请求时发生异常: {}#{}", serviceName, methodName, e);
 
@@ -139,12 +274,14 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest>
                     .message("服务处理异常: " + e.getMessage())
                     .build();
         } finally {
-            if (response != null) {
-                // 设置请求ID
+            // 单向调用不回写响应
+            if (response != null && !request.isOneway()) {
+                // 设置请求ID，并按请求的序列化方式回写
                 response.setRequestId(request.getRequestId());
+                response.setSerializerType(request.getSerializerType());
 
-                // 发送响应
-                ctx.writeAndFlush(response).addListener((ChannelFutureListener) future -> {
+                // 发送响应，开启预编码时在当前业务线程完成序列化
+                RpcEncoder.writeAndFlush(ctx.channel(), response).addListener((ChannelFutureListener) future -> {
                     if (!future.isSuccess()) {
                         log.error("发送响应失败", future.cause());
                     }
@@ -154,45 +291,205 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest>
     }
 
     /**
-     * 调用服务处理请求
+     * 服务方法返回CompletionStage时，在其完成后回写响应，单向调用不回写
      */
-    private RpcResponse invokeService(RpcRequest request) {
-        String interfaceName = request.getInterfaceName();
-        String methodName = request.getMethodName();
-        Class<?>[] parameterTypes = request.getParameterTypes();
+    private void writeWhenComplete(ChannelHandlerContext ctx, RpcRequest request, CompletionStage<?> stage) {
+        stage.whenComplete((result, throwable) -> {
+            if (request.isOneway()) {
+                return;
+            }
 
-        // 构造方法签名用于方法级限流
-        String methodSignature = com.weihua.rpc.core.server.annotation.MethodSignature
-                .generate(interfaceName, methodName, parameterTypes);
+            RpcResponse response;
+            if (throwable == null) {
+                response = RpcResponse.builder()
+                        .code(200)
+                        .message("OK")
+                        .data(result)
+                        .build();
+            } else {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause()
+                        : throwable;
+                log.error("异步方法执行异常: {}#{}", request.getInterfaceName(), request.getMethodName(), cause);
+                response = RpcResponse.builder()
+                        .code(500)
+                        .message("调用方法失败: " + cause.getMessage())
+                        .build();
+            }
+            response.setRequestId(request.getRequestId());
+            response.setSerializerType(request.getSerializerType());
+
+            RpcEncoder.writeAndFlush(ctx.channel(), response).addListener((ChannelFutureListener) future -> {
+                if (!future.isSuccess()) {
+                    log.error("发送响应失败", future.cause());
+                }
+            });
+        });
+    }
 
-        // 方法级限流检查 - 首先检查该方法是否需要限流
-        // 1. 方法级限流
-        if (!serviceProvider.getRateLimitManager().checkMethodRateLimit(methodSignature)) {
-            log.warn("方法 {} 触发限流，请求被拒绝", methodSignature);
-            return RpcResponse.builder()
-                    .code(429) // Too Many Requests
-                    .message("服务繁忙，请稍后重试")
-                    .build();
+    /**
+     * 判断服务方法的返回值是否为流式结果
+     */
+    private boolean isStreamResult(Object result) {
+        return result instanceof Flow.Publisher || result instanceof Iterator || result instanceof Stream;
+    }
+
+    /**
+     * 读取请求附加信息中的流式额度，未携带时返回0
+     */
+    private long streamCredits(RpcRequest request) {
+        Map<String, String> attachments = request.getAttachments();
+        String credits = attachments != null ? attachments.get(RpcProtocol.ATTACHMENT_STREAM_CREDITS) : null;
+        if (credits == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(credits);
+        } catch (NumberFormatException e) {
+            return 0L;
         }
+    }
+
+    /**
+     * 将流式结果统一为发布者，迭代器在业务线程池中按额度拉取
+     */
+    private Flow.Publisher<?> toPublisher(Object result) {
+        if (result instanceof Flow.Publisher) {
+            return (Flow.Publisher<?>) result;
+        }
+        if (result instanceof Stream) {
+            Stream<?> stream = (Stream<?>) result;
+            return new IteratorPublisher<>(stream.iterator(), stream::close, SERVICE_EXECUTOR);
+        }
+        return new IteratorPublisher<>((Iterator<?>) result, null, SERVICE_EXECUTOR);
+    }
+
+    /**
+     * 将流式结果汇总为列表，用于不支持流式传输的客户端（v1协议或未声明窗口）
+     */
+    private List<Object> collect(Object result, long deadline) throws Exception {
+        List<Object> items = new ArrayList<>();
+        if (result instanceof Stream) {
+            try (Stream<?> stream = (Stream<?>) result) {
+                stream.forEach(items::add);
+            }
+            return items;
+        }
+        if (result instanceof Iterator) {
+            ((Iterator<?>) result).forEachRemaining(items::add);
+            return items;
+        }
+
+        CompletableFuture<List<Object>> future = new CompletableFuture<>();
+        ((Flow.Publisher<?>) result).subscribe(new Flow.Subscriber<Object>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Object item) {
+                items.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(items);
+            }
+        });
+        long timeout = deadline > 0
+                ? Math.max(0L, deadline - System.currentTimeMillis())
+                : STREAM_COLLECT_TIMEOUT.toMillis();
+        return future.get(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean hasMethodId(RpcRequest request) {
+        Map<String, String> attachments = request.getAttachments();
+        return attachments != null && attachments.containsKey(RpcProtocol.ATTACHMENT_METHOD_ID);
+    }
+
+    /**
+     * 在分发表中查找请求对应的服务方法：携带方法ID时按ID查找并补全请求中的方法信息，
+     * 否则按附加信息中的方法签名或由请求生成的签名查找
+     *
+     * @return 服务方法，找不到时返回null
+     */
+    private ServiceMethod resolveServiceMethod(RpcRequest request) {
+        Map<String, String> attachments = request.getAttachments();
+        String methodId = attachments != null ? attachments.get(RpcProtocol.ATTACHMENT_METHOD_ID) : null;
+        if (methodId != null) {
+            ServiceMethod serviceMethod;
+            try {
+                serviceMethod = serviceProvider.getServiceMethod(Integer.parseInt(methodId));
+            } catch (NumberFormatException e) {
+                serviceMethod = null;
+            }
+            if (serviceMethod == null) {
+                log.warn("找不到方法ID对应的服务方法: {}", methodId);
+                return null;
+            }
+            if (request.getInterfaceName() == null) {
+                request.setInterfaceName(serviceMethod.getInterfaceName());
+                request.setMethodName(serviceMethod.getMethodName());
+                request.setParameterTypes(serviceMethod.getParameterTypes());
+            }
+            return serviceMethod;
+        }
+
+        String signature = attachments != null ? attachments.get(RpcProtocol.ATTACHMENT_METHOD_SIGNATURE) : null;
+        if (signature == null) {
+            signature = MethodSignature.generate(request.getInterfaceName(), request.getMethodName(),
+                    request.getParameterTypes());
+        }
+        return serviceProvider.getServiceMethod(signature);
+    }
+
+    /**
+     * 检查按方法标识解析出的服务方法与消息体中的接口、方法和参数类型是否一致，
+     * 消息体省略方法信息时已由方法ID补全，视为一致
+     */
+    private boolean matchesBody(ServiceMethod serviceMethod, RpcRequest request) {
+        return serviceMethod.getInterfaceName().equals(request.getInterfaceName())
+                && serviceMethod.getMethodName().equals(request.getMethodName())
+                && (request.getParameterTypes() == null
+                        || Arrays.equals(serviceMethod.getParameterTypes(), request.getParameterTypes()));
+    }
+
+    /**
+     * 调用服务处理请求，服务方法已在分发表中解析，直接通过方法句柄调用
+     */
+    private RpcResponse invokeService(RpcRequest request, ServiceMethod serviceMethod) {
+        String interfaceName = request.getInterfaceName();
 
-        // 获取服务实例
-        Object serviceInstance = serviceProvider.getService(interfaceName);
-        if (serviceInstance == null) {
-            log.error("找不到服务实现: {}", interfaceName);
+        if (serviceMethod == null) {
+            if (serviceProvider.getService(interfaceName) == null) {
+                log.error("找不到服务实现: {}", interfaceName);
+                return RpcResponse.builder()
+                        .code(404)
+                        .message("服务未实现: " + interfaceName)
+                        .build();
+            }
+            log.error("找不到方法: {}#{}", interfaceName, request.getMethodName());
             return RpcResponse.builder()
                     .code(404)
-                    .message("服务未实现: " + interfaceName)
+                    .message("找不到方法: " + request.getMethodName())
                     .build();
         }
 
-        try {
-            // 获取方法
-            Method method = serviceInstance.getClass().getMethod(
-                    request.getMethodName(),
-                    request.getParameterTypes());
+        // 方法级限流，携带方法标识的请求已在解码阶段按同一方法检查过
+        if (!RpcProtocol.hasMethodIdentity(request.getAttachments())
+                && !serviceProvider.getRateLimitManager().checkMethodRateLimit(serviceMethod.getSignature())) {
+            log.warn("方法 {} 触发限流，请求被拒绝", serviceMethod.getSignature());
+            return RpcResponse.fail(null, RpcStatusEnum.RATE_LIMITED);
+        }
 
-            // 反射调用方法
-            Object result = method.invoke(serviceInstance, request.getParameters());
+        try {
+            Object result = serviceMethod.invoke(request.getParameters());
 
             // 返回成功结果
             return RpcResponse.builder()
@@ -200,26 +497,11 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest>
                     .message("OK")
                     .data(result)
                     .build();
-
-        } catch (NoSuchMethodException e) {
-            log.error("找不到方法: {}#{}", interfaceName, request.getMethodName(), e);
-            return RpcResponse.builder()
-                    .code(404)
-                    .message("找不到方法: " + request.getMethodName())
-                    .build();
-        } catch (IllegalAccessException e) {
-            log.error("方法访问权限不足", e);
-            return RpcResponse.builder()
-                    .code(403)
-                    .message("方法访问权限不足: " + e.getMessage())
-                    .build();
-        } catch (InvocationTargetException e) {
-            // 获取目标异常
-            Throwable targetException = e.getTargetException();
-            log.error("方法调用异常", targetException);
+        } catch (Throwable e) {
+            log.error("方法调用异常", e);
             return RpcResponse.builder()
                     .code(500)
-                    .message("调用方法失败: " + targetException.getMessage())
+                    .message("调用方法失败: " + e.getMessage())
                     .build();
         }
     }
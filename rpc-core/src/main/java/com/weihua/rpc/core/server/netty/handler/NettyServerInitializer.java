@@ -7,8 +7,11 @@
  */
 package com.weihua.rpc.core.server.netty.handler;
 
+import com.weihua.rpc.core.protocol.EventLoopMetrics;
+import com.weihua.rpc.core.protocol.RpcProtocol;
 import com.weihua.rpc.core.protocol.codec.RpcDecoder;
 import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import com.weihua.rpc.core.protocol.handler.FlushBatchHandler;
 import com.weihua.rpc.core.serialize.SerializerFactory;
 import com.weihua.rpc.core.server.config.ServerConfig;
 import com.weihua.rpc.core.server.provider.ServiceProvider;
@@ -28,11 +31,22 @@ public class NettyServerInitializer extends ChannelInitializer<SocketChannel> {
 
     private final ServiceProvider serviceProvider;
     private final ServerConfig serverConfig;
+    private final EventLoopMetrics eventLoopMetrics;
 
     public NettyServerInitializer(ServiceProvider serviceProvider) {
-        this.serviceProvider = serviceProvider;
         // 创建一个默认配置
-        this.serverConfig = new ServerConfig();
+        this(serviceProvider, new ServerConfig());
+    }
+
+    public NettyServerInitializer(ServiceProvider serviceProvider, ServerConfig serverConfig) {
+        this(serviceProvider, serverConfig, null);
+    }
+
+    public NettyServerInitializer(ServiceProvider serviceProvider, ServerConfig serverConfig,
+            EventLoopMetrics eventLoopMetrics) {
+        this.serviceProvider = serviceProvider;
+        this.serverConfig = serverConfig;
+        this.eventLoopMetrics = eventLoopMetrics;
     }
 
     @Override
@@ -42,6 +56,12 @@ public class NettyServerInitializer extends ChannelInitializer<SocketChannel> {
         try {
             ch.pipeline().addLast("healthCheck", new HealthCheckHandler());
 
+            // 合并响应的flush，减少系统调用次数
+            if (serverConfig.isFlushBatchEnabled()) {
+                pipeline.addLast("flushBatch", new FlushBatchHandler(serverConfig.getFlushBatchSize(),
+                        serverConfig.getFlushBatchDelay().toNanos(), TimeUnit.NANOSECONDS));
+            }
+
             // 1. 添加空闲状态处理器
             pipeline.addLast("idleState", new IdleStateHandler(
                     serverConfig.getReaderIdleTime().toSeconds(),
@@ -50,12 +70,23 @@ public class NettyServerInitializer extends ChannelInitializer<SocketChannel> {
                     TimeUnit.SECONDS));
 
             // 2. 添加编解码器
-            pipeline.addLast("decoder", new RpcDecoder(SerializerFactory.getDefaultSerializer()));
-            pipeline.addLast("encoder", new RpcEncoder(SerializerFactory.getDefaultSerializer()));
+            pipeline.addLast("decoder", new RpcDecoder(SerializerFactory.getDefaultSerializer(),
+                    new ServerRequestAdmission(serviceProvider),
+                    serverConfig.getMaxFrameLength(), serverConfig.getMaxMessageLength(),
+                    serverConfig.isDecodeOffloadEnabled() ? serverConfig.getDecodeOffloadThreshold() : -1,
+                    serverConfig.isLazyParametersEnabled(), serverConfig.getMaxChunkedMessages(),
+                    serverConfig.getChunkedMessageTimeout().toMillis(), eventLoopMetrics));
+            pipeline.addLast("encoder", new RpcEncoder(SerializerFactory.getDefaultSerializer(),
+                    RpcProtocol.VERSION_1, serverConfig.getCompressionThreshold(), serverConfig.getChunkSize(),
+                    serverConfig.isPreEncodeEnabled()));
 
             // 3. 添加心跳处理器
             pipeline.addLast("heartbeat", new HeartbeatHandler());
 
+            // 添加握手处理器，下发方法ID表并协商压缩算法
+            pipeline.addLast("handshake", new HandshakeHandler(serviceProvider,
+                    serverConfig.isCompressionEnabled(), serverConfig.isKryoRegistrationEnabled()));
+
             // 4. 添加追踪处理器
             // pipeline.addLast("trace", new TraceServerHandler());
 
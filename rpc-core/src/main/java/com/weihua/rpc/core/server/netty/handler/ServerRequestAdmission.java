@@ -0,0 +1,75 @@
+package com.weihua.rpc.core.server.netty.handler;
+
+import com.weihua.rpc.common.enums.RpcStatusEnum;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.codec.RequestAdmission;
+import com.weihua.rpc.core.server.provider.ServiceMethod;
+import com.weihua.rpc.core.server.provider.ServiceProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 服务端请求准入检查
+ * 依次检查截止时间、业务线程池负载和方法级限流，在消息体反序列化之前拒绝请求
+ */
+@Slf4j
+public class ServerRequestAdmission implements RequestAdmission {
+
+    private final ServiceProvider serviceProvider;
+
+    public ServerRequestAdmission(ServiceProvider serviceProvider) {
+        this.serviceProvider = serviceProvider;
+    }
+
+    @Override
+    public RpcResponse<?> check(Map<String, String> attachments) {
+        if (attachments == null) {
+            return null;
+        }
+
+        // 1. 截止时间检查，客户端已放弃的请求直接丢弃
+        String timeout = attachments.get(RpcProtocol.ATTACHMENT_TIMEOUT);
+        if (timeout != null && parseLong(timeout, 1L) <= 0) {
+            log.debug("请求已超过截止时间，直接丢弃");
+            return RpcResponse.fail(null, RpcStatusEnum.TIMEOUT);
+        }
+
+        // 2. 负载检查，业务线程池排队已满时拒绝新请求
+        if (NettyServerHandler.isOverloaded()) {
+            log.warn("业务线程池已满，拒绝请求");
+            return RpcResponse.fail(null, RpcStatusEnum.SERVICE_UNAVAILABLE);
+        }
+
+        // 3. 方法级限流
+        String methodSignature = resolveSignature(attachments);
+        if (methodSignature != null
+                && !serviceProvider.getRateLimitManager().checkMethodRateLimit(methodSignature)) {
+            log.warn("方法 {} 触发限流，请求被拒绝", methodSignature);
+            return RpcResponse.fail(null, RpcStatusEnum.RATE_LIMITED);
+        }
+
+        return null;
+    }
+
+    /**
+     * 根据方法ID或方法签名获取方法签名
+     */
+    private String resolveSignature(Map<String, String> attachments) {
+        String methodId = attachments.get(RpcProtocol.ATTACHMENT_METHOD_ID);
+        if (methodId != null) {
+            ServiceMethod serviceMethod = serviceProvider.getServiceMethod((int) parseLong(methodId, -1L));
+            return serviceMethod != null ? serviceMethod.getSignature() : null;
+        }
+        return attachments.get(RpcProtocol.ATTACHMENT_METHOD_SIGNATURE);
+    }
+
+    private long parseLong(String value, long defaultValue) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.weihua.rpc.core.server.provider;
+
+import com.weihua.rpc.common.exception.RpcException;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 已注册的服务方法，握手时以ID形式下发给客户端
+ * 注册服务时绑定服务实例并生成方法句柄，调用时直接执行，不再查找方法或反射调用
+ */
+@Getter
+public class ServiceMethod {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    // 调用句柄的统一类型：(Object[])Object
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * 方法ID，服务端进程内唯一
+     */
+    private final int id;
+
+    /**
+     * 服务接口名
+     */
+    private final String interfaceName;
+
+    /**
+     * 接口方法
+     */
+    private final Method method;
+
+    /**
+     * 方法签名，格式同{@link com.weihua.rpc.core.server.annotation.MethodSignature}
+     */
+    private final String signature;
+
+    /**
+     * 参数类型，注册时复制一次，调用方不得修改
+     */
+    private final Class<?>[] parameterTypes;
+
+    /**
+     * 服务实例
+     */
+    private final Object service;
+
+    // 绑定服务实例、按参数数组展开的方法句柄
+    @Getter(AccessLevel.NONE)
+    private final MethodHandle invoker;
+
+    public ServiceMethod(int id, String interfaceName, Method method, String signature, Object service) {
+        this.id = id;
+        this.interfaceName = interfaceName;
+        this.method = method;
+        this.signature = signature;
+        this.parameterTypes = method.getParameterTypes();
+        this.service = service;
+        this.invoker = createInvoker(method, service);
+    }
+
+    public String getMethodName() {
+        return method.getName();
+    }
+
+    /**
+     * 调用服务方法，方法抛出的异常原样抛出
+     *
+     * @param args 参数，无参方法可为null
+     * @return 返回值，void方法返回null
+     */
+    public Object invoke(Object[] args) throws Throwable {
+        return invoker.invokeExact(args != null ? args : NO_ARGS);
+    }
+
+    /**
+     * 生成绑定服务实例的方法句柄，接口不可公开访问时放开访问检查
+     */
+    private static MethodHandle createInvoker(Method method, Object service) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            try {
+                method.setAccessible(true);
+                handle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException | RuntimeException ex) {
+                throw new RpcException("无法访问服务方法: " + method, ex);
+            }
+        }
+        return handle.bindTo(service)
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(INVOKER_TYPE);
+    }
+}
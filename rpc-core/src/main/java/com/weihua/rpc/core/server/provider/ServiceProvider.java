@@ -1,6 +1,8 @@
 package com.weihua.rpc.core.server.provider;
 
 import com.weihua.rpc.core.condition.ConditionalOnServerMode;
+import com.weihua.rpc.core.serialize.impl.KryoRegistry;
+import com.weihua.rpc.core.server.annotation.MethodSignature;
 import com.weihua.rpc.core.server.config.ServerConfig;
 import com.weihua.rpc.core.server.registry.ServiceRegistry;
 import com.weihua.rpc.core.server.ratelimit.RateLimitManager;
@@ -13,9 +15,18 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 服务提供者
@@ -29,6 +40,26 @@ public class ServiceProvider {
     // 服务实例映射表
     private final Map<String, Object> serviceInstances = new HashMap<>();
 
+    // 方法ID表(方法签名 -> 方法ID)，握手时下发给客户端
+    private final Map<String, Integer> methodIds = new ConcurrentHashMap<>();
+    private final AtomicInteger methodIdGenerator = new AtomicInteger(0);
+
+    // 分发表，注册服务时整体替换，调用时只读：以方法ID为下标的数组，以及方法签名索引
+    private volatile ServiceMethod[] methodTable = new ServiceMethod[1];
+    private volatile Map<String, ServiceMethod> methodsBySignature = Collections.emptyMap();
+
+    // 服务偏好的序列化方式(接口名 -> 序列化器名称)，握手时下发给客户端
+    private final Map<String, String> serviceSerializers = new ConcurrentHashMap<>();
+
+    // 已注册的服务接口(接口名 -> 接口类)，用于推导Kryo类注册表
+    private final Map<String, Class<?>> serviceInterfaces = new ConcurrentHashMap<>();
+
+    // 关闭Kryo引用追踪的服务接口名
+    private final Set<String> kryoUntrackedServices = ConcurrentHashMap.newKeySet();
+
+    // Kryo类注册表，服务变化后重新推导
+    private volatile KryoRegistry kryoRegistry;
+
     // 限流提供者
     @Autowired
     private RateLimitProvider rateLimitProvider;
@@ -64,11 +95,16 @@ public class ServiceProvider {
      * @param serviceInterface 服务接口类
      * @param serviceInstance  服务实例
      */
-    public void registerService(Class<?> serviceInterface, Object serviceInstance) {
+    public synchronized void registerService(Class<?> serviceInterface, Object serviceInstance) {
         String serviceName = serviceInterface.getName();
 
         // 存储服务实例
         serviceInstances.put(serviceName, serviceInstance);
+        serviceInterfaces.put(serviceName, serviceInterface);
+        kryoRegistry = null;
+
+        // 为接口方法分配ID，并更新分发表
+        registerMethods(serviceInterface, serviceInstance);
 
         // 注册到服务中心
         serviceRegistry.register(serviceInterface, serviceAddress);
@@ -76,6 +112,115 @@ public class ServiceProvider {
         log.info("注册服务: {}, 实例: {}", serviceName, serviceInstance.getClass().getName());
     }
 
+    /**
+     * 为服务接口的所有方法分配ID，按签名排序保证同一版本的服务分配结果稳定。
+     * 已分配的方法沿用原ID，重新注册时绑定新的服务实例；分发表复制后整体替换，调用线程无需加锁
+     */
+    private void registerMethods(Class<?> serviceInterface, Object serviceInstance) {
+        Method[] methods = serviceInterface.getMethods();
+        Arrays.sort(methods, Comparator.comparing(m -> MethodSignature.generate(serviceInterface, m)));
+
+        List<ServiceMethod> registered = new ArrayList<>(methods.length);
+        for (Method method : methods) {
+            String signature = MethodSignature.generate(serviceInterface, method);
+            int id = methodIds.computeIfAbsent(signature, key -> methodIdGenerator.incrementAndGet());
+            registered.add(new ServiceMethod(id, serviceInterface.getName(), method, signature, serviceInstance));
+        }
+
+        ServiceMethod[] table = Arrays.copyOf(methodTable, methodIdGenerator.get() + 1);
+        Map<String, ServiceMethod> bySignature = new HashMap<>(methodsBySignature);
+        for (ServiceMethod serviceMethod : registered) {
+            table[serviceMethod.getId()] = serviceMethod;
+            bySignature.put(serviceMethod.getSignature(), serviceMethod);
+        }
+        methodTable = table;
+        methodsBySignature = Collections.unmodifiableMap(bySignature);
+    }
+
+    /**
+     * 根据方法ID获取服务方法
+     *
+     * @param methodId 方法ID
+     * @return 服务方法，不存在则返回null
+     */
+    public ServiceMethod getServiceMethod(int methodId) {
+        ServiceMethod[] table = methodTable;
+        return methodId > 0 && methodId < table.length ? table[methodId] : null;
+    }
+
+    /**
+     * 根据方法签名获取服务方法
+     *
+     * @param signature 方法签名
+     * @return 服务方法，不存在则返回null
+     */
+    public ServiceMethod getServiceMethod(String signature) {
+        return methodsBySignature.get(signature);
+    }
+
+    /**
+     * 获取方法ID表(方法签名 -> 方法ID)
+     *
+     * @return 只读的方法ID表
+     */
+    public Map<String, Integer> getMethodIds() {
+        return Collections.unmodifiableMap(methodIds);
+    }
+
+    /**
+     * 设置服务偏好的序列化方式，客户端未在引用上指定时按此序列化请求
+     *
+     * @param serviceInterface 服务接口类
+     * @param serializer       序列化器名称
+     */
+    public void setServiceSerializer(Class<?> serviceInterface, String serializer) {
+        if (serializer == null || serializer.isEmpty()) {
+            return;
+        }
+        serviceSerializers.put(serviceInterface.getName(), serializer.toLowerCase());
+        log.info("服务 {} 偏好序列化方式: {}", serviceInterface.getName(), serializer);
+    }
+
+    /**
+     * 设置服务是否在Kryo序列化时做引用追踪
+     * 参数和返回值中没有共享或循环引用的服务可以关闭，省去每个对象的引用查找
+     *
+     * @param serviceInterface 服务接口类
+     * @param references       是否引用追踪
+     */
+    public void setServiceKryoReferences(Class<?> serviceInterface, boolean references) {
+        boolean changed = references
+                ? kryoUntrackedServices.remove(serviceInterface.getName())
+                : kryoUntrackedServices.add(serviceInterface.getName());
+        if (changed) {
+            kryoRegistry = null;
+            log.info("服务 {} Kryo引用追踪: {}", serviceInterface.getName(), references ? "开启" : "关闭");
+        }
+    }
+
+    /**
+     * 获取根据已注册服务接口推导的Kryo类注册表，握手时下发给请求注册模式的客户端
+     *
+     * @return Kryo类注册表
+     */
+    public KryoRegistry getKryoRegistry() {
+        KryoRegistry registry = kryoRegistry;
+        if (registry == null) {
+            registry = KryoRegistry.fromInterfaces(serviceInterfaces.values(), kryoUntrackedServices);
+            kryoRegistry = registry;
+        }
+        return registry;
+    }
+
+    /**
+     * 获取服务偏好的序列化方式(接口名 -> 序列化器名称)
+     *
+     * @return 只读的序列化偏好表
+     */
+    public Map<String, String> getServiceSerializers() {
+        return Collections.unmodifiableMap(serviceSerializers);
+    }
+
     /**
      * 获取服务实例
      * 
@@ -121,6 +266,11 @@ public class ServiceProvider {
 
         // 清空服务实例
         serviceInstances.clear();
+        serviceInterfaces.clear();
+        kryoRegistry = null;
+        methodTable = new ServiceMethod[1];
+        methodsBySignature = Collections.emptyMap();
+        methodIds.clear();
         log.info("服务提供者已关闭");
     }
 }
@@ -8,6 +8,7 @@
 package com.weihua.rpc.core.server.ratelimit;
 
 import com.weihua.rpc.core.server.annotation.RateLimit.Strategy;
+import com.weihua.rpc.core.server.ratelimit.impl.TokenBucketRateLimit;
 import lombok.extern.slf4j.Slf4j;
 
 /**
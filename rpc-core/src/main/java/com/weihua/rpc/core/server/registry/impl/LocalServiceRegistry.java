@@ -7,22 +7,38 @@
  */
 package com.weihua.rpc.core.server.registry.impl;
 
+import com.weihua.rpc.core.server.annotation.MethodSignature;
+import com.weihua.rpc.core.server.annotation.Retryable;
+import com.weihua.rpc.core.server.annotation.RpcService;
 import com.weihua.rpc.core.server.registry.AbstractServiceRegistry;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 本地服务注册实现
- * 用于开发和测试环境，不依赖外部注册中心
+ * 用于开发和测试环境，不依赖外部注册中心。
+ * 注册表在JVM内共享，同一进程中的客户端可以通过{@link com.weihua.rpc.core.client.registry.impl.LocalServiceDiscovery}发现服务
  */
 @Slf4j
 public class LocalServiceRegistry extends AbstractServiceRegistry {
 
-    // 服务注册表，存储服务名称到地址的映射
-    private final Map<String, InetSocketAddress> serviceRegistry = new ConcurrentHashMap<>();
+    // 服务注册表，存储服务名称到地址集合的映射，同一服务可以有多个提供者
+    private static final Map<String, Set<InetSocketAddress>> SERVICE_REGISTRY = new ConcurrentHashMap<>();
+
+    // 可重试方法签名
+    private static final Set<String> RETRYABLE_METHODS = ConcurrentHashMap.newKeySet();
+
+    // 注册表版本，每次变更后递增，供服务发现判断是否需要同步
+    private static final AtomicLong VERSION = new AtomicLong();
 
     @Override
     public void init() {
@@ -33,14 +49,31 @@ public class LocalServiceRegistry extends AbstractServiceRegistry {
     @Override
     public void register(Class<?> clazz, InetSocketAddress serviceAddress) {
         String serviceName = clazz.getName();
-        serviceRegistry.put(serviceName, serviceAddress);
+        SERVICE_REGISTRY.computeIfAbsent(serviceName, k -> ConcurrentHashMap.newKeySet()).add(serviceAddress);
+        registerRetryableMethods(clazz);
+        VERSION.incrementAndGet();
         log.info("本地注册服务: {} -> {}:{}",
                 serviceName, serviceAddress.getHostString(), serviceAddress.getPort());
     }
 
+    /**
+     * 记录标注了@Retryable的方法
+     */
+    private void registerRetryableMethods(Class<?> clazz) {
+        for (Method method : clazz.getMethods()) {
+            RpcService methodRpcService = method.getAnnotation(RpcService.class);
+            if (method.isAnnotationPresent(Retryable.class)
+                    || (methodRpcService != null && methodRpcService.retryable())) {
+                RETRYABLE_METHODS.add(MethodSignature.generate(clazz, method));
+            }
+        }
+    }
+
     @Override
     public void shutdown() {
-        serviceRegistry.clear();
+        SERVICE_REGISTRY.clear();
+        RETRYABLE_METHODS.clear();
+        VERSION.incrementAndGet();
         log.info("本地服务注册表已清空");
     }
 
@@ -51,7 +84,8 @@ public class LocalServiceRegistry extends AbstractServiceRegistry {
      * @return 服务地址，如果未找到返回null
      */
     public InetSocketAddress lookup(String serviceName) {
-        InetSocketAddress address = serviceRegistry.get(serviceName);
+        Set<InetSocketAddress> addresses = SERVICE_REGISTRY.get(serviceName);
+        InetSocketAddress address = addresses == null || addresses.isEmpty() ? null : addresses.iterator().next();
         if (address != null) {
             log.debug("本地查询服务: {} -> {}:{}",
                     serviceName, address.getHostString(), address.getPort());
@@ -61,15 +95,47 @@ public class LocalServiceRegistry extends AbstractServiceRegistry {
         return address;
     }
 
+    /**
+     * 获取服务的所有地址
+     *
+     * @param serviceName 服务名称
+     * @return host:port格式的地址列表，未找到时返回空列表
+     */
+    public static List<String> getAddresses(String serviceName) {
+        Set<InetSocketAddress> addresses = SERVICE_REGISTRY.get(serviceName);
+        if (addresses == null) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>(addresses.size());
+        for (InetSocketAddress address : addresses) {
+            result.add(address.getHostString() + ":" + address.getPort());
+        }
+        return result;
+    }
+
+    /**
+     * 判断方法是否标注为可重试
+     */
+    public static boolean isMethodRetryable(String methodSignature) {
+        return RETRYABLE_METHODS.contains(methodSignature);
+    }
+
+    /**
+     * 获取注册表版本
+     */
+    public static long getVersion() {
+        return VERSION.get();
+    }
+
     /**
      * 获取注册的服务数量
      */
     public int getServiceCount() {
-        return serviceRegistry.size();
+        return SERVICE_REGISTRY.size();
     }
 
     @Override
     public String toString() {
         return "Local";
     }
-}
\ No newline at end of file
+}
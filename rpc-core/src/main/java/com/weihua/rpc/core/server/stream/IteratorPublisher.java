@@ -0,0 +1,145 @@
+package com.weihua.rpc.core.server.stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 将迭代器适配为只能订阅一次的发布者
+ * 按订阅者请求的数量在指定线程池中拉取元素，迭代器的next()可以阻塞（如分页查询数据库），不占用IO线程
+ *
+ * @param <T> 元素类型
+ */
+@Slf4j
+public class IteratorPublisher<T> implements Flow.Publisher<T> {
+
+    private final Iterator<? extends T> iterator;
+
+    // 迭代结束或取消时执行，用于关闭底层资源
+    private final Runnable onClose;
+
+    private final Executor executor;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public IteratorPublisher(Iterator<? extends T> iterator, Runnable onClose, Executor executor) {
+        this.iterator = iterator;
+        this.onClose = onClose;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("迭代器只能被订阅一次"));
+            return;
+        }
+        subscriber.onSubscribe(new IteratorSubscription(subscriber));
+    }
+
+    private class IteratorSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        // 拉取任务的重入计数，保证同一时刻只有一个线程迭代
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        private boolean done;
+
+        IteratorSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("请求数量必须大于0: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (done) {
+                    return;
+                }
+                if (cancelled) {
+                    finish();
+                    return;
+                }
+
+                long emitted = 0;
+                long requested = demand.get();
+                try {
+                    while (emitted < requested && !cancelled) {
+                        if (!iterator.hasNext()) {
+                            finish();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        subscriber.onNext(iterator.next());
+                        emitted++;
+                    }
+                } catch (Throwable e) {
+                    log.error("迭代流式结果时发生异常: {}", e.getMessage(), e);
+                    finish();
+                    subscriber.onError(e);
+                    return;
+                }
+                if (requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void finish() {
+            done = true;
+            if (onClose != null) {
+                try {
+                    onClose.run();
+                } catch (Exception e) {
+                    log.warn("关闭流式结果时发生异常: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.weihua.rpc.core.server.stream;
+
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+
+/**
+ * 服务端流式调用
+ * 订阅服务方法返回的发布者，每个元素作为一个流式响应帧发送，发布者结束时发送不带流式标志的结束响应。
+ * 发送数量受客户端授予的额度限制：初始额度随调用请求携带，后续额度由客户端消费后通过流控制帧追加，
+ * 客户端处理不过来时服务端自然停止拉取元素，两端内存占用都不超过窗口大小
+ */
+@Slf4j
+public class ServerStream implements Flow.Subscriber<Object> {
+
+    /**
+     * 连接上进行中的流(请求ID -> 流)
+     */
+    private static final AttributeKey<Map<String, ServerStream>> STREAMS = AttributeKey.valueOf("rpc.serverStreams");
+
+    private final Channel channel;
+    private final String requestId;
+    private final byte serializerType;
+
+    private Flow.Subscription subscription;
+
+    // 订阅建立前收到的额度
+    private long pendingCredits;
+
+    private boolean cancelled;
+
+    private ServerStream(Channel channel, String requestId, byte serializerType, long initialCredits) {
+        this.channel = channel;
+        this.requestId = requestId;
+        this.serializerType = serializerType;
+        this.pendingCredits = initialCredits;
+    }
+
+    /**
+     * 开始向客户端推送发布者中的元素
+     *
+     * @param channel        客户端连接
+     * @param requestId      调用请求ID，所有流式帧沿用该ID
+     * @param serializerType 元素的序列化类型
+     * @param initialCredits 客户端声明的初始窗口
+     * @param publisher      服务方法返回的发布者
+     */
+    public static void start(Channel channel, String requestId, byte serializerType, long initialCredits,
+            Flow.Publisher<?> publisher) {
+        ServerStream stream = new ServerStream(channel, requestId, serializerType, initialCredits);
+        streams(channel).put(requestId, stream);
+        publisher.subscribe(stream);
+    }
+
+    /**
+     * 处理客户端的流控制帧：正数追加额度，负数取消流
+     */
+    public static void control(Channel channel, String requestId, long credits) {
+        ServerStream stream = streams(channel).get(requestId);
+        if (stream == null) {
+            log.debug("流已结束或不存在，忽略控制帧: {}", requestId);
+            return;
+        }
+        if (credits < 0) {
+            stream.cancel();
+        } else if (credits > 0) {
+            stream.request(credits);
+        }
+    }
+
+    /**
+     * 连接断开时取消连接上的所有流
+     */
+    public static void cancelAll(Channel channel) {
+        Map<String, ServerStream> streams = channel.attr(STREAMS).getAndSet(null);
+        if (streams != null) {
+            streams.values().forEach(ServerStream::cancel);
+        }
+    }
+
+    private static Map<String, ServerStream> streams(Channel channel) {
+        Map<String, ServerStream> streams = channel.attr(STREAMS).get();
+        if (streams == null) {
+            Map<String, ServerStream> created = new ConcurrentHashMap<>();
+            streams = channel.attr(STREAMS).setIfAbsent(created);
+            if (streams == null) {
+                streams = created;
+            }
+        }
+        return streams;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        long credits;
+        synchronized (this) {
+            if (this.subscription != null || cancelled) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            credits = pendingCredits;
+            pendingCredits = 0;
+        }
+        if (credits > 0) {
+            subscription.request(credits);
+        }
+    }
+
+    @Override
+    public void onNext(Object item) {
+        if (!channel.isActive()) {
+            cancel();
+            return;
+        }
+        RpcResponse<Object> element = RpcResponse.success(requestId, item);
+        element.setStreaming(true);
+        element.setSerializerType(serializerType);
+        RpcEncoder.writeAndFlush(channel, element).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                log.error("发送流式元素失败: {}, {}", requestId, future.cause().getMessage());
+                cancel();
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.error("流式调用异常结束: {}", requestId, throwable);
+        finish(RpcResponse.builder()
+                .requestId(requestId)
+                .code(500)
+                .message("流式调用失败: " + throwable.getMessage())
+                .build());
+    }
+
+    @Override
+    public void onComplete() {
+        log.debug("流式调用结束: {}", requestId);
+        finish(RpcResponse.success(requestId, null));
+    }
+
+    private void finish(RpcResponse<?> end) {
+        remove();
+        end.setSerializerType(serializerType);
+        if (channel.isActive()) {
+            channel.writeAndFlush(end);
+        }
+    }
+
+    private void request(long credits) {
+        Flow.Subscription current;
+        synchronized (this) {
+            if (subscription == null) {
+                pendingCredits += credits;
+                return;
+            }
+            current = subscription;
+        }
+        current.request(credits);
+    }
+
+    private void cancel() {
+        Flow.Subscription current;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            current = subscription;
+        }
+        remove();
+        log.debug("流式调用已取消: {}", requestId);
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private void remove() {
+        Map<String, ServerStream> streams = channel.attr(STREAMS).get();
+        if (streams != null) {
+            streams.remove(requestId, this);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.weihua.rpc.core.client.invoker;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.client.netty.handler.HandshakeHandler;
+import com.weihua.rpc.core.client.netty.handler.NettyClientHandler;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.codec.RpcDecoder;
+import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import com.weihua.rpc.core.server.annotation.MethodSignature;
+import com.weihua.rpc.core.server.netty.handler.NettyServerHandler;
+import com.weihua.rpc.core.server.provider.LocalServiceProvider;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 连接调用者测试：握手完成后请求以方法ID代替接口名、方法名和参数类型，握手完成前携带方法签名，
+ * v1连接上始终发送完整的方法信息，服务端找不到方法ID时返回404；
+ * 未指定序列化方式的请求采用服务端在握手中声明的服务偏好
+ */
+public class ChannelInvokerTest {
+
+    public interface EchoService {
+
+        String echo(String message);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+
+        @Override
+        public String echo(String message) {
+            return "echo:" + message;
+        }
+    }
+
+    private static final String SIGNATURE = MethodSignature.generate(EchoService.class.getName(), "echo",
+            new Class<?>[] { String.class });
+
+    private final Serializer serializer = SerializerFactory.getSerializer("kryo");
+
+    // 服务端写出的帧，业务线程回写响应，使用线程安全的队列记录
+    private final BlockingQueue<ByteBuf> serverFrames = new LinkedBlockingQueue<>();
+
+    // 服务端解码后、交给业务处理器前的请求快照
+    private final List<RpcRequest> received = new ArrayList<>();
+
+    private LocalServiceProvider serviceProvider;
+    private EmbeddedChannel server;
+    private EmbeddedChannel client;
+
+    @BeforeEach
+    void setUp() {
+        serviceProvider = new LocalServiceProvider();
+        serviceProvider.registerService(EchoService.class, new EchoServiceImpl());
+
+        server = new EmbeddedChannel();
+        server.pipeline().addLast("writer", new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                serverFrames.add((ByteBuf) msg);
+                promise.setSuccess();
+            }
+        });
+        server.pipeline().addLast("decoder", new RpcDecoder(serializer));
+        server.pipeline().addLast("encoder", new RpcEncoder(serializer, RpcProtocol.VERSION_1));
+        server.pipeline().addLast("handshake",
+                new com.weihua.rpc.core.server.netty.handler.HandshakeHandler(serviceProvider));
+        server.pipeline().addLast("inspector", new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                // 业务处理器会按方法ID补全请求，在交给它之前保存线路上的原样内容
+                received.add(snapshot((RpcRequest) msg));
+                ctx.fireChannelRead(msg);
+            }
+        });
+        server.pipeline().addLast("serverHandler", new NettyServerHandler(serviceProvider));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.finishAndReleaseAll();
+        }
+        server.finishAndReleaseAll();
+        serverFrames.forEach(ByteBuf::release);
+    }
+
+    @Test
+    void testMethodIdReplacesSignatureAfterHandshake() throws Exception {
+        client = newClient(true);
+        handshake();
+        assertEquals(serviceProvider.getMethodIds(), client.attr(RpcProtocol.METHOD_IDS).get());
+
+        RpcRequest request = request();
+        ChannelInvoker invoker = new ChannelInvoker(client);
+        RpcResponse response = roundTrip(invoker.invoke(request));
+
+        assertEquals(200, response.getCode());
+        assertEquals("echo:hi", response.getData());
+
+        // 线路上只有方法ID，接口名、方法名、参数类型、版本和分组都不再发送
+        RpcRequest wire = received.get(0);
+        assertEquals(String.valueOf(serviceProvider.getMethodIds().get(SIGNATURE)),
+                wire.getAttachments().get(RpcProtocol.ATTACHMENT_METHOD_ID));
+        assertFalse(wire.getAttachments().containsKey(RpcProtocol.ATTACHMENT_METHOD_SIGNATURE));
+        assertEquals("trace-1", wire.getAttachments().get("traceId"));
+        assertNull(wire.getInterfaceName());
+        assertNull(wire.getMethodName());
+        assertNull(wire.getParameterTypes());
+        assertNull(wire.getVersion());
+        assertNull(wire.getGroup());
+        assertArrayEquals(new Object[] { "hi" }, wire.getParameters());
+
+        // 原请求保持不变，可以重试到其他节点
+        assertEquals(EchoService.class.getName(), request.getInterfaceName());
+        assertFalse(request.getAttachments().containsKey(RpcProtocol.ATTACHMENT_METHOD_ID));
+    }
+
+    @Test
+    void testSignatureBeforeHandshake() throws Exception {
+        client = newClient(true);
+        server.writeInbound((ByteBuf) client.readOutbound());
+        ByteBuf handshakeResponse = serverFrames.poll(3, TimeUnit.SECONDS);
+
+        // 握手响应到达前发起调用，请求在握手处理器中暂存
+        ChannelInvoker invoker = new ChannelInvoker(client);
+        CompletableFuture<RpcResponse> future = invoker.invoke(request());
+        assertNull(client.readOutbound());
+
+        client.writeInbound(handshakeResponse);
+        RpcResponse response = roundTrip(future);
+
+        assertEquals(200, response.getCode());
+        assertEquals("echo:hi", response.getData());
+        RpcRequest wire = received.get(0);
+        assertEquals(SIGNATURE, wire.getAttachments().get(RpcProtocol.ATTACHMENT_METHOD_SIGNATURE));
+        assertFalse(wire.getAttachments().containsKey(RpcProtocol.ATTACHMENT_METHOD_ID));
+        assertFullRequest(wire);
+    }
+
+    @Test
+    void testSignatureOnV1Connection() throws Exception {
+        // 方法ID只在v2协议上使用，v1连接即使持有方法ID表也发送完整的方法信息
+        client = newClient(false);
+        client.attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_1);
+        client.attr(RpcProtocol.METHOD_IDS).set(serviceProvider.getMethodIds());
+
+        ChannelInvoker invoker = new ChannelInvoker(client);
+        RpcResponse response = roundTrip(invoker.invoke(request()));
+
+        assertEquals(200, response.getCode());
+        assertEquals("echo:hi", response.getData());
+
+        // v1帧不携带附加信息，服务端按请求中的接口名、方法名和参数类型查找方法
+        RpcRequest wire = received.get(0);
+        assertNull(wire.getAttachments());
+        assertFullRequest(wire);
+    }
+
+    @Test
+    void testUnknownMethodIdAnswered404() throws Exception {
+        client = newClient(true);
+        handshake();
+
+        // 客户端持有过期的方法ID表，例如服务端重启后方法ID发生变化
+        client.attr(RpcProtocol.METHOD_IDS).set(Collections.singletonMap(SIGNATURE, 99));
+
+        ChannelInvoker invoker = new ChannelInvoker(client);
+        RpcResponse response = roundTrip(invoker.invoke(request()));
+
+        assertEquals(404, response.getCode());
+        assertEquals("找不到方法ID: 99", response.getMessage());
+        assertNull(response.getData());
+        assertEquals("99", received.get(0).getAttachments().get(RpcProtocol.ATTACHMENT_METHOD_ID));
+    }
+
+    @Test
+    void testServicePreferredSerializer() throws Exception {
+        serviceProvider.setServiceSerializer(EchoService.class, "json");
+        byte json = SerializerFactory.getSerializer("json").getType();
+
+        client = newClient(true);
+        handshake();
+        assertEquals(json, client.attr(RpcProtocol.SERVICE_SERIALIZERS).get().get(EchoService.class.getName()));
+
+        // 未指定序列化方式的请求按服务偏好序列化，服务端按同样的方式回写
+        ChannelInvoker invoker = new ChannelInvoker(client);
+        RpcResponse response = roundTrip(invoker.invoke(request()));
+        assertEquals(200, response.getCode());
+        assertEquals("echo:hi", response.getData());
+        assertEquals(json, response.getSerializerType());
+        assertEquals(json, received.get(0).getSerializerType());
+    }
+
+    @Test
+    void testServicePreferredSerializerWithoutMethodId() throws Exception {
+        serviceProvider.setServiceSerializer(EchoService.class, "json");
+        byte json = SerializerFactory.getSerializer("json").getType();
+
+        client = newClient(true);
+        handshake();
+
+        // 方法不在方法ID表中、改为携带方法签名时同样采用服务偏好。
+        // 使用新连接，避免编码器沿用对端上次响应的序列化方式
+        client.attr(RpcProtocol.METHOD_IDS).set(Collections.emptyMap());
+        RpcResponse response = roundTrip(new ChannelInvoker(client).invoke(request()));
+
+        assertEquals("echo:hi", response.getData());
+        assertEquals(json, response.getSerializerType());
+        assertEquals(SIGNATURE, received.get(0).getAttachments().get(RpcProtocol.ATTACHMENT_METHOD_SIGNATURE));
+        assertEquals(json, received.get(0).getSerializerType());
+    }
+
+    @Test
+    void testExplicitSerializerOverridesPreference() throws Exception {
+        serviceProvider.setServiceSerializer(EchoService.class, "json");
+        client = newClient(true);
+        handshake();
+
+        // 引用上指定的序列化方式优先于服务偏好
+        RpcRequest request = request();
+        request.setSerializerType(serializer.getType());
+        RpcResponse response = roundTrip(new ChannelInvoker(client).invoke(request));
+
+        assertEquals("echo:hi", response.getData());
+        assertEquals(serializer.getType(), response.getSerializerType());
+        assertEquals(serializer.getType(), received.get(0).getSerializerType());
+    }
+
+    private void assertFullRequest(RpcRequest wire) {
+        assertEquals(EchoService.class.getName(), wire.getInterfaceName());
+        assertEquals("echo", wire.getMethodName());
+        assertArrayEquals(new Class<?>[] { String.class }, wire.getParameterTypes());
+        assertEquals("1.0", wire.getVersion());
+        assertEquals("g1", wire.getGroup());
+    }
+
+    /**
+     * 交换握手请求和响应
+     */
+    private void handshake() throws InterruptedException {
+        server.writeInbound((ByteBuf) client.readOutbound());
+        client.writeInbound(serverFrames.poll(3, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 把客户端发出的请求帧交给服务端，再把服务端的响应帧交回客户端
+     */
+    private RpcResponse roundTrip(CompletableFuture<RpcResponse> future) throws Exception {
+        ByteBuf frame = client.readOutbound();
+        assertNotNull(frame);
+        server.writeInbound(frame);
+
+        ByteBuf responseFrame = serverFrames.poll(3, TimeUnit.SECONDS);
+        assertNotNull(responseFrame);
+        client.writeInbound(responseFrame);
+        return future.get(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 远端地址为InetSocketAddress的客户端连接，ChannelInvoker按此记录节点地址
+     */
+    private EmbeddedChannel newClient(boolean handshakeEnabled) {
+        ChannelHandler[] handlers = {
+                new RpcEncoder(serializer, RpcProtocol.VERSION_1),
+                new RpcDecoder(serializer),
+                new HandshakeHandler(handshakeEnabled, null, false, 10_000),
+                new NettyClientHandler()
+        };
+        return new EmbeddedChannel(handlers) {
+            @Override
+            protected SocketAddress remoteAddress0() {
+                return new InetSocketAddress("127.0.0.1", 9000);
+            }
+        };
+    }
+
+    private RpcRequest request() {
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put("traceId", "trace-1");
+        return RpcRequest.builder()
+                .interfaceName(EchoService.class.getName())
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { "hi" })
+                .version("1.0")
+                .group("g1")
+                .attachments(attachments)
+                .build();
+    }
+
+    private static RpcRequest snapshot(RpcRequest request) {
+        return RpcRequest.builder()
+                .requestId(request.getRequestId())
+                .interfaceName(request.getInterfaceName())
+                .methodName(request.getMethodName())
+                .parameterTypes(request.getParameterTypes())
+                .parameters(request.getParameters())
+                .version(request.getVersion())
+                .group(request.getGroup())
+                .attachments(request.getAttachments() != null ? new HashMap<>(request.getAttachments()) : null)
+                .serializerType(request.getSerializerType())
+                .build();
+    }
+}
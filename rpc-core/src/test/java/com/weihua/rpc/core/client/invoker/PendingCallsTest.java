@@ -0,0 +1,103 @@
+package com.weihua.rpc.core.client.invoker;
+
+import com.weihua.rpc.common.exception.RpcException;
+import com.weihua.rpc.common.model.RpcResponse;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 连接待响应表测试：登记、按ID完成、超时、移除以及连接关闭时全部失败
+ */
+public class PendingCallsTest {
+
+    @Test
+    void testRegisterAndComplete() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        PendingCalls pending = PendingCalls.of(channel);
+        assertSame(pending, PendingCalls.of(channel));
+
+        CompletableFuture<RpcResponse> first = new CompletableFuture<>();
+        CompletableFuture<RpcResponse> second = new CompletableFuture<>();
+        long firstId = pending.register(first, 0);
+        long secondId = pending.register(second, 0);
+        assertEquals(1L, firstId);
+        assertEquals(2L, secondId);
+        assertEquals(2, pending.size());
+
+        RpcResponse<String> response = RpcResponse.success(String.valueOf(secondId), "pong");
+        assertTrue(pending.complete(secondId, response));
+        assertSame(response, second.get(1, TimeUnit.SECONDS));
+        assertFalse(first.isDone());
+
+        // 重复或未知的响应找不到调用
+        assertFalse(pending.complete(secondId, response));
+        assertFalse(pending.complete(99L, response));
+        assertEquals(1, pending.size());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testTimeoutFailsCall() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        PendingCalls pending = PendingCalls.of(channel);
+
+        CompletableFuture<RpcResponse> future = new CompletableFuture<>();
+        long id = pending.register(future, 50);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(0, pending.size());
+
+        // 超时后到达的响应被丢弃
+        assertFalse(pending.complete(id, RpcResponse.success(String.valueOf(id), "late")));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testRemoveCancelsTimeout() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        PendingCalls pending = PendingCalls.of(channel);
+
+        CompletableFuture<RpcResponse> future = new CompletableFuture<>();
+        long id = pending.register(future, 50);
+        pending.remove(id);
+        assertEquals(0, pending.size());
+
+        Thread.sleep(150);
+        assertFalse(future.isDone());
+        assertFalse(pending.complete(id, RpcResponse.success(String.valueOf(id), "pong")));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testChannelCloseFailsAllCalls() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        PendingCalls pending = PendingCalls.of(channel);
+
+        CompletableFuture<RpcResponse> first = new CompletableFuture<>();
+        CompletableFuture<RpcResponse> second = new CompletableFuture<>();
+        pending.register(first, 10_000);
+        pending.register(second, 0);
+
+        channel.close();
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, first::get);
+        assertInstanceOf(RpcException.class, e.getCause());
+        assertEquals(0, pending.size());
+
+        // 连接关闭后登记的调用立即失败
+        CompletableFuture<RpcResponse> late = new CompletableFuture<>();
+        pending.register(late, 0);
+        assertTrue(late.isCompletedExceptionally());
+        assertEquals(0, pending.size());
+        channel.finishAndReleaseAll();
+    }
+}
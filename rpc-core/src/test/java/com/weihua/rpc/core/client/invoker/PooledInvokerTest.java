@@ -0,0 +1,180 @@
+package com.weihua.rpc.core.client.invoker;
+
+import com.weihua.rpc.common.exception.RpcRejectedException;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.common.util.ExponentialBackoff;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多连接调用者测试：连接选择、全部饱和时立即拒绝、断开后补建、补建失败时按退避重试，以及统计不随连接断开跳变
+ */
+public class PooledInvokerTest {
+
+    private static final int SIZE = 3;
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private final ExponentialBackoff backoff = ExponentialBackoff.builder()
+            .baseIntervalMs(20)
+            .maxIntervalMs(100)
+            .minIntervalMs(10)
+            .addJitter(false)
+            .build();
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private InetSocketAddress address;
+    private Bootstrap bootstrap;
+    private PooledInvoker invoker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        group = new NioEventLoopGroup(2);
+        serverChannel = bind(0);
+        address = (InetSocketAddress) serverChannel.localAddress();
+
+        bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new RpcEncoder(SerializerFactory.getSerializer("kryo"),
+                                RpcProtocol.VERSION_1));
+                    }
+                });
+        Channel first = bootstrap.connect(address).sync().channel();
+        invoker = new PooledInvoker(bootstrap, address, first, SIZE, MAX_IN_FLIGHT, backoff);
+        waitUntil(() -> invoker.getConnections().size() == SIZE);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        invoker.destroy();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testSelectsLeastBusyConnection() {
+        for (int i = 0; i < SIZE; i++) {
+            invoker.invoke(request());
+        }
+        for (ChannelInvoker connection : invoker.getConnections()) {
+            assertEquals(1, connection.getActiveCount());
+        }
+        assertFalse(invoker.isSaturated());
+
+        for (int i = 0; i < SIZE; i++) {
+            invoker.invoke(request());
+        }
+        for (ChannelInvoker connection : invoker.getConnections()) {
+            assertEquals(MAX_IN_FLIGHT, connection.getActiveCount());
+        }
+        assertTrue(invoker.isSaturated());
+        assertEquals(SIZE * MAX_IN_FLIGHT, invoker.getActiveCount());
+    }
+
+    @Test
+    void testSaturatedPoolFailsFast() {
+        for (int i = 0; i < SIZE * MAX_IN_FLIGHT; i++) {
+            invoker.invoke(request());
+        }
+        long requests = invoker.getRequestCount();
+
+        // 全部连接饱和时不在任何连接上排队，立即以本地拒绝失败
+        CompletableFuture<RpcResponse> rejected = invoker.invoke(request());
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RpcRejectedException.class, e.getCause());
+        assertEquals(requests, invoker.getRequestCount());
+        assertEquals(SIZE * MAX_IN_FLIGHT, invoker.getActiveCount());
+    }
+
+    @Test
+    void testDroppedConnectionIsRedialed() throws Exception {
+        for (int i = 0; i < SIZE; i++) {
+            invoker.invoke(request());
+        }
+        assertEquals(SIZE, invoker.getRequestCount());
+
+        Channel dropped = invoker.getConnections().get(0).getChannel();
+        dropped.close().sync();
+
+        // 断开连接上的调用仍计入统计
+        waitUntil(() -> invoker.getConnections().size() == SIZE);
+        assertEquals(SIZE, invoker.getRequestCount());
+        assertTrue(invoker.getSuccessRate() < 1.0);
+        assertFalse(invoker.getConnections().stream().anyMatch(c -> c.getChannel() == dropped));
+    }
+
+    @Test
+    void testFailedRedialRetriesWithBackoff() throws Exception {
+        int port = address.getPort();
+        serverChannel.close().sync();
+
+        invoker.getConnections().get(0).getChannel().close().sync();
+        Thread.sleep(200);
+        assertEquals(SIZE - 1, invoker.getConnections().size());
+        assertTrue(invoker.isAvailable());
+
+        // 服务端恢复监听后，空缺的位置被补上
+        serverChannel = bind(port);
+        waitUntil(() -> invoker.getConnections().size() == SIZE);
+        List<ChannelInvoker> connections = invoker.getConnections();
+        assertTrue(connections.stream().allMatch(ChannelInvoker::isAvailable));
+    }
+
+    private Channel bind(int port) throws InterruptedException {
+        return new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        // 只接收请求，不回写响应，使调用保持进行中
+                    }
+                })
+                .bind("127.0.0.1", port)
+                .sync()
+                .channel();
+    }
+
+    private RpcRequest request() {
+        return RpcRequest.builder()
+                .interfaceName("com.weihua.rpc.test.EchoService")
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { "ping" })
+                .build();
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待条件超时");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.weihua.rpc.core.client.proxy;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.core.client.invoker.Invoker;
+import com.weihua.rpc.core.client.registry.ServiceDiscovery;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 固定返回同一个调用者的服务发现
+ */
+class FixedDiscovery implements ServiceDiscovery {
+
+    private final Invoker invoker;
+
+    FixedDiscovery(Invoker invoker) {
+        this.invoker = invoker;
+    }
+
+    @Override
+    public List<Invoker> discoverInvokers(RpcRequest request) {
+        return Collections.singletonList(invoker);
+    }
+
+    @Override
+    public boolean isMethodRetryable(String methodSignature) {
+        return true;
+    }
+
+    @Override
+    public Map<String, String> getServiceMetadata(String serviceName) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public void subscribeAddressChange(String serviceName, Consumer<List<String>> listener) {
+    }
+
+    @Override
+    public void unsubscribeAddressChange(String serviceName, Consumer<List<String>> listener) {
+    }
+
+    @Override
+    public boolean forceSync(String serviceName) {
+        return true;
+    }
+
+    @Override
+    public boolean isServiceHealthy(String serviceName) {
+        return true;
+    }
+
+    @Override
+    public void close() {
+    }
+}
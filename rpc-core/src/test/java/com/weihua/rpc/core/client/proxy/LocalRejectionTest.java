@@ -0,0 +1,249 @@
+package com.weihua.rpc.core.client.proxy;
+
+import com.weihua.rpc.common.enums.RpcStatusEnum;
+import com.weihua.rpc.common.exception.RpcRejectedException;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.client.circuit.CircuitBreaker;
+import com.weihua.rpc.core.client.circuit.CircuitBreakerProvider;
+import com.weihua.rpc.core.client.circuit.DefaultCircuitBreaker;
+import com.weihua.rpc.core.client.config.ClientConfig;
+import com.weihua.rpc.core.client.invoker.ChannelInvoker;
+import com.weihua.rpc.core.client.invoker.PendingCalls;
+import com.weihua.rpc.core.client.netty.NettyRpcClient;
+import com.weihua.rpc.core.client.stream.ClientStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地拒绝测试：连接进行中调用数达到上限时以专用异常失败，不计入熔断统计；流式调用同样计入连接和服务的进行中调用数；
+ * 服务端响应中的同名附加信息不会被当作本地拒绝
+ */
+public class LocalRejectionTest {
+
+    public interface EchoService {
+
+        String echo(String message);
+
+        CompletableFuture<String> echoAsync(String message);
+    }
+
+    // 服务端是否立即回写503响应，否则不响应，使调用保持进行中
+    private volatile boolean respondUnavailable;
+
+    private EmbeddedChannel channel;
+    private ChannelInvoker invoker;
+    private NettyRpcClient rpcClient;
+    private CircuitBreaker circuitBreaker;
+    private EchoService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setRequestTimeout(Duration.ofSeconds(5));
+        clientConfig.setRetryEnable(false);
+        clientConfig.setCallbackThreads(1);
+
+        channel = new ServerChannel();
+        invoker = new ChannelInvoker(channel, 1);
+        rpcClient = new NettyRpcClient(clientConfig, new FixedDiscovery(invoker),
+                (invokers, request) -> invokers.get(0));
+
+        // 一次失败即打开熔断器
+        CircuitBreakerProvider provider = new CircuitBreakerProvider() {
+            @Override
+            protected CircuitBreaker createCircuitBreaker(String interfaceName) {
+                return new DefaultCircuitBreaker(1, 1.0, 10_000, 1);
+            }
+        };
+        ClientProxyFactory factory = new ClientProxyFactory();
+        inject(factory, "rpcClient", rpcClient);
+        inject(factory, "serviceCenter", new FixedDiscovery(invoker));
+        inject(factory, "circuitBreakerProvider", provider);
+        inject(factory, "clientConfig", clientConfig);
+        service = factory.getProxy(EchoService.class);
+        circuitBreaker = provider.getCircuitBreaker(EchoService.class.getName());
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+        rpcClient.close();
+    }
+
+    @Test
+    void testConnectionCapRejectsWithDedicatedException() {
+        invoker.invoke(request());
+        CompletableFuture<RpcResponse> rejected = invoker.invoke(request());
+
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RpcRejectedException.class, e.getCause());
+        assertEquals(1, invoker.getActiveCount());
+    }
+
+    @Test
+    void testLocalRejectionDoesNotTripBreaker() {
+        CompletableFuture<String> inFlight = service.echoAsync("first");
+        assertFalse(inFlight.isDone());
+
+        assertThrows(RpcRejectedException.class, () -> service.echo("second"));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        CompletableFuture<String> async = service.echoAsync("third");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> async.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RpcRejectedException.class, e.getCause());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testServerResponseWithRejectedAttachmentCountsAsFailure() {
+        respondUnavailable = true;
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.echo("ping"));
+        assertFalse(e instanceof RpcRejectedException);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testOpenStreamCountsAgainstConnectionCap() throws Exception {
+        ClientStream first = new ClientStream(new RecordingSubscriber(), 4);
+        invoker.invokeStream(request(), first);
+        assertEquals(1, invoker.getActiveCount());
+        assertTrue(invoker.isSaturated());
+
+        // 流未结束时连接已满，新的流和普通调用都被本地拒绝
+        RecordingSubscriber rejected = new RecordingSubscriber();
+        invoker.invokeStream(request(), new ClientStream(rejected, 4));
+        assertInstanceOf(RpcRejectedException.class, rejected.error.get(1, TimeUnit.SECONDS));
+        assertTrue(invoker.invoke(request()).isCompletedExceptionally());
+        assertEquals(1, invoker.getActiveCount());
+
+        // 取消后归还名额
+        first.cancel();
+        assertEquals(0, invoker.getActiveCount());
+
+        // 流正常结束后归还名额
+        RecordingSubscriber completed = new RecordingSubscriber();
+        ClientStream second = new ClientStream(completed, 4);
+        invoker.invokeStream(request(), second);
+        assertEquals(1, invoker.getActiveCount());
+        assertTrue(ClientStream.dispatch(channel, RpcResponse.success(second.getRequestId(), null)));
+        assertTrue(completed.completed.get(1, TimeUnit.SECONDS));
+        assertEquals(0, invoker.getActiveCount());
+    }
+
+    @Test
+    void testOpenStreamTakesServicePermit() throws Exception {
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setCallbackThreads(1);
+        clientConfig.setMaxInFlightPerService(1);
+        EmbeddedChannel streamChannel = new ServerChannel();
+        ChannelInvoker uncapped = new ChannelInvoker(streamChannel);
+        NettyRpcClient client = new NettyRpcClient(clientConfig, new FixedDiscovery(uncapped),
+                (invokers, request) -> invokers.get(0));
+        try {
+            ClientStream first = new ClientStream(new RecordingSubscriber(), 4);
+            client.openStream(request(), first);
+            assertEquals(1, uncapped.getActiveCount());
+
+            RecordingSubscriber rejected = new RecordingSubscriber();
+            client.openStream(request(), new ClientStream(rejected, 4));
+            assertInstanceOf(RpcRejectedException.class, rejected.error.get(1, TimeUnit.SECONDS));
+
+            // 流失败后归还服务名额，之后可以再次发起
+            first.fail(new IllegalStateException("closed"));
+            RecordingSubscriber next = new RecordingSubscriber();
+            client.openStream(request(), new ClientStream(next, 4));
+            assertEquals(1, uncapped.getActiveCount());
+            assertFalse(next.error.isDone());
+        } finally {
+            streamChannel.finishAndReleaseAll();
+            client.close();
+        }
+    }
+
+    private RpcRequest request() {
+        return RpcRequest.builder()
+                .interfaceName(EchoService.class.getName())
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { "ping" })
+                .build();
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field field = ClientProxyFactory.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * 记录流结束信号的订阅者
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<Object> {
+
+        private final CompletableFuture<Throwable> error = new CompletableFuture<>();
+        private final CompletableFuture<Boolean> completed = new CompletableFuture<>();
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+        }
+
+        @Override
+        public void onNext(Object item) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.complete(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.complete(true);
+        }
+    }
+
+    /**
+     * 模拟服务端：不响应，或立即回写携带rejected附加信息的503响应
+     */
+    private class ServerChannel extends EmbeddedChannel {
+
+        ServerChannel() {
+            pipeline().addLast(new ChannelOutboundHandlerAdapter() {
+                @Override
+                public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                    promise.setSuccess();
+                    if (respondUnavailable && !((RpcRequest) msg).isStreaming()) {
+                        String requestId = ((RpcRequest) msg).getRequestId();
+                        RpcResponse<?> response = RpcResponse.fail(requestId, RpcStatusEnum.SERVICE_UNAVAILABLE);
+                        response.setAttachments(Collections.singletonMap("rejected", "true"));
+                        PendingCalls.of(ctx.channel()).complete(Long.parseLong(requestId), response);
+                    }
+                }
+            });
+        }
+
+        @Override
+        protected SocketAddress remoteAddress0() {
+            return new InetSocketAddress("127.0.0.1", 9000);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.weihua.rpc.core.client.proxy;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.client.annotation.RpcTimeout;
+import com.weihua.rpc.core.client.circuit.CircuitBreaker;
+import com.weihua.rpc.core.client.circuit.CircuitBreakerProvider;
+import com.weihua.rpc.core.client.circuit.DefaultCircuitBreaker;
+import com.weihua.rpc.core.client.config.ClientConfig;
+import com.weihua.rpc.core.client.invoker.ChannelInvoker;
+import com.weihua.rpc.core.client.invoker.Invoker;
+import com.weihua.rpc.core.client.invoker.PendingCalls;
+import com.weihua.rpc.core.client.netty.NettyRpcClient;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 方法级调用超时测试：同步调用按方法自身的超时等待，不被全局请求超时截断
+ */
+public class MethodTimeoutTest {
+
+    // 全局请求超时短于服务端处理时间
+    private static final long GLOBAL_TIMEOUT = 300;
+    private static final long SERVER_DELAY = 500;
+
+    public interface SlowService {
+
+        @RpcTimeout(1500)
+        String slow();
+
+        @RpcTimeout(100)
+        String fast();
+
+        @RpcTimeout(0)
+        String unset();
+
+        @RpcTimeout(-1)
+        String negative();
+
+        String configuredZero();
+    }
+
+    private final List<String> sentTimeouts = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService responder = Executors.newSingleThreadScheduledExecutor();
+
+    private EmbeddedChannel channel;
+    private NettyRpcClient rpcClient;
+    private SlowService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setRequestTimeout(Duration.ofMillis(GLOBAL_TIMEOUT));
+        clientConfig.setRetryEnable(true);
+        clientConfig.setMaxRetryAttempts(0);
+        clientConfig.setCallbackThreads(1);
+        clientConfig.getMethodTimeouts().put(SlowService.class.getName() + "#configuredZero", Duration.ZERO);
+        clientConfig.getMethodTimeouts().put(SlowService.class.getName(), Duration.ofMillis(1500));
+
+        channel = new DelayedServerChannel();
+        Invoker invoker = new ChannelInvoker(channel);
+        rpcClient = new NettyRpcClient(clientConfig, new FixedDiscovery(invoker),
+                (invokers, request) -> invokers.get(0));
+
+        ClientProxyFactory factory = new ClientProxyFactory();
+        inject(factory, "rpcClient", rpcClient);
+        inject(factory, "serviceCenter", new FixedDiscovery(invoker));
+        inject(factory, "circuitBreakerProvider", new CircuitBreakerProvider() {
+            @Override
+            protected CircuitBreaker createCircuitBreaker(String interfaceName) {
+                return new DefaultCircuitBreaker(100, 1.0, 10_000, 1);
+            }
+        });
+        inject(factory, "clientConfig", clientConfig);
+        service = factory.getProxy(SlowService.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        responder.shutdownNow();
+        channel.finishAndReleaseAll();
+        rpcClient.close();
+    }
+
+    @Test
+    void testLongerMethodTimeoutOutlivesGlobalTimeout() {
+        long start = System.currentTimeMillis();
+        assertEquals("done", service.slow());
+        assertTrue(System.currentTimeMillis() - start >= SERVER_DELAY);
+    }
+
+    @Test
+    void testShorterMethodTimeoutFailsOnTime() {
+        long start = System.currentTimeMillis();
+        RuntimeException e = assertThrows(RuntimeException.class, service::fast);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(e.getMessage().contains("RPC调用失败"));
+        assertTrue(elapsed < GLOBAL_TIMEOUT, "按方法超时结束，耗时: " + elapsed + "ms");
+    }
+
+    @Test
+    void testNonPositiveTimeoutFallsThroughToNextLevel() {
+        // 注解或方法级别配置不大于0时视为未设置，采用接口级别配置的1500ms
+        assertEquals("done", service.unset());
+        assertEquals("done", service.negative());
+        assertEquals("done", service.configuredZero());
+        assertEquals(List.of("1500", "1500", "1500"), sentTimeouts);
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field field = ClientProxyFactory.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * 模拟处理较慢的服务端：收到请求后延迟回写成功响应
+     */
+    private class DelayedServerChannel extends EmbeddedChannel {
+
+        DelayedServerChannel() {
+            pipeline().addLast(new ChannelOutboundHandlerAdapter() {
+                @Override
+                public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                    RpcRequest request = (RpcRequest) msg;
+                    sentTimeouts.add(request.getAttachments().get(RpcProtocol.ATTACHMENT_TIMEOUT));
+                    long id = Long.parseLong(request.getRequestId());
+                    responder.schedule(() -> PendingCalls.of(ctx.channel())
+                            .complete(id, RpcResponse.success(String.valueOf(id), "done")),
+                            SERVER_DELAY, TimeUnit.MILLISECONDS);
+                    promise.setSuccess();
+                }
+            });
+        }
+
+        @Override
+        protected SocketAddress remoteAddress0() {
+            return new InetSocketAddress("127.0.0.1", 9000);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.weihua.rpc.core.client.stream;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 客户端流测试：未消费的元素不超过一个窗口、每消费半个窗口追加额度、取消时发送-1额度的控制帧，
+ * 以及v1服务端汇总为列表的结果逐个交付
+ */
+public class ClientStreamTest {
+
+    private static final int WINDOW = 4;
+
+    // 客户端写出的控制帧，交付在公共线程池中进行，使用线程安全的队列记录
+    private final BlockingQueue<RpcRequest> written = new LinkedBlockingQueue<>();
+
+    private EmbeddedChannel channel;
+    private RecordingSubscriber subscriber;
+    private ClientStream stream;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                written.add((RpcRequest) msg);
+                promise.setSuccess();
+            }
+        });
+        subscriber = new RecordingSubscriber();
+        stream = new ClientStream(subscriber, WINDOW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testUnconsumedElementsEarnNoCredits() throws Exception {
+        channel.attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_2);
+        assertTrue(stream.open(channel, "1"));
+
+        // 服务端用完初始窗口，订阅者尚未请求，不追加额度
+        for (int i = 0; i < WINDOW; i++) {
+            assertTrue(ClientStream.dispatch(channel, element("1", i)));
+        }
+        assertNull(written.poll(100, TimeUnit.MILLISECONDS));
+
+        // 每消费半个窗口追加一次同样数量的额度
+        stream.request(WINDOW);
+        waitUntil(() -> subscriber.items.size() == WINDOW);
+        assertEquals("2", credits(written.poll(1, TimeUnit.SECONDS)));
+        assertEquals("2", credits(written.poll(1, TimeUnit.SECONDS)));
+        assertNull(written.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList(0, 1, 2, 3), subscriber.items);
+
+        assertTrue(ClientStream.dispatch(channel, RpcResponse.success("1", null)));
+        assertTrue(subscriber.completed.get(1, TimeUnit.SECONDS));
+        assertFalse(ClientStream.dispatch(channel, element("1", 4)));
+    }
+
+    @Test
+    void testCancelSendsStopFrame() throws Exception {
+        channel.attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_2);
+        assertTrue(stream.open(channel, "7"));
+        stream.request(1);
+
+        stream.cancel();
+
+        RpcRequest control = written.poll(1, TimeUnit.SECONDS);
+        assertNotNull(control);
+        assertEquals("7", control.getRequestId());
+        assertTrue(control.isStreaming());
+        assertEquals("-1", credits(control));
+        assertTrue(stream.closeFuture().isDone());
+
+        // 取消后的元素不再属于任何流，重复取消不再发送控制帧
+        assertFalse(ClientStream.dispatch(channel, element("7", 0)));
+        stream.cancel();
+        assertNull(written.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(subscriber.items.isEmpty());
+    }
+
+    @Test
+    void testCancelBeforeOpenSkipsRequest() {
+        stream.cancel();
+
+        assertFalse(stream.open(channel, "8"));
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    void testV1ListResultDeliveredOneByOne() throws Exception {
+        // v1服务端不支持流式传输，把全部元素汇总为列表放在结束响应中
+        assertTrue(stream.open(channel, "3"));
+        stream.request(Long.MAX_VALUE);
+
+        assertTrue(ClientStream.dispatch(channel, RpcResponse.success("3", Arrays.asList("a", null, "b", "c"))));
+
+        assertTrue(subscriber.completed.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a", "b", "c"), subscriber.items);
+        assertTrue(stream.closeFuture().isDone());
+        // 没有收到流式元素帧，不发送额度
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    void testV1ListRespectsDemand() throws Exception {
+        assertTrue(stream.open(channel, "4"));
+        ClientStream.dispatch(channel, RpcResponse.success("4", Arrays.asList(1, 2, 3)));
+
+        stream.request(2);
+        waitUntil(() -> subscriber.items.size() == 2);
+        Thread.sleep(50);
+        assertEquals(Arrays.asList(1, 2), subscriber.items);
+        assertFalse(subscriber.completed.isDone());
+
+        stream.request(1);
+        assertTrue(subscriber.completed.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.items);
+    }
+
+    private RpcResponse<Object> element(String requestId, Object data) {
+        RpcResponse<Object> response = RpcResponse.success(requestId, data);
+        response.setStreaming(true);
+        return response;
+    }
+
+    private String credits(RpcRequest control) {
+        assertNotNull(control);
+        return control.getAttachments().get(RpcProtocol.ATTACHMENT_STREAM_CREDITS);
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待条件超时");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 记录交付元素和结束信号的订阅者
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<Object> {
+
+        private final List<Object> items = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<Boolean> completed = new CompletableFuture<>();
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+        }
+
+        @Override
+        public void onNext(Object item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.complete(true);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.weihua.rpc.core.client.stream;
+
+import com.weihua.rpc.common.exception.RpcException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 已失败的流测试：熔断时返回给流式方法的Publisher和迭代器立即以异常结束
+ */
+public class FailedPublisherTest {
+
+    @Test
+    void testSubscriberReceivesError() throws Exception {
+        RpcException error = new RpcException("熔断器开启，请求被拒绝: EchoService");
+        CompletableFuture<Throwable> received = new CompletableFuture<>();
+
+        new FailedPublisher<String>(error).subscribe(new Flow.Subscriber<String>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(String item) {
+                received.completeExceptionally(new AssertionError("不应收到元素: " + item));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                received.complete(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                received.completeExceptionally(new AssertionError("不应正常结束"));
+            }
+        });
+
+        assertSame(error, received.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testIteratorThrowsWithoutWaiting() {
+        RpcException error = new RpcException("熔断器开启，请求被拒绝: EchoService");
+        StreamIterator<String> iterator = new StreamIterator<>(new FailedPublisher<>(error), 16,
+                Duration.ofSeconds(30));
+
+        long start = System.nanoTime();
+        RpcException thrown = assertThrows(RpcException.class, iterator::hasNext);
+        assertSame(error, thrown);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertFalse(iterator.hasNext());
+    }
+}
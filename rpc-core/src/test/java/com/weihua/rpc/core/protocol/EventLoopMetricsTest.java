@@ -0,0 +1,63 @@
+package com.weihua.rpc.core.protocol;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IO线程统计测试：探针随启动和停止开关，不同服务器的统计互不影响
+ */
+public class EventLoopMetricsTest {
+
+    @Test
+    void testProbeStopsWhenStopped() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup(2);
+        EventLoopMetrics metrics = new EventLoopMetrics();
+        try {
+            metrics.startProbe(group);
+            Thread.sleep(350);
+            long probed = (Long) metrics.getStats().get("loopLagCount");
+            assertTrue(probed >= 2, "探针应在每个线程上执行: " + probed);
+
+            metrics.stopProbe();
+            long stopped = (Long) metrics.getStats().get("loopLagCount");
+            Thread.sleep(250);
+            assertEquals(stopped, metrics.getStats().get("loopLagCount"));
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+    }
+
+    @Test
+    void testProbeIsOffUntilStarted() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup(1);
+        EventLoopMetrics metrics = new EventLoopMetrics();
+        try {
+            Thread.sleep(150);
+            assertEquals(0L, metrics.getStats().get("loopLagCount"));
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+    }
+
+    @Test
+    void testInstancesAreIndependent() {
+        EventLoopMetrics first = new EventLoopMetrics();
+        EventLoopMetrics second = new EventLoopMetrics();
+
+        first.recordDecode(false, 1000);
+        first.recordDecode(true, 3000);
+        first.recordDecodeSkipped();
+
+        assertEquals(1L, first.getStats().get("inlineDecodeCount"));
+        assertEquals(1L, first.getStats().get("offloadedDecodeCount"));
+        assertEquals(1L, first.getStats().get("skippedDecodeCount"));
+        assertEquals(0L, second.getStats().get("inlineDecodeCount"));
+        assertEquals(0L, second.getStats().get("skippedDecodeCount"));
+
+        first.reset();
+        assertEquals(0L, first.getStats().get("offloadedDecodeCount"));
+    }
+}
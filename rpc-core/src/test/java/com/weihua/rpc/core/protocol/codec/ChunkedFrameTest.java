@@ -0,0 +1,197 @@
+package com.weihua.rpc.core.protocol.codec;
+
+import com.weihua.rpc.common.enums.RpcStatusEnum;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分块帧测试：切片编码、重组、交错到达、同时重组数上限和重组超时
+ */
+public class ChunkedFrameTest {
+
+    private static final int CHUNK_SIZE = 64;
+
+    private final Serializer serializer = SerializerFactory.getSerializer("kryo");
+
+    @Test
+    void testChunkedRequestReassembles() {
+        List<ByteBuf> frames = encode(request("1", 1000));
+        assertTrue(frames.size() > 1);
+        for (int i = 0; i < frames.size(); i++) {
+            ByteBuf frame = frames.get(i);
+            boolean chunked = (frame.getByte(frame.readerIndex() + 5) & RpcProtocol.FLAG_CHUNKED) != 0;
+            assertEquals(i < frames.size() - 1, chunked);
+            assertEquals(1L, frame.getLong(frame.readerIndex() + 6));
+        }
+
+        EmbeddedChannel server = newServer(2, 30_000);
+        for (int i = 0; i < frames.size() - 1; i++) {
+            server.writeInbound(frames.get(i));
+            assertNull(server.readInbound());
+        }
+        server.writeInbound(frames.get(frames.size() - 1));
+
+        RpcRequest received = server.readInbound();
+        assertEquals("1", received.getRequestId());
+        assertEquals(payload(1000), received.getParameters()[0]);
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testInterleavedChunkedRequests() {
+        List<ByteBuf> first = encode(request("1", 600));
+        List<ByteBuf> second = encode(request("2", 800));
+
+        EmbeddedChannel server = newServer(2, 30_000);
+        int max = Math.max(first.size(), second.size());
+        for (int i = 0; i < max; i++) {
+            if (i < first.size()) {
+                server.writeInbound(first.get(i));
+            }
+            if (i < second.size()) {
+                server.writeInbound(second.get(i));
+            }
+        }
+
+        RpcRequest a = server.readInbound();
+        RpcRequest b = server.readInbound();
+        assertEquals("1", a.getRequestId());
+        assertEquals(payload(600), a.getParameters()[0]);
+        assertEquals("2", b.getRequestId());
+        assertEquals(payload(800), b.getParameters()[0]);
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testReassemblyLimitRejectsNewMessages() {
+        List<ByteBuf> first = encode(request("1", 300));
+        List<ByteBuf> second = encode(request("2", 300));
+        List<ByteBuf> third = encode(request("3", 300));
+
+        EmbeddedChannel server = newServer(2, 30_000);
+        server.writeInbound(first.get(0));
+        server.writeInbound(second.get(0));
+
+        // 第三条分块消息超过同时重组上限，立即以503拒绝，其后续分块被丢弃
+        for (ByteBuf frame : third) {
+            server.writeInbound(frame);
+        }
+        assertNull(server.readInbound());
+        RpcResponse<?> rejection = readResponse(server);
+        assertEquals("3", rejection.getRequestId());
+        assertEquals(RpcStatusEnum.SERVICE_UNAVAILABLE.getCode(), rejection.getCode());
+
+        // 已在重组的消息不受影响
+        for (int i = 1; i < first.size(); i++) {
+            server.writeInbound(first.get(i));
+        }
+        for (int i = 1; i < second.size(); i++) {
+            server.writeInbound(second.get(i));
+        }
+        RpcRequest a = server.readInbound();
+        RpcRequest b = server.readInbound();
+        assertEquals("1", a.getRequestId());
+        assertEquals("2", b.getRequestId());
+        assertNull(server.readInbound());
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testStaleReassemblyIsEvicted() throws Exception {
+        List<ByteBuf> stale = encode(request("1", 300));
+        List<ByteBuf> fresh = encode(request("2", 300));
+
+        EmbeddedChannel server = newServer(1, 20);
+        server.writeInbound(stale.get(0));
+        Thread.sleep(50);
+
+        // 过期的重组被清理，新的分块消息可以占用名额
+        for (ByteBuf frame : fresh) {
+            server.writeInbound(frame);
+        }
+        RpcRequest received = server.readInbound();
+        assertEquals("2", received.getRequestId());
+        assertNull(server.outboundMessages().poll());
+
+        // 过期消息的迟到分块被丢弃
+        for (int i = 1; i < stale.size(); i++) {
+            server.writeInbound(stale.get(i));
+        }
+        assertNull(server.readInbound());
+        server.finishAndReleaseAll();
+    }
+
+    /**
+     * 用v2客户端编码器编码，并按协议头中的长度拆分为独立的帧
+     */
+    private List<ByteBuf> encode(RpcRequest request) {
+        EmbeddedChannel client = new EmbeddedChannel(
+                new RpcEncoder(serializer, RpcProtocol.VERSION_2, Integer.MAX_VALUE, CHUNK_SIZE));
+        client.attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_2);
+        client.writeOutbound(request);
+        ByteBuf encoded = client.readOutbound();
+
+        List<ByteBuf> frames = new ArrayList<>();
+        while (encoded.isReadable()) {
+            int start = encoded.readerIndex();
+            int length = RpcProtocol.V2_HEADER_LENGTH + encoded.getUnsignedShort(start + 14)
+                    + encoded.getInt(start + 16);
+            frames.add(encoded.readRetainedSlice(length));
+        }
+        encoded.release();
+        client.finishAndReleaseAll();
+        return frames;
+    }
+
+    private RpcResponse<?> readResponse(EmbeddedChannel server) {
+        ByteBuf frame = server.readOutbound();
+        assertNotNull(frame);
+        EmbeddedChannel client = new EmbeddedChannel(new RpcDecoder(serializer));
+        client.writeInbound(frame);
+        RpcResponse<?> response = client.readInbound();
+        client.finishAndReleaseAll();
+        return response;
+    }
+
+    /**
+     * 解码器根据serverHandler判断是否为服务端
+     */
+    private EmbeddedChannel newServer(int maxChunkedMessages, long timeoutMillis) {
+        EmbeddedChannel server = new EmbeddedChannel();
+        server.pipeline().addLast("decoder", new RpcDecoder(serializer, null, RpcProtocol.MAX_FRAME_LENGTH,
+                RpcProtocol.MAX_MESSAGE_LENGTH, -1, false, maxChunkedMessages, timeoutMillis));
+        server.pipeline().addLast("encoder", new RpcEncoder(serializer, RpcProtocol.VERSION_1));
+        server.pipeline().addLast("serverHandler", new ChannelInboundHandlerAdapter());
+        return server;
+    }
+
+    private RpcRequest request(String requestId, int size) {
+        return RpcRequest.builder()
+                .requestId(requestId)
+                .interfaceName("com.weihua.rpc.test.EchoService")
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { payload(size) })
+                .build();
+    }
+
+    private String payload(int size) {
+        StringBuilder sb = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+}
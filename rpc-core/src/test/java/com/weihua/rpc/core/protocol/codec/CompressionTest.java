@@ -0,0 +1,107 @@
+package com.weihua.rpc.core.protocol.codec;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.core.compress.Compressor;
+import com.weihua.rpc.core.compress.CompressorFactory;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 消息体压缩测试：超过阈值时压缩并置位、阈值以下和压缩无收益时按原样发送，以及压缩算法协商
+ */
+public class CompressionTest {
+
+    private static final int THRESHOLD = 256;
+
+    private final Serializer serializer = SerializerFactory.getSerializer("kryo");
+
+    @ParameterizedTest
+    @ValueSource(strings = { "deflate", "snappy" })
+    void testLargeBodyIsCompressed(String name) {
+        Compressor compressor = CompressorFactory.getCompressor(name);
+        String payload = payload(16 * 1024);
+
+        ByteBuf frame = encode(compressor, payload);
+        assertEquals(RpcProtocol.FLAG_COMPRESSED,
+                frame.getByte(frame.readerIndex() + 5) & RpcProtocol.FLAG_COMPRESSED);
+        assertTrue(frame.readableBytes() < payload.length());
+        // 压缩后的消息体以压缩算法类型开头
+        int bodyStart = frame.readerIndex() + RpcProtocol.V2_HEADER_LENGTH
+                + frame.getUnsignedShort(frame.readerIndex() + 14);
+        assertEquals(compressor.getType(), frame.getByte(bodyStart));
+
+        assertEquals(payload, decode(frame).getParameters()[0]);
+    }
+
+    @Test
+    void testSmallBodyIsNotCompressed() {
+        ByteBuf frame = encode(CompressorFactory.getCompressor("deflate"), "ping");
+        assertEquals(0, frame.getByte(frame.readerIndex() + 5) & RpcProtocol.FLAG_COMPRESSED);
+        assertEquals("ping", decode(frame).getParameters()[0]);
+    }
+
+    @Test
+    void testIncompressibleBodyIsSentAsIs() {
+        byte[] payload = new byte[8 * 1024];
+        new Random(1).nextBytes(payload);
+
+        ByteBuf frame = encode(CompressorFactory.getCompressor("deflate"), payload);
+        assertEquals(0, frame.getByte(frame.readerIndex() + 5) & RpcProtocol.FLAG_COMPRESSED);
+        assertArrayEquals(payload, (byte[]) decode(frame).getParameters()[0]);
+    }
+
+    @Test
+    void testNegotiatePicksFirstSupported() {
+        assertEquals("snappy", CompressorFactory.negotiate("zstd,snappy,deflate").getName());
+        assertNull(CompressorFactory.negotiate("zstd,lz4"));
+        assertNull(CompressorFactory.negotiate(""));
+    }
+
+    private ByteBuf encode(Compressor compressor, Object parameter) {
+        EmbeddedChannel client = new EmbeddedChannel(new RpcEncoder(serializer, RpcProtocol.VERSION_2, THRESHOLD));
+        client.attr(RpcProtocol.COMPRESSOR).set(compressor);
+        client.writeOutbound(RpcRequest.builder()
+                .requestId("1")
+                .interfaceName("com.weihua.rpc.test.EchoService")
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { parameter.getClass() })
+                .parameters(new Object[] { parameter })
+                .build());
+        ByteBuf frame = client.readOutbound();
+        client.finishAndReleaseAll();
+        return frame;
+    }
+
+    /**
+     * 解码器根据serverHandler判断是否为服务端，解压不依赖协商结果
+     */
+    private RpcRequest decode(ByteBuf frame) {
+        EmbeddedChannel server = new EmbeddedChannel();
+        server.pipeline().addLast("decoder", new RpcDecoder(serializer));
+        server.pipeline().addLast("serverHandler", new ChannelInboundHandlerAdapter());
+        server.writeInbound(frame);
+        RpcRequest request = server.readInbound();
+        server.finishAndReleaseAll();
+        assertNotNull(request);
+        return request;
+    }
+
+    private String payload(int size) {
+        StringBuilder sb = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package com.weihua.rpc.core.protocol.codec;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * v2协议头测试：各字段的位置、单向和心跳标志位、附加信息区以及请求和响应的往返编解码
+ */
+public class FrameHeaderTest {
+
+    private final Serializer serializer = SerializerFactory.getSerializer("kryo");
+
+    @Test
+    void testRequestHeaderLayout() {
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put("traceId", "abc");
+        RpcRequest request = request("42");
+        request.setAttachments(attachments);
+        request.setOneway(true);
+
+        ByteBuf frame = encode(request);
+        int start = frame.readerIndex();
+        assertEquals(RpcProtocol.MAGIC_NUMBER[0], frame.getByte(start));
+        assertEquals(RpcProtocol.MAGIC_NUMBER[1], frame.getByte(start + 1));
+        assertEquals(RpcProtocol.VERSION_2, frame.getByte(start + 2));
+        assertEquals(serializer.getType(), frame.getByte(start + 3));
+        assertEquals(RpcProtocol.MSG_TYPE_REQUEST, frame.getByte(start + 4));
+        assertEquals(RpcProtocol.FLAG_ONEWAY, frame.getByte(start + 5));
+        assertEquals(42L, frame.getLong(start + 6));
+        int attachmentLength = frame.getUnsignedShort(start + 14);
+        int dataLength = frame.getInt(start + 16);
+        assertTrue(attachmentLength > 0);
+        assertEquals(RpcProtocol.V2_HEADER_LENGTH + attachmentLength + dataLength, frame.readableBytes());
+
+        EmbeddedChannel server = newServer();
+        server.writeInbound(frame);
+        RpcRequest received = server.readInbound();
+        assertEquals("42", received.getRequestId());
+        assertTrue(received.isOneway());
+        assertEquals("abc", received.getAttachments().get("traceId"));
+        assertEquals("echo", received.getMethodName());
+        assertArrayEquals(new Object[] { "ping" }, received.getParameters());
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testHeartbeatFrameHasNoBody() {
+        RpcRequest heartbeat = RpcRequest.builder()
+                .requestId("7")
+                .requestType(RpcRequest.RequestType.HEARTBEAT)
+                .build();
+
+        ByteBuf frame = encode(heartbeat);
+        assertEquals(RpcProtocol.FLAG_HEARTBEAT, frame.getByte(frame.readerIndex() + 5));
+        assertEquals(0, frame.getInt(frame.readerIndex() + 16));
+        assertEquals(RpcProtocol.V2_HEADER_LENGTH, frame.readableBytes());
+
+        EmbeddedChannel server = newServer();
+        server.writeInbound(frame);
+        RpcRequest received = server.readInbound();
+        assertTrue(received.isHeartBeat());
+        assertEquals("7", received.getRequestId());
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testResponseRoundTrip() {
+        EmbeddedChannel server = newServer();
+        server.attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_2);
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put("cost", "3");
+        RpcResponse<String> response = RpcResponse.success("99", "pong");
+        response.setAttachments(attachments);
+
+        server.writeOutbound(response);
+        ByteBuf frame = server.readOutbound();
+        assertEquals(RpcProtocol.MSG_TYPE_RESPONSE, frame.getByte(frame.readerIndex() + 4));
+        assertEquals(99L, frame.getLong(frame.readerIndex() + 6));
+
+        EmbeddedChannel client = new EmbeddedChannel(new RpcDecoder(serializer));
+        client.writeInbound(frame);
+        RpcResponse<?> received = client.readInbound();
+        assertEquals("99", received.getRequestId());
+        assertEquals("pong", received.getData());
+        assertEquals("3", received.getAttachments().get("cost"));
+        client.finishAndReleaseAll();
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testPartialFrameWaitsForMoreBytes() {
+        ByteBuf frame = encode(request("5"));
+        EmbeddedChannel server = newServer();
+
+        // 协议头和消息体分多次到达
+        server.writeInbound(frame.readRetainedSlice(10));
+        assertNull(server.readInbound());
+        server.writeInbound(frame.readRetainedSlice(RpcProtocol.V2_HEADER_LENGTH));
+        assertNull(server.readInbound());
+        server.writeInbound(frame);
+
+        RpcRequest received = server.readInbound();
+        assertEquals("5", received.getRequestId());
+        server.finishAndReleaseAll();
+    }
+
+    private ByteBuf encode(Object msg) {
+        EmbeddedChannel client = new EmbeddedChannel(new RpcEncoder(serializer, RpcProtocol.VERSION_2));
+        client.writeOutbound(msg);
+        ByteBuf frame = client.readOutbound();
+        client.finishAndReleaseAll();
+        return frame;
+    }
+
+    /**
+     * 解码器根据serverHandler判断是否为服务端
+     */
+    private EmbeddedChannel newServer() {
+        EmbeddedChannel server = new EmbeddedChannel();
+        server.pipeline().addLast("decoder", new RpcDecoder(serializer));
+        server.pipeline().addLast("encoder", new RpcEncoder(serializer, RpcProtocol.VERSION_1));
+        server.pipeline().addLast("serverHandler", new ChannelInboundHandlerAdapter());
+        return server;
+    }
+
+    private RpcRequest request(String requestId) {
+        return RpcRequest.builder()
+                .requestId(requestId)
+                .interfaceName("com.weihua.rpc.test.EchoService")
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { "ping" })
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.weihua.rpc.core.protocol.codec;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 参数延迟反序列化测试：日志和集合操作不触发反序列化，释放后读取参数明确失败
+ */
+public class LazyRpcRequestTest {
+
+    private final Serializer serializer = SerializerFactory.getSerializer("kryo");
+
+    @Test
+    void testParametersDecodedOnFirstAccess() {
+        EmbeddedChannel server = newServer();
+        LazyRpcRequest request = receive(server);
+
+        assertFalse(request.isMaterialized());
+        assertArrayEquals(new Object[] { "ping" }, request.getParameters());
+        assertTrue(request.isMaterialized());
+        assertTrue(request.toString().contains("ping"));
+        request.release();
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testObjectMethodsDoNotMaterialize() {
+        EmbeddedChannel server = newServer();
+        LazyRpcRequest request = receive(server);
+
+        String text = request.toString();
+        assertTrue(text.contains("requestId=11"));
+        assertTrue(text.contains("未反序列化"));
+        Set<RpcRequest> requests = new HashSet<>();
+        requests.add(request);
+        assertTrue(requests.contains(request));
+        assertEquals(request, request);
+        LazyRpcRequest other = receive(server);
+        assertNotEquals(request, other);
+        assertFalse(request.isMaterialized());
+
+        other.release();
+        request.release();
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testAccessAfterReleaseFailsCleanly() {
+        EmbeddedChannel server = newServer();
+        LazyRpcRequest request = receive(server);
+
+        request.release();
+        IllegalStateException e = assertThrows(IllegalStateException.class, request::getParameters);
+        assertTrue(e.getMessage().contains("11"));
+        assertTrue(request.toString().contains("已释放"));
+        assertEquals(System.identityHashCode(request), request.hashCode());
+
+        // 重复释放无副作用
+        request.release();
+        server.finishAndReleaseAll();
+    }
+
+    private LazyRpcRequest receive(EmbeddedChannel server) {
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put(RpcProtocol.ATTACHMENT_METHOD_ID, "1");
+        RpcRequest request = RpcRequest.builder()
+                .requestId("11")
+                .interfaceName("com.weihua.rpc.test.EchoService")
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { "ping" })
+                .build();
+        request.setAttachments(attachments);
+
+        EmbeddedChannel client = new EmbeddedChannel(new RpcEncoder(serializer, RpcProtocol.VERSION_2));
+        client.writeOutbound(request);
+        ByteBuf frame = client.readOutbound();
+        client.finishAndReleaseAll();
+
+        server.writeInbound(frame);
+        Object received = server.readInbound();
+        assertInstanceOf(LazyRpcRequest.class, received);
+        return (LazyRpcRequest) received;
+    }
+
+    /**
+     * 解码器根据serverHandler判断是否为服务端
+     */
+    private EmbeddedChannel newServer() {
+        EmbeddedChannel server = new EmbeddedChannel();
+        server.pipeline().addLast("decoder", new RpcDecoder(serializer, null, RpcProtocol.MAX_FRAME_LENGTH,
+                RpcProtocol.MAX_MESSAGE_LENGTH, -1, true));
+        server.pipeline().addLast("serverHandler", new ChannelInboundHandlerAdapter());
+        return server;
+    }
+}
@@ -0,0 +1,149 @@
+package com.weihua.rpc.core.protocol.codec;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import com.weihua.rpc.core.server.netty.handler.NettyServerHandler;
+import com.weihua.rpc.core.server.provider.LocalServiceProvider;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多序列化方式测试：同一服务端连接按帧头中的序列化类型解码Kryo和JSON请求，并以各自的方式回写响应
+ */
+public class MixedSerializerTest {
+
+    public interface GreetingService {
+
+        String greet(String name);
+    }
+
+    public static class GreetingServiceImpl implements GreetingService {
+
+        @Override
+        public String greet(String name) {
+            return "hello " + name;
+        }
+    }
+
+    private final Serializer kryo = SerializerFactory.getSerializer("kryo");
+    private final Serializer json = SerializerFactory.getSerializer("json");
+
+    // 业务线程写出的响应帧
+    private final BlockingQueue<ByteBuf> written = new LinkedBlockingQueue<>();
+
+    private EmbeddedChannel server;
+
+    @BeforeEach
+    void setUp() {
+        LocalServiceProvider serviceProvider = new LocalServiceProvider();
+        serviceProvider.registerService(GreetingService.class, new GreetingServiceImpl());
+
+        // 服务端默认序列化器为Kryo
+        server = new EmbeddedChannel();
+        server.pipeline().addLast("writer", new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                written.add((ByteBuf) msg);
+                promise.setSuccess();
+            }
+        });
+        server.pipeline().addLast("decoder", new RpcDecoder(kryo));
+        server.pipeline().addLast("encoder", new RpcEncoder(kryo, RpcProtocol.VERSION_1));
+        server.pipeline().addLast("serverHandler", new NettyServerHandler(serviceProvider));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.finishAndReleaseAll();
+        written.forEach(ByteBuf::release);
+    }
+
+    @Test
+    void testKryoAndJsonOnSameConnection() throws Exception {
+        Map<String, Serializer> expected = new HashMap<>();
+        String[] names = { "kryo-1", "json-1", "json-2", "kryo-2" };
+        for (int i = 0; i < names.length; i++) {
+            Serializer serializer = names[i].startsWith("json") ? json : kryo;
+            String requestId = String.valueOf(i + 1);
+            expected.put(requestId, serializer);
+            server.writeInbound(encode(serializer, requestId, names[i]));
+        }
+
+        for (int i = 0; i < names.length; i++) {
+            ByteBuf frame = written.poll(3, TimeUnit.SECONDS);
+            assertNotNull(frame);
+            RpcResponse<?> response = decode(frame);
+            Serializer serializer = expected.remove(response.getRequestId());
+            assertNotNull(serializer, "重复或未知的响应: " + response.getRequestId());
+
+            // 响应帧头和消息体都使用请求的序列化方式
+            assertEquals(serializer.getType(), response.getSerializerType());
+            assertEquals(200, response.getCode());
+            assertEquals("hello " + names[Integer.parseInt(response.getRequestId()) - 1], response.getData());
+        }
+        assertTrue(expected.isEmpty());
+    }
+
+    @Test
+    void testErrorResponseKeepsRequestSerializer() throws Exception {
+        server.writeInbound(encode(json, "9", null, "missing"));
+
+        ByteBuf frame = written.poll(3, TimeUnit.SECONDS);
+        assertNotNull(frame);
+        RpcResponse<?> response = decode(frame);
+        assertEquals(json.getType(), response.getSerializerType());
+        assertNotEquals(200, response.getCode());
+    }
+
+    private ByteBuf encode(Serializer serializer, String requestId, String name) {
+        return encode(serializer, requestId, name, "greet");
+    }
+
+    /**
+     * 以指定序列化器作为默认序列化器编码v2请求帧，帧头记录该序列化类型
+     */
+    private ByteBuf encode(Serializer serializer, String requestId, String name, String methodName) {
+        EmbeddedChannel client = new EmbeddedChannel(new RpcEncoder(serializer, RpcProtocol.VERSION_2));
+        client.attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_2);
+        client.writeOutbound(RpcRequest.builder()
+                .requestId(requestId)
+                .interfaceName(GreetingService.class.getName())
+                .methodName(methodName)
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { name })
+                .build());
+        ByteBuf frame = client.readOutbound();
+        client.finishAndReleaseAll();
+        assertEquals(serializer.getType(), frame.getByte(frame.readerIndex() + 3));
+        return frame;
+    }
+
+    /**
+     * 客户端解码器的默认序列化器为Kryo，JSON响应只能按帧头中的类型解码
+     */
+    private RpcResponse<?> decode(ByteBuf frame) {
+        EmbeddedChannel client = new EmbeddedChannel(new RpcDecoder(kryo));
+        client.writeInbound(frame);
+        RpcResponse<?> response = client.readInbound();
+        client.finishAndReleaseAll();
+        assertNotNull(response);
+        return response;
+    }
+}
@@ -0,0 +1,174 @@
+package com.weihua.rpc.core.protocol.codec;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.client.netty.handler.HandshakeHandler;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.handshake.Handshake;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 协议版本协商测试：v1客户端与v2服务端、v2客户端与v1服务端，以及无法识别的版本号
+ */
+public class ProtocolVersionTest {
+
+    private final Serializer serializer = SerializerFactory.getSerializer("kryo");
+
+    @Test
+    void testV1ClientTalksToV2Server() {
+        EmbeddedChannel client = new EmbeddedChannel(new RpcEncoder(serializer, RpcProtocol.VERSION_1),
+                new RpcDecoder(serializer));
+        EmbeddedChannel server = newServer();
+
+        client.writeOutbound(request("1"));
+        ByteBuf frame = client.readOutbound();
+        assertEquals(RpcProtocol.VERSION_1, frame.getByte(frame.readerIndex() + 2));
+
+        server.writeInbound(frame);
+        RpcRequest received = server.readInbound();
+        assertEquals("1", received.getRequestId());
+        assertEquals("echo", received.getMethodName());
+
+        // 服务端按对端版本回写v1响应
+        server.writeOutbound(RpcResponse.success("1", "pong"));
+        ByteBuf responseFrame = server.readOutbound();
+        assertEquals(RpcProtocol.VERSION_1, responseFrame.getByte(responseFrame.readerIndex() + 2));
+
+        client.writeInbound(responseFrame);
+        RpcResponse<?> response = client.readInbound();
+        assertEquals("1", response.getRequestId());
+        assertEquals("pong", response.getData());
+
+        client.finishAndReleaseAll();
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testV2ClientFallsBackToV1WhenHandshakeUnanswered() throws Exception {
+        EmbeddedChannel client = newV2Client(50);
+
+        // 首先发出的是v2握手请求
+        ByteBuf handshake = client.readOutbound();
+        assertEquals(RpcProtocol.VERSION_2, handshake.getByte(handshake.readerIndex() + 2));
+        assertEquals(RpcProtocol.MSG_TYPE_HANDSHAKE_REQUEST, handshake.getByte(handshake.readerIndex() + 4));
+        handshake.release();
+
+        // 旧版本服务端不响应握手，请求在握手结束前暂缓发送
+        client.writeOutbound(request("7"));
+        assertNull(client.readOutbound());
+
+        Thread.sleep(100);
+        client.runScheduledPendingTasks();
+
+        ByteBuf frame = client.readOutbound();
+        assertNotNull(frame);
+        assertEquals(RpcProtocol.VERSION_1, frame.getByte(frame.readerIndex() + 2));
+        assertEquals(RpcProtocol.VERSION_1, client.attr(RpcProtocol.PEER_VERSION).get());
+
+        // v1帧可以被只认识v1布局的服务端解码
+        EmbeddedChannel server = newServer();
+        server.writeInbound(frame);
+        RpcRequest received = server.readInbound();
+        assertEquals("7", received.getRequestId());
+
+        client.finishAndReleaseAll();
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testV2ClientSwitchesToV2AfterHandshake() {
+        EmbeddedChannel client = newV2Client(10_000);
+        ByteBuf handshake = client.readOutbound();
+        handshake.release();
+
+        client.writeOutbound(request("3"));
+        assertNull(client.readOutbound());
+
+        // v2服务端回写握手响应
+        EmbeddedChannel server = newServer();
+        server.writeOutbound(Handshake.response(Collections.emptyMap()));
+        ByteBuf handshakeResponse = server.readOutbound();
+        client.writeInbound(handshakeResponse);
+
+        ByteBuf frame = client.readOutbound();
+        assertNotNull(frame);
+        assertEquals(RpcProtocol.VERSION_2, frame.getByte(frame.readerIndex() + 2));
+        assertEquals(3L, frame.getLong(frame.readerIndex() + 6));
+
+        server.writeInbound(frame);
+        RpcRequest received = server.readInbound();
+        assertEquals("3", received.getRequestId());
+
+        client.finishAndReleaseAll();
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void testPendingWritesFailWhenChannelCloses() {
+        EmbeddedChannel client = newV2Client(10_000);
+        ByteBuf handshake = client.readOutbound();
+        handshake.release();
+
+        ChannelFuture future = client.writeAndFlush(request("5"));
+        assertFalse(future.isDone());
+
+        client.close();
+        assertTrue(future.isDone());
+        assertFalse(future.isSuccess());
+        client.finishAndReleaseAll();
+    }
+
+    @Test
+    void testUnknownVersionClosesConnection() {
+        EmbeddedChannel server = newServer();
+
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeBytes(RpcProtocol.MAGIC_NUMBER);
+        frame.writeByte(9);
+        frame.writeByte(serializer.getType());
+        frame.writeInt(4);
+        frame.writeInt(0);
+
+        server.writeInbound(frame);
+        assertNull(server.readInbound());
+        assertFalse(server.isOpen());
+        server.finishAndReleaseAll();
+    }
+
+    private EmbeddedChannel newV2Client(long handshakeTimeoutMillis) {
+        return new EmbeddedChannel(new RpcEncoder(serializer, RpcProtocol.VERSION_1), new RpcDecoder(serializer),
+                new HandshakeHandler(true, null, false, handshakeTimeoutMillis));
+    }
+
+    /**
+     * 解码器根据serverHandler判断是否为服务端
+     */
+    private EmbeddedChannel newServer() {
+        EmbeddedChannel server = new EmbeddedChannel();
+        server.pipeline().addLast("decoder", new RpcDecoder(serializer));
+        server.pipeline().addLast("encoder", new RpcEncoder(serializer, RpcProtocol.VERSION_1));
+        server.pipeline().addLast("serverHandler", new ChannelInboundHandlerAdapter());
+        return server;
+    }
+
+    private RpcRequest request(String requestId) {
+        return RpcRequest.builder()
+                .requestId(requestId)
+                .interfaceName("com.weihua.rpc.test.EchoService")
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { "ping" })
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.weihua.rpc.core.serialize;
+
+import com.weihua.rpc.common.exception.SerializeException;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 从ByteBuf原地反序列化测试：堆内存、直接内存、组合缓冲区和非零读索引，以及第三方序列化器的字节数组回退
+ */
+public class ByteBufDeserializeTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "json", "kryo", "hessian", "protobuf" })
+    void testDeserializeFromHeapBuffer(String name) {
+        Serializer serializer = SerializerFactory.getSerializer(name);
+        ByteBuf buf = Unpooled.wrappedBuffer(serializer.serialize(request()));
+        try {
+            assertRequest(serializer.deserialize(buf, RpcRequest.class));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "json", "kryo", "hessian", "protobuf" })
+    void testDeserializeFromDirectSliceWithOffset(String name) {
+        Serializer serializer = SerializerFactory.getSerializer(name);
+        byte[] bytes = serializer.serialize(RpcResponse.success("9", "pong"));
+
+        // 消息体位于帧中间，前后都有其他数据
+        ByteBuf frame = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            frame.writeBytes(new byte[] { 1, 2, 3, 4, 5 });
+            frame.writeBytes(bytes);
+            frame.writeBytes(new byte[] { 6, 7 });
+            ByteBuf body = frame.slice(5, bytes.length);
+
+            RpcResponse<?> response = serializer.deserialize(body, RpcResponse.class);
+            assertEquals("9", response.getRequestId());
+            assertEquals("pong", response.getData());
+        } finally {
+            frame.release();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "json", "kryo", "hessian", "protobuf" })
+    void testDeserializeFromCompositeBuffer(String name) {
+        Serializer serializer = SerializerFactory.getSerializer(name);
+        byte[] bytes = serializer.serialize(request());
+
+        // 分块重组得到的消息体由多个组件组成
+        int half = bytes.length / 2;
+        CompositeByteBuf body = ByteBufAllocator.DEFAULT.compositeBuffer();
+        try {
+            body.addComponent(true, Unpooled.directBuffer().writeBytes(bytes, 0, half));
+            body.addComponent(true, Unpooled.buffer().writeBytes(bytes, half, bytes.length - half));
+            assertRequest(serializer.deserialize(body, RpcRequest.class));
+        } finally {
+            body.release();
+        }
+    }
+
+    @Test
+    void testThirdPartySerializerFallsBackToByteArray() {
+        Serializer delegate = SerializerFactory.getSerializer("kryo");
+        Serializer thirdParty = new Serializer() {
+            @Override
+            public byte[] serialize(Object obj) throws SerializeException {
+                return delegate.serialize(obj);
+            }
+
+            @Override
+            public <T> T deserialize(byte[] bytes, Class<T> clazz) throws SerializeException {
+                return delegate.deserialize(bytes, clazz);
+            }
+
+            @Override
+            public byte getType() {
+                return 100;
+            }
+
+            @Override
+            public String getName() {
+                return "thirdParty";
+            }
+        };
+
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            buf.writeBytes(thirdParty.serialize(request()));
+            assertRequest(thirdParty.deserialize(buf, RpcRequest.class));
+        } finally {
+            buf.release();
+        }
+    }
+
+    private void assertRequest(RpcRequest request) {
+        assertEquals("1", request.getRequestId());
+        assertEquals("com.weihua.rpc.test.EchoService", request.getInterfaceName());
+        assertEquals("echo", request.getMethodName());
+        assertArrayEquals(new Object[] { "ping" }, request.getParameters());
+    }
+
+    private RpcRequest request() {
+        return RpcRequest.builder()
+                .requestId("1")
+                .interfaceName("com.weihua.rpc.test.EchoService")
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { "ping" })
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.weihua.rpc.core.serialize;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 直接序列化到ByteBuf测试：从writerIndex追加写入、与字节数组结果一致、大对象扩容，以及编码器回填数据长度
+ */
+public class ByteBufSerializeTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "json", "kryo", "hessian", "protobuf" })
+    void testSerializeAppendsAtWriterIndex(String name) {
+        Serializer serializer = SerializerFactory.getSerializer(name);
+        RpcResponse<String> response = RpcResponse.success("3", "pong");
+
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            buf.writeBytes(new byte[] { 1, 2, 3 });
+            serializer.serialize(response, buf);
+
+            // 已有内容保持不变，追加的内容与字节数组版本一致
+            assertEquals(1, buf.getByte(0));
+            assertEquals(3, buf.getByte(2));
+            assertArrayEquals(serializer.serialize(response), ByteBufUtil.getBytes(buf, 3, buf.readableBytes() - 3));
+
+            buf.skipBytes(3);
+            RpcResponse<?> decoded = serializer.deserialize(buf, RpcResponse.class);
+            assertEquals("3", decoded.getRequestId());
+            assertEquals("pong", decoded.getData());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "json", "kryo", "hessian", "protobuf" })
+    void testSerializeLargeObjectGrowsBuffer(String name) {
+        Serializer serializer = SerializerFactory.getSerializer(name);
+        String payload = payload(256 * 1024);
+
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(64);
+        try {
+            serializer.serialize(request(payload), buf);
+            assertTrue(buf.readableBytes() > payload.length());
+
+            RpcRequest decoded = serializer.deserialize(buf, RpcRequest.class);
+            assertEquals(payload, decoded.getParameters()[0]);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "json", "kryo", "hessian", "protobuf" })
+    void testEncoderBackfillsDataLength(String name) {
+        Serializer serializer = SerializerFactory.getSerializer(name);
+        EmbeddedChannel channel = new EmbeddedChannel(new RpcEncoder(serializer, RpcProtocol.VERSION_1));
+        RpcRequest request = request("ping");
+
+        channel.writeOutbound(request);
+        ByteBuf frame = channel.readOutbound();
+        try {
+            byte[] body = serializer.serialize(request);
+            assertEquals(RpcProtocol.V1_HEADER_LENGTH + body.length, frame.readableBytes());
+            assertEquals(body.length, frame.getInt(frame.readerIndex() + 4));
+            assertArrayEquals(body, ByteBufUtil.getBytes(frame, frame.readerIndex() + RpcProtocol.V1_HEADER_LENGTH,
+                    body.length));
+        } finally {
+            frame.release();
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private RpcRequest request(String parameter) {
+        return RpcRequest.builder()
+                .requestId("1")
+                .interfaceName("com.weihua.rpc.test.EchoService")
+                .methodName("echo")
+                .parameterTypes(new Class<?>[] { String.class })
+                .parameters(new Object[] { parameter })
+                .build();
+    }
+
+    private String payload(int size) {
+        StringBuilder sb = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+}
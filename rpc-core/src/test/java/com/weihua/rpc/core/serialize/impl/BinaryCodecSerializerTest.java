@@ -0,0 +1,236 @@
+package com.weihua.rpc.core.serialize.impl;
+
+import com.weihua.rpc.common.enums.RpcStatusEnum;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.codec.CodecRegistry;
+import com.weihua.rpc.core.serialize.codec.RpcCodec;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二进制序列化器测试：注解处理器生成的编解码器对RpcRequest/RpcResponse和标注了RpcCodec的类型做往返编码，
+ * 覆盖null字段、枚举、BigDecimal/Date、嵌套编解码器、集合与泛型的类名序号、Kryo兜底以及transient字段
+ */
+public class BinaryCodecSerializerTest {
+
+    private final Serializer serializer = new BinaryCodecSerializer();
+
+    public enum Level {
+        LOW, HIGH
+    }
+
+    @Data
+    @NoArgsConstructor
+    @RpcCodec
+    public static class Address {
+        private String city;
+        private Integer zip;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @RpcCodec
+    public static class Profile {
+        private long id;
+        private boolean active;
+        private Integer score;
+        private String name;
+        private Level level;
+        private BigDecimal balance;
+        private Date birthday;
+        private Address address;
+        private List<Address> history;
+        private Map<String, Level> tags;
+        private Object extra;
+        private transient String cached;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @RpcCodec
+    public static class Page<T> {
+        private T first;
+        private List<T> items;
+    }
+
+    /**
+     * 没有生成编解码器的类型
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Note {
+        private String text;
+        private int priority;
+    }
+
+    @Test
+    void testCodecsAreGenerated() {
+        assertNotNull(CodecRegistry.get(RpcRequest.class));
+        assertNotNull(CodecRegistry.get(RpcResponse.class));
+        assertNotNull(CodecRegistry.get(Profile.class));
+        assertNotNull(CodecRegistry.get(Page.class));
+        assertNull(CodecRegistry.get(Note.class));
+    }
+
+    @Test
+    void testFieldsRoundTrip() {
+        Profile profile = profile();
+        Profile decoded = serializer.deserialize(serializer.serialize(profile), Profile.class);
+
+        // transient字段不参与编码
+        assertNull(decoded.getCached());
+        profile.setCached(null);
+        assertEquals(profile, decoded);
+        assertEquals(2, decoded.getBalance().scale());
+        assertEquals(LinkedHashMap.class, decoded.getTags().getClass());
+    }
+
+    @Test
+    void testNullFieldsRoundTrip() {
+        Profile empty = new Profile();
+        Profile decoded = serializer.deserialize(serializer.serialize(empty), Profile.class);
+
+        assertEquals(empty, decoded);
+        assertNull(decoded.getScore());
+        assertNull(decoded.getLevel());
+        assertNull(decoded.getAddress());
+        assertNull(decoded.getExtra());
+    }
+
+    @Test
+    void testUncodedTypeFallsBackToKryo() {
+        Note note = new Note();
+        note.setText("fallback");
+        note.setPriority(3);
+        Profile profile = new Profile();
+        profile.setExtra(note);
+
+        Profile decoded = serializer.deserialize(serializer.serialize(profile), Profile.class);
+        assertEquals(note, decoded.getExtra());
+    }
+
+    @Test
+    void testRepeatedClassNameWrittenOnce() {
+        Page<Address> page = new Page<>();
+        page.setFirst(address("Hangzhou", 310000));
+        page.setItems(new ArrayList<>());
+        for (int i = 0; i < 5; i++) {
+            page.getItems().add(address("city-" + i, i));
+        }
+
+        byte[] bytes = serializer.serialize(page);
+        @SuppressWarnings("unchecked")
+        Page<Address> decoded = serializer.deserialize(bytes, Page.class);
+        assertEquals(page, decoded);
+
+        // 泛型字段按动态类型编码，同一消息中的类名只写入一次，之后写序号
+        String content = new String(bytes, StandardCharsets.ISO_8859_1);
+        String className = Address.class.getName();
+        assertEquals(content.indexOf(className), content.lastIndexOf(className));
+    }
+
+    @Test
+    void testRequestRoundTrip() {
+        RpcRequest request = RpcRequest.builder()
+                .requestId("42")
+                .interfaceName("com.weihua.rpc.test.ProfileService")
+                .methodName("update")
+                .parameterTypes(new Class<?>[] { Profile.class, String.class, int.class })
+                .parameters(new Object[] { profile(), "reason", 7 })
+                .version("1.0")
+                .group("default")
+                .requestType(RpcRequest.RequestType.NORMAL)
+                .attachments(Collections.singletonMap("_t", "3000"))
+                .oneway(true)
+                .deadline(System.currentTimeMillis() + 3000)
+                .serializerType((byte) 5)
+                .streaming(true)
+                .build();
+
+        RpcRequest decoded = serializer.deserialize(serializer.serialize(request), RpcRequest.class);
+
+        assertEquals("42", decoded.getRequestId());
+        assertEquals(request.getInterfaceName(), decoded.getInterfaceName());
+        assertEquals("update", decoded.getMethodName());
+        assertArrayEquals(request.getParameterTypes(), decoded.getParameterTypes());
+        assertArrayEquals(request.getParameters(), decoded.getParameters());
+        assertEquals("1.0", decoded.getVersion());
+        assertEquals("default", decoded.getGroup());
+        assertEquals(RpcRequest.RequestType.NORMAL, decoded.getRequestType());
+
+        // 附加信息、截止时间和序列化类型由协议头携带，不进入消息体
+        assertNull(decoded.getAttachments());
+        assertFalse(decoded.isOneway());
+        assertEquals(0, decoded.getDeadline());
+        assertEquals(0, decoded.getSerializerType());
+        assertFalse(decoded.isStreaming());
+    }
+
+    @Test
+    void testResponseRoundTrip() {
+        RpcResponse<Profile> response = RpcResponse.success("42", profile());
+        response.setAttachments(Collections.singletonMap("rejected", "true"));
+        response.setSerializerType((byte) 5);
+        response.setStreaming(true);
+
+        RpcResponse<?> decoded = serializer.deserialize(serializer.serialize(response), RpcResponse.class);
+
+        assertEquals("42", decoded.getRequestId());
+        assertEquals(response.getCode(), decoded.getCode());
+        assertEquals(response.getMessage(), decoded.getMessage());
+        assertEquals(response.getResponseType(), decoded.getResponseType());
+        Profile expected = profile();
+        expected.setCached(null);
+        assertEquals(expected, decoded.getData());
+        assertNull(decoded.getAttachments());
+        assertEquals(0, decoded.getSerializerType());
+        assertFalse(decoded.isStreaming());
+
+        RpcResponse<?> failure = serializer.deserialize(
+                serializer.serialize(RpcResponse.fail("43", RpcStatusEnum.SERVICE_NOT_FOUND)), RpcResponse.class);
+        assertEquals(RpcStatusEnum.SERVICE_NOT_FOUND.getCode(), failure.getCode());
+        assertNull(failure.getData());
+    }
+
+    private Profile profile() {
+        Map<String, Level> tags = new LinkedHashMap<>();
+        tags.put("vip", Level.HIGH);
+        tags.put("risk", Level.LOW);
+
+        Profile profile = new Profile();
+        profile.setId(-7L);
+        profile.setActive(true);
+        profile.setScore(null);
+        profile.setName("张三");
+        profile.setLevel(Level.HIGH);
+        profile.setBalance(new BigDecimal("-1234.50"));
+        profile.setBirthday(new Date(1_700_000_000_000L));
+        profile.setAddress(address("Hangzhou", 310000));
+        profile.setHistory(new ArrayList<>(List.of(address("Beijing", 100000), address("Shanghai", null))));
+        profile.setTags(tags);
+        profile.setExtra(Level.LOW);
+        profile.setCached("cached");
+        return profile;
+    }
+
+    private Address address(String city, Integer zip) {
+        Address address = new Address();
+        address.setCity(city);
+        address.setZip(zip);
+        return address;
+    }
+}
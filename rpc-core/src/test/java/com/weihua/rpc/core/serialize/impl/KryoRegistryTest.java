@@ -0,0 +1,264 @@
+package com.weihua.rpc.core.serialize.impl;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.codec.RpcDecoder;
+import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import com.weihua.rpc.core.serialize.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kryo注册表测试：清单推导的确定性、解析往返、不做引用追踪的标记，以及两端按同一清单得到相同的类ID
+ */
+public class KryoRegistryTest {
+
+    private static final String MANIFEST = String.join(",",
+            Customer.class.getName(),
+            Address.class.getName(),
+            Status.class.getName(),
+            Status[].class.getName(),
+            Item.class.getName(),
+            Order.class.getName());
+
+    public interface AlphaService {
+
+        Customer find(long id);
+
+        Status[] statuses();
+    }
+
+    public interface BetaService {
+
+        Order place(Customer customer, List<Item> items);
+    }
+
+    public enum Status {
+        NEW, PAID
+    }
+
+    public static class Address {
+        String city;
+    }
+
+    public static class Customer {
+        String name;
+        Address address;
+    }
+
+    public static class Item {
+        String sku;
+        BigDecimal price;
+    }
+
+    public static class Order {
+        Customer buyer;
+        Item featured;
+        List<Item> items;
+        Customer payer;
+        Status status;
+    }
+
+    @Test
+    void testManifestIsDeterministic() {
+        KryoRegistry registry = KryoRegistry.fromInterfaces(
+                Arrays.asList(BetaService.class, AlphaService.class), null);
+        KryoRegistry reordered = KryoRegistry.fromInterfaces(
+                Arrays.asList(AlphaService.class, BetaService.class), Collections.emptySet());
+
+        // 接口按名称、方法按签名排序后深度优先展开，基础类型(BigDecimal)不进入清单
+        assertEquals(MANIFEST, registry.getManifest());
+        assertEquals(registry.getManifest(), reordered.getManifest());
+        assertEquals(6, registry.size());
+    }
+
+    @Test
+    void testParseRoundTrip() {
+        KryoRegistry registry = KryoRegistry.fromInterfaces(
+                Arrays.asList(AlphaService.class, BetaService.class), Set.of(BetaService.class.getName()));
+        KryoRegistry parsed = KryoRegistry.parse(registry.getManifest());
+
+        assertEquals(registry.getManifest(), parsed.getManifest());
+        assertEquals(registry.size(), parsed.size());
+        assertEquals(0, KryoRegistry.parse("").size());
+        assertEquals(0, KryoRegistry.parse(null).size());
+    }
+
+    @Test
+    void testUntrackedMarking() {
+        // 只有关闭引用追踪的服务用到的类型才标记，与其他服务共用的类型保持引用追踪
+        KryoRegistry betaUntracked = KryoRegistry.fromInterfaces(
+                Arrays.asList(AlphaService.class, BetaService.class), Set.of(BetaService.class.getName()));
+        assertEquals(String.join(",",
+                Customer.class.getName(),
+                Address.class.getName(),
+                Status.class.getName(),
+                Status[].class.getName(),
+                Item.class.getName() + "!",
+                Order.class.getName() + "!"), betaUntracked.getManifest());
+
+        KryoRegistry alphaUntracked = KryoRegistry.fromInterfaces(
+                Arrays.asList(AlphaService.class, BetaService.class), Set.of(AlphaService.class.getName()));
+        assertEquals(MANIFEST.replace(Status[].class.getName(), Status[].class.getName() + "!"),
+                alphaUntracked.getManifest());
+    }
+
+    @Test
+    void testBothEndsDeriveIdenticalIds() {
+        KryoRegistry server = KryoRegistry.fromInterfaces(Arrays.asList(AlphaService.class, BetaService.class),
+                Set.of(BetaService.class.getName()));
+        KryoRegistry client = KryoRegistry.parse(server.getManifest());
+
+        Kryo serverKryo = new Kryo();
+        Kryo clientKryo = new Kryo();
+        server.apply(serverKryo);
+        client.apply(clientKryo);
+
+        for (Class<?> type : Arrays.asList(RpcRequest.class, BigDecimal.class, Customer.class, Address.class,
+                Status.class, Status[].class, Item.class, Order.class)) {
+            assertEquals(serverKryo.getRegistration(type).getId(), clientKryo.getRegistration(type).getId(),
+                    type.getName());
+        }
+        assertEquals(1000, clientKryo.getRegistration(Customer.class).getId());
+        assertEquals(1005, clientKryo.getRegistration(Order.class).getId());
+
+        // 本地不存在的类跳过注册但仍占用ID，后面的类ID不变
+        Kryo partial = new Kryo();
+        KryoRegistry.parse("com.weihua.rpc.missing.Foo," + Address.class.getName()).apply(partial);
+        assertEquals(1001, partial.getRegistration(Address.class).getId());
+    }
+
+    @Test
+    void testRegisteredSerializerRoundTrip() {
+        Serializer server = new KryoSerializer(KryoRegistry.fromInterfaces(
+                Arrays.asList(AlphaService.class, BetaService.class), null));
+        Serializer client = new KryoSerializer(KryoRegistry.parse(MANIFEST));
+        assertEquals(0x13, server.getType());
+
+        Order order = order();
+        byte[] bytes = server.serialize(order);
+        Order decoded = client.deserialize(bytes, Order.class);
+        assertOrder(order, decoded);
+
+        // 类ID代替完整类名，编码更短；引用追踪的类型保持共享引用
+        assertTrue(bytes.length < new KryoSerializer().serialize(order).length);
+        assertSame(decoded.buyer, decoded.payer);
+        assertSame(decoded.featured, decoded.items.get(0));
+    }
+
+    @Test
+    void testUntrackedTypeIsNotShared() {
+        KryoRegistry registry = KryoRegistry.fromInterfaces(
+                Arrays.asList(AlphaService.class, BetaService.class), Set.of(BetaService.class.getName()));
+        Serializer server = new KryoSerializer(registry);
+        Serializer client = new KryoSerializer(KryoRegistry.parse(registry.getManifest()));
+
+        Order decoded = client.deserialize(server.serialize(order()), Order.class);
+
+        // Item不做引用追踪，同一对象按两份写入；Customer仍做引用追踪
+        assertNotSame(decoded.featured, decoded.items.get(0));
+        assertEquals(decoded.featured.sku, decoded.items.get(0).sku);
+        assertSame(decoded.buyer, decoded.payer);
+    }
+
+    @Test
+    void testRegisteredTypeThroughCodec() {
+        KryoSerializer serverSerializer = new KryoSerializer(KryoRegistry.fromInterfaces(
+                Arrays.asList(AlphaService.class, BetaService.class), null));
+        KryoSerializer clientSerializer = new KryoSerializer(KryoRegistry.parse(MANIFEST));
+        KryoSerializer plain = new KryoSerializer();
+
+        EmbeddedChannel clientChannel = new EmbeddedChannel(new RpcEncoder(plain, RpcProtocol.VERSION_2));
+        clientChannel.attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_2);
+        clientChannel.attr(RpcProtocol.CONNECTION_SERIALIZERS).set(negotiated(clientSerializer));
+
+        Order order = order();
+        clientChannel.writeOutbound(RpcRequest.builder()
+                .requestId("1")
+                .interfaceName(BetaService.class.getName())
+                .methodName("place")
+                .parameterTypes(new Class<?>[] { Order.class })
+                .parameters(new Object[] { order })
+                .build());
+        ByteBuf frame = clientChannel.readOutbound();
+        assertEquals(0x13, frame.getByte(frame.readerIndex() + 3));
+
+        EmbeddedChannel serverChannel = new EmbeddedChannel();
+        serverChannel.attr(RpcProtocol.CONNECTION_SERIALIZERS).set(negotiated(serverSerializer));
+        serverChannel.pipeline().addLast("decoder", new RpcDecoder(plain));
+        serverChannel.pipeline().addLast("encoder", new RpcEncoder(plain, RpcProtocol.VERSION_1));
+        serverChannel.pipeline().addLast("serverHandler", new ChannelInboundHandlerAdapter());
+        serverChannel.writeInbound(frame);
+
+        RpcRequest received = serverChannel.readInbound();
+        assertOrder(order, (Order) received.getParameters()[0]);
+        clientChannel.finishAndReleaseAll();
+        serverChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testRegisteredCacheIsBounded() {
+        String manifest = Customer.class.getName();
+        KryoSerializer cached = KryoSerializer.registered(manifest);
+        assertSame(cached, KryoSerializer.registered(manifest));
+
+        Map<Byte, Serializer> serializers = KryoSerializer.connectionSerializers(manifest);
+        assertSame(cached, serializers.get((byte) 3));
+        assertSame(cached, serializers.get((byte) 0x13));
+
+        // 不断遇到新清单时淘汰最久未使用的实例
+        for (int i = 0; i < 32; i++) {
+            KryoSerializer.registered(manifest + ",com.weihua.rpc.missing.Type" + i);
+        }
+        assertNotSame(cached, KryoSerializer.registered(manifest));
+    }
+
+    private Map<Byte, Serializer> negotiated(KryoSerializer registered) {
+        Map<Byte, Serializer> serializers = new HashMap<>();
+        serializers.put((byte) 3, registered);
+        serializers.put(registered.getType(), registered);
+        return serializers;
+    }
+
+    private Order order() {
+        Address address = new Address();
+        address.city = "Hangzhou";
+        Customer customer = new Customer();
+        customer.name = "alice";
+        customer.address = address;
+        Item item = new Item();
+        item.sku = "sku-1";
+        item.price = new BigDecimal("9.90");
+
+        Order order = new Order();
+        order.buyer = customer;
+        order.payer = customer;
+        order.featured = item;
+        order.items = new ArrayList<>(List.of(item));
+        order.status = Status.PAID;
+        return order;
+    }
+
+    private void assertOrder(Order expected, Order actual) {
+        assertEquals(expected.buyer.name, actual.buyer.name);
+        assertEquals(expected.buyer.address.city, actual.buyer.address.city);
+        assertEquals(expected.featured.sku, actual.featured.sku);
+        assertEquals(expected.featured.price, actual.featured.price);
+        assertEquals(expected.items.size(), actual.items.size());
+        assertEquals(expected.status, actual.status);
+    }
+}
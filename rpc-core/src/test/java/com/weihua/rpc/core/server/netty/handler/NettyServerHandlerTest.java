@@ -0,0 +1,248 @@
+package com.weihua.rpc.core.server.netty.handler;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.protocol.EventLoopMetrics;
+import com.weihua.rpc.core.protocol.RpcProtocol;
+import com.weihua.rpc.core.protocol.codec.RpcDecoder;
+import com.weihua.rpc.core.protocol.codec.RpcEncoder;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.SerializerFactory;
+import com.weihua.rpc.core.server.provider.LocalServiceProvider;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 服务端业务处理器测试：流式结果在客户端声明窗口时逐个推送，否则（v1协议）汇总为列表一次返回；
+ * 解码卸载的请求在业务线程中反序列化并处理，处理中的异常不影响后续请求；
+ * 服务方法返回的CompletionStage完成后回写，同步和异步抛出的异常都以原始异常信息返回
+ */
+public class NettyServerHandlerTest {
+
+    public interface CatalogService {
+
+        Stream<String> letters();
+
+        Iterator<Integer> numbers(int count);
+
+        String threadName();
+
+        CompletableFuture<String> reserve(String item);
+
+        String remove(String item);
+    }
+
+    public static class CatalogServiceImpl implements CatalogService {
+
+        @Override
+        public Stream<String> letters() {
+            return Stream.of("a", "b", "c");
+        }
+
+        @Override
+        public Iterator<Integer> numbers(int count) {
+            return IntStream.range(0, count).iterator();
+        }
+
+        @Override
+        public String threadName() {
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public CompletableFuture<String> reserve(String item) {
+            return CompletableFuture.supplyAsync(() -> {
+                if (item.isEmpty()) {
+                    throw new IllegalArgumentException("item required");
+                }
+                return "reserved-" + item;
+            });
+        }
+
+        @Override
+        public String remove(String item) {
+            throw new IllegalStateException("item locked: " + item);
+        }
+    }
+
+    // 业务线程写出的响应
+    private final BlockingQueue<RpcResponse<?>> written = new LinkedBlockingQueue<>();
+
+    private final Serializer serializer = SerializerFactory.getSerializer("kryo");
+
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        LocalServiceProvider serviceProvider = new LocalServiceProvider();
+        serviceProvider.registerService(CatalogService.class, new CatalogServiceImpl());
+
+        channel = new EmbeddedChannel();
+        channel.pipeline().addLast("writer", new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                written.add((RpcResponse<?>) msg);
+                promise.setSuccess();
+            }
+        });
+        channel.pipeline().addLast("serverHandler", new NettyServerHandler(serviceProvider));
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testStreamCollectedToListWithoutWindow() throws Exception {
+        channel.writeInbound(request("1", "letters", new Class<?>[0], new Object[0]));
+
+        RpcResponse<?> response = written.poll(3, TimeUnit.SECONDS);
+        assertNotNull(response);
+        assertEquals("1", response.getRequestId());
+        assertEquals(200, response.getCode());
+        assertFalse(response.isStreaming());
+        assertEquals(Arrays.asList("a", "b", "c"), response.getData());
+    }
+
+    @Test
+    void testIteratorCollectedToListWithoutWindow() throws Exception {
+        channel.writeInbound(request("2", "numbers", new Class<?>[] { int.class }, new Object[] { 4 }));
+
+        RpcResponse<?> response = written.poll(3, TimeUnit.SECONDS);
+        assertNotNull(response);
+        assertEquals(Arrays.asList(0, 1, 2, 3), response.getData());
+    }
+
+    @Test
+    void testStreamPushedWithinWindow() throws Exception {
+        RpcRequest request = request("3", "numbers", new Class<?>[] { int.class }, new Object[] { 10 });
+        request.setAttachments(Collections.singletonMap(RpcProtocol.ATTACHMENT_STREAM_CREDITS, "2"));
+        channel.writeInbound(request);
+
+        for (int i = 0; i < 2; i++) {
+            RpcResponse<?> element = written.poll(3, TimeUnit.SECONDS);
+            assertNotNull(element);
+            assertTrue(element.isStreaming());
+            assertEquals(i, element.getData());
+        }
+        // 初始窗口用完后等待客户端追加额度
+        assertNull(written.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testDeferredRequestDecodedOnServiceThread() throws Exception {
+        EventLoopMetrics metrics = new EventLoopMetrics();
+        addOffloadingDecoder(metrics);
+
+        channel.writeInbound(encode(request("4", "threadName", new Class<?>[0], new Object[0])));
+
+        RpcResponse<?> response = written.poll(3, TimeUnit.SECONDS);
+        assertNotNull(response);
+        assertEquals("4", response.getRequestId());
+        assertEquals(200, response.getCode());
+        assertEquals("rpc-service-handler", response.getData());
+        assertEquals(1L, metrics.getStats().get("offloadedDecodeCount"));
+        assertEquals(0L, metrics.getStats().get("inlineDecodeCount"));
+    }
+
+    @Test
+    void testDeferredRequestFailureDoesNotStopLaterRequests() throws Exception {
+        EventLoopMetrics metrics = new EventLoopMetrics();
+        addOffloadingDecoder(metrics);
+
+        // 缺少参数类型的请求在查找服务方法时抛出异常，异常记录日志，不回写响应
+        channel.writeInbound(encode(request("5", "threadName", null, new Object[0])));
+        assertNull(written.poll(200, TimeUnit.MILLISECONDS));
+
+        channel.writeInbound(encode(request("6", "letters", new Class<?>[0], new Object[0])));
+        RpcResponse<?> response = written.poll(3, TimeUnit.SECONDS);
+        assertNotNull(response);
+        assertEquals("6", response.getRequestId());
+        assertEquals(Arrays.asList("a", "b", "c"), response.getData());
+        assertEquals(2L, metrics.getStats().get("offloadedDecodeCount"));
+    }
+
+    @Test
+    void testCompletionStageWrittenWhenComplete() throws Exception {
+        channel.writeInbound(request("7", "reserve", new Class<?>[] { String.class }, new Object[] { "book" }));
+
+        RpcResponse<?> response = written.poll(3, TimeUnit.SECONDS);
+        assertNotNull(response);
+        assertEquals("7", response.getRequestId());
+        assertEquals(200, response.getCode());
+        assertEquals("reserved-book", response.getData());
+    }
+
+    @Test
+    void testAsyncFailureUnwrapsCompletionException() throws Exception {
+        channel.writeInbound(request("8", "reserve", new Class<?>[] { String.class }, new Object[] { "" }));
+
+        RpcResponse<?> response = written.poll(3, TimeUnit.SECONDS);
+        assertNotNull(response);
+        assertEquals("8", response.getRequestId());
+        assertEquals(500, response.getCode());
+        assertEquals("调用方法失败: item required", response.getMessage());
+    }
+
+    @Test
+    void testSyncFailureKeepsOriginalMessage() throws Exception {
+        channel.writeInbound(request("9", "remove", new Class<?>[] { String.class }, new Object[] { "pen" }));
+
+        // 方法句柄不包装为InvocationTargetException，响应中是服务方法抛出的异常信息
+        RpcResponse<?> response = written.poll(3, TimeUnit.SECONDS);
+        assertNotNull(response);
+        assertEquals(500, response.getCode());
+        assertEquals("调用方法失败: item locked: pen", response.getMessage());
+    }
+
+    /**
+     * 卸载阈值为0，所有请求都以未反序列化的形式交给处理器
+     */
+    private void addOffloadingDecoder(EventLoopMetrics metrics) {
+        channel.pipeline().addFirst("decoder", new RpcDecoder(serializer, null, RpcProtocol.MAX_FRAME_LENGTH,
+                RpcProtocol.MAX_MESSAGE_LENGTH, 0, false, RpcProtocol.DEFAULT_MAX_CHUNKED_MESSAGES,
+                RpcProtocol.DEFAULT_CHUNKED_MESSAGE_TIMEOUT_MILLIS, metrics));
+    }
+
+    /**
+     * 编码为v2帧，只有v2帧才会卸载解码
+     */
+    private ByteBuf encode(RpcRequest request) {
+        EmbeddedChannel client = new EmbeddedChannel(new RpcEncoder(serializer, RpcProtocol.VERSION_2));
+        client.attr(RpcProtocol.PEER_VERSION).set(RpcProtocol.VERSION_2);
+        client.writeOutbound(request);
+        ByteBuf frame = client.readOutbound();
+        client.finishAndReleaseAll();
+        return frame;
+    }
+
+    private RpcRequest request(String requestId, String methodName, Class<?>[] parameterTypes,
+            Object[] parameters) {
+        return RpcRequest.builder()
+                .requestId(requestId)
+                .interfaceName(CatalogService.class.getName())
+                .methodName(methodName)
+                .parameterTypes(parameterTypes)
+                .parameters(parameters)
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.weihua.rpc.core.server.provider;
+
+import com.weihua.rpc.core.server.config.RateLimitConfig;
+import com.weihua.rpc.core.server.ratelimit.RateLimitManager;
+import com.weihua.rpc.core.server.registry.ServiceRegistry;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 测试用的服务提供者：不连接注册中心，不做限流
+ */
+public class LocalServiceProvider extends ServiceProvider {
+
+    public LocalServiceProvider() {
+        RateLimitConfig rateLimitConfig = new RateLimitConfig();
+        rateLimitConfig.setEnabled(false);
+        setRateLimitManager(new RateLimitManager(rateLimitConfig));
+        setServiceRegistry(new ServiceRegistry() {
+            @Override
+            public void register(Class<?> clazz, InetSocketAddress serviceAddress) {
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        });
+    }
+}
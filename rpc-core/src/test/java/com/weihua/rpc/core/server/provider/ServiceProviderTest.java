@@ -0,0 +1,164 @@
+package com.weihua.rpc.core.server.provider;
+
+import com.weihua.rpc.core.server.annotation.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 服务分发表测试：方法ID按签名排序分配且重新注册时保持不变，按ID和签名都能查到同一方法，
+ * 方法句柄原样返回CompletionStage并原样抛出服务方法的异常
+ */
+public class ServiceProviderTest {
+
+    public interface AccountService {
+
+        long balance(String account);
+
+        CompletionStage<String> open(String owner);
+
+        void close(String account) throws IOException;
+
+        String ping();
+    }
+
+    public interface AuditService {
+
+        int count();
+    }
+
+    public static class AccountServiceImpl implements AccountService {
+
+        private final long balance;
+
+        AccountServiceImpl(long balance) {
+            this.balance = balance;
+        }
+
+        @Override
+        public long balance(String account) {
+            return balance;
+        }
+
+        @Override
+        public CompletionStage<String> open(String owner) {
+            if (owner == null) {
+                CompletableFuture<String> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IllegalStateException("owner required"));
+                return failed;
+            }
+            return CompletableFuture.completedFuture("acc-" + owner);
+        }
+
+        @Override
+        public void close(String account) throws IOException {
+            throw new IOException("account locked: " + account);
+        }
+
+        @Override
+        public String ping() {
+            return "pong";
+        }
+    }
+
+    private LocalServiceProvider serviceProvider;
+
+    @BeforeEach
+    void setUp() {
+        serviceProvider = new LocalServiceProvider();
+    }
+
+    @Test
+    void testIdsFollowSignatureOrder() throws Exception {
+        serviceProvider.registerService(AccountService.class, new AccountServiceImpl(1));
+
+        Map<String, Integer> ids = serviceProvider.getMethodIds();
+        assertEquals(4, ids.size());
+        assertEquals(1, ids.get(signature("balance", String.class)));
+        assertEquals(2, ids.get(signature("close", String.class)));
+        assertEquals(3, ids.get(signature("open", String.class)));
+        assertEquals(4, ids.get(signature("ping")));
+    }
+
+    @Test
+    void testReRegisterKeepsIds() throws Throwable {
+        serviceProvider.registerService(AccountService.class, new AccountServiceImpl(1));
+        Map<String, Integer> before = Map.copyOf(serviceProvider.getMethodIds());
+        serviceProvider.registerService(AuditService.class, (AuditService) () -> 7);
+
+        // 重新注册沿用原ID，分发表绑定新的服务实例，其他服务的ID不受影响
+        AccountServiceImpl replacement = new AccountServiceImpl(2);
+        serviceProvider.registerService(AccountService.class, replacement);
+
+        for (Map.Entry<String, Integer> entry : before.entrySet()) {
+            assertEquals(entry.getValue(), serviceProvider.getMethodIds().get(entry.getKey()));
+        }
+        assertEquals(5, serviceProvider.getMethodIds().get(AuditService.class.getName() + "#count()"));
+        assertEquals(5, serviceProvider.getMethodIds().size());
+
+        ServiceMethod balance = serviceProvider.getServiceMethod(before.get(signature("balance", String.class)));
+        assertSame(replacement, balance.getService());
+        assertEquals(2L, balance.invoke(new Object[] { "a" }));
+        assertEquals(7, serviceProvider.getServiceMethod(5).invoke(null));
+    }
+
+    @Test
+    void testLookupByIdAndSignature() throws Exception {
+        serviceProvider.registerService(AccountService.class, new AccountServiceImpl(1));
+
+        String signature = signature("open", String.class);
+        ServiceMethod byId = serviceProvider.getServiceMethod(serviceProvider.getMethodIds().get(signature));
+        assertSame(byId, serviceProvider.getServiceMethod(signature));
+        assertEquals(AccountService.class.getName(), byId.getInterfaceName());
+        assertEquals("open", byId.getMethodName());
+        assertArrayEquals(new Class<?>[] { String.class }, byId.getParameterTypes());
+
+        // 由请求中的接口名、方法名和参数类型生成的签名与注册时一致
+        assertSame(byId, serviceProvider.getServiceMethod(
+                MethodSignature.generate(AccountService.class.getName(), "open", new Class<?>[] { String.class })));
+
+        assertNull(serviceProvider.getServiceMethod(0));
+        assertNull(serviceProvider.getServiceMethod(-1));
+        assertNull(serviceProvider.getServiceMethod(99));
+        assertNull(serviceProvider.getServiceMethod(AccountService.class.getName() + "#open(java.lang.Integer)"));
+    }
+
+    @Test
+    void testInvokeReturnsCompletionStageAsIs() throws Throwable {
+        serviceProvider.registerService(AccountService.class, new AccountServiceImpl(1));
+        ServiceMethod open = serviceProvider.getServiceMethod(signature("open", String.class));
+
+        Object result = open.invoke(new Object[] { "bob" });
+        assertInstanceOf(CompletionStage.class, result);
+        assertEquals("acc-bob", ((CompletionStage<?>) result).toCompletableFuture().get());
+
+        // 异步失败保留在返回的CompletionStage中，由处理器在完成时回写
+        CompletableFuture<?> failed = ((CompletionStage<?>) open.invoke(new Object[] { null })).toCompletableFuture();
+        assertTrue(failed.isCompletedExceptionally());
+    }
+
+    @Test
+    void testInvokeThrowsOriginalException() throws Throwable {
+        serviceProvider.registerService(AccountService.class, new AccountServiceImpl(1));
+
+        // 方法句柄不包装为InvocationTargetException，受检异常原样抛出
+        ServiceMethod close = serviceProvider.getServiceMethod(signature("close", String.class));
+        IOException e = assertThrows(IOException.class, () -> close.invoke(new Object[] { "a" }));
+        assertEquals("account locked: a", e.getMessage());
+
+        assertEquals("pong", serviceProvider.getServiceMethod(signature("ping")).invoke(null));
+        assertThrows(ClassCastException.class,
+                () -> serviceProvider.getServiceMethod(signature("balance", String.class)).invoke(new Object[] { 1 }));
+    }
+
+    private String signature(String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return MethodSignature.generate(AccountService.class,
+                AccountService.class.getMethod(methodName, parameterTypes));
+    }
+}
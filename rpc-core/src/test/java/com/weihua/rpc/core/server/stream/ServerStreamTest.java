@@ -0,0 +1,123 @@
+package com.weihua.rpc.core.server.stream;
+
+import com.weihua.rpc.common.model.RpcResponse;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 服务端流测试：发送数量不超过客户端授予的额度，控制帧追加额度或取消流，发布者结束时发送结束响应
+ */
+public class ServerStreamTest {
+
+    private static final int WINDOW = 4;
+
+    private final AtomicInteger pulled = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        channel = new EmbeddedChannel();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testSendsNoMoreThanCredits() {
+        // 无限迭代器，在当前线程拉取，发送数量完全由额度决定
+        ServerStream.start(channel, "1", (byte) 3, WINDOW, publisher(endless()));
+
+        assertStreamed("1", 0, WINDOW);
+        assertNull(channel.readOutbound());
+        assertEquals(WINDOW, pulled.get());
+
+        // 客户端消费半个窗口后追加额度
+        ServerStream.control(channel, "1", WINDOW / 2);
+        assertStreamed("1", WINDOW, WINDOW / 2);
+        assertNull(channel.readOutbound());
+        assertEquals(WINDOW + WINDOW / 2, pulled.get());
+    }
+
+    @Test
+    void testNegativeCreditsCancelStream() {
+        ServerStream.start(channel, "2", (byte) 3, WINDOW, publisher(endless()));
+        assertStreamed("2", 0, WINDOW);
+
+        ServerStream.control(channel, "2", -1);
+        assertTrue(closed.get());
+
+        // 取消后不再发送元素和结束响应，后续控制帧被忽略
+        ServerStream.control(channel, "2", WINDOW);
+        assertNull(channel.readOutbound());
+        assertEquals(WINDOW, pulled.get());
+    }
+
+    @Test
+    void testCompletionSendsEndResponse() {
+        ServerStream.start(channel, "3", (byte) 5, WINDOW, publisher(Arrays.asList(0, 1).iterator()));
+
+        assertStreamed("3", 0, 2);
+        RpcResponse<?> end = channel.readOutbound();
+        assertFalse(end.isStreaming());
+        assertEquals(200, end.getCode());
+        assertNull(end.getData());
+        assertEquals(5, end.getSerializerType());
+        assertTrue(closed.get());
+
+        // 流结束后从连接的流表中移除
+        ServerStream.control(channel, "3", WINDOW);
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    void testConnectionCloseCancelsStreams() {
+        ServerStream.start(channel, "4", (byte) 3, WINDOW, publisher(endless()));
+        assertStreamed("4", 0, WINDOW);
+
+        ServerStream.cancelAll(channel);
+        assertTrue(closed.get());
+        ServerStream.control(channel, "4", WINDOW);
+        assertNull(channel.readOutbound());
+    }
+
+    private void assertStreamed(String requestId, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            RpcResponse<?> element = channel.readOutbound();
+            assertNotNull(element, "缺少第" + i + "个元素");
+            assertTrue(element.isStreaming());
+            assertEquals(requestId, element.getRequestId());
+            assertEquals(i, element.getData());
+        }
+    }
+
+    private IteratorPublisher<Integer> publisher(Iterator<Integer> iterator) {
+        return new IteratorPublisher<>(iterator, () -> closed.set(true), Runnable::run);
+    }
+
+    private Iterator<Integer> endless() {
+        return new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return pulled.getAndIncrement();
+            }
+        };
+    }
+}
@@ -10,6 +10,7 @@ package com.weihua.rpc.example.common.api;
 import com.weihua.rpc.core.server.annotation.Retryable;
 import com.weihua.rpc.example.common.model.User;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -35,6 +36,13 @@ public interface UserService {
     @Retryable(description = "查询操作，无副作用")
     List<User> getAllUsers();
 
+    /**
+     * 逐个获取所有用户，服务端按客户端的消费速度推送
+     *
+     * @return 用户迭代器
+     */
+    Iterator<User> iterateAllUsers();
+
     /**
      * 创建用户
      * 
@@ -7,6 +7,7 @@
  */
 package com.weihua.rpc.example.common.model;
 
+import com.weihua.rpc.core.serialize.codec.RpcCodec;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,6 +23,7 @@ import java.util.Date;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@RpcCodec
 public class User implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -0,0 +1,98 @@
+package com.weihua.rpc.example.common.model;
+
+import com.weihua.rpc.common.model.RpcRequest;
+import com.weihua.rpc.common.model.RpcResponse;
+import com.weihua.rpc.core.serialize.Serializer;
+import com.weihua.rpc.core.serialize.codec.CodecRegistry;
+import com.weihua.rpc.core.serialize.impl.BinaryCodecSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 示例模型编解码测试：User/Order的生成编解码器随模块登记，作为参数和返回值经二进制序列化器往返后字段不变
+ */
+public class ModelCodecTest {
+
+    private final Serializer serializer = new BinaryCodecSerializer();
+
+    @Test
+    void testGeneratedCodecsAreLoaded() {
+        assertInstanceOf(User_RpcCodec.class, CodecRegistry.get(User.class));
+        assertInstanceOf(Order_RpcCodec.class, CodecRegistry.get(Order.class));
+    }
+
+    @Test
+    void testUserRoundTrip() {
+        User user = user();
+        assertEquals(user, serializer.deserialize(serializer.serialize(user), User.class));
+
+        // 未赋值的字段保持为null
+        User sparse = User.builder().id(2L).username("bob").build();
+        assertEquals(sparse, serializer.deserialize(serializer.serialize(sparse), User.class));
+    }
+
+    @Test
+    void testOrderRoundTrip() {
+        Order order = order();
+        Order decoded = serializer.deserialize(serializer.serialize(order), Order.class);
+
+        assertEquals(order, decoded);
+        assertEquals(order.getAmount().scale(), decoded.getAmount().scale());
+        assertNull(decoded.getPayTime());
+    }
+
+    @Test
+    void testModelsAsRequestParameters() {
+        RpcRequest request = RpcRequest.builder()
+                .requestId("1")
+                .interfaceName("com.weihua.rpc.example.common.api.OrderService")
+                .methodName("createOrder")
+                .parameterTypes(new Class<?>[] { User.class, Order.class })
+                .parameters(new Object[] { user(), order() })
+                .build();
+
+        RpcRequest decoded = serializer.deserialize(serializer.serialize(request), RpcRequest.class);
+        assertArrayEquals(request.getParameterTypes(), decoded.getParameterTypes());
+        assertArrayEquals(request.getParameters(), decoded.getParameters());
+    }
+
+    @Test
+    void testModelsAsResponseData() {
+        List<Order> orders = Arrays.asList(order(), Order.builder().id("O-2").userId(1L).build());
+        RpcResponse<List<Order>> response = RpcResponse.success("1", orders);
+
+        RpcResponse<?> decoded = serializer.deserialize(serializer.serialize(response), RpcResponse.class);
+        assertEquals(orders, decoded.getData());
+    }
+
+    private User user() {
+        return User.builder()
+                .id(1L)
+                .username("alice")
+                .realName("爱丽丝")
+                .email("alice@example.com")
+                .phone("13800000000")
+                .status(1)
+                .createTime(new Date(1_700_000_000_000L))
+                .updateTime(new Date(1_700_000_100_000L))
+                .build();
+    }
+
+    private Order order() {
+        return Order.builder()
+                .id("O-1")
+                .userId(1L)
+                .amount(new BigDecimal("199.90"))
+                .payStatus(0)
+                .orderStatus(1)
+                .createTime(new Date(1_700_000_000_000L))
+                .updateTime(new Date(1_700_000_000_000L))
+                .build();
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -77,6 +78,13 @@ public class UserServiceImpl implements UserService {
         return new ArrayList<>(userMap.values());
     }
 
+    @Override
+    @RateLimit(qps = 100)
+    public Iterator<User> iterateAllUsers() {
+        log.info("流式获取所有用户");
+        return userMap.values().iterator();
+    }
+
     @Override
     @RateLimit(qps = 50) // 写操作限流更严格
     public User createUser(User user) {
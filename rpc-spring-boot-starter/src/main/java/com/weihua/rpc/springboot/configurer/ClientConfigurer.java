@@ -11,6 +11,7 @@ import com.weihua.rpc.core.client.config.ClientConfig;
 import com.weihua.rpc.core.condition.ConditionalOnClientMode;
 import com.weihua.rpc.springboot.properties.CircuitBreakerProperties;
 import com.weihua.rpc.springboot.properties.RpcClientProperties;
+import com.weihua.rpc.springboot.properties.SerializeProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,13 +23,15 @@ import org.springframework.context.annotation.Configuration;
 @ConditionalOnClientMode
 @EnableConfigurationProperties({
         RpcClientProperties.class,
-        CircuitBreakerProperties.class
+        CircuitBreakerProperties.class,
+        SerializeProperties.class
 })
 public class ClientConfigurer {
 
     @Bean
     public ClientConfig clientConfig(
-            RpcClientProperties properties) {
+            RpcClientProperties properties,
+            SerializeProperties serializeProperties) {
 
         ClientConfig config = new ClientConfig();
 
@@ -37,6 +40,17 @@ public class ClientConfigurer {
         config.setConnectTimeout(properties.getConnectTimeout());
         config.setRequestTimeout(properties.getRequestTimeout());
 
+        // 接口和方法级别的调用超时
+        properties.getInterfaces().forEach((interfaceName, interfaceConfig) -> {
+            if (interfaceConfig.getTimeout() != null) {
+                config.getMethodTimeouts().put(interfaceName, interfaceConfig.getTimeout());
+            }
+            if (interfaceConfig.getMaxInFlight() != null) {
+                config.getServiceMaxInFlight().put(interfaceName, interfaceConfig.getMaxInFlight());
+            }
+        });
+        config.getMethodTimeouts().putAll(properties.getMethodTimeouts());
+
         // 重试配置
         config.setRetryEnable(properties.isRetryEnable());
         config.setMaxRetryAttempts(properties.getMaxRetries());
@@ -51,6 +65,13 @@ public class ClientConfigurer {
 
         // 连接模式配置
         config.setConnectionMode(properties.getConnectionMode());
+        config.setConnectionsPerAddress(properties.getConnectionsPerAddress());
+
+        // 进行中调用上限和写缓冲水位
+        config.setMaxInFlightPerConnection(properties.getMaxInFlightPerConnection());
+        config.setMaxInFlightPerService(properties.getMaxInFlightPerService());
+        config.setWriteBufferLowWaterMark(properties.getWriteBufferLowWaterMark());
+        config.setWriteBufferHighWaterMark(properties.getWriteBufferHighWaterMark());
 
         // 心跳配置
         config.setHeartbeatInterval(properties.getHeartbeatInterval());
@@ -61,6 +82,35 @@ public class ClientConfigurer {
         config.setServiceVersion(properties.getServiceVersion());
         config.setServiceGroup(properties.getServiceGroup());
 
+        // 协议配置
+        config.setProtocolVersion(properties.getProtocolVersion());
+        config.setHandshakeTimeout(properties.getHandshakeTimeout());
+
+        // flush合并配置
+        config.setFlushBatchEnabled(properties.isFlushBatchEnabled());
+        config.setFlushBatchSize(properties.getFlushBatchSize());
+        config.setFlushBatchDelay(properties.getFlushBatchDelay());
+
+        // 帧大小配置
+        config.setMaxFrameLength(properties.getMaxFrameLength());
+        config.setMaxMessageLength(properties.getMaxMessageSize());
+        config.setChunkSize(properties.getChunkSize());
+        config.setMaxChunkedMessages(properties.getMaxChunkedMessages());
+        config.setChunkedMessageTimeout(properties.getChunkedMessageTimeout());
+        config.setPreEncodeEnabled(properties.isPreEncodeEnabled());
+
+        // 流式调用配置
+        config.setStreamWindow(properties.getStreamWindow());
+
+        // 异步调用配置
+        config.setCallbackThreads(properties.getCallbackThreads());
+
+        // 压缩配置
+        config.setCompressionEnabled(serializeProperties.isCompression());
+        config.setCompressor(serializeProperties.getCompressor());
+        config.setCompressionThreshold(serializeProperties.getCompressionThreshold());
+        config.setKryoRegistrationEnabled(serializeProperties.isKryoRegistration());
+
         return config;
     }
 }
\ No newline at end of file
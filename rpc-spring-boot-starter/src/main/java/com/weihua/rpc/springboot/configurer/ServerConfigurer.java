@@ -10,6 +10,7 @@ package com.weihua.rpc.springboot.configurer;
 import com.weihua.rpc.core.condition.ConditionalOnServerMode;
 import com.weihua.rpc.core.server.config.ServerConfig;
 import com.weihua.rpc.springboot.properties.RpcServerProperties;
+import com.weihua.rpc.springboot.properties.SerializeProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,18 +24,20 @@ import java.time.Duration;
  */
 @Configuration
 @ConditionalOnServerMode
-@EnableConfigurationProperties(RpcServerProperties.class)
+@EnableConfigurationProperties({ RpcServerProperties.class, SerializeProperties.class })
 public class ServerConfigurer {
 
     /**
      * 创建服务器配置对象并绑定属性
      * 
      * @param properties 服务器配置属性
+     * @param serializeProperties 序列化配置属性，包含压缩配置
      * @param env        环境变量，用于获取额外的配置参数
      * @return 服务器配置对象
      */
     @Bean
-    public ServerConfig serverConfig(RpcServerProperties properties, Environment env) {
+    public ServerConfig serverConfig(RpcServerProperties properties, SerializeProperties serializeProperties,
+            Environment env) {
         ServerConfig config = new ServerConfig();
 
         // 基础属性映射
@@ -91,6 +94,27 @@ public class ServerConfigurer {
             config.setRequestTimeout(properties.getRequestTimeout());
         }
 
+        // flush合并配置
+        config.setFlushBatchEnabled(properties.isFlushBatchEnabled());
+        config.setFlushBatchSize(properties.getFlushBatchSize());
+        config.setFlushBatchDelay(properties.getFlushBatchDelay());
+
+        // 帧大小配置
+        config.setMaxFrameLength(properties.getMaxFrameLength());
+        config.setMaxMessageLength(properties.getMaxMessageSize());
+        config.setChunkSize(properties.getChunkSize());
+        config.setMaxChunkedMessages(properties.getMaxChunkedMessages());
+        config.setChunkedMessageTimeout(properties.getChunkedMessageTimeout());
+        config.setDecodeOffloadEnabled(properties.isDecodeOffloadEnabled());
+        config.setDecodeOffloadThreshold(properties.getDecodeOffloadThreshold());
+        config.setPreEncodeEnabled(properties.isPreEncodeEnabled());
+        config.setLazyParametersEnabled(properties.isLazyParametersEnabled());
+        config.setEventLoopProbeEnabled(properties.isEventLoopProbeEnabled());
+
+        // 压缩配置
+        config.setCompressionEnabled(serializeProperties.isCompression());
+        config.setCompressionThreshold(serializeProperties.getCompressionThreshold());
+
         return config;
     }
 }
\ No newline at end of file
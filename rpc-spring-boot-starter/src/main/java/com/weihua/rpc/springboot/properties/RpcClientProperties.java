@@ -91,6 +91,31 @@ public class RpcClientProperties {
      */
     private ConnectionMode connectionMode = ConnectionMode.LAZY;
 
+    /**
+     * 每个服务地址的连接数，大于1时按进行中调用数在连接间选择
+     */
+    private int connectionsPerAddress = 1;
+
+    /**
+     * 单个连接的进行中调用上限，0表示不限制，达到上限的连接不参与负载均衡
+     */
+    private int maxInFlightPerConnection = 0;
+
+    /**
+     * 单个服务的进行中调用上限，0表示不限制，可在接口特定配置中单独设置
+     */
+    private int maxInFlightPerService = 0;
+
+    /**
+     * 连接写缓冲低水位(字节)
+     */
+    private int writeBufferLowWaterMark = 32 * 1024;
+
+    /**
+     * 连接写缓冲高水位(字节)，超过后连接不可写，不参与负载均衡
+     */
+    private int writeBufferHighWaterMark = 64 * 1024;
+
     /**
      * 心跳间隔
      */
@@ -126,6 +151,76 @@ public class RpcClientProperties {
      */
     private boolean circuitBreakerEnable = true;
 
+    /**
+     * 协议版本：1 或 2，与旧版本服务端通信时设置为1
+     */
+    private int protocolVersion = 2;
+
+    /**
+     * v2握手超时时间，超时未收到服务端响应时按v1协议通信
+     */
+    private Duration handshakeTimeout = Duration.ofSeconds(1);
+
+    /**
+     * 是否合并flush操作，高并发下减少系统调用次数
+     */
+    private boolean flushBatchEnabled = false;
+
+    /**
+     * 累计多少次flush后立即刷新
+     */
+    private int flushBatchSize = 32;
+
+    /**
+     * flush合并的延迟预算，为0时在事件循环处理完当前任务后刷新
+     */
+    private Duration flushBatchDelay = Duration.ZERO;
+
+    /**
+     * 最大消息长度（字节），分块重组或解压后的上限
+     */
+    private int maxMessageSize = 64 * 1024 * 1024;
+
+    /**
+     * 单帧最大长度（字节），超过的帧被跳过
+     */
+    private int maxFrameLength = 10 * 1024 * 1024;
+
+    /**
+     * 分块大小（字节），超过该大小的请求拆分为多个分块帧发送
+     */
+    private int chunkSize = 1024 * 1024;
+
+    /**
+     * 单个连接上同时重组的分块响应上限
+     */
+    private int maxChunkedMessages = 8;
+
+    /**
+     * 分块响应的重组超时，超过该时间未收到下一个分块的响应被丢弃
+     */
+    private Duration chunkedMessageTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 是否在调用线程中预编码请求
+     */
+    private boolean preEncodeEnabled = false;
+
+    /**
+     * 流式调用窗口，服务端在收到追加额度前最多推送的元素数
+     */
+    private int streamWindow = 32;
+
+    /**
+     * 异步调用回调线程数，返回CompletableFuture的方法在该线程池中完成
+     */
+    private int callbackThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 方法级别调用超时，键为"接口全限定名#方法名"
+     */
+    private Map<String, Duration> methodTimeouts = new HashMap<>();
+
     /**
      * 接口特定配置
      */
@@ -155,5 +250,10 @@ public class RpcClientProperties {
          * 是否启用熔断器
          */
         private Boolean circuitBreakerEnable;
+
+        /**
+         * 进行中调用上限
+         */
+        private Integer maxInFlight;
     }
 }
\ No newline at end of file
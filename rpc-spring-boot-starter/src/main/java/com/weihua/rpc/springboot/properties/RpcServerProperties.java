@@ -85,9 +85,54 @@ public class RpcServerProperties {
 
     /**
      * 最大消息长度（字节）
-     * 防止异常大的请求导致内存溢出
+     * 分块重组或解压后的上限，防止异常大的请求导致内存溢出
      */
-    private int maxMessageSize = 10 * 1024 * 1024; // 10MB
+    private int maxMessageSize = 64 * 1024 * 1024; // 64MB
+
+    /**
+     * 单帧最大长度（字节），超过的帧被跳过
+     */
+    private int maxFrameLength = 10 * 1024 * 1024; // 10MB
+
+    /**
+     * 分块大小（字节），超过该大小的响应拆分为多个分块帧发送
+     */
+    private int chunkSize = 1024 * 1024; // 1MB
+
+    /**
+     * 单个连接上同时重组的分块请求上限
+     */
+    private int maxChunkedMessages = 8;
+
+    /**
+     * 分块请求的重组超时，超过该时间未收到下一个分块的请求被丢弃
+     */
+    private Duration chunkedMessageTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 是否将请求的反序列化移出IO线程
+     */
+    private boolean decodeOffloadEnabled = false;
+
+    /**
+     * 移出IO线程的消息体大小阈值(字节)，为0时全部移出
+     */
+    private int decodeOffloadThreshold = 0;
+
+    /**
+     * 是否在业务线程中预编码响应
+     */
+    private boolean preEncodeEnabled = false;
+
+    /**
+     * 是否延迟反序列化请求参数
+     */
+    private boolean lazyParametersEnabled = false;
+
+    /**
+     * 是否在IO线程上运行任务延迟探针
+     */
+    private boolean eventLoopProbeEnabled = false;
 
     /**
      * 是否启用TCP Keepalive
@@ -99,6 +144,21 @@ public class RpcServerProperties {
      */
     private boolean tcpNoDelay = true;
 
+    /**
+     * 是否合并flush操作，高并发下减少系统调用次数
+     */
+    private boolean flushBatchEnabled = false;
+
+    /**
+     * 累计多少次flush后立即刷新
+     */
+    private int flushBatchSize = 32;
+
+    /**
+     * flush合并的延迟预算，为0时在事件循环处理完当前任务后刷新
+     */
+    private Duration flushBatchDelay = Duration.ZERO;
+
     /**
      * 接收缓冲区大小（字节）
      */
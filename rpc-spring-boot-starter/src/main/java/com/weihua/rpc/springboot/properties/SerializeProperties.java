@@ -19,7 +19,7 @@ import lombok.Data;
 public class SerializeProperties {
 
     /**
-     * 序列化类型: json, protobuf, kryo, hessian, etc.
+     * 序列化类型: json, protobuf, kryo, hessian, binary(编译期生成的编解码器), etc.
      */
     private String type = "json";
 
@@ -32,4 +32,14 @@ public class SerializeProperties {
      * 压缩阈值(字节)，超过该阈值才会压缩
      */
     private int compressionThreshold = 2048;
+
+    /**
+     * 压缩算法: snappy, deflate
+     */
+    private String compressor = "snappy";
+
+    /**
+     * 是否启用Kryo类注册，开启后客户端在握手时获取服务端的类注册清单，按类ID代替类名编码
+     */
+    private boolean kryoRegistration = false;
 }
\ No newline at end of file
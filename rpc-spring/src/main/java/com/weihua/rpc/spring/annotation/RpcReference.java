@@ -29,9 +29,10 @@ public @interface RpcReference {
     String group() default "default";
 
     /**
-     * 服务调用超时时间（毫秒）
+     * 服务调用超时时间（毫秒），不大于0时使用全局请求超时；
+     * 方法上的@RpcTimeout注解和配置文件中的接口、方法级别超时优先
      */
-    int timeout() default 3000;
+    int timeout() default 0;
 
     /**
      * 重试次数
@@ -48,4 +49,9 @@ public @interface RpcReference {
      * 可选值：random, roundrobin, leastactive, consistenthash
      */
     String loadBalance() default "random";
+
+    /**
+     * 请求使用的序列化方式，如 kryo、protobuf，为空时优先采用服务端声明的偏好，其次使用全局配置
+     */
+    String serializer() default "";
 }
@@ -36,4 +36,16 @@ public @interface RpcService {
      */
     String group() default "default";
 
+    /**
+     * 服务偏好的序列化方式，如 kryo、protobuf，为空时使用全局配置
+     * 握手时下发给客户端，客户端引用未指定序列化方式时采用
+     */
+    String serializer() default "";
+
+    /**
+     * 使用Kryo类注册时，服务参数和返回值类型是否做引用追踪
+     * 对象图中没有共享或循环引用时可以关闭，省去每个对象的引用查找
+     */
+    boolean kryoReferences() default true;
+
 }
@@ -95,8 +95,9 @@ public class RpcReferenceBeanPostProcessor implements BeanPostProcessor {
      * 获取或创建RPC代理对象
      */
     private Object getOrCreateProxy(Class<?> interfaceType, RpcReference annotation) {
-        // 生成唯一键，包括接口类型和版本、分组信息
-        String proxyKey = interfaceType.getName() + ":" + annotation.version() + ":" + annotation.group();
+        // 生成唯一键，包括接口类型和版本、分组、序列化方式、超时信息
+        String proxyKey = interfaceType.getName() + ":" + annotation.version() + ":" + annotation.group()
+                + ":" + annotation.serializer() + ":" + annotation.timeout();
 
         // 检查缓存
         return proxyCache.computeIfAbsent(proxyKey, key -> {
@@ -105,7 +106,8 @@ public class RpcReferenceBeanPostProcessor implements BeanPostProcessor {
                     annotation.group(), annotation.timeout());
 
             // 调用ClientProxyFactory创建代理
-            return clientProxyFactory.getProxy(interfaceType, annotation.version(), annotation.group());
+            return clientProxyFactory.getProxy(interfaceType, annotation.version(), annotation.group(),
+                    annotation.serializer(), annotation.timeout());
         });
     }
 }
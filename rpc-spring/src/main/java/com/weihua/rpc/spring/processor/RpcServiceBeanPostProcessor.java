@@ -62,6 +62,8 @@ public class RpcServiceBeanPostProcessor implements BeanPostProcessor {
         try {
             // 将服务注册到ServiceProvider
             serviceProvider.registerService(interfaceClass, bean);
+            serviceProvider.setServiceSerializer(interfaceClass, rpcService.serializer());
+            serviceProvider.setServiceKryoReferences(interfaceClass, rpcService.kryoReferences());
 
             // 将服务接口上的@RpcService注解应用到具体方法
             applyServiceAnnotations(interfaceClass, bean.getClass());